@@ -0,0 +1,34 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+
+package org.eclipse.papyrus.sirius.editor.sirius;
+
+import org.eclipse.sirius.business.api.session.Session;
+
+/**
+ * Listener notified when the {@link ISiriusSessionService} of a model is disposed, to release the data kept for its
+ * Sirius {@link Session}.
+ */
+@FunctionalInterface
+public interface ISiriusSessionDisposeListener {
+
+	/**
+	 * Notify the disposal of the service owning a Sirius Session.
+	 *
+	 * @param session
+	 *            the Sirius Session of the disposed service
+	 */
+	public void sessionDisposed(final Session session);
+}
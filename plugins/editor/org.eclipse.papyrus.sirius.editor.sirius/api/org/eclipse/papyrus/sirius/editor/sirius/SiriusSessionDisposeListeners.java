@@ -0,0 +1,75 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+
+package org.eclipse.papyrus.sirius.editor.sirius;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.sirius.business.api.session.Session;
+
+/**
+ * The registered {@link ISiriusSessionDisposeListener}, notified by the {@link ISiriusSessionService} when it is
+ * disposed.
+ */
+public final class SiriusSessionDisposeListeners {
+
+	/** The registered listeners. */
+	private static final List<ISiriusSessionDisposeListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Constructor.
+	 */
+	private SiriusSessionDisposeListeners() {
+		// static methods only
+	}
+
+	/**
+	 * Register a listener, once.
+	 *
+	 * @param listener
+	 *            the listener to register
+	 */
+	public static void addListener(final ISiriusSessionDisposeListener listener) {
+		LISTENERS.remove(listener);
+		LISTENERS.add(listener);
+	}
+
+	/**
+	 * Unregister a listener.
+	 *
+	 * @param listener
+	 *            the listener to unregister
+	 */
+	public static void removeListener(final ISiriusSessionDisposeListener listener) {
+		LISTENERS.remove(listener);
+	}
+
+	/**
+	 * Notify the registered listeners of the disposal of the service owning a Sirius Session.
+	 *
+	 * @param session
+	 *            the Sirius Session of the disposed service
+	 */
+	public static void fireSessionDisposed(final Session session) {
+		for (final ISiriusSessionDisposeListener listener : LISTENERS) {
+			try {
+				listener.sessionDisposed(session);
+			} catch (final RuntimeException e) {
+				Activator.log.error(e);
+			}
+		}
+	}
+}
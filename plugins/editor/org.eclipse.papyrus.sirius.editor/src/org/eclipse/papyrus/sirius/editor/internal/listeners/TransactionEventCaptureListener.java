@@ -0,0 +1,286 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+
+package org.eclipse.papyrus.sirius.editor.internal.listeners;
+
+import java.util.Collection;
+import java.util.EventObject;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.emf.common.command.Command;
+import org.eclipse.emf.common.command.CommandStackListener;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.transaction.NotificationFilter;
+import org.eclipse.emf.transaction.ResourceSetChangeEvent;
+import org.eclipse.emf.transaction.ResourceSetListenerImpl;
+import org.eclipse.emf.transaction.Transaction;
+import org.eclipse.emf.transaction.TransactionalEditingDomain;
+import org.eclipse.papyrus.sirius.log.capture.EventCapture;
+
+/**
+ * This listener turns each transaction committed in the editing domain into a single captured event, carrying the
+ * label of the executed command, the types of the affected elements and the number of added, removed and changed values.
+ *
+ * The listener only keeps a reference to the notifications of the transaction on the commit path: the event is
+ * computed and recorded by a background thread, so that a transaction with thousands of changes costs one event.
+ */
+public class TransactionEventCaptureListener extends ResourceSetListenerImpl implements CommandStackListener {
+
+	/**
+	 * The system property enabling this listener (<code>true</code>), disabled by default.
+	 */
+	public static final String ENABLED_PROPERTY = "org.eclipse.papyrus.sirius.editor.capture.transactions"; //$NON-NLS-1$
+
+	/**
+	 * The activity of a transaction which is not done by a command.
+	 */
+	public static final String TRANSACTION_ACTIVITY = "Transaction"; //$NON-NLS-1$
+
+	/**
+	 * The activity of an undo or redo transaction.
+	 */
+	public static final String UNDO_REDO_ACTIVITY = "Undo/Redo"; //$NON-NLS-1$
+
+	/**
+	 * The maximal number of transactions waiting to be recorded. The next ones are dropped, like the captured events when the capture buffer is full.
+	 */
+	private static final int MAX_PENDING_TRANSACTIONS = 1024;
+
+	/**
+	 * The executor computing the events, shared by all the editing domains. Its thread stops when it is idle.
+	 */
+	private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+	/**
+	 * the listened editing domain
+	 */
+	private final TransactionalEditingDomain editingDomain;
+
+	/**
+	 * the identifier of the trace of the events: the URI of the edited model
+	 */
+	private final String traceId;
+
+	/**
+	 * the notifications of the last committed transaction, waiting for the label of its command
+	 */
+	private final AtomicReference<List<Notification>> pendingNotifications = new AtomicReference<>();
+
+	/**
+	 *
+	 * Constructor.
+	 *
+	 * @param editingDomain
+	 *            the listened editing domain
+	 * @param traceId
+	 *            the identifier of the trace of the events
+	 */
+	public TransactionEventCaptureListener(final TransactionalEditingDomain editingDomain, final String traceId) {
+		super(NotificationFilter.NOT_TOUCH);
+		this.editingDomain = editingDomain;
+		this.traceId = traceId;
+	}
+
+	/**
+	 *
+	 * @return
+	 *         <code>true</code> if the listener has been enabled with the {@link #ENABLED_PROPERTY} system property and the capture is enabled
+	 */
+	public static boolean isEnabled() {
+		return Boolean.getBoolean(ENABLED_PROPERTY) && EventCapture.getDefault().isEnabled();
+	}
+
+	/**
+	 * Start listening the editing domain and its command stack.
+	 */
+	public void install() {
+		this.editingDomain.addResourceSetListener(this);
+		this.editingDomain.getCommandStack().addCommandStackListener(this);
+	}
+
+	/**
+	 * Stop listening the editing domain, recording the last pending transaction.
+	 */
+	public void uninstall() {
+		this.editingDomain.getCommandStack().removeCommandStackListener(this);
+		this.editingDomain.removeResourceSetListener(this);
+		submit(this.pendingNotifications.getAndSet(null), TRANSACTION_ACTIVITY);
+	}
+
+	/**
+	 * @see org.eclipse.emf.transaction.ResourceSetListenerImpl#isPostcommitOnly()
+	 *
+	 * @return
+	 */
+	@Override
+	public boolean isPostcommitOnly() {
+		return true;
+	}
+
+	/**
+	 * The command stack notifies its listeners after the commit of the transaction of the command, so the notifications are kept until
+	 * {@link #commandStackChanged(EventObject)} gives their label.
+	 *
+	 * @see org.eclipse.emf.transaction.ResourceSetListenerImpl#resourceSetChanged(org.eclipse.emf.transaction.ResourceSetChangeEvent)
+	 *
+	 * @param event
+	 */
+	@Override
+	public void resourceSetChanged(final ResourceSetChangeEvent event) {
+		final List<Notification> notifications = event.getNotifications();
+		if (notifications.isEmpty()) {
+			return;
+		}
+		final Transaction transaction = event.getTransaction();
+		if (transaction != null && Boolean.TRUE.equals(transaction.getOptions().get(Transaction.OPTION_IS_UNDO_REDO_TRANSACTION))) {
+			submit(notifications, UNDO_REDO_ACTIVITY);
+			return;
+		}
+		// the previous transaction has not been done by a command
+		submit(this.pendingNotifications.getAndSet(notifications), TRANSACTION_ACTIVITY);
+	}
+
+	/**
+	 * @see org.eclipse.emf.common.command.CommandStackListener#commandStackChanged(java.util.EventObject)
+	 *
+	 * @param event
+	 */
+	@Override
+	public void commandStackChanged(final EventObject event) {
+		final List<Notification> notifications = this.pendingNotifications.getAndSet(null);
+		if (notifications == null) {
+			return;
+		}
+		final Command command = this.editingDomain.getCommandStack().getMostRecentCommand();
+		final String label = command != null ? command.getLabel() : null;
+		submit(notifications, label != null && !label.isEmpty() ? label : TRANSACTION_ACTIVITY);
+	}
+
+	/**
+	 * Ask the background thread to record the event of a transaction.
+	 *
+	 * @param notifications
+	 *            the notifications of the transaction, can be <code>null</code>
+	 * @param activity
+	 *            the activity of the event
+	 */
+	private void submit(final List<Notification> notifications, final String activity) {
+		if (notifications == null) {
+			return;
+		}
+		try {
+			EXECUTOR.execute(() -> record(notifications, activity));
+		} catch (RejectedExecutionException e) {
+			// the background thread is late: the transaction is dropped
+		}
+	}
+
+	/**
+	 * Record the event of a transaction.
+	 *
+	 * @param notifications
+	 *            the notifications of the transaction
+	 * @param activity
+	 *            the activity of the event
+	 */
+	private void record(final List<Notification> notifications, final String activity) {
+		final Set<String> elementTypes = new TreeSet<>();
+		int added = 0;
+		int removed = 0;
+		int changed = 0;
+		for (final Notification notification : notifications) {
+			if (notification.getNotifier() instanceof EObject) {
+				elementTypes.add(((EObject) notification.getNotifier()).eClass().getName());
+			}
+			switch (notification.getEventType()) {
+			case Notification.ADD:
+				added++;
+				addElementType(elementTypes, notification.getNewValue());
+				break;
+			case Notification.ADD_MANY:
+				added += size(notification.getNewValue());
+				addElementTypes(elementTypes, notification.getNewValue());
+				break;
+			case Notification.REMOVE:
+				removed++;
+				addElementType(elementTypes, notification.getOldValue());
+				break;
+			case Notification.REMOVE_MANY:
+				removed += size(notification.getOldValue());
+				addElementTypes(elementTypes, notification.getOldValue());
+				break;
+			case Notification.SET:
+			case Notification.UNSET:
+			case Notification.MOVE:
+				changed++;
+				break;
+			default:
+				break;
+			}
+		}
+		final String details = "added=" + added + " removed=" + removed + " changed=" + changed; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		EventCapture.getDefault().record(this.traceId, null, activity, elementTypes.isEmpty() ? null : String.join(" ", elementTypes), null, null, details); //$NON-NLS-1$
+	}
+
+	/**
+	 * Add the type of a value, if it is an element.
+	 */
+	private static void addElementType(final Set<String> elementTypes, final Object value) {
+		if (value instanceof EObject) {
+			elementTypes.add(((EObject) value).eClass().getName());
+		}
+	}
+
+	/**
+	 * Add the types of the elements of a collection.
+	 */
+	private static void addElementTypes(final Set<String> elementTypes, final Object values) {
+		if (values instanceof Collection<?>) {
+			for (final Object value : (Collection<?>) values) {
+				addElementType(elementTypes, value);
+			}
+		}
+	}
+
+	/**
+	 * @return
+	 *         the size of the collection, 1 if the value is not a collection
+	 */
+	private static int size(final Object values) {
+		return values instanceof Collection<?> ? ((Collection<?>) values).size() : 1;
+	}
+
+	/**
+	 * @return
+	 *         the executor computing the events
+	 */
+	private static ThreadPoolExecutor createExecutor() {
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(MAX_PENDING_TRANSACTIONS), runnable -> {
+			final Thread thread = new Thread(runnable, "Papyrus Sirius Transaction Capture"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+}
@@ -39,11 +39,13 @@ import org.eclipse.papyrus.infra.core.utils.ServiceUtils;
 import org.eclipse.papyrus.infra.emf.gmf.util.GMFUnsafe;
 import org.eclipse.papyrus.sirius.editor.Activator;
 import org.eclipse.papyrus.sirius.editor.internal.listeners.SiriusArchitectureDescriptionAdapter;
+import org.eclipse.papyrus.sirius.editor.internal.listeners.TransactionEventCaptureListener;
 import org.eclipse.papyrus.sirius.editor.internal.runnables.RegisterSemanticResourceRunnable;
 import org.eclipse.papyrus.sirius.editor.internal.runnables.UpdateSiriusViewpointRunnable;
 import org.eclipse.papyrus.sirius.editor.modelresource.SiriusDiagramModel;
 import org.eclipse.papyrus.sirius.editor.representation.SiriusDiagramPrototype;
 import org.eclipse.papyrus.sirius.editor.sirius.ISiriusSessionService;
+import org.eclipse.papyrus.sirius.editor.sirius.SiriusSessionDisposeListeners;
 import org.eclipse.papyrus.uml.tools.model.UmlModel;
 import org.eclipse.sirius.business.api.dialect.DialectManager;
 import org.eclipse.sirius.business.api.session.DefaultLocalSessionCreationOperation;
@@ -93,6 +95,11 @@ public class SessionService implements ISiriusSessionService, ISiriusSessionView
 	 */
 	private Adapter semanticResourceListener;
 
+	/**
+	 * this optional listener records the committed transactions as captured events
+	 */
+	private TransactionEventCaptureListener transactionCaptureListener;
+
 	/**
 	 * 
 	 * Constructor.
@@ -138,6 +145,11 @@ public class SessionService implements ISiriusSessionService, ISiriusSessionView
 
 		this.architectureListener = new SiriusArchitectureDescriptionAdapter(this);
 		ArchitectureDescriptionAdapterUtils.registerListener(this.modelSet, this.architectureListener);
+
+		if (TransactionEventCaptureListener.isEnabled()) {
+			this.transactionCaptureListener = new TransactionEventCaptureListener(this.editingDomain, this.modelSet.getURIWithoutExtension().toString());
+			this.transactionCaptureListener.install();
+		}
 	}
 
 	/**
@@ -151,6 +163,13 @@ public class SessionService implements ISiriusSessionService, ISiriusSessionView
 		if (this.architectureListener != null) {
 			ArchitectureDescriptionAdapterUtils.unregisterListener(this.modelSet, this.architectureListener);
 		}
+		if (this.transactionCaptureListener != null) {
+			this.transactionCaptureListener.uninstall();
+			this.transactionCaptureListener = null;
+		}
+		if (this.createdSession != null) {
+			SiriusSessionDisposeListeners.fireSessionDisposed(this.createdSession);
+		}
 		this.servicesRegistry = null;
 		this.editingDomain = null;
 		this.modelSet = null;
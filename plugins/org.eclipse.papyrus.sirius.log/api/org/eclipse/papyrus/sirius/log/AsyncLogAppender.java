@@ -0,0 +1,298 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.papyrus.sirius.log.internal.Activator;
+import org.osgi.framework.Bundle;
+
+/**
+ * An appender writing the statuses and trace messages of the {@link LogHelper}s from a background thread, so that
+ * the callers (often the UI thread) don't wait for the log file.
+ *
+ * The entries are queued in a bounded queue and written by batches. When the queue is full, the entry is dropped or
+ * the caller waits, according to the {@link OverflowPolicy}. The dropped entries are counted and reported in the log.
+ */
+public final class AsyncLogAppender {
+
+	/**
+	 * The behavior when the queue is full.
+	 */
+	public enum OverflowPolicy {
+		/** The entry is dropped. */
+		DROP,
+		/** The caller waits for a free place in the queue. */
+		BLOCK
+	}
+
+	/** The default capacity of the queue. */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	/** The maximal number of entries written in a batch. */
+	private static final int MAX_BATCH_SIZE = 256;
+
+	/** The name of the writer thread. */
+	private static final String THREAD_NAME = "Papyrus Sirius Log Appender"; //$NON-NLS-1$
+
+	/**
+	 * A queued entry: a status to log in the log of a bundle, or a trace message to print.
+	 */
+	private static final class Entry {
+
+		private final Bundle bundle;
+
+		private final IStatus status;
+
+		private final String trace;
+
+		private Entry(final Bundle bundle, final IStatus status, final String trace) {
+			this.bundle = bundle;
+			this.status = status;
+			this.trace = trace;
+		}
+	}
+
+	/** The marker entry queued by {@link #shutdown(long)} to stop the writer thread. */
+	private static final Entry STOP = new Entry(null, null, null);
+
+	/** The queued entries. */
+	private final BlockingQueue<Entry> queue;
+
+	/** The behavior when the queue is full. */
+	private final OverflowPolicy policy;
+
+	/** The number of dropped entries. */
+	private final AtomicLong dropped = new AtomicLong();
+
+	/** The number of entries queued, used by {@link #flush(long)}. */
+	private final AtomicLong queued = new AtomicLong();
+
+	/** The number of entries written, used by {@link #flush(long)}. */
+	private final AtomicLong written = new AtomicLong();
+
+	/** The writer thread. */
+	private final Thread writer;
+
+	/** <code>false</code> once {@link #shutdown(long)} has been called. */
+	private volatile boolean running = true;
+
+	/**
+	 * Constructor. The writer thread is started immediately.
+	 *
+	 * @param capacity
+	 *            the capacity of the queue
+	 * @param policy
+	 *            the behavior when the queue is full
+	 */
+	public AsyncLogAppender(final int capacity, final OverflowPolicy policy) {
+		this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+		this.policy = policy != null ? policy : OverflowPolicy.DROP;
+		this.writer = new Thread(this::run, THREAD_NAME);
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	/**
+	 * Queue a status.
+	 *
+	 * @param bundle
+	 *            the bundle in the log of which the status is written
+	 * @param status
+	 *            the status
+	 * @return
+	 *         <code>false</code> if the appender has been shut down, the caller must then log the status itself
+	 */
+	public boolean log(final Bundle bundle, final IStatus status) {
+		return enqueue(new Entry(bundle, status, null));
+	}
+
+	/**
+	 * Queue a trace message.
+	 *
+	 * @param message
+	 *            the formatted message, including its line separator
+	 * @return
+	 *         <code>false</code> if the appender has been shut down, the caller must then print the message itself
+	 */
+	public boolean trace(final String message) {
+		return enqueue(new Entry(null, null, message));
+	}
+
+	/**
+	 * @return
+	 *         the number of entries dropped since the creation of this appender
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * Wait for the entries queued before this call to be written.
+	 *
+	 * @param timeoutMillis
+	 *            the maximal time to wait, in milliseconds
+	 * @return
+	 *         <code>true</code> if the entries have been written
+	 */
+	public boolean flush(final long timeoutMillis) {
+		final long target = queued.get();
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		while (written.get() < target) {
+			if (!writer.isAlive() || System.nanoTime() > deadline) {
+				return false;
+			}
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Stop accepting entries, write the queued ones and stop the writer thread.
+	 *
+	 * @param timeoutMillis
+	 *            the maximal time to wait for the queued entries to be written, in milliseconds
+	 */
+	public void shutdown(final long timeoutMillis) {
+		if (!running) {
+			return;
+		}
+		running = false;
+		try {
+			// the writer thread stops once it reaches the marker, after the queued entries
+			if (queue.offer(STOP, timeoutMillis, TimeUnit.MILLISECONDS)) {
+				writer.join(timeoutMillis);
+			} else {
+				writer.interrupt();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Queue an entry according to the overflow policy.
+	 */
+	private boolean enqueue(final Entry entry) {
+		if (!running) {
+			return false;
+		}
+		boolean accepted;
+		if (policy == OverflowPolicy.BLOCK && Thread.currentThread() != writer) {
+			try {
+				queue.put(entry);
+				accepted = true;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				accepted = false;
+			}
+		} else {
+			accepted = queue.offer(entry);
+		}
+		if (accepted) {
+			queued.incrementAndGet();
+		} else {
+			dropped.incrementAndGet();
+		}
+		return true;
+	}
+
+	/**
+	 * The loop of the writer thread.
+	 */
+	private void run() {
+		final List<Entry> batch = new ArrayList<>(MAX_BATCH_SIZE);
+		long reportedDrops = 0;
+		boolean stop = false;
+		while (!stop) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				// shutdown timed out: write what is already queued and leave
+				stop = true;
+			}
+			queue.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+			stop |= writeBatch(batch);
+			batch.clear();
+
+			final long drops = dropped.get();
+			if (drops != reportedDrops) {
+				final IStatus status = new Status(IStatus.WARNING, Activator.PLUGIN_ID, (drops - reportedDrops) + " log entries have been dropped because the log queue was full"); //$NON-NLS-1$
+				try {
+					Platform.getLog(AsyncLogAppender.class).log(status);
+				} catch (RuntimeException e) {
+					// the log of this bundle is not available anymore (the bundle has been stopped)
+					System.err.println(status);
+				}
+				reportedDrops = drops;
+			}
+		}
+		// entries queued by a concurrent caller before the shutdown has been noticed
+		queue.drainTo(batch);
+		writeBatch(batch);
+	}
+
+	/**
+	 * Write a batch of entries, the trace messages being printed at once.
+	 *
+	 * @return
+	 *         <code>true</code> if the batch contains the {@link #STOP} marker
+	 */
+	private boolean writeBatch(final List<Entry> batch) {
+		boolean stop = false;
+		final StringBuilder traces = new StringBuilder();
+		for (final Entry entry : batch) {
+			if (entry == STOP) {
+				stop = true;
+			} else {
+				write(entry, traces);
+				written.incrementAndGet();
+			}
+		}
+		if (traces.length() > 0) {
+			System.out.print(traces);
+		}
+		return stop;
+	}
+
+	/**
+	 * Write an entry, the trace messages being appended to the given builder.
+	 */
+	private static void write(final Entry entry, final StringBuilder traces) {
+		if (entry.trace != null) {
+			traces.append(entry.trace);
+			return;
+		}
+		try {
+			Platform.getLog(entry.bundle).log(entry.status);
+		} catch (RuntimeException e) {
+			// the log of the bundle is not available anymore (the bundle has been stopped)
+			System.err.println(entry.status);
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log;
+
+import java.lang.StackWalker.StackFrame;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Finds the method calling an instrumented code for 1 call in N, so that the cost of walking the stack is only paid
+ * for a sample of the calls.
+ *
+ * Only the frames up to the caller are walked, without building the full stack trace.
+ */
+public final class CallerSampler {
+
+	/** The walker of the stack. */
+	private static final StackWalker WALKER = StackWalker.getInstance();
+
+	/** The empty list of class names. */
+	private static final String[] NO_CLASS_NAMES = new String[0];
+
+	/** The rate of the sampling: 1 call in <code>rate</code>, 0 if disabled. */
+	private final int rate;
+
+	/** The names of the classes whose frames are always skipped, in addition to the instrumented ones. */
+	private final String[] skippedClassNames;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param rate
+	 *            the rate of the sampling: the caller is found for 1 call in <code>rate</code>, 0 (or less) to disable the sampling
+	 */
+	public CallerSampler(final int rate) {
+		this(rate, NO_CLASS_NAMES);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param rate
+	 *            the rate of the sampling: the caller is found for 1 call in <code>rate</code>, 0 (or less) to disable the sampling
+	 * @param skippedClassNames
+	 *            the names of the classes whose frames are always skipped, typically the class delegating to this sampler
+	 */
+	public CallerSampler(final int rate, final String... skippedClassNames) {
+		this.rate = Math.max(0, rate);
+		this.skippedClassNames = skippedClassNames != null ? skippedClassNames.clone() : NO_CLASS_NAMES;
+	}
+
+	/**
+	 * @return
+	 *         <code>true</code> if the sampling is enabled
+	 */
+	public boolean isEnabled() {
+		return rate > 0;
+	}
+
+	/**
+	 * Find the caller of the instrumented code, if the current call is sampled.
+	 *
+	 * @param instrumentedClassNames
+	 *            the names of the classes of the instrumented code, whose frames are skipped
+	 * @return
+	 *         the caller as <code>class.method</code>, or <code>null</code> if the call is not sampled
+	 */
+	public String sample(final String... instrumentedClassNames) {
+		if (rate == 0 || (rate > 1 && ThreadLocalRandom.current().nextInt(rate) != 0)) {
+			return null;
+		}
+		return findCaller(skippedClassNames, instrumentedClassNames);
+	}
+
+	/**
+	 * Find the caller of the instrumented code.
+	 *
+	 * @param instrumentedClassNames
+	 *            the names of the classes of the instrumented code, whose frames are skipped
+	 * @return
+	 *         the caller as <code>class.method</code>, or <code>null</code> if not found
+	 */
+	public static String getCaller(final String... instrumentedClassNames) {
+		return findCaller(NO_CLASS_NAMES, instrumentedClassNames);
+	}
+
+	/**
+	 * Find the first frame which belongs neither to this class nor to the given classes.
+	 *
+	 * @param skippedClassNames
+	 *            the names of the classes always skipped
+	 * @param instrumentedClassNames
+	 *            the names of the classes of the instrumented code
+	 * @return
+	 *         the caller as <code>class.method</code>, or <code>null</code> if not found
+	 */
+	private static String findCaller(final String[] skippedClassNames, final String[] instrumentedClassNames) {
+		final Optional<StackFrame> caller = WALKER.walk(frames -> frames
+				.filter(frame -> !isSkipped(frame.getClassName(), skippedClassNames, instrumentedClassNames))
+				.findFirst());
+		return caller.map(frame -> frame.getClassName() + '.' + frame.getMethodName()).orElse(null);
+	}
+
+	/**
+	 * @return
+	 *         <code>true</code> if the frame of the given class must be skipped
+	 */
+	private static boolean isSkipped(final String className, final String[] skippedClassNames, final String[] instrumentedClassNames) {
+		return className.equals(CallerSampler.class.getName())
+				|| contains(skippedClassNames, className)
+				|| (instrumentedClassNames != null && contains(instrumentedClassNames, className));
+	}
+
+	/**
+	 * @return
+	 *         <code>true</code> if the given class name belongs to the given names
+	 */
+	private static boolean contains(final String[] classNames, final String className) {
+		for (final String candidate : classNames) {
+			if (className.equals(candidate)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -16,15 +16,24 @@
 package org.eclipse.papyrus.sirius.log;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.osgi.service.debug.DebugOptions;
+import org.eclipse.osgi.service.debug.DebugOptionsListener;
+import org.eclipse.osgi.util.NLS;
 import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
 
 /**
  * A Log Helper.
@@ -40,8 +49,23 @@ public class LogHelper {
 	/** The plugin related to that helper. */
 	private Bundle bundle;
 
-	private boolean tracing;
-	private Map<String, Boolean> traceOptions;
+	/** The prefix of the tracing options of the bundle. */
+	private String traceOptionPrefix;
+
+	private volatile boolean tracing;
+	private final Map<String, Boolean> traceOptions = new ConcurrentHashMap<>(32, 0.75f, 4);
+
+	/** The handles given by {@link #getTraceOption(String)}, refreshed when the debug options change. */
+	private final List<TraceOption> traceOptionHandles = new CopyOnWriteArrayList<>();
+
+	/** <code>true</code> once the listener of the debug options has been registered. */
+	private boolean debugOptionsListenerRegistered;
+
+	/** The walker used to find the caller methods. */
+	private static final StackWalker CALLER_WALKER = StackWalker.getInstance();
+
+	/** The appender shared by all the helpers, <code>null</code> to write synchronously. */
+	private static volatile AsyncLogAppender asyncAppender;
 
 	/**
 	 * Default Constructor.
@@ -93,11 +117,74 @@ public class LogHelper {
 	public void setBundle(Bundle bundle) {
 		this.pluginId = bundle.getSymbolicName();
 		this.bundle = bundle;
+		this.traceOptionPrefix = pluginId + "/debug/"; //$NON-NLS-1$
+		this.debugOptionsListenerRegistered = false;
+		refreshTraceOptions();
+	}
 
-		this.tracing = Boolean.getBoolean(Platform.getDebugOption(String.format("%s/debug", pluginId))); //$NON-NLS-1$
-		if (tracing) {
-			this.traceOptions = new ConcurrentHashMap<>(32, 0.75f, 4);
+	/**
+	 * Resolve the tracing options again, after a change of the debug options.
+	 */
+	private void refreshTraceOptions() {
+		this.traceOptions.clear();
+		this.tracing = Boolean.parseBoolean(Platform.getDebugOption(pluginId + "/debug")); //$NON-NLS-1$
+		for (final TraceOption handle : traceOptionHandles) {
+			handle.refresh();
+		}
+	}
+
+	/**
+	 * Listen the changes of the debug options of the bundle, so that the {@link TraceOption}s follow them.
+	 */
+	private synchronized void registerDebugOptionsListener() {
+		if (debugOptionsListenerRegistered || bundle == null) {
+			return;
+		}
+		final BundleContext context = bundle.getBundleContext();
+		if (context == null) {
+			// the bundle is not active: the options are only resolved once
+			return;
+		}
+		final Dictionary<String, Object> properties = new Hashtable<>();
+		properties.put(DebugOptions.LISTENER_SYMBOLICNAME, pluginId);
+		final DebugOptionsListener listener = options -> refreshTraceOptions();
+		context.registerService(DebugOptionsListener.class, listener, properties);
+		debugOptionsListenerRegistered = true;
+	}
+
+	/**
+	 * Obtains a handle on a tracing option. The handle is resolved again when the debug options change, so it can be
+	 * kept in a static field and checked in hot loops at the cost of a volatile read.
+	 *
+	 * @param option
+	 *            a tracing option, without the <tt>{@literal <bundle-id>/debug/}</tt> path prefix
+	 * @return
+	 *         the handle on the option
+	 */
+	public TraceOption getTraceOption(String option) {
+		for (final TraceOption handle : traceOptionHandles) {
+			if (handle.getOption().equals(option)) {
+				return handle;
+			}
 		}
+		final TraceOption handle = new TraceOption(this, option);
+		traceOptionHandles.add(handle);
+		registerDebugOptionsListener();
+		return handle;
+	}
+
+	/**
+	 * Set the appender used by all the helpers to write the statuses and the trace messages from a background thread.
+	 *
+	 * @param appender
+	 *            the appender, or <code>null</code> to write synchronously in the calling thread
+	 * @return
+	 *         the previous appender, that the caller should shut down
+	 */
+	public static AsyncLogAppender setAsyncAppender(AsyncLogAppender appender) {
+		final AsyncLogAppender previous = asyncAppender;
+		asyncAppender = appender;
+		return previous;
 	}
 
 	/**
@@ -122,6 +209,32 @@ public class LogHelper {
 		}
 	}
 
+	/**
+	 * Log a debug message built only if debug is enabled.
+	 *
+	 * @param message
+	 *            the supplier of the message to log
+	 */
+	public void debug(Supplier<String> message) {
+		if (isDebugEnabled()) {
+			log("[DEBUG] " + message.get(), IStatus.INFO); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Log a debug message formatted only if debug is enabled.
+	 *
+	 * @param template
+	 *            the template of the message, see {@link NLS#bind(String, Object[])}
+	 * @param arguments
+	 *            the arguments of the template
+	 */
+	public void debug(String template, Object... arguments) {
+		if (isDebugEnabled()) {
+			log("[DEBUG] " + NLS.bind(template, arguments), IStatus.INFO); //$NON-NLS-1$
+		}
+	}
+
 	/**
 	 * Test if the platform is in debug mode.
 	 *
@@ -147,17 +260,12 @@ public class LogHelper {
 	 */
 	public boolean isTraceEnabled(String option) {
 		if (tracing) {
-			final String key = String.format("%s/debug/%s", pluginId, option); //$NON-NLS-1$
-			Boolean result;
-
-			synchronized (traceOptions) {
-				result = traceOptions.get(key);
-				if (result == null) {
-					result = Boolean.valueOf(Platform.getDebugOption(key));
-					traceOptions.put(key, result);
-				}
+			// the options are cached by their short name, so that a lookup doesn't build the key
+			Boolean result = traceOptions.get(option);
+			if (result == null) {
+				result = Boolean.valueOf(Platform.getDebugOption(traceOptionPrefix + option));
+				traceOptions.put(option, result);
 			}
-
 			return result.booleanValue();
 		}
 
@@ -176,7 +284,57 @@ public class LogHelper {
 	 */
 	public void trace(String option, String message) {
 		if (isTraceEnabled(option)) {
-			System.out.printf("[TRACE:%s] %s%n", option, message); //$NON-NLS-1$
+			printTrace(option, message);
+		}
+	}
+
+	/**
+	 * Prints the trace {@code message} built by the supplier, if the {@code option} is enabled by the user.
+	 *
+	 * @param option
+	 *            the tracing option, without the <tt>{@literal <bundle-id>/debug/}</tt> path prefix
+	 * @param message
+	 *            the supplier of the message, only called if the option is enabled
+	 *
+	 * @see #getTraceOption(String)
+	 */
+	public void trace(String option, Supplier<String> message) {
+		if (isTraceEnabled(option)) {
+			printTrace(option, message.get());
+		}
+	}
+
+	/**
+	 * Prints the trace message formatted from the {@code template}, if the {@code option} is enabled by the user.
+	 *
+	 * @param option
+	 *            the tracing option, without the <tt>{@literal <bundle-id>/debug/}</tt> path prefix
+	 * @param template
+	 *            the template of the message, see {@link NLS#bind(String, Object[])}
+	 * @param arguments
+	 *            the arguments of the template
+	 *
+	 * @see #getTraceOption(String)
+	 */
+	public void trace(String option, String template, Object... arguments) {
+		if (isTraceEnabled(option)) {
+			printTrace(option, NLS.bind(template, arguments));
+		}
+	}
+
+	/**
+	 * Prints a trace message, without checking its option.
+	 *
+	 * @param option
+	 *            the tracing option
+	 * @param message
+	 *            the message to print
+	 */
+	void printTrace(String option, String message) {
+		final AsyncLogAppender appender = asyncAppender;
+		final String line = "[TRACE:" + option + "] " + message + System.lineSeparator(); //$NON-NLS-1$ //$NON-NLS-2$
+		if (appender == null || !appender.trace(line)) {
+			System.out.print(line);
 		}
 	}
 
@@ -201,7 +359,10 @@ public class LogHelper {
 		if (bundle == null) {
 			// TODO Do log with java ?
 		} else {
-			Platform.getLog(bundle).log(status);
+			final AsyncLogAppender appender = asyncAppender;
+			if (appender == null || !appender.log(bundle, status)) {
+				Platform.getLog(bundle).log(status);
+			}
 		}
 	}
 
@@ -259,7 +420,9 @@ public class LogHelper {
 	 *         stack information (which is a documented possibility)
 	 */
 	public String getCallerMethod() {
-		StackTraceElement[] stack = new Exception().fillInStackTrace().getStackTrace();
-		return ((stack == null) || (stack.length < 3)) ? "<unknown caller>" : stack[2].toString(); //$NON-NLS-1$
+		// only the frames of this method, of my caller and of its caller are walked
+		return CALLER_WALKER.walk(frames -> frames.skip(2).findFirst())
+				.map(frame -> frame.toStackTraceElement().toString())
+				.orElse("<unknown caller>"); //$NON-NLS-1$
 	}
 }
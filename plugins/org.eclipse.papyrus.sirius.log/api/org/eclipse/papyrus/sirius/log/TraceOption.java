@@ -0,0 +1,143 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log;
+
+import java.util.function.Supplier;
+
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * A handle on a tracing option of a {@link LogHelper}, obtained with {@link LogHelper#getTraceOption(String)}.
+ *
+ * The option is resolved once, and resolved again only when the debug options of the bundle change: checking it
+ * costs a single volatile read, so a handle can be kept in a static field and used in hot loops. The messages are
+ * only built when the option is enabled.
+ */
+public final class TraceOption {
+
+	/** The helper printing the messages. */
+	private final LogHelper helper;
+
+	/** The tracing option, without the <tt>{@literal <bundle-id>/debug/}</tt> path prefix. */
+	private final String option;
+
+	/** <code>true</code> if the option is enabled. */
+	private volatile boolean enabled;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param helper
+	 *            the helper printing the messages
+	 * @param option
+	 *            the tracing option, without the <tt>{@literal <bundle-id>/debug/}</tt> path prefix
+	 */
+	TraceOption(final LogHelper helper, final String option) {
+		this.helper = helper;
+		this.option = option;
+		refresh();
+	}
+
+	/**
+	 * Resolve the option again, after a change of the debug options.
+	 */
+	void refresh() {
+		this.enabled = helper.isTraceEnabled(option);
+	}
+
+	/**
+	 * @return
+	 *         the tracing option, without the <tt>{@literal <bundle-id>/debug/}</tt> path prefix
+	 */
+	public String getOption() {
+		return option;
+	}
+
+	/**
+	 * @return
+	 *         whether the tracing option is enabled by the user
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Prints a message, if the option is enabled.
+	 *
+	 * @param message
+	 *            the message
+	 */
+	public void trace(final String message) {
+		if (enabled) {
+			helper.printTrace(option, message);
+		}
+	}
+
+	/**
+	 * Prints a message built only if the option is enabled.
+	 *
+	 * @param message
+	 *            the supplier of the message
+	 */
+	public void trace(final Supplier<String> message) {
+		if (enabled) {
+			helper.printTrace(option, message.get());
+		}
+	}
+
+	/**
+	 * Prints a message formatted only if the option is enabled.
+	 *
+	 * @param template
+	 *            the template of the message, see {@link NLS#bind(String, Object)}
+	 * @param argument
+	 *            the argument of the template
+	 */
+	public void trace(final String template, final Object argument) {
+		if (enabled) {
+			helper.printTrace(option, NLS.bind(template, argument));
+		}
+	}
+
+	/**
+	 * Prints a message formatted only if the option is enabled.
+	 *
+	 * @param template
+	 *            the template of the message, see {@link NLS#bind(String, Object, Object)}
+	 * @param argument1
+	 *            the first argument of the template
+	 * @param argument2
+	 *            the second argument of the template
+	 */
+	public void trace(final String template, final Object argument1, final Object argument2) {
+		if (enabled) {
+			helper.printTrace(option, NLS.bind(template, argument1, argument2));
+		}
+	}
+
+	/**
+	 * Prints a message formatted only if the option is enabled.
+	 *
+	 * @param template
+	 *            the template of the message, see {@link NLS#bind(String, Object[])}
+	 * @param arguments
+	 *            the arguments of the template
+	 */
+	public void trace(final String template, final Object... arguments) {
+		if (enabled) {
+			helper.printTrace(option, NLS.bind(template, arguments));
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.capture;
+
+/**
+ * An editor event captured by {@link EventCapture}.
+ *
+ * Instances are pre-allocated slots of the capture ring buffer and are reused once the event has been
+ * delivered to the {@link IEventSink}s. A sink must copy the values it wants to keep instead of
+ * retaining the event itself.
+ */
+public final class CapturedEvent {
+
+	/** The lifecycle transition of an activity which has been started. */
+	public static final String LIFECYCLE_START = "start"; //$NON-NLS-1$
+
+	/** The lifecycle transition of an activity which has been completed. */
+	public static final String LIFECYCLE_COMPLETE = "complete"; //$NON-NLS-1$
+
+	/** The sequence number of the event in the capture stream. */
+	private long sequence;
+
+	/** The time of the event, in milliseconds since the epoch. */
+	private long timestamp;
+
+	/** The identifier of the trace (the edited model) owning the event. */
+	private String traceId;
+
+	/** The kind of diagram in which the event occurred. */
+	private String diagramKind;
+
+	/** The activity (tool) which has been invoked. */
+	private String activity;
+
+	/** The type of the element on which the activity has been invoked. */
+	private String elementType;
+
+	/** The URI of the element on which the activity has been invoked. */
+	private String elementURI;
+
+	/** The lifecycle transition of the activity. */
+	private String lifecycle;
+
+	/** The free-form details of the event. */
+	private String details;
+
+	/** The method which has invoked the activity, only known for the sampled events. */
+	private String caller;
+
+	/**
+	 * Constructor.
+	 */
+	CapturedEvent() {
+		// only created by the capture ring buffer
+	}
+
+	/**
+	 * Fill this slot with the values of a new event.
+	 */
+	void set(final long sequence, final long timestamp, final String traceId, final String diagramKind, final String activity, final String elementType, final String elementURI, final String lifecycle, final String details, final String caller) {
+		this.sequence = sequence;
+		this.timestamp = timestamp;
+		this.traceId = traceId;
+		this.diagramKind = diagramKind;
+		this.activity = activity;
+		this.elementType = elementType;
+		this.elementURI = elementURI;
+		this.lifecycle = lifecycle;
+		this.details = details;
+		this.caller = caller;
+	}
+
+	/**
+	 * Release the references held by this slot, once it has been delivered.
+	 */
+	void clear() {
+		this.traceId = null;
+		this.diagramKind = null;
+		this.activity = null;
+		this.elementType = null;
+		this.elementURI = null;
+		this.lifecycle = null;
+		this.details = null;
+		this.caller = null;
+	}
+
+	/**
+	 * @return
+	 *         the sequence number of the event in the capture stream
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return
+	 *         the time of the event, in milliseconds since the epoch
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return
+	 *         the identifier of the trace owning the event, never <code>null</code>
+	 */
+	public String getTraceId() {
+		return traceId;
+	}
+
+	/**
+	 * @return
+	 *         the kind of diagram in which the event occurred, or <code>null</code>
+	 */
+	public String getDiagramKind() {
+		return diagramKind;
+	}
+
+	/**
+	 * @return
+	 *         the activity which has been invoked, never <code>null</code>
+	 */
+	public String getActivity() {
+		return activity;
+	}
+
+	/**
+	 * @return
+	 *         the type of the element on which the activity has been invoked, or <code>null</code>
+	 */
+	public String getElementType() {
+		return elementType;
+	}
+
+	/**
+	 * @return
+	 *         the URI of the element on which the activity has been invoked, or <code>null</code>
+	 */
+	public String getElementURI() {
+		return elementURI;
+	}
+
+	/**
+	 * @return
+	 *         the lifecycle transition of the activity, never <code>null</code>
+	 */
+	public String getLifecycle() {
+		return lifecycle;
+	}
+
+	/**
+	 * @return
+	 *         the free-form details of the event (for example the changes done by a transaction), can be <code>null</code>
+	 */
+	public String getDetails() {
+		return details;
+	}
+
+	/**
+	 * @return
+	 *         the method which has invoked the activity, as <code>class.method</code>, <code>null</code> if the event has not been sampled
+	 */
+	public String getCaller() {
+		return caller;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 *
+	 * @return
+	 */
+	@Override
+	public String toString() {
+		return "CapturedEvent[" + sequence + ", " + timestamp + ", " + traceId + ", " + diagramKind + ", " + activity + ", " + elementType + ", " + elementURI + ", " + lifecycle + ", " + details + ", " + caller + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$
+	}
+}
@@ -0,0 +1,378 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.capture;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.papyrus.sirius.log.CallerSampler;
+import org.eclipse.papyrus.sirius.log.internal.Activator;
+
+/**
+ * The entry point of the editor event capture.
+ *
+ * The editor services record the tool invocations with {@link #record(String, String, String, String, String)}.
+ * Recording never blocks and never does I/O: the event is stored in a bounded lock-free ring buffer and the
+ * caller returns immediately. A background thread drains the buffer and delivers the events to the
+ * registered {@link IEventSink}s. When the buffer is full (the sinks are too slow), the new events are dropped.
+ *
+ * The capture is enabled by default, it can be disabled with the system property {@value #ENABLED_PROPERTY}=false.
+ */
+public final class EventCapture {
+
+	/** The system property used to disable the capture. */
+	public static final String ENABLED_PROPERTY = "org.eclipse.papyrus.sirius.log.capture"; //$NON-NLS-1$
+
+	/** The system property used to define the capacity of the capture buffer. */
+	public static final String CAPACITY_PROPERTY = "org.eclipse.papyrus.sirius.log.capture.capacity"; //$NON-NLS-1$
+
+	/**
+	 * The system property defining the rate of the events for which the calling method is captured: 1 event in N.
+	 * The calling method is not captured by default.
+	 */
+	public static final String CALLER_SAMPLING_PROPERTY = "org.eclipse.papyrus.sirius.log.capture.callerSampling"; //$NON-NLS-1$
+
+	/** The trace identifier used when the event has no known trace. */
+	public static final String UNKNOWN_TRACE = "unknown"; //$NON-NLS-1$
+
+	/** The default capacity of the capture buffer. */
+	private static final int DEFAULT_CAPACITY = 8192;
+
+	/** The maximal number of events delivered before checking the end of a batch. */
+	private static final int BATCH_SIZE = 256;
+
+	/** The time to wait for the capture thread on shutdown. */
+	private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+	/** The name of the capture thread. */
+	private static final String THREAD_NAME = "Papyrus Sirius Event Capture"; //$NON-NLS-1$
+
+	/** The shared instance. */
+	private static volatile EventCapture instance;
+
+	/** Whether the capture is enabled. */
+	private final boolean enabled;
+
+	/** The sampler of the calling methods. */
+	private final CallerSampler callerSampler;
+
+	/** The buffer of the captured events. */
+	private final EventRingBuffer buffer;
+
+	/** The registered sinks. */
+	private final List<IEventSink> sinks = new CopyOnWriteArrayList<>();
+
+	/** The thread delivering the events to the sinks, <code>null</code> when the capture is disabled. */
+	private final Thread drainer;
+
+	/** Whether the capture thread must keep running. */
+	private volatile boolean running;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param enabled
+	 *            whether the capture is enabled
+	 * @param capacity
+	 *            the capacity of the capture buffer
+	 * @param callerSamplingRate
+	 *            the rate of the events for which the calling method is captured, 0 to disable it
+	 */
+	private EventCapture(final boolean enabled, final int capacity, final int callerSamplingRate) {
+		this.enabled = enabled;
+		// the frames of the capture itself are not the caller of the instrumented code
+		this.callerSampler = new CallerSampler(callerSamplingRate, EventCapture.class.getName());
+		this.buffer = new EventRingBuffer(enabled ? capacity : 2);
+		if (enabled) {
+			this.running = true;
+			this.drainer = new Thread(this::drainLoop, THREAD_NAME);
+			this.drainer.setDaemon(true);
+			this.drainer.setPriority(Thread.NORM_PRIORITY - 1);
+			this.drainer.start();
+		} else {
+			this.drainer = null;
+		}
+	}
+
+	/**
+	 * @return
+	 *         the shared instance, created on first call
+	 */
+	public static EventCapture getDefault() {
+		EventCapture result = instance;
+		if (result == null) {
+			synchronized (EventCapture.class) {
+				result = instance;
+				if (result == null) {
+					final boolean enabled = !Boolean.FALSE.toString().equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+					result = new EventCapture(enabled, Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY).intValue(),
+							Integer.getInteger(CALLER_SAMPLING_PROPERTY, 0).intValue());
+					instance = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Stop the shared instance, if any: the pending events are delivered and the sinks are closed.
+	 */
+	public static void shutdown() {
+		final EventCapture current;
+		synchronized (EventCapture.class) {
+			current = instance;
+			instance = null;
+		}
+		if (current != null) {
+			current.stop();
+		}
+	}
+
+	/**
+	 * @return
+	 *         <code>true</code> if the events are captured
+	 */
+	public boolean isEnabled() {
+		return enabled && running;
+	}
+
+	/**
+	 * Record a completed activity.
+	 *
+	 * @param traceId
+	 *            the identifier of the trace (the edited model)
+	 * @param diagramKind
+	 *            the kind of diagram, can be <code>null</code>
+	 * @param activity
+	 *            the invoked activity (tool)
+	 * @param elementType
+	 *            the type of the element, can be <code>null</code>
+	 * @param elementURI
+	 *            the URI of the element, can be <code>null</code>
+	 * @return
+	 *         <code>true</code> if the event has been recorded, <code>false</code> if the capture is disabled or the buffer is full
+	 */
+	public boolean record(final String traceId, final String diagramKind, final String activity, final String elementType, final String elementURI) {
+		return record(traceId, diagramKind, activity, elementType, elementURI, CapturedEvent.LIFECYCLE_COMPLETE);
+	}
+
+	/**
+	 * Record an activity lifecycle transition.
+	 *
+	 * @param traceId
+	 *            the identifier of the trace (the edited model)
+	 * @param diagramKind
+	 *            the kind of diagram, can be <code>null</code>
+	 * @param activity
+	 *            the invoked activity (tool)
+	 * @param elementType
+	 *            the type of the element, can be <code>null</code>
+	 * @param elementURI
+	 *            the URI of the element, can be <code>null</code>
+	 * @param lifecycle
+	 *            the lifecycle transition, see {@link CapturedEvent#LIFECYCLE_START} and {@link CapturedEvent#LIFECYCLE_COMPLETE}
+	 * @return
+	 *         <code>true</code> if the event has been recorded, <code>false</code> if the capture is disabled or the buffer is full
+	 */
+	public boolean record(final String traceId, final String diagramKind, final String activity, final String elementType, final String elementURI, final String lifecycle) {
+		return record(traceId, diagramKind, activity, elementType, elementURI, lifecycle, null);
+	}
+
+	/**
+	 * Record an activity lifecycle transition with free-form details.
+	 *
+	 * @param traceId
+	 *            the identifier of the trace (the edited model)
+	 * @param diagramKind
+	 *            the kind of diagram, can be <code>null</code>
+	 * @param activity
+	 *            the invoked activity (tool)
+	 * @param elementType
+	 *            the type of the element, can be <code>null</code>
+	 * @param elementURI
+	 *            the URI of the element, can be <code>null</code>
+	 * @param lifecycle
+	 *            the lifecycle transition, see {@link CapturedEvent#LIFECYCLE_START} and {@link CapturedEvent#LIFECYCLE_COMPLETE}
+	 * @param details
+	 *            the details of the event, can be <code>null</code>
+	 * @return
+	 *         <code>true</code> if the event has been recorded, <code>false</code> if the capture is disabled or the buffer is full
+	 */
+	public boolean record(final String traceId, final String diagramKind, final String activity, final String elementType, final String elementURI, final String lifecycle, final String details) {
+		return record(traceId, diagramKind, activity, elementType, elementURI, lifecycle, details, null);
+	}
+
+	/**
+	 * Record an activity lifecycle transition with free-form details and its calling method.
+	 *
+	 * @param traceId
+	 *            the identifier of the trace (the edited model)
+	 * @param diagramKind
+	 *            the kind of diagram, can be <code>null</code>
+	 * @param activity
+	 *            the invoked activity (tool)
+	 * @param elementType
+	 *            the type of the element, can be <code>null</code>
+	 * @param elementURI
+	 *            the URI of the element, can be <code>null</code>
+	 * @param lifecycle
+	 *            the lifecycle transition, see {@link CapturedEvent#LIFECYCLE_START} and {@link CapturedEvent#LIFECYCLE_COMPLETE}
+	 * @param details
+	 *            the details of the event, can be <code>null</code>
+	 * @param caller
+	 *            the method which has invoked the activity, usually given by {@link #sampleCaller(String...)}, can be <code>null</code>
+	 * @return
+	 *         <code>true</code> if the event has been recorded, <code>false</code> if the capture is disabled or the buffer is full
+	 */
+	public boolean record(final String traceId, final String diagramKind, final String activity, final String elementType, final String elementURI, final String lifecycle, final String details,
+			final String caller) {
+		if (!isEnabled() || activity == null) {
+			return false;
+		}
+		return buffer.publish(System.currentTimeMillis(), traceId != null ? traceId : UNKNOWN_TRACE, diagramKind, activity, elementType, elementURI,
+				lifecycle != null ? lifecycle : CapturedEvent.LIFECYCLE_COMPLETE, details, caller);
+	}
+
+	/**
+	 * Find the method calling the instrumented code, for 1 call in N according to {@link #CALLER_SAMPLING_PROPERTY}.
+	 *
+	 * @param instrumentedClassNames
+	 *            the names of the classes of the instrumented code, whose frames are skipped along with the ones of this class
+	 * @return
+	 *         the caller as <code>class.method</code>, or <code>null</code> if the call is not sampled
+	 */
+	public String sampleCaller(final String... instrumentedClassNames) {
+		return enabled ? callerSampler.sample(instrumentedClassNames) : null;
+	}
+
+	/**
+	 * Register a sink. The sink receives the events recorded from now.
+	 *
+	 * @param sink
+	 *            the sink to register
+	 */
+	public void addSink(final IEventSink sink) {
+		if (sink != null && !sinks.contains(sink)) {
+			sinks.add(sink);
+		}
+	}
+
+	/**
+	 * Unregister a sink. The sink is not closed.
+	 *
+	 * @param sink
+	 *            the sink to unregister
+	 */
+	public void removeSink(final IEventSink sink) {
+		sinks.remove(sink);
+	}
+
+	/**
+	 * @return
+	 *         the number of events dropped because the capture buffer was full
+	 */
+	public long getDroppedCount() {
+		return buffer.getDroppedCount();
+	}
+
+	/**
+	 * The body of the capture thread.
+	 */
+	private void drainLoop() {
+		final IEventSink dispatcher = this::dispatch;
+		boolean pendingBatch = false;
+		while (running) {
+			if (buffer.drain(dispatcher, BATCH_SIZE) > 0) {
+				pendingBatch = true;
+			} else {
+				if (pendingBatch) {
+					endOfBatch();
+					pendingBatch = false;
+				}
+				// woken up by the next recorded event, or by the shutdown
+				buffer.awaitEvents(this);
+			}
+		}
+		// deliver the events recorded before the shutdown
+		while (buffer.drain(dispatcher, BATCH_SIZE) > 0) {
+			// continue
+		}
+		endOfBatch();
+		for (final IEventSink sink : sinks) {
+			try {
+				sink.close();
+			} catch (RuntimeException e) {
+				logError("The event sink can't be closed", e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Deliver an event to all the sinks. A failing sink is unregistered, to avoid flooding the log.
+	 *
+	 * @param event
+	 *            the event to deliver
+	 */
+	private void dispatch(final CapturedEvent event) {
+		for (final IEventSink sink : sinks) {
+			try {
+				sink.accept(event);
+			} catch (RuntimeException e) {
+				sinks.remove(sink);
+				logError("The event sink has failed and has been removed", e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Notify all the sinks of the end of a batch.
+	 */
+	private void endOfBatch() {
+		for (final IEventSink sink : sinks) {
+			try {
+				sink.endOfBatch();
+			} catch (RuntimeException e) {
+				sinks.remove(sink);
+				logError("The event sink has failed and has been removed", e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Stop the capture thread, waiting for the delivery of the pending events.
+	 */
+	private void stop() {
+		if (drainer == null || !running) {
+			return;
+		}
+		running = false;
+		LockSupport.unpark(drainer);
+		try {
+			drainer.join(SHUTDOWN_TIMEOUT_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Log an error, if the bundle is active.
+	 */
+	private static void logError(final String message, final Throwable e) {
+		if (Activator.log != null) {
+			Activator.log.error(message, e);
+		}
+	}
+}
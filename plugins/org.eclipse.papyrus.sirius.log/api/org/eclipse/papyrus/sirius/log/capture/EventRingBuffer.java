@@ -0,0 +1,174 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.capture;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, lock-free, multi-producer / single-consumer ring of pre-allocated {@link CapturedEvent}s.
+ *
+ * Producers claim a sequence number with a CAS on the claim cursor, fill the matching slot, then publish it
+ * by storing its sequence number in the slot's publication marker. The single consumer reads the slots in
+ * sequence order, as long as they are published. When the ring is full, producers never wait: the event
+ * is dropped and counted.
+ *
+ * When the ring is empty, the consumer parks in {@link #awaitEvents()} until a producer publishes a new event:
+ * the consumer announces itself before checking the ring again, and the producers unpark it after publishing.
+ */
+final class EventRingBuffer {
+
+	/** The pre-allocated slots. */
+	private final CapturedEvent[] slots;
+
+	/** For each slot, the sequence number of the event it currently holds, or -1. */
+	private final AtomicLongArray published;
+
+	/** The mask used to compute the slot index of a sequence number. */
+	private final int mask;
+
+	/** The next sequence number to claim. */
+	private final AtomicLong claimCursor = new AtomicLong();
+
+	/** The next sequence number to consume. */
+	private final AtomicLong consumeCursor = new AtomicLong();
+
+	/** The number of events dropped because the ring was full. */
+	private final AtomicLong dropped = new AtomicLong();
+
+	/** The consumer thread parked on the empty ring, <code>null</code> when it is consuming. */
+	private volatile Thread waitingConsumer;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param requestedCapacity
+	 *            the requested capacity, rounded up to the next power of two
+	 */
+	EventRingBuffer(final int requestedCapacity) {
+		final int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+		this.slots = new CapturedEvent[capacity];
+		this.published = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			this.slots[i] = new CapturedEvent();
+			this.published.set(i, -1L);
+		}
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Publish a new event.
+	 *
+	 * @return
+	 *         <code>true</code> if the event has been published, <code>false</code> if it has been dropped
+	 */
+	boolean publish(final long timestamp, final String traceId, final String diagramKind, final String activity, final String elementType, final String elementURI, final String lifecycle, final String details, final String caller) {
+		long sequence;
+		do {
+			sequence = claimCursor.get();
+			if (sequence - consumeCursor.get() >= slots.length) {
+				dropped.incrementAndGet();
+				return false;
+			}
+		} while (!claimCursor.compareAndSet(sequence, sequence + 1));
+
+		final int index = (int) sequence & mask;
+		slots[index].set(sequence, timestamp, traceId, diagramKind, activity, elementType, elementURI, lifecycle, details, caller);
+		// volatile store: the slot content is visible to the consumer once it sees the marker, and the store can't be
+		// reordered with the read of the waiting consumer (otherwise both sides could miss each other)
+		published.set(index, sequence);
+		final Thread consumer = waitingConsumer;
+		if (consumer != null) {
+			LockSupport.unpark(consumer);
+		}
+		return true;
+	}
+
+	/**
+	 * Deliver the published events to the sink. Must only be called by the consumer thread.
+	 *
+	 * @param sink
+	 *            the sink receiving the events, it must not throw exceptions
+	 * @param maxEvents
+	 *            the maximal number of events to deliver
+	 * @return
+	 *         the number of delivered events
+	 */
+	int drain(final IEventSink sink, final int maxEvents) {
+		long next = consumeCursor.get();
+		int count = 0;
+		while (count < maxEvents) {
+			final int index = (int) next & mask;
+			if (published.get(index) != next) {
+				break;
+			}
+			final CapturedEvent event = slots[index];
+			sink.accept(event);
+			event.clear();
+			next++;
+			count++;
+		}
+		if (count > 0) {
+			// frees the slots for the producers
+			consumeCursor.lazySet(next);
+		}
+		return count;
+	}
+
+	/**
+	 * Park the consumer until an event is published, if no published event is waiting to be consumed. Must only be
+	 * called by the consumer thread. The method can return spuriously, or when the consumer thread is unparked.
+	 *
+	 * @param blocker
+	 *            the object responsible for the parking, reported by the thread dumps
+	 */
+	void awaitEvents(final Object blocker) {
+		waitingConsumer = Thread.currentThread();
+		try {
+			// checked after announcing the consumer: a producer publishing from now will unpark it
+			if (isEmpty()) {
+				LockSupport.park(blocker);
+			}
+		} finally {
+			waitingConsumer = null;
+		}
+	}
+
+	/**
+	 * @return
+	 *         <code>true</code> if no published event is waiting to be consumed
+	 */
+	boolean isEmpty() {
+		final long next = consumeCursor.get();
+		return published.get((int) next & mask) != next;
+	}
+
+	/**
+	 * @return
+	 *         the capacity of the ring
+	 */
+	int capacity() {
+		return slots.length;
+	}
+
+	/**
+	 * @return
+	 *         the number of events dropped because the ring was full
+	 */
+	long getDroppedCount() {
+		return dropped.get();
+	}
+}
@@ -0,0 +1,46 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.capture;
+
+/**
+ * A consumer of the events captured by {@link EventCapture}.
+ *
+ * All the methods are called from the capture thread, never from the thread which raised the event.
+ */
+public interface IEventSink {
+
+	/**
+	 * Consume a captured event.
+	 *
+	 * @param event
+	 *            the event; it is reused after this call, so it must not be retained
+	 */
+	void accept(CapturedEvent event);
+
+	/**
+	 * Notify the sink that the events available at this time have all been delivered. This is the right
+	 * place to flush buffered output.
+	 */
+	default void endOfBatch() {
+		// nothing by default
+	}
+
+	/**
+	 * Release the resources of the sink. No event is delivered after this call.
+	 */
+	default void close() {
+		// nothing by default
+	}
+}
@@ -0,0 +1,151 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.capture;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.eclipse.papyrus.sirius.log.internal.Activator;
+
+/**
+ * The retention policy of the trace files written by a sink: the closed files older than the maximal age are deleted,
+ * and only the most recent files are kept when there are more than the maximal number of files.
+ *
+ * The policy is applied by the sink when it opens a new file, on the capture thread. It only considers the files whose
+ * name matches the name pattern of the sink, so that the other files of the folder are never deleted.
+ */
+public final class TraceFileRetention {
+
+	/** The default maximal age of a file before its deletion, in milliseconds: 7 days. */
+	public static final long DEFAULT_MAX_AGE = 7L * 24 * 60 * 60 * 1000;
+
+	/** The default maximal number of files kept in the folder. */
+	public static final int DEFAULT_MAX_FILES = 100;
+
+	/** The maximal age of a file before its deletion, in milliseconds. */
+	private final long maxAge;
+
+	/** The maximal number of files kept in the folder. */
+	private final int maxFiles;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxAge
+	 *            the maximal age of a file before its deletion, in milliseconds, 0 (or less) to keep the files whatever their age
+	 * @param maxFiles
+	 *            the maximal number of files kept in the folder, 0 (or less) to keep the files whatever their number
+	 */
+	public TraceFileRetention(final long maxAge, final int maxFiles) {
+		this.maxAge = maxAge;
+		this.maxFiles = maxFiles;
+	}
+
+	/**
+	 * @return
+	 *         the retention policy with the default maximal age and number of files
+	 */
+	public static TraceFileRetention getDefault() {
+		return new TraceFileRetention(DEFAULT_MAX_AGE, DEFAULT_MAX_FILES);
+	}
+
+	/**
+	 * Delete the files of a folder exceeding the retention policy. The open files are never deleted, but they are counted.
+	 *
+	 * @param folder
+	 *            the folder of the trace files
+	 * @param fileNamePattern
+	 *            the pattern of the names of the trace files written by the sink, the other files are ignored
+	 * @param openFiles
+	 *            the files currently written by the sink
+	 * @param now
+	 *            the current time
+	 * @return
+	 *         the number of deleted files
+	 */
+	public int apply(final Path folder, final Pattern fileNamePattern, final Collection<Path> openFiles, final long now) {
+		if ((maxAge <= 0 && maxFiles <= 0) || !Files.isDirectory(folder)) {
+			return 0;
+		}
+		final List<TraceFile> closedFiles = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, path -> fileNamePattern.matcher(path.getFileName().toString()).matches())) {
+			for (final Path path : stream) {
+				if (!openFiles.contains(path) && Files.isRegularFile(path)) {
+					closedFiles.add(new TraceFile(path, Files.getLastModifiedTime(path).toMillis()));
+				}
+			}
+		} catch (IOException e) {
+			logError("The trace files of " + folder + " can't be listed", e); //$NON-NLS-1$ //$NON-NLS-2$
+			return 0;
+		}
+		// the most recent files first
+		closedFiles.sort(Comparator.comparingLong((TraceFile file) -> file.lastModified).reversed());
+		final int keptClosedFiles = maxFiles > 0 ? Math.max(0, maxFiles - openFiles.size()) : Integer.MAX_VALUE;
+		int deleted = 0;
+		for (int i = 0; i < closedFiles.size(); i++) {
+			final TraceFile file = closedFiles.get(i);
+			if (i >= keptClosedFiles || (maxAge > 0 && now - file.lastModified > maxAge)) {
+				try {
+					Files.deleteIfExists(file.path);
+					deleted++;
+				} catch (IOException e) {
+					logError("The trace file " + file.path + " can't be deleted", e); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
+		}
+		return deleted;
+	}
+
+	/**
+	 * Log an error, if the bundle is active.
+	 */
+	private static void logError(final String message, final Throwable e) {
+		if (Activator.log != null) {
+			Activator.log.error(message, e);
+		}
+	}
+
+	/**
+	 * A closed trace file.
+	 */
+	private static final class TraceFile {
+
+		/** The path of the file. */
+		private final Path path;
+
+		/** The time of the last modification of the file. */
+		private final long lastModified;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param path
+		 *            the path of the file
+		 * @param lastModified
+		 *            the time of the last modification of the file
+		 */
+		private TraceFile(final Path path, final long lastModified) {
+			this.path = path;
+			this.lastModified = lastModified;
+		}
+	}
+}
@@ -0,0 +1,276 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.capture.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.papyrus.sirius.log.capture.CapturedEvent;
+import org.eclipse.papyrus.sirius.log.capture.IEventSink;
+import org.eclipse.papyrus.sirius.log.internal.Activator;
+
+/**
+ * An {@link IEventSink} appending the captured events to a file in the {@link BinaryTraceFormat}, through a
+ * memory-mapped window moving along the file.
+ *
+ * All the traces are written in the same file. The file is rotated when it reaches its maximal size or when its
+ * dictionary is full, which bounds the memory used by the dictionary. Use {@link TraceExporter} to convert the
+ * files to XES or CSV.
+ */
+public class BinaryEventSink implements IEventSink {
+
+	/** The default maximal size of a file, in bytes. */
+	public static final long DEFAULT_MAX_FILE_SIZE = 256L * 1024 * 1024;
+
+	/** The maximal number of entries of the dictionary of a file. */
+	private static final int MAX_DICTIONARY_SIZE = 64 * 1024;
+
+	/** The size of the memory-mapped window. */
+	private static final int MAPPING_SIZE = 1024 * 1024;
+
+	/** The formatter of the file names. */
+	private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC); //$NON-NLS-1$
+
+	/** The prefix of the file names. */
+	private static final String FILE_PREFIX = "events_"; //$NON-NLS-1$
+
+	/** The folder of the written files. */
+	private final Path folder;
+
+	/** The maximal size of a file, in bytes. */
+	private final long maxFileSize;
+
+	/** The dictionary of the current file. */
+	private final Map<String, Integer> dictionary = new HashMap<>();
+
+	/** The reused buffer used to encode the records. */
+	private final ByteBuffer scratch = ByteBuffer.allocate(BinaryTraceFormat.MAX_EVENT_SIZE);
+
+	/** The channel of the current file, <code>null</code> if no file is open. */
+	private FileChannel channel;
+
+	/** The path of the current file. */
+	private Path path;
+
+	/** The memory-mapped window of the current file. */
+	private MappedByteBuffer window;
+
+	/** The position of the window in the file. */
+	private long windowStart;
+
+	/** The number of bytes written in the current file. */
+	private long size;
+
+	/** The timestamp of the last event written in the current file. */
+	private long lastTimestamp;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param folder
+	 *            the folder of the written files, created if needed
+	 * @param maxFileSize
+	 *            the maximal size of a file, in bytes
+	 */
+	public BinaryEventSink(final Path folder, final long maxFileSize) {
+		this.folder = folder;
+		this.maxFileSize = maxFileSize;
+	}
+
+	/**
+	 * Constructor using the default maximal file size.
+	 *
+	 * @param folder
+	 *            the folder of the written files, created if needed
+	 */
+	public BinaryEventSink(final Path folder) {
+		this(folder, DEFAULT_MAX_FILE_SIZE);
+	}
+
+	/**
+	 * @see org.eclipse.papyrus.sirius.log.capture.IEventSink#accept(org.eclipse.papyrus.sirius.log.capture.CapturedEvent)
+	 *
+	 * @param event
+	 */
+	@Override
+	public void accept(final CapturedEvent event) {
+		try {
+			// an event can define up to 7 new strings
+			if (channel == null || size >= maxFileSize || dictionary.size() > MAX_DICTIONARY_SIZE - 7) {
+				closeFile();
+				openFile(event.getTimestamp());
+			}
+			final int traceId = getStringId(event.getTraceId());
+			final int activityId = getStringId(event.getActivity());
+			final int lifecycleId = getStringId(event.getLifecycle());
+			final int diagramKindId = getOptionalStringId(event.getDiagramKind());
+			final int elementTypeId = getOptionalStringId(event.getElementType());
+			final int elementURIId = getOptionalStringId(event.getElementURI());
+			final int detailsId = getOptionalStringId(event.getDetails());
+			final int callerId = getOptionalStringId(event.getCaller());
+
+			scratch.clear();
+			scratch.put(BinaryTraceFormat.TAG_EVENT);
+			BinaryTraceFormat.putVarLong(scratch, traceId);
+			BinaryTraceFormat.putZigZagLong(scratch, event.getTimestamp() - lastTimestamp);
+			BinaryTraceFormat.putVarLong(scratch, activityId);
+			BinaryTraceFormat.putVarLong(scratch, lifecycleId);
+			BinaryTraceFormat.putVarLong(scratch, diagramKindId);
+			BinaryTraceFormat.putVarLong(scratch, elementTypeId);
+			BinaryTraceFormat.putVarLong(scratch, elementURIId);
+			BinaryTraceFormat.putVarLong(scratch, detailsId);
+			BinaryTraceFormat.putVarLong(scratch, callerId);
+			scratch.flip();
+			write(scratch);
+			lastTimestamp = event.getTimestamp();
+		} catch (IOException e) {
+			// the sink is unregistered by the capture, avoiding an error per event
+			throw new IllegalStateException("The binary event file " + path + " can't be written", e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * @see org.eclipse.papyrus.sirius.log.capture.IEventSink#close()
+	 */
+	@Override
+	public void close() {
+		try {
+			closeFile();
+		} catch (IOException e) {
+			if (Activator.log != null) {
+				Activator.log.error("The binary event file " + path + " can't be closed", e); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @param value
+	 *            a string, can be <code>null</code>
+	 * @return
+	 *         0 for <code>null</code>, the dictionary id of the string + 1 otherwise
+	 * @throws IOException
+	 */
+	private int getOptionalStringId(final String value) throws IOException {
+		return value == null ? 0 : getStringId(value) + 1;
+	}
+
+	/**
+	 *
+	 * @param value
+	 *            a string
+	 * @return
+	 *         the dictionary id of the string, the string is written in the dictionary if needed
+	 * @throws IOException
+	 */
+	private int getStringId(final String value) throws IOException {
+		final Integer existing = dictionary.get(value);
+		if (existing != null) {
+			return existing.intValue();
+		}
+		final int id = dictionary.size();
+		dictionary.put(value, Integer.valueOf(id));
+
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		final ByteBuffer record = ByteBuffer.allocate(1 + 2 * BinaryTraceFormat.MAX_VARINT_SIZE + bytes.length);
+		record.put(BinaryTraceFormat.TAG_STRING);
+		BinaryTraceFormat.putVarLong(record, id);
+		BinaryTraceFormat.putVarLong(record, bytes.length);
+		record.put(bytes);
+		record.flip();
+		write(record);
+		return id;
+	}
+
+	/**
+	 * Append bytes to the current file, moving the memory-mapped window if needed.
+	 *
+	 * @param bytes
+	 *            the bytes to append
+	 * @throws IOException
+	 */
+	private void write(final ByteBuffer bytes) throws IOException {
+		final int length = bytes.remaining();
+		if (window == null || window.remaining() < length) {
+			windowStart = size;
+			window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, Math.max(MAPPING_SIZE, length));
+		}
+		window.put(bytes);
+		size += length;
+	}
+
+	/**
+	 * Open a new file.
+	 *
+	 * @param now
+	 *            the current time
+	 * @throws IOException
+	 */
+	private void openFile(final long now) throws IOException {
+		Files.createDirectories(folder);
+		final String baseName = FILE_PREFIX + FILE_DATE_FORMAT.format(Instant.ofEpochMilli(now));
+		Path newPath = folder.resolve(baseName + '.' + BinaryTraceFormat.FILE_EXTENSION);
+		for (int i = 1; Files.exists(newPath); i++) {
+			newPath = folder.resolve(baseName + '-' + i + '.' + BinaryTraceFormat.FILE_EXTENSION);
+		}
+		this.path = newPath;
+		this.channel = FileChannel.open(newPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.size = 0;
+		this.lastTimestamp = 0;
+		this.dictionary.clear();
+
+		final ByteBuffer header = ByteBuffer.allocate(BinaryTraceFormat.MAGIC.length + 1);
+		header.put(BinaryTraceFormat.MAGIC);
+		header.put(BinaryTraceFormat.VERSION);
+		header.flip();
+		write(header);
+	}
+
+	/**
+	 * Close the current file, if any, removing the unused tail of the last window when the platform allows it.
+	 *
+	 * @throws IOException
+	 */
+	private void closeFile() throws IOException {
+		if (channel == null) {
+			return;
+		}
+		try {
+			if (window != null) {
+				window.force();
+				window = null;
+			}
+			try {
+				channel.truncate(size);
+			} catch (IOException e) {
+				// some platforms forbid to truncate a file while it is mapped: the tail filled with zeros is read as the end of the data
+			}
+		} finally {
+			channel.close();
+			channel = null;
+		}
+	}
+}
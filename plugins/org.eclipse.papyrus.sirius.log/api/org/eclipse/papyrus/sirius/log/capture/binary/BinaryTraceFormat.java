@@ -0,0 +1,139 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.capture.binary;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The compact binary format of the captured events.
+ *
+ * A file starts with the {@link #MAGIC} bytes and the {@link #VERSION}, followed by records. Each record starts
+ * with a tag byte:
+ * <ul>
+ * <li>{@link #TAG_STRING}: the definition of a dictionary entry: <code>varint id, varint length, UTF-8 bytes</code>.
+ * Ids are assigned in sequence from 0 in each file, and all the strings of a file (trace identifiers, activities,
+ * element types, element URIs, lifecycle transitions) share the same dictionary.</li>
+ * <li>{@link #TAG_EVENT}: an event: <code>varint trace id, zigzag varint timestamp delta, varint activity id,
+ * varint lifecycle id, varint (diagram kind id + 1), varint (element type id + 1), varint (element URI id + 1), varint (details id + 1), varint (caller id + 1)</code>.
+ * The timestamp delta is relative to the previous event of the file (to 0 for the first one), and the optional
+ * values use 0 for <code>null</code>.</li>
+ * <li>{@link #TAG_END}: the end of the data. The unused tail of a file which has not been closed properly is
+ * filled with zeros, so it is read as the end of the data too.</li>
+ * </ul>
+ */
+public final class BinaryTraceFormat {
+
+	/** The first bytes of a file. */
+	public static final byte[] MAGIC = { 'P', 'S', 'E', 'V' };
+
+	/** The version of the format. */
+	public static final byte VERSION = 1;
+
+	/** The extension of the files. */
+	public static final String FILE_EXTENSION = "pev"; //$NON-NLS-1$
+
+	/** The tag marking the end of the data. */
+	public static final byte TAG_END = 0;
+
+	/** The tag of a dictionary entry record. */
+	public static final byte TAG_STRING = 1;
+
+	/** The tag of an event record. */
+	public static final byte TAG_EVENT = 2;
+
+	/** The maximal encoded size of a varint holding a long. */
+	public static final int MAX_VARLONG_SIZE = 10;
+
+	/** The maximal encoded size of a varint holding an int. */
+	public static final int MAX_VARINT_SIZE = 5;
+
+	/** The maximal encoded size of an event record. */
+	public static final int MAX_EVENT_SIZE = 1 + MAX_VARLONG_SIZE + 8 * MAX_VARINT_SIZE;
+
+	private BinaryTraceFormat() {
+		// to prevent instantiation
+	}
+
+	/**
+	 * Write an unsigned varint.
+	 *
+	 * @param buffer
+	 *            the destination buffer
+	 * @param value
+	 *            the value, considered as unsigned
+	 */
+	public static void putVarLong(final ByteBuffer buffer, final long value) {
+		long remaining = value;
+		while ((remaining & ~0x7FL) != 0) {
+			buffer.put((byte) ((remaining & 0x7F) | 0x80));
+			remaining >>>= 7;
+		}
+		buffer.put((byte) remaining);
+	}
+
+	/**
+	 * Write a signed varint, with the zigzag encoding.
+	 *
+	 * @param buffer
+	 *            the destination buffer
+	 * @param value
+	 *            the value
+	 */
+	public static void putZigZagLong(final ByteBuffer buffer, final long value) {
+		putVarLong(buffer, (value << 1) ^ (value >> 63));
+	}
+
+	/**
+	 * Read an unsigned varint.
+	 *
+	 * @param input
+	 *            the input stream
+	 * @return
+	 *         the value
+	 * @throws IOException
+	 *             if the stream ends before the end of the value or if the value is too long
+	 */
+	public static long readVarLong(final InputStream input) throws IOException {
+		long result = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			final int b = input.read();
+			if (b < 0) {
+				throw new EOFException();
+			}
+			result |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return result;
+			}
+		}
+		throw new IOException("Malformed varint"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Read a signed varint written with the zigzag encoding.
+	 *
+	 * @param input
+	 *            the input stream
+	 * @return
+	 *         the value
+	 * @throws IOException
+	 */
+	public static long readZigZagLong(final InputStream input) throws IOException {
+		final long raw = readVarLong(input);
+		return (raw >>> 1) ^ -(raw & 1);
+	}
+}
@@ -0,0 +1,161 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.capture.binary;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the files written in the {@link BinaryTraceFormat}, streaming the events to a {@link Visitor}.
+ *
+ * A file whose last record is truncated, by a crash of the application while writing it, is read up to this record.
+ * Any other inconsistency is reported as a corruption of the file.
+ */
+public final class BinaryTraceReader {
+
+	/**
+	 * The consumer of the events read from a file.
+	 */
+	public interface Visitor {
+
+		/**
+		 * Consume an event.
+		 *
+		 * @param traceId
+		 *            the identifier of the trace
+		 * @param timestamp
+		 *            the time of the event, in milliseconds since the epoch
+		 * @param activity
+		 *            the activity
+		 * @param lifecycle
+		 *            the lifecycle transition
+		 * @param diagramKind
+		 *            the diagram kind, can be <code>null</code>
+		 * @param elementType
+		 *            the element type, can be <code>null</code>
+		 * @param elementURI
+		 *            the element URI, can be <code>null</code>
+		 * @param details
+		 *            the details of the event, can be <code>null</code>
+		 * @param caller
+		 *            the method which has invoked the activity, can be <code>null</code>
+		 * @throws IOException
+		 */
+		void event(String traceId, long timestamp, String activity, String lifecycle, String diagramKind, String elementType, String elementURI, String details, String caller) throws IOException;
+	}
+
+	/** The size of the read buffer. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private BinaryTraceReader() {
+		// to prevent instantiation
+	}
+
+	/**
+	 * Read all the events of a file.
+	 *
+	 * @param file
+	 *            the file to read
+	 * @param visitor
+	 *            the consumer of the events
+	 * @throws IOException
+	 *             if the file can't be read, is not a valid file or is corrupted
+	 */
+	public static void read(final Path file, final Visitor visitor) throws IOException {
+		try (InputStream input = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+			final byte[] magic = input.readNBytes(BinaryTraceFormat.MAGIC.length);
+			if (!Arrays.equals(magic, BinaryTraceFormat.MAGIC) || input.read() != BinaryTraceFormat.VERSION) {
+				throw new IOException(file + " is not a binary event file"); //$NON-NLS-1$
+			}
+			final List<String> dictionary = new ArrayList<>();
+			long timestamp = 0;
+			int tag;
+			try {
+				while ((tag = input.read()) > 0) {
+					if (tag == BinaryTraceFormat.TAG_STRING) {
+						final int id = (int) BinaryTraceFormat.readVarLong(input);
+						final int length = (int) BinaryTraceFormat.readVarLong(input);
+						if (id != dictionary.size() || length < 0) {
+							throw new IOException(file + " has a corrupted dictionary"); //$NON-NLS-1$
+						}
+						final byte[] bytes = input.readNBytes(length);
+						if (bytes.length != length) {
+							// the end of the file has been reached
+							throw new EOFException();
+						}
+						dictionary.add(new String(bytes, StandardCharsets.UTF_8));
+					} else if (tag == BinaryTraceFormat.TAG_EVENT) {
+						final String traceId = getString(file, dictionary, BinaryTraceFormat.readVarLong(input));
+						timestamp += BinaryTraceFormat.readZigZagLong(input);
+						final String activity = getString(file, dictionary, BinaryTraceFormat.readVarLong(input));
+						final String lifecycle = getString(file, dictionary, BinaryTraceFormat.readVarLong(input));
+						final String diagramKind = getOptionalString(file, dictionary, BinaryTraceFormat.readVarLong(input));
+						final String elementType = getOptionalString(file, dictionary, BinaryTraceFormat.readVarLong(input));
+						final String elementURI = getOptionalString(file, dictionary, BinaryTraceFormat.readVarLong(input));
+						final String details = getOptionalString(file, dictionary, BinaryTraceFormat.readVarLong(input));
+						final String caller = getOptionalString(file, dictionary, BinaryTraceFormat.readVarLong(input));
+						visitor.event(traceId, timestamp, activity, lifecycle, diagramKind, elementType, elementURI, details, caller);
+					} else {
+						throw new IOException(file + " has an unknown record " + tag); //$NON-NLS-1$
+					}
+				}
+			} catch (EOFException e) {
+				// the last record has been truncated by a crash, the previous ones are valid
+				return;
+			}
+			if (tag == BinaryTraceFormat.TAG_END) {
+				// the tail of the last memory-mapped window, which can't be truncated on some platforms, only holds zeros
+				int next;
+				while ((next = input.read()) == 0) {
+					// continue
+				}
+				if (next > 0) {
+					throw new IOException(file + " has data after the end of its records"); //$NON-NLS-1$
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return
+	 *         the string of a reference
+	 * @throws IOException
+	 *             if the reference is not in the dictionary
+	 */
+	private static String getString(final Path file, final List<String> dictionary, final long reference) throws IOException {
+		if (reference < 0 || reference >= dictionary.size()) {
+			throw new IOException(file + " has a corrupted event referencing the unknown string " + reference); //$NON-NLS-1$
+		}
+		return dictionary.get((int) reference);
+	}
+
+	/**
+	 * @return
+	 *         the string of an optional reference, <code>null</code> for the reference 0
+	 * @throws IOException
+	 *             if the reference is not in the dictionary
+	 */
+	private static String getOptionalString(final Path file, final List<String> dictionary, final long reference) throws IOException {
+		return reference == 0 ? null : getString(file, dictionary, reference - 1);
+	}
+}
@@ -0,0 +1,343 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.capture.binary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.papyrus.sirius.log.capture.xes.XesFormat;
+
+/**
+ * The batch conversion of the files written by the {@link BinaryEventSink} to XES or CSV.
+ *
+ * It can be run outside of Eclipse:
+ *
+ * <pre>
+ * java -cp org.eclipse.papyrus.sirius.log.jar org.eclipse.papyrus.sirius.log.capture.binary.TraceExporter &lt;xes|csv&gt; &lt;output file&gt; &lt;input file or folder&gt;...
+ * </pre>
+ */
+public final class TraceExporter {
+
+	/** The XES output format. */
+	public static final String XES = "xes"; //$NON-NLS-1$
+
+	/** The CSV output format. */
+	public static final String CSV = "csv"; //$NON-NLS-1$
+
+	/** The header line of the CSV files. */
+	private static final String CSV_HEADER = "case,activity,lifecycle,timestamp,diagramKind,elementType,elementURI,details,caller\r\n"; //$NON-NLS-1$
+
+	/** The number of buffered characters written at once. */
+	private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+	/** The number of characters of the grouped events kept in memory before writing them to temporary files. */
+	private static final long SPILL_THRESHOLD = 16L * 1024 * 1024;
+
+	private TraceExporter() {
+		// to prevent instantiation
+	}
+
+	/**
+	 * Convert binary files to a single XES log, with one trace per trace identifier.
+	 *
+	 * The input files are read once, the events being grouped by trace. The grouped events are written to temporary
+	 * files when they get large, so that the memory used doesn't depend on the number of events.
+	 *
+	 * @param inputs
+	 *            the binary files, in chronological order
+	 * @param output
+	 *            the XES file to write
+	 * @throws IOException
+	 */
+	public static void exportToXes(final List<Path> inputs, final Path output) throws IOException {
+		try (TraceGroups traces = new TraceGroups()) {
+			for (final Path input : inputs) {
+				BinaryTraceReader.read(input, traces::append);
+			}
+			try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+				traces.writeXes(writer);
+			}
+		}
+	}
+
+	/**
+	 * Convert binary files to a single CSV file (RFC 4180), with one line per event.
+	 *
+	 * @param inputs
+	 *            the binary files, in chronological order
+	 * @param output
+	 *            the CSV file to write
+	 * @throws IOException
+	 */
+	public static void exportToCsv(final List<Path> inputs, final Path output) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+			final StringBuilder builder = new StringBuilder(FLUSH_THRESHOLD + 1024);
+			builder.append(CSV_HEADER);
+			for (final Path input : inputs) {
+				BinaryTraceReader.read(input, (traceId, timestamp, activity, lifecycle, diagramKind, elementType, elementURI, details, caller) -> {
+					appendCsvValue(builder, traceId);
+					builder.append(',');
+					appendCsvValue(builder, activity);
+					builder.append(',');
+					appendCsvValue(builder, lifecycle);
+					builder.append(',');
+					DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(timestamp), builder);
+					builder.append(',');
+					appendCsvValue(builder, diagramKind);
+					builder.append(',');
+					appendCsvValue(builder, elementType);
+					builder.append(',');
+					appendCsvValue(builder, elementURI);
+					builder.append(',');
+					appendCsvValue(builder, details);
+					builder.append(',');
+					appendCsvValue(builder, caller);
+					builder.append("\r\n"); //$NON-NLS-1$
+					flushIfNeeded(builder, writer);
+				});
+			}
+			writer.append(builder);
+		}
+	}
+
+	/**
+	 * Collect the binary files to convert.
+	 *
+	 * @param paths
+	 *            files or folders, the folders are replaced by the binary files they contain
+	 * @return
+	 *         the files, the ones of each folder being sorted by name, thus chronologically
+	 * @throws IOException
+	 */
+	public static List<Path> collectInputs(final List<Path> paths) throws IOException {
+		final List<Path> inputs = new ArrayList<>();
+		for (final Path path : paths) {
+			if (Files.isDirectory(path)) {
+				try (var stream = Files.list(path)) {
+					stream.filter(file -> file.getFileName().toString().endsWith('.' + BinaryTraceFormat.FILE_EXTENSION))
+							.sorted()
+							.forEachOrdered(inputs::add);
+				}
+			} else {
+				inputs.add(path);
+			}
+		}
+		return inputs;
+	}
+
+	/**
+	 * The command line entry point.
+	 *
+	 * @param args
+	 *            the output format ({@link #XES} or {@link #CSV}), the output file and the input files or folders
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             if the arguments are not valid, the message giving the usage
+	 */
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 3 || !(XES.equals(args[0]) || CSV.equals(args[0]))) {
+			throw new IllegalArgumentException("Usage: TraceExporter <xes|csv> <output file> <input file or folder>..."); //$NON-NLS-1$
+		}
+		final List<Path> paths = new ArrayList<>();
+		for (int i = 2; i < args.length; i++) {
+			paths.add(Paths.get(args[i]));
+		}
+		final List<Path> inputs = collectInputs(paths);
+		final Path output = Paths.get(args[1]);
+		if (XES.equals(args[0])) {
+			exportToXes(inputs, output);
+		} else {
+			exportToCsv(inputs, output);
+		}
+	}
+
+	/**
+	 * Write the content of the builder when it is large enough.
+	 */
+	private static void flushIfNeeded(final StringBuilder builder, final Writer writer) throws IOException {
+		if (builder.length() >= FLUSH_THRESHOLD) {
+			writer.append(builder);
+			builder.setLength(0);
+		}
+	}
+
+	/**
+	 * Append a CSV value, quoted when needed.
+	 */
+	private static void appendCsvValue(final StringBuilder builder, final String value) {
+		if (value == null) {
+			return;
+		}
+		boolean quote = false;
+		for (int i = 0; i < value.length() && !quote; i++) {
+			final char c = value.charAt(i);
+			quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+		}
+		if (!quote) {
+			builder.append(value);
+			return;
+		}
+		builder.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c == '"') {
+				builder.append('"');
+			}
+			builder.append(c);
+		}
+		builder.append('"');
+	}
+
+	/**
+	 * The XES events grouped by trace, in the order of the first event of each trace. The events of a trace are
+	 * buffered in memory, then appended to a temporary file of the trace when all the buffers get too large.
+	 */
+	private static final class TraceGroups implements Closeable {
+
+		/** The groups, by trace identifier. */
+		private final Map<String, TraceGroup> groups = new LinkedHashMap<>();
+
+		/** The number of characters buffered in memory by all the groups. */
+		private long buffered;
+
+		/** The folder of the temporary files, <code>null</code> until the first spill. */
+		private Path spillFolder;
+
+		/**
+		 * Add an event to the group of its trace.
+		 *
+		 * @see BinaryTraceReader.Visitor#event(String, long, String, String, String, String, String, String, String)
+		 */
+		private void append(final String traceId, final long timestamp, final String activity, final String lifecycle, final String diagramKind, final String elementType,
+				final String elementURI, final String details, final String caller) throws IOException {
+			TraceGroup group = groups.get(traceId);
+			if (group == null) {
+				group = new TraceGroup(groups.size());
+				groups.put(traceId, group);
+			}
+			final int length = group.events.length();
+			XesFormat.appendEvent(group.events, timestamp, activity, lifecycle, diagramKind, elementType, elementURI, details, caller);
+			buffered += group.events.length() - length;
+			if (buffered >= SPILL_THRESHOLD) {
+				spill();
+			}
+		}
+
+		/**
+		 * Move the buffered events to the temporary files of their traces.
+		 */
+		private void spill() throws IOException {
+			if (spillFolder == null) {
+				spillFolder = Files.createTempDirectory("xes-export"); //$NON-NLS-1$
+			}
+			for (final TraceGroup group : groups.values()) {
+				if (group.events.length() > 0) {
+					if (group.spillFile == null) {
+						group.spillFile = spillFolder.resolve(group.index + ".part"); //$NON-NLS-1$
+					}
+					try (Writer writer = Files.newBufferedWriter(group.spillFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+						writer.append(group.events);
+					}
+					group.events.setLength(0);
+					group.events.trimToSize();
+				}
+			}
+			buffered = 0;
+		}
+
+		/**
+		 * Write the XES log, with one trace per group.
+		 *
+		 * @param writer
+		 *            the writer of the XES file
+		 */
+		private void writeXes(final Writer writer) throws IOException {
+			final StringBuilder builder = new StringBuilder(FLUSH_THRESHOLD + 1024);
+			XesFormat.appendLogStart(builder);
+			for (final Map.Entry<String, TraceGroup> entry : groups.entrySet()) {
+				final TraceGroup group = entry.getValue();
+				XesFormat.appendTraceStart(builder, entry.getKey());
+				if (group.spillFile != null) {
+					writer.append(builder);
+					builder.setLength(0);
+					try (Reader reader = Files.newBufferedReader(group.spillFile, StandardCharsets.UTF_8)) {
+						reader.transferTo(writer);
+					}
+				}
+				builder.append(group.events);
+				XesFormat.appendTraceEnd(builder);
+				flushIfNeeded(builder, writer);
+			}
+			XesFormat.appendLogEnd(builder);
+			writer.append(builder);
+		}
+
+		/**
+		 * Delete the temporary files.
+		 *
+		 * @see java.io.Closeable#close()
+		 */
+		@Override
+		public void close() throws IOException {
+			if (spillFolder == null) {
+				return;
+			}
+			for (final TraceGroup group : groups.values()) {
+				if (group.spillFile != null) {
+					Files.deleteIfExists(group.spillFile);
+				}
+			}
+			Files.deleteIfExists(spillFolder);
+		}
+	}
+
+	/**
+	 * The events of a trace.
+	 */
+	private static final class TraceGroup {
+
+		/** The index of the trace, in the order of the first events. */
+		private final int index;
+
+		/** The XES events of the trace buffered in memory. */
+		private final StringBuilder events = new StringBuilder();
+
+		/** The temporary file of the events written before the buffered ones, <code>null</code> if none. */
+		private Path spillFile;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param index
+		 *            the index of the trace, in the order of the first events
+		 */
+		private TraceGroup(final int index) {
+			this.index = index;
+		}
+	}
+}
@@ -0,0 +1,262 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.capture.xes;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.eclipse.papyrus.sirius.log.capture.CapturedEvent;
+import org.eclipse.papyrus.sirius.log.capture.IEventSink;
+import org.eclipse.papyrus.sirius.log.capture.TraceFileRetention;
+import org.eclipse.papyrus.sirius.log.internal.Activator;
+
+/**
+ * An {@link IEventSink} streaming the captured events into XES (IEEE 1849) files, one trace per file.
+ *
+ * The memory used by the sink does not depend on the number of written events: each open trace file only
+ * holds a small write buffer, and the number of open files is bounded (the least recently used one is closed
+ * when a new trace starts). A trace file is rotated when it reaches the maximal size or the maximal age, so that
+ * the process-mining tools can ingest the completed files while the capture continues. The old files are deleted
+ * according to the {@link TraceFileRetention} of the sink, checked each time a file is opened.
+ */
+public class XesEventSink implements IEventSink {
+
+	/** The default maximal size of a file, in bytes. */
+	public static final long DEFAULT_MAX_FILE_SIZE = 64L * 1024 * 1024;
+
+	/** The default maximal age of a file, in milliseconds. */
+	public static final long DEFAULT_MAX_FILE_AGE = 60L * 60 * 1000;
+
+	/** The extension of the written files. */
+	public static final String FILE_EXTENSION = "xes"; //$NON-NLS-1$
+
+	/**
+	 * The pattern of the names of the written files: the base name of the trace, the creation date and an optional index
+	 * when several files of the trace are created in the same millisecond. Only these files are deleted by the retention policy.
+	 */
+	public static final Pattern FILE_NAME_PATTERN = Pattern.compile("[A-Za-z0-9._-]+_\\d{8}-\\d{6}-\\d{3}(-\\d+)?\\." + FILE_EXTENSION); //$NON-NLS-1$
+
+	/** The maximal number of trace files open at the same time. */
+	private static final int MAX_OPEN_FILES = 16;
+
+	/** The formatter of the file names. */
+	private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC); //$NON-NLS-1$
+
+	/** The folder of the written files. */
+	private final Path folder;
+
+	/** The maximal size of a file, in bytes. */
+	private final long maxFileSize;
+
+	/** The maximal age of a file, in milliseconds. */
+	private final long maxFileAge;
+
+	/** The retention policy of the written files, <code>null</code> to keep all of them. */
+	private final TraceFileRetention retention;
+
+	/** The open trace files, in access order. */
+	private final Map<String, XesTraceFile> files = new LinkedHashMap<>(MAX_OPEN_FILES * 2, 0.75f, true);
+
+	/** The reused builder used to format the events. */
+	private final StringBuilder builder = new StringBuilder(512);
+
+	/**
+	 * Constructor.
+	 *
+	 * @param folder
+	 *            the folder of the written files, created if needed
+	 * @param maxFileSize
+	 *            the maximal size of a file, in bytes
+	 * @param maxFileAge
+	 *            the maximal age of a file, in milliseconds
+	 * @param retention
+	 *            the retention policy of the written files, <code>null</code> to keep all of them
+	 */
+	public XesEventSink(final Path folder, final long maxFileSize, final long maxFileAge, final TraceFileRetention retention) {
+		this.folder = folder;
+		this.maxFileSize = maxFileSize;
+		this.maxFileAge = maxFileAge;
+		this.retention = retention;
+	}
+
+	/**
+	 * Constructor using the default retention policy.
+	 *
+	 * @param folder
+	 *            the folder of the written files, created if needed
+	 * @param maxFileSize
+	 *            the maximal size of a file, in bytes
+	 * @param maxFileAge
+	 *            the maximal age of a file, in milliseconds
+	 */
+	public XesEventSink(final Path folder, final long maxFileSize, final long maxFileAge) {
+		this(folder, maxFileSize, maxFileAge, TraceFileRetention.getDefault());
+	}
+
+	/**
+	 * Constructor using the default rotation settings and retention policy.
+	 *
+	 * @param folder
+	 *            the folder of the written files, created if needed
+	 */
+	public XesEventSink(final Path folder) {
+		this(folder, DEFAULT_MAX_FILE_SIZE, DEFAULT_MAX_FILE_AGE);
+	}
+
+	/**
+	 * @see org.eclipse.papyrus.sirius.log.capture.IEventSink#accept(org.eclipse.papyrus.sirius.log.capture.CapturedEvent)
+	 *
+	 * @param event
+	 */
+	@Override
+	public void accept(final CapturedEvent event) {
+		try {
+			final XesTraceFile file = getTraceFile(event.getTraceId(), event.getTimestamp());
+			builder.setLength(0);
+			XesFormat.appendEvent(builder, event);
+			file.append(builder);
+		} catch (IOException e) {
+			// the sink is unregistered by the capture, avoiding an error per event
+			throw new IllegalStateException("The XES trace of " + event.getTraceId() + " can't be written", e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * @see org.eclipse.papyrus.sirius.log.capture.IEventSink#endOfBatch()
+	 */
+	@Override
+	public void endOfBatch() {
+		for (final XesTraceFile file : files.values()) {
+			try {
+				file.commit();
+			} catch (IOException e) {
+				throw new IllegalStateException("The XES file " + file.getPath() + " can't be written", e); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+	}
+
+	/**
+	 * @see org.eclipse.papyrus.sirius.log.capture.IEventSink#close()
+	 */
+	@Override
+	public void close() {
+		final Iterator<XesTraceFile> iter = files.values().iterator();
+		while (iter.hasNext()) {
+			close(iter.next());
+			iter.remove();
+		}
+	}
+
+	/**
+	 * Get the file of a trace, opening a new one if the trace has no file or if its file must be rotated.
+	 *
+	 * @param traceId
+	 *            the identifier of the trace
+	 * @param now
+	 *            the current time
+	 * @return
+	 *         the file of the trace
+	 * @throws IOException
+	 */
+	private XesTraceFile getTraceFile(final String traceId, final long now) throws IOException {
+		XesTraceFile file = files.get(traceId);
+		if (file != null && (file.size() >= maxFileSize || now - file.getCreationTime() >= maxFileAge)) {
+			files.remove(traceId);
+			close(file);
+			file = null;
+		}
+		if (file == null) {
+			if (files.size() >= MAX_OPEN_FILES) {
+				// the map is in access order, so the first entry is the least recently used
+				final Iterator<XesTraceFile> iter = files.values().iterator();
+				close(iter.next());
+				iter.remove();
+			}
+			Files.createDirectories(folder);
+			if (retention != null) {
+				final Collection<Path> openFiles = new ArrayList<>(files.size());
+				for (final XesTraceFile openFile : files.values()) {
+					openFiles.add(openFile.getPath());
+				}
+				retention.apply(folder, FILE_NAME_PATTERN, openFiles, now);
+			}
+			builder.setLength(0);
+			XesFormat.appendHeader(builder, traceId);
+			file = new XesTraceFile(newFilePath(traceId, now), builder, now);
+			files.put(traceId, file);
+		}
+		return file;
+	}
+
+	/**
+	 *
+	 * @param traceId
+	 *            the identifier of the trace
+	 * @param now
+	 *            the current time
+	 * @return
+	 *         the path of a new file for the trace, the file does not exist
+	 */
+	private Path newFilePath(final String traceId, final long now) {
+		final String baseName = getFileBaseName(traceId) + '_' + FILE_DATE_FORMAT.format(Instant.ofEpochMilli(now));
+		Path path = folder.resolve(baseName + '.' + FILE_EXTENSION);
+		for (int i = 1; Files.exists(path); i++) {
+			path = folder.resolve(baseName + '-' + i + '.' + FILE_EXTENSION);
+		}
+		return path;
+	}
+
+	/**
+	 *
+	 * @param traceId
+	 *            the identifier of a trace
+	 * @return
+	 *         the base name of the files of the trace: the last segment of the identifier, with only portable characters
+	 */
+	static String getFileBaseName(final String traceId) {
+		String name = traceId;
+		final int lastSeparator = name.lastIndexOf('/');
+		if (lastSeparator >= 0 && lastSeparator < name.length() - 1) {
+			name = name.substring(lastSeparator + 1);
+		}
+		return name.replaceAll("[^A-Za-z0-9._-]", "_"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Close a file, logging the errors.
+	 *
+	 * @param file
+	 *            the file to close
+	 */
+	private static void close(final XesTraceFile file) {
+		try {
+			file.close();
+		} catch (IOException e) {
+			if (Activator.log != null) {
+				Activator.log.error("The XES file " + file.getPath() + " can't be closed", e); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+	}
+}
@@ -0,0 +1,233 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.capture.xes;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+import org.eclipse.papyrus.sirius.log.capture.CapturedEvent;
+
+/**
+ * The XES (IEEE 1849) serialization of the captured events.
+ */
+public final class XesFormat {
+
+	/** The key of the attribute holding the diagram kind. */
+	public static final String DIAGRAM_KIND_KEY = "papyrus:diagramKind"; //$NON-NLS-1$
+
+	/** The key of the attribute holding the element type. */
+	public static final String ELEMENT_TYPE_KEY = "papyrus:elementType"; //$NON-NLS-1$
+
+	/** The key of the attribute holding the element URI. */
+	public static final String ELEMENT_URI_KEY = "papyrus:elementURI"; //$NON-NLS-1$
+
+	/** The key of the attribute holding the details of the event. */
+	public static final String DETAILS_KEY = "papyrus:details"; //$NON-NLS-1$
+
+	/** The key of the attribute holding the method which has invoked the activity. */
+	public static final String CALLER_KEY = "papyrus:caller"; //$NON-NLS-1$
+
+	private XesFormat() {
+		// to prevent instantiation
+	}
+
+	/**
+	 * Append the beginning of an XES document holding a single trace, up to the opening of the trace.
+	 *
+	 * @param builder
+	 *            the builder
+	 * @param traceId
+	 *            the identifier of the trace
+	 */
+	public static void appendHeader(final StringBuilder builder, final String traceId) {
+		appendLogStart(builder);
+		appendTraceStart(builder, traceId);
+	}
+
+	/**
+	 * Append the beginning of an XES document, up to the first trace.
+	 *
+	 * @param builder
+	 *            the builder
+	 */
+	public static void appendLogStart(final StringBuilder builder) {
+		builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"); //$NON-NLS-1$
+		builder.append("<log xes.version=\"1849-2016\" xes.features=\"\" xmlns=\"http://www.xes-standard.org/\">\n"); //$NON-NLS-1$
+		builder.append("\t<extension name=\"Concept\" prefix=\"concept\" uri=\"http://www.xes-standard.org/concept.xesext\"/>\n"); //$NON-NLS-1$
+		builder.append("\t<extension name=\"Lifecycle\" prefix=\"lifecycle\" uri=\"http://www.xes-standard.org/lifecycle.xesext\"/>\n"); //$NON-NLS-1$
+		builder.append("\t<extension name=\"Time\" prefix=\"time\" uri=\"http://www.xes-standard.org/time.xesext\"/>\n"); //$NON-NLS-1$
+		builder.append("\t<classifier name=\"Activity\" keys=\"concept:name\"/>\n"); //$NON-NLS-1$
+		builder.append("\t<classifier name=\"Activity and lifecycle\" keys=\"concept:name lifecycle:transition\"/>\n"); //$NON-NLS-1$
+		builder.append("\t<string key=\"concept:name\" value=\"Papyrus Sirius editor events\"/>\n"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Append the opening of a trace.
+	 *
+	 * @param builder
+	 *            the builder
+	 * @param traceId
+	 *            the identifier of the trace
+	 */
+	public static void appendTraceStart(final StringBuilder builder, final String traceId) {
+		builder.append("\t<trace>\n"); //$NON-NLS-1$
+		builder.append("\t\t"); //$NON-NLS-1$
+		appendString(builder, "concept:name", traceId); //$NON-NLS-1$
+	}
+
+	/**
+	 * Append a captured event.
+	 *
+	 * @param builder
+	 *            the builder
+	 * @param event
+	 *            the event
+	 */
+	public static void appendEvent(final StringBuilder builder, final CapturedEvent event) {
+		appendEvent(builder, event.getTimestamp(), event.getActivity(), event.getLifecycle(), event.getDiagramKind(), event.getElementType(), event.getElementURI(), event.getDetails(), event.getCaller());
+	}
+
+	/**
+	 * Append an event.
+	 *
+	 * @param builder
+	 *            the builder
+	 * @param timestamp
+	 *            the time of the event, in milliseconds since the epoch
+	 * @param activity
+	 *            the activity
+	 * @param lifecycle
+	 *            the lifecycle transition
+	 * @param diagramKind
+	 *            the diagram kind, can be <code>null</code>
+	 * @param elementType
+	 *            the element type, can be <code>null</code>
+	 * @param elementURI
+	 *            the element URI, can be <code>null</code>
+	 * @param details
+	 *            the details of the event, can be <code>null</code>
+	 * @param caller
+	 *            the method which has invoked the activity, can be <code>null</code>
+	 */
+	public static void appendEvent(final StringBuilder builder, final long timestamp, final String activity, final String lifecycle, final String diagramKind, final String elementType, final String elementURI, final String details,
+			final String caller) {
+		builder.append("\t\t<event>\n\t\t\t"); //$NON-NLS-1$
+		appendString(builder, "concept:name", activity); //$NON-NLS-1$
+		builder.append("\t\t\t"); //$NON-NLS-1$
+		appendString(builder, "lifecycle:transition", lifecycle); //$NON-NLS-1$
+		builder.append("\t\t\t<date key=\"time:timestamp\" value=\""); //$NON-NLS-1$
+		DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(timestamp), builder);
+		builder.append("\"/>\n"); //$NON-NLS-1$
+		if (diagramKind != null) {
+			builder.append("\t\t\t"); //$NON-NLS-1$
+			appendString(builder, DIAGRAM_KIND_KEY, diagramKind);
+		}
+		if (elementType != null) {
+			builder.append("\t\t\t"); //$NON-NLS-1$
+			appendString(builder, ELEMENT_TYPE_KEY, elementType);
+		}
+		if (elementURI != null) {
+			builder.append("\t\t\t"); //$NON-NLS-1$
+			appendString(builder, ELEMENT_URI_KEY, elementURI);
+		}
+		if (details != null) {
+			builder.append("\t\t\t"); //$NON-NLS-1$
+			appendString(builder, DETAILS_KEY, details);
+		}
+		if (caller != null) {
+			builder.append("\t\t\t"); //$NON-NLS-1$
+			appendString(builder, CALLER_KEY, caller);
+		}
+		builder.append("\t\t</event>\n"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Append the closing tags of a document started with {@link #appendHeader(StringBuilder, String)}.
+	 *
+	 * @param builder
+	 *            the builder
+	 */
+	public static void appendFooter(final StringBuilder builder) {
+		appendTraceEnd(builder);
+		appendLogEnd(builder);
+	}
+
+	/**
+	 * Append the closing of a trace.
+	 *
+	 * @param builder
+	 *            the builder
+	 */
+	public static void appendTraceEnd(final StringBuilder builder) {
+		builder.append("\t</trace>\n"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Append the closing of the document.
+	 *
+	 * @param builder
+	 *            the builder
+	 */
+	public static void appendLogEnd(final StringBuilder builder) {
+		builder.append("</log>\n"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Append a string attribute, followed by a new line.
+	 */
+	private static void appendString(final StringBuilder builder, final String key, final String value) {
+		builder.append("<string key=\""); //$NON-NLS-1$
+		builder.append(key);
+		builder.append("\" value=\""); //$NON-NLS-1$
+		appendEscaped(builder, value);
+		builder.append("\"/>\n"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Append a value escaped for an XML attribute.
+	 */
+	private static void appendEscaped(final StringBuilder builder, final String value) {
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			switch (c) {
+			case '&':
+				builder.append("&amp;"); //$NON-NLS-1$
+				break;
+			case '<':
+				builder.append("&lt;"); //$NON-NLS-1$
+				break;
+			case '>':
+				builder.append("&gt;"); //$NON-NLS-1$
+				break;
+			case '"':
+				builder.append("&quot;"); //$NON-NLS-1$
+				break;
+			case '\n':
+				builder.append("&#10;"); //$NON-NLS-1$
+				break;
+			case '\r':
+				builder.append("&#13;"); //$NON-NLS-1$
+				break;
+			case '\t':
+				builder.append("&#9;"); //$NON-NLS-1$
+				break;
+			default:
+				if (c >= 0x20) {
+					builder.append(c);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,207 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.capture.xes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An XES file holding a single trace, written incrementally.
+ *
+ * The events are encoded into a buffer which is written to the channel when {@link #commit()} is called, or after
+ * an event filling the buffer. The buffer only holds complete events: it grows when an event does not fit in it.
+ * Each write of the buffer is followed, in the same write operation, by the closing tags of the trace and of the
+ * log, which are not counted in the position of the next write: the next write overwrites them. The file is thus a
+ * well-formed XES document after each write, and after a crash of the application. It may be truncated by a crash
+ * of the system during a write.
+ */
+final class XesTraceFile implements Closeable {
+
+	/** The closing tags of the document. */
+	private static final byte[] FOOTER = createFooter();
+
+	/** The initial size of the write buffer, the buffer is written once it is full. */
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	/** The path of the file. */
+	private final Path path;
+
+	/** The channel used to write the file. */
+	private final FileChannel channel;
+
+	/** The time of the creation of the file, in milliseconds since the epoch. */
+	private final long creationTime;
+
+	/** The buffer of the encoded events waiting to be written. */
+	private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	/** The encoder used to convert the characters to UTF-8. */
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+	/** The position of the next write, just before the closing tags. */
+	private long position;
+
+	/** Whether some data has been written since the last commit. */
+	private boolean dirty;
+
+	/**
+	 * Constructor. The file is created, it must not exist.
+	 *
+	 * @param path
+	 *            the path of the file
+	 * @param header
+	 *            the beginning of the document, up to the opening of the trace
+	 * @param creationTime
+	 *            the time of the creation of the file
+	 * @throws IOException
+	 */
+	XesTraceFile(final Path path, final CharSequence header, final long creationTime) throws IOException {
+		this.path = path;
+		this.creationTime = creationTime;
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		append(header);
+		commit();
+	}
+
+	/**
+	 * @return
+	 *         the UTF-8 encoded closing tags of the document
+	 */
+	private static byte[] createFooter() {
+		final StringBuilder builder = new StringBuilder();
+		XesFormat.appendFooter(builder);
+		return builder.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Append characters to the document. The characters must end at the boundary of an XML element, the buffer
+	 * may be written after them.
+	 *
+	 * @param chars
+	 *            the characters to append
+	 * @throws IOException
+	 */
+	void append(final CharSequence chars) throws IOException {
+		final CharBuffer in = CharBuffer.wrap(chars);
+		encoder.reset();
+		while (true) {
+			final CoderResult result = encoder.encode(in, buffer, true);
+			if (result.isOverflow()) {
+				growBuffer();
+			} else if (result.isUnderflow()) {
+				break;
+			} else {
+				result.throwException();
+			}
+		}
+		while (encoder.flush(buffer).isOverflow()) {
+			growBuffer();
+		}
+		dirty = true;
+		if (buffer.position() >= BUFFER_SIZE) {
+			writeBuffer();
+		}
+	}
+
+	/**
+	 * Write the buffered data and the closing tags of the document.
+	 *
+	 * @throws IOException
+	 */
+	void commit() throws IOException {
+		if (dirty) {
+			writeBuffer();
+		}
+	}
+
+	/**
+	 * Double the capacity of the buffer, keeping its content.
+	 */
+	private void growBuffer() {
+		final ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+		buffer.flip();
+		larger.put(buffer);
+		buffer = larger;
+	}
+
+	/**
+	 * Write the content of the buffer at the current position, followed by the closing tags of the document.
+	 *
+	 * @throws IOException
+	 */
+	private void writeBuffer() throws IOException {
+		buffer.flip();
+		final int length = buffer.remaining();
+		final ByteBuffer footer = ByteBuffer.wrap(FOOTER);
+		final ByteBuffer[] data = { buffer, footer };
+		channel.position(position);
+		while (footer.hasRemaining()) {
+			channel.write(data);
+		}
+		position += length;
+		if (buffer.capacity() > BUFFER_SIZE) {
+			buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		} else {
+			buffer.clear();
+		}
+		dirty = false;
+	}
+
+	/**
+	 * @return
+	 *         the size of the document, without its closing tags
+	 */
+	long size() {
+		return position + buffer.position();
+	}
+
+	/**
+	 * @return
+	 *         the time of the creation of the file, in milliseconds since the epoch
+	 */
+	long getCreationTime() {
+		return creationTime;
+	}
+
+	/**
+	 * @return
+	 *         the path of the file
+	 */
+	Path getPath() {
+		return path;
+	}
+
+	/**
+	 * @see java.io.Closeable#close()
+	 *
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			commit();
+		} finally {
+			channel.close();
+		}
+	}
+}
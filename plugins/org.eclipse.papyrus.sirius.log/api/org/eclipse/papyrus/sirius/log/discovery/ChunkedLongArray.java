@@ -0,0 +1,108 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.discovery;
+
+import java.util.Arrays;
+
+/**
+ * A growable array of longs split in chunks, supporting cheap copy-on-write snapshots: a snapshot only copies the
+ * array of chunk references, and a chunk is copied by the writer the first time it is modified after a snapshot.
+ *
+ * Only one thread can modify the array. The snapshots can be read from any thread once published safely.
+ */
+final class ChunkedLongArray {
+
+	/** The log2 of the chunk size. */
+	static final int CHUNK_SHIFT = 8;
+
+	/** The number of values in a chunk. */
+	static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+	/** The mask giving the index in a chunk. */
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/** The chunks. */
+	private long[][] chunks = new long[4][];
+
+	/** The snapshot epoch in which each chunk has been created, a chunk of an older epoch is shared with a snapshot. */
+	private int[] chunkEpochs = new int[4];
+
+	/** The current epoch, incremented by each snapshot. */
+	private int epoch;
+
+	/**
+	 * Add a value to an element, growing the array if needed.
+	 *
+	 * @param index
+	 *            the index of the element
+	 * @param delta
+	 *            the value to add
+	 */
+	void add(final int index, final long delta) {
+		final int chunkIndex = index >>> CHUNK_SHIFT;
+		if (chunkIndex >= chunks.length) {
+			final int length = Math.max(chunks.length * 2, chunkIndex + 1);
+			chunks = Arrays.copyOf(chunks, length);
+			chunkEpochs = Arrays.copyOf(chunkEpochs, length);
+		}
+		long[] chunk = chunks[chunkIndex];
+		if (chunk == null) {
+			chunk = new long[CHUNK_SIZE];
+			chunks[chunkIndex] = chunk;
+			chunkEpochs[chunkIndex] = epoch;
+		} else if (chunkEpochs[chunkIndex] != epoch) {
+			// the chunk is shared with a snapshot
+			chunk = chunk.clone();
+			chunks[chunkIndex] = chunk;
+			chunkEpochs[chunkIndex] = epoch;
+		}
+		chunk[index & CHUNK_MASK] += delta;
+	}
+
+	/**
+	 * @return
+	 *         the value of an element
+	 */
+	long get(final int index) {
+		return get(chunks, index);
+	}
+
+	/**
+	 * Take a snapshot of the array: the returned chunks are never modified after this call.
+	 *
+	 * @return
+	 *         the chunks of the snapshot, to be read with {@link #get(long[][], int)}
+	 */
+	long[][] snapshot() {
+		epoch++;
+		return chunks.clone();
+	}
+
+	/**
+	 * @param snapshot
+	 *            the chunks of a snapshot
+	 * @param index
+	 *            the index of an element
+	 * @return
+	 *         the value of the element in the snapshot
+	 */
+	static long get(final long[][] snapshot, final int index) {
+		final int chunkIndex = index >>> CHUNK_SHIFT;
+		if (chunkIndex >= snapshot.length || snapshot[chunkIndex] == null) {
+			return 0;
+		}
+		return snapshot[chunkIndex][index & CHUNK_MASK];
+	}
+}
@@ -0,0 +1,209 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.discovery;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.papyrus.sirius.log.capture.CapturedEvent;
+import org.eclipse.papyrus.sirius.log.capture.EventCapture;
+import org.eclipse.papyrus.sirius.log.capture.IEventSink;
+
+/**
+ * An online process discovery engine: an {@link IEventSink} maintaining the directly-follows graph and the activity
+ * frequencies of the captured events, in constant time per event.
+ *
+ * Only the completed activities are taken into account. The graph is updated by the capture thread and read through
+ * {@link #getSnapshot()} from any thread. A snapshot is published at the end of each batch of events and every
+ * {@value #PUBLISH_INTERVAL} events; publishing a snapshot doesn't copy the counters, which are copied on write by chunks.
+ */
+public class DirectlyFollowsGraph implements IEventSink {
+
+	/** The maximal number of events between two published snapshots. */
+	public static final int PUBLISH_INTERVAL = 4096;
+
+	/** The value of the last activity of a trace which has no event yet. */
+	private static final int NO_ACTIVITY = -1;
+
+	/** The shared instance, see {@link #getDefault()}. */
+	private static DirectlyFollowsGraph defaultGraph;
+
+	/** The ids of the activities. */
+	private final Map<String, Integer> activityIds = new HashMap<>();
+
+	/** The names of the activities, by id. */
+	private String[] activities = new String[16];
+
+	/** The number of activities. */
+	private int activityCount;
+
+	/** The frequencies of the activities, by id. */
+	private final ChunkedLongArray activityFrequencies = new ChunkedLongArray();
+
+	/** The number of traces started by each activity, by id. */
+	private final ChunkedLongArray startFrequencies = new ChunkedLongArray();
+
+	/** The ids of the edges, by pair of activity ids. */
+	private final LongIntHashMap edgeIds = new LongIntHashMap(64);
+
+	/** The source activities of the edges, by id. */
+	private int[] edgeSources = new int[64];
+
+	/** The target activities of the edges, by id. */
+	private int[] edgeTargets = new int[64];
+
+	/** The number of edges. */
+	private int edgeCount;
+
+	/** The frequencies of the edges, by id. */
+	private final ChunkedLongArray edgeFrequencies = new ChunkedLongArray();
+
+	/** The last activity of each trace, held in a single-element array to be updated in place. */
+	private final Map<String, int[]> lastActivities = new HashMap<>();
+
+	/** The number of events taken into account. */
+	private long eventCount;
+
+	/** The number of events since the last published snapshot. */
+	private int unpublishedEvents;
+
+	/** The last published snapshot. */
+	private volatile DirectlyFollowsSnapshot snapshot = DirectlyFollowsSnapshot.EMPTY;
+
+	/**
+	 * Get the shared graph, registered into the default {@link EventCapture} on the first call: it only knows the
+	 * events captured after this first call.
+	 *
+	 * @return
+	 *         the shared graph
+	 */
+	public static synchronized DirectlyFollowsGraph getDefault() {
+		if (defaultGraph == null) {
+			defaultGraph = new DirectlyFollowsGraph();
+			EventCapture.getDefault().addSink(defaultGraph);
+		}
+		return defaultGraph;
+	}
+
+	/**
+	 * @return
+	 *         the last published state of the graph
+	 */
+	public DirectlyFollowsSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * @see org.eclipse.papyrus.sirius.log.capture.IEventSink#accept(org.eclipse.papyrus.sirius.log.capture.CapturedEvent)
+	 *
+	 * @param event
+	 */
+	@Override
+	public void accept(final CapturedEvent event) {
+		if (!CapturedEvent.LIFECYCLE_COMPLETE.equals(event.getLifecycle())) {
+			return;
+		}
+		final int activity = getActivityId(event.getActivity());
+		activityFrequencies.add(activity, 1);
+
+		final int[] last = lastActivities.computeIfAbsent(event.getTraceId(), id -> new int[] { NO_ACTIVITY });
+		if (last[0] == NO_ACTIVITY) {
+			startFrequencies.add(activity, 1);
+		} else {
+			edgeFrequencies.add(getEdgeId(last[0], activity), 1);
+		}
+		last[0] = activity;
+
+		eventCount++;
+		if (++unpublishedEvents >= PUBLISH_INTERVAL) {
+			publish();
+		}
+	}
+
+	/**
+	 * @see org.eclipse.papyrus.sirius.log.capture.IEventSink#endOfBatch()
+	 */
+	@Override
+	public void endOfBatch() {
+		if (unpublishedEvents > 0) {
+			publish();
+		}
+	}
+
+	/**
+	 * @see org.eclipse.papyrus.sirius.log.capture.IEventSink#close()
+	 */
+	@Override
+	public void close() {
+		endOfBatch();
+		synchronized (DirectlyFollowsGraph.class) {
+			// a new capture would need a new registration
+			if (defaultGraph == this) {
+				defaultGraph = null;
+			}
+		}
+	}
+
+	/**
+	 * Publish a snapshot of the current state.
+	 */
+	private void publish() {
+		unpublishedEvents = 0;
+		// the arrays are shared: the snapshot only reads the entries below its counts, which are never modified
+		snapshot = new DirectlyFollowsSnapshot(eventCount, activities, activityCount, activityFrequencies.snapshot(), startFrequencies.snapshot(),
+				edgeSources, edgeTargets, edgeCount, edgeFrequencies.snapshot());
+	}
+
+	/**
+	 * @return
+	 *         the id of an activity, created if needed
+	 */
+	private int getActivityId(final String activity) {
+		final Integer existing = activityIds.get(activity);
+		if (existing != null) {
+			return existing.intValue();
+		}
+		final int id = activityCount++;
+		if (id == activities.length) {
+			// the previous array is kept by the published snapshots
+			activities = Arrays.copyOf(activities, id * 2);
+		}
+		activities[id] = activity;
+		activityIds.put(activity, Integer.valueOf(id));
+		return id;
+	}
+
+	/**
+	 * @return
+	 *         the id of the edge between two activities, created if needed
+	 */
+	private int getEdgeId(final int source, final int target) {
+		final long key = ((long) source << 32) | (target & 0xFFFFFFFFL);
+		final int existing = edgeIds.get(key);
+		if (existing != LongIntHashMap.MISSING) {
+			return existing;
+		}
+		final int id = edgeCount++;
+		if (id == edgeSources.length) {
+			edgeSources = Arrays.copyOf(edgeSources, id * 2);
+			edgeTargets = Arrays.copyOf(edgeTargets, id * 2);
+		}
+		edgeSources[id] = source;
+		edgeTargets[id] = target;
+		edgeIds.put(key, id);
+		return id;
+	}
+}
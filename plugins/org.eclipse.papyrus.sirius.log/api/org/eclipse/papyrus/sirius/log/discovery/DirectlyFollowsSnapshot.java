@@ -0,0 +1,225 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.discovery;
+
+/**
+ * An immutable view of a {@link DirectlyFollowsGraph} at a given time.
+ *
+ * The activities and the edges are identified by indexes, stable across the snapshots of a graph: the activity
+ * <code>i</code> of a snapshot is the activity <code>i</code> of all the later ones.
+ */
+public final class DirectlyFollowsSnapshot {
+
+	/** The empty snapshot. */
+	static final DirectlyFollowsSnapshot EMPTY = new DirectlyFollowsSnapshot(0, new String[0], 0, new long[0][], new long[0][], new int[0], new int[0], 0, new long[0][]);
+
+	/** The number of events. */
+	private final long eventCount;
+
+	/** The names of the activities, only the first {@link #activityCount} are valid. */
+	private final String[] activities;
+
+	/** The number of activities. */
+	private final int activityCount;
+
+	/** The frequencies of the activities. */
+	private final long[][] activityFrequencies;
+
+	/** The number of traces started by each activity. */
+	private final long[][] startFrequencies;
+
+	/** The source activities of the edges, only the first {@link #edgeCount} are valid. */
+	private final int[] edgeSources;
+
+	/** The target activities of the edges, only the first {@link #edgeCount} are valid. */
+	private final int[] edgeTargets;
+
+	/** The number of edges. */
+	private final int edgeCount;
+
+	/** The frequencies of the edges. */
+	private final long[][] edgeFrequencies;
+
+	/**
+	 * Constructor.
+	 */
+	DirectlyFollowsSnapshot(final long eventCount, final String[] activities, final int activityCount, final long[][] activityFrequencies, final long[][] startFrequencies,
+			final int[] edgeSources, final int[] edgeTargets, final int edgeCount, final long[][] edgeFrequencies) {
+		this.eventCount = eventCount;
+		this.activities = activities;
+		this.activityCount = activityCount;
+		this.activityFrequencies = activityFrequencies;
+		this.startFrequencies = startFrequencies;
+		this.edgeSources = edgeSources;
+		this.edgeTargets = edgeTargets;
+		this.edgeCount = edgeCount;
+		this.edgeFrequencies = edgeFrequencies;
+	}
+
+	/**
+	 * @return
+	 *         the number of events taken into account
+	 */
+	public long getEventCount() {
+		return eventCount;
+	}
+
+	/**
+	 * @return
+	 *         the number of activities
+	 */
+	public int getActivityCount() {
+		return activityCount;
+	}
+
+	/**
+	 * @param activity
+	 *            the index of an activity
+	 * @return
+	 *         the name of the activity
+	 */
+	public String getActivity(final int activity) {
+		checkIndex(activity, activityCount);
+		return activities[activity];
+	}
+
+	/**
+	 * @param name
+	 *            the name of an activity
+	 * @return
+	 *         the index of the activity, -1 if not found
+	 */
+	public int indexOfActivity(final String name) {
+		for (int i = 0; i < activityCount; i++) {
+			if (activities[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param activity
+	 *            the index of an activity
+	 * @return
+	 *         the number of occurrences of the activity
+	 */
+	public long getActivityFrequency(final int activity) {
+		checkIndex(activity, activityCount);
+		return ChunkedLongArray.get(activityFrequencies, activity);
+	}
+
+	/**
+	 * @param activity
+	 *            the index of an activity
+	 * @return
+	 *         the number of traces started by the activity
+	 */
+	public long getStartFrequency(final int activity) {
+		checkIndex(activity, activityCount);
+		return ChunkedLongArray.get(startFrequencies, activity);
+	}
+
+	/**
+	 * @return
+	 *         the number of edges, that is the number of distinct pairs of directly following activities
+	 */
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge
+	 * @return
+	 *         the index of the source activity of the edge
+	 */
+	public int getEdgeSource(final int edge) {
+		checkIndex(edge, edgeCount);
+		return edgeSources[edge];
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge
+	 * @return
+	 *         the index of the target activity of the edge
+	 */
+	public int getEdgeTarget(final int edge) {
+		checkIndex(edge, edgeCount);
+		return edgeTargets[edge];
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge
+	 * @return
+	 *         the number of times the target activity has directly followed the source activity in a trace
+	 */
+	public long getEdgeFrequency(final int edge) {
+		checkIndex(edge, edgeCount);
+		return ChunkedLongArray.get(edgeFrequencies, edge);
+	}
+
+	/**
+	 * @param source
+	 *            the name of the source activity
+	 * @param target
+	 *            the name of the target activity
+	 * @return
+	 *         the number of times the target activity has directly followed the source activity in a trace
+	 */
+	public long getEdgeFrequency(final String source, final String target) {
+		final int sourceIndex = indexOfActivity(source);
+		final int targetIndex = indexOfActivity(target);
+		if (sourceIndex < 0 || targetIndex < 0) {
+			return 0;
+		}
+		for (int i = 0; i < edgeCount; i++) {
+			if (edgeSources[i] == sourceIndex && edgeTargets[i] == targetIndex) {
+				return ChunkedLongArray.get(edgeFrequencies, i);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return
+	 *         the graph in the Graphviz DOT format, the nodes and the edges being labeled with their frequencies
+	 */
+	public String toDot() {
+		final StringBuilder builder = new StringBuilder("digraph dfg {\n"); //$NON-NLS-1$
+		for (int i = 0; i < activityCount; i++) {
+			builder.append("\ta").append(i).append(" [label=\""); //$NON-NLS-1$ //$NON-NLS-2$
+			builder.append(activities[i].replace("\\", "\\\\").replace("\"", "\\\"")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			builder.append(" (").append(getActivityFrequency(i)).append(")\"];\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		for (int i = 0; i < edgeCount; i++) {
+			builder.append("\ta").append(edgeSources[i]).append(" -> a").append(edgeTargets[i]); //$NON-NLS-1$ //$NON-NLS-2$
+			builder.append(" [label=\"").append(getEdgeFrequency(i)).append("\"];\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		builder.append("}\n"); //$NON-NLS-1$
+		return builder.toString();
+	}
+
+	/**
+	 * Check an index.
+	 */
+	private static void checkIndex(final int index, final int size) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+}
@@ -0,0 +1,126 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.discovery;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing map from primitive long keys to primitive non-negative int values, without boxing.
+ * Not thread-safe.
+ */
+final class LongIntHashMap {
+
+	/** The value returned for a missing key. */
+	static final int MISSING = -1;
+
+	/** The maximal load factor, before growing. */
+	private static final float LOAD_FACTOR = 0.5f;
+
+	/** The keys. */
+	private long[] keys;
+
+	/** The values, {@link #MISSING} for the free slots. */
+	private int[] values;
+
+	/** The number of entries. */
+	private int size;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param expectedSize
+	 *            the expected number of entries
+	 */
+	LongIntHashMap(final int expectedSize) {
+		final int capacity = Integer.highestOneBit(Math.max(8, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		Arrays.fill(this.values, MISSING);
+	}
+
+	/**
+	 * @return
+	 *         the value of the key, {@link #MISSING} if none
+	 */
+	int get(final long key) {
+		final int mask = keys.length - 1;
+		int index = hash(key) & mask;
+		while (values[index] != MISSING) {
+			if (keys[index] == key) {
+				return values[index];
+			}
+			index = (index + 1) & mask;
+		}
+		return MISSING;
+	}
+
+	/**
+	 * Set the value of a key.
+	 *
+	 * @param value
+	 *            the value, must not be negative
+	 */
+	void put(final long key, final int value) {
+		if (size + 1 > keys.length * LOAD_FACTOR) {
+			grow();
+		}
+		final int mask = keys.length - 1;
+		int index = hash(key) & mask;
+		while (values[index] != MISSING) {
+			if (keys[index] == key) {
+				values[index] = value;
+				return;
+			}
+			index = (index + 1) & mask;
+		}
+		keys[index] = key;
+		values[index] = value;
+		size++;
+	}
+
+	/**
+	 * @return
+	 *         the number of entries
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Double the capacity.
+	 */
+	private void grow() {
+		final long[] oldKeys = keys;
+		final int[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		values = new int[oldValues.length * 2];
+		Arrays.fill(values, MISSING);
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != MISSING) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	/**
+	 * @return
+	 *         the spread hash of a key
+	 */
+	private static int hash(final long key) {
+		final long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,237 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of the usage counters and latency histograms of the tools, keyed by diagram kind and tool id.
+ *
+ * Looking up the metrics of a known tool doesn't allocate nor lock, so the registry can be fed from every service entry point.
+ */
+public final class MetricsRegistry {
+
+	/** The system property disabling the metrics when set to <code>false</code>. */
+	public static final String ENABLED_PROPERTY = "org.eclipse.papyrus.sirius.log.metrics"; //$NON-NLS-1$
+
+	/** The diagram kind used when it is unknown. */
+	private static final String NO_DIAGRAM_KIND = ""; //$NON-NLS-1$
+
+	/** The shared instance. */
+	private static final MetricsRegistry DEFAULT = new MetricsRegistry(!Boolean.FALSE.toString().equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY)));
+
+	/** <code>true</code> if the metrics are collected. */
+	private final boolean enabled;
+
+	/** The metrics, by diagram kind and by tool id. */
+	private final Map<String, Map<String, ToolMetrics>> metrics = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param enabled
+	 *            <code>true</code> if the metrics are collected
+	 */
+	MetricsRegistry(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * @return
+	 *         the shared registry
+	 */
+	public static MetricsRegistry getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * @return
+	 *         <code>true</code> if the metrics are collected
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Count an invocation of a tool which has not been timed.
+	 *
+	 * @param diagramKind
+	 *            the kind of diagram, can be <code>null</code>
+	 * @param toolId
+	 *            the identifier of the tool
+	 */
+	public void increment(final String diagramKind, final String toolId) {
+		if (enabled && toolId != null) {
+			getMetrics(diagramKind, toolId).increment();
+		}
+	}
+
+	/**
+	 * Count a timed invocation of a tool.
+	 *
+	 * @param diagramKind
+	 *            the kind of diagram, can be <code>null</code>
+	 * @param toolId
+	 *            the identifier of the tool
+	 * @param durationNanos
+	 *            the duration of the invocation, in nanoseconds
+	 */
+	public void record(final String diagramKind, final String toolId, final long durationNanos) {
+		if (enabled && toolId != null) {
+			getMetrics(diagramKind, toolId).record(durationNanos);
+		}
+	}
+
+	/**
+	 * @param diagramKind
+	 *            the kind of diagram, can be <code>null</code>
+	 * @param toolId
+	 *            the identifier of the tool
+	 * @return
+	 *         the metrics of the tool, created if needed
+	 */
+	public ToolMetrics getMetrics(final String diagramKind, final String toolId) {
+		final String kind = diagramKind != null ? diagramKind : NO_DIAGRAM_KIND;
+		Map<String, ToolMetrics> kindMetrics = metrics.get(kind);
+		if (kindMetrics == null) {
+			kindMetrics = metrics.computeIfAbsent(kind, k -> new ConcurrentHashMap<>());
+		}
+		final ToolMetrics toolMetrics = kindMetrics.get(toolId);
+		if (toolMetrics != null) {
+			return toolMetrics;
+		}
+		return kindMetrics.computeIfAbsent(toolId, id -> new ToolMetrics(kind, id));
+	}
+
+	/**
+	 * @return
+	 *         the metrics of all the tools, sorted by diagram kind and tool id
+	 */
+	public List<ToolMetrics> getAllMetrics() {
+		final List<ToolMetrics> result = new ArrayList<>();
+		for (final Map<String, ToolMetrics> kindMetrics : metrics.values()) {
+			result.addAll(kindMetrics.values());
+		}
+		result.sort(Comparator.comparing(ToolMetrics::getDiagramKind).thenComparing(ToolMetrics::getToolId));
+		return result;
+	}
+
+	/**
+	 * Reset the metrics of all the tools.
+	 */
+	public void reset() {
+		for (final ToolMetrics toolMetrics : getAllMetrics()) {
+			toolMetrics.reset();
+		}
+	}
+
+	/**
+	 * @return
+	 *         the JSON representation of the metrics
+	 */
+	public String toJson() {
+		final StringBuilder builder = new StringBuilder();
+		appendJson(builder);
+		return builder.toString();
+	}
+
+	/**
+	 * Write the JSON representation of the metrics in a file.
+	 *
+	 * @param file
+	 *            the file to write
+	 * @throws IOException
+	 */
+	public void writeJson(final Path file) throws IOException {
+		final Path parent = file.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write(toJson());
+		}
+	}
+
+	/**
+	 * Append the JSON representation of the metrics: an array with one object per tool.
+	 *
+	 * @param builder
+	 *            the builder
+	 */
+	public void appendJson(final StringBuilder builder) {
+		builder.append("[\n"); //$NON-NLS-1$
+		boolean first = true;
+		for (final ToolMetrics toolMetrics : getAllMetrics()) {
+			if (!first) {
+				builder.append(",\n"); //$NON-NLS-1$
+			}
+			first = false;
+			final long timedCount = toolMetrics.getTimedCount();
+			builder.append("\t{\"diagramKind\": "); //$NON-NLS-1$
+			appendJsonString(builder, toolMetrics.getDiagramKind());
+			builder.append(", \"toolId\": "); //$NON-NLS-1$
+			appendJsonString(builder, toolMetrics.getToolId());
+			builder.append(", \"count\": ").append(toolMetrics.getCount()); //$NON-NLS-1$
+			builder.append(", \"timedCount\": ").append(timedCount); //$NON-NLS-1$
+			builder.append(", \"totalNanos\": ").append(toolMetrics.getTotalNanos()); //$NON-NLS-1$
+			builder.append(", \"meanNanos\": ").append(timedCount == 0 ? 0 : toolMetrics.getTotalNanos() / timedCount); //$NON-NLS-1$
+			builder.append(", \"p50Nanos\": ").append(toolMetrics.getPercentileNanos(50)); //$NON-NLS-1$
+			builder.append(", \"p99Nanos\": ").append(toolMetrics.getPercentileNanos(99)); //$NON-NLS-1$
+			builder.append(", \"maxNanos\": ").append(toolMetrics.getMaxNanos()); //$NON-NLS-1$
+			builder.append(", \"histogramMicros\": {"); //$NON-NLS-1$
+			final long[] buckets = toolMetrics.getBuckets();
+			boolean firstBucket = true;
+			for (int i = 0; i < buckets.length; i++) {
+				if (buckets[i] != 0) {
+					if (!firstBucket) {
+						builder.append(", "); //$NON-NLS-1$
+					}
+					firstBucket = false;
+					// the key is the exclusive upper bound of the bucket
+					builder.append('"').append(i == buckets.length - 1 ? "inf" : Long.toString(ToolMetrics.getBucketUpperBoundNanos(i) / 1000)).append("\": ").append(buckets[i]); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
+			builder.append("}}"); //$NON-NLS-1$
+		}
+		builder.append("\n]\n"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Append a JSON string literal.
+	 */
+	private static void appendJsonString(final StringBuilder builder, final String value) {
+		builder.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				builder.append('\\').append(c);
+			} else if (c < 0x20) {
+				builder.append(String.format("\\u%04x", Integer.valueOf(c))); //$NON-NLS-1$
+			} else {
+				builder.append(c);
+			}
+		}
+		builder.append('"');
+	}
+}
@@ -0,0 +1,213 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The usage counter and latency histogram of a tool in a kind of diagram.
+ *
+ * All the values are held in striped adders, so that concurrent updates don't contend on a single memory location.
+ * The histogram has one bucket per power of two microseconds: bucket <code>i</code> counts the durations in
+ * <code>[2^i, 2^(i+1))</code> microseconds, the first one including the shorter durations and the last one the longer ones.
+ */
+public final class ToolMetrics {
+
+	/** The number of buckets of the latency histogram. */
+	public static final int BUCKET_COUNT = 32;
+
+	/** The kind of diagram owning the tool. */
+	private final String diagramKind;
+
+	/** The identifier of the tool. */
+	private final String toolId;
+
+	/** The number of invocations. */
+	private final LongAdder count = new LongAdder();
+
+	/** The number of timed invocations. */
+	private final LongAdder timedCount = new LongAdder();
+
+	/** The sum of the durations of the timed invocations, in nanoseconds. */
+	private final LongAdder totalNanos = new LongAdder();
+
+	/** The longest duration, in nanoseconds. */
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+	/** The latency histogram. */
+	private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+
+	/**
+	 * Constructor.
+	 *
+	 * @param diagramKind
+	 *            the kind of diagram owning the tool
+	 * @param toolId
+	 *            the identifier of the tool
+	 */
+	ToolMetrics(final String diagramKind, final String toolId) {
+		this.diagramKind = diagramKind;
+		this.toolId = toolId;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			this.buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Count an invocation which has not been timed.
+	 */
+	public void increment() {
+		count.increment();
+	}
+
+	/**
+	 * Count a timed invocation.
+	 *
+	 * @param durationNanos
+	 *            the duration of the invocation, in nanoseconds
+	 */
+	public void record(final long durationNanos) {
+		final long duration = Math.max(0, durationNanos);
+		count.increment();
+		timedCount.increment();
+		totalNanos.add(duration);
+		maxNanos.accumulate(duration);
+		buckets[getBucket(duration)].increment();
+	}
+
+	/**
+	 * @return
+	 *         the kind of diagram owning the tool
+	 */
+	public String getDiagramKind() {
+		return diagramKind;
+	}
+
+	/**
+	 * @return
+	 *         the identifier of the tool
+	 */
+	public String getToolId() {
+		return toolId;
+	}
+
+	/**
+	 * @return
+	 *         the number of invocations
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * @return
+	 *         the number of timed invocations
+	 */
+	public long getTimedCount() {
+		return timedCount.sum();
+	}
+
+	/**
+	 * @return
+	 *         the sum of the durations of the timed invocations, in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+
+	/**
+	 * @return
+	 *         the longest duration, in nanoseconds
+	 */
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	/**
+	 * @return
+	 *         a copy of the latency histogram, see {@link #getBucketUpperBoundNanos(int)}
+	 */
+	public long[] getBuckets() {
+		final long[] result = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			result[i] = buckets[i].sum();
+		}
+		return result;
+	}
+
+	/**
+	 * Estimate a percentile of the durations from the histogram.
+	 *
+	 * @param percentile
+	 *            the percentile, between 0 and 100
+	 * @return
+	 *         the upper bound of the bucket holding the percentile, in nanoseconds, 0 if there is no timed invocation
+	 */
+	public long getPercentileNanos(final double percentile) {
+		final long[] histogram = getBuckets();
+		long total = 0;
+		for (final long value : histogram) {
+			total += value;
+		}
+		if (total == 0) {
+			return 0;
+		}
+		final long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100);
+		long cumulated = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			cumulated += histogram[i];
+			if (cumulated >= rank && cumulated > 0) {
+				return Math.min(getBucketUpperBoundNanos(i), getMaxNanos());
+			}
+		}
+		return getMaxNanos();
+	}
+
+	/**
+	 * Reset all the values.
+	 */
+	public void reset() {
+		count.reset();
+		timedCount.reset();
+		totalNanos.reset();
+		maxNanos.reset();
+		for (final LongAdder bucket : buckets) {
+			bucket.reset();
+		}
+	}
+
+	/**
+	 * @param bucket
+	 *            the index of a bucket
+	 * @return
+	 *         the exclusive upper bound of the durations counted by the bucket, in nanoseconds
+	 */
+	public static long getBucketUpperBoundNanos(final int bucket) {
+		return bucket >= BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << (bucket + 1)) * 1000;
+	}
+
+	/**
+	 * @return
+	 *         the index of the bucket of a duration
+	 */
+	private static int getBucket(final long durationNanos) {
+		final long micros = durationNanos / 1000;
+		if (micros <= 1) {
+			return 0;
+		}
+		return Math.min(BUCKET_COUNT - 1, 63 - Long.numberOfLeadingZeros(micros));
+	}
+}
@@ -14,6 +14,18 @@
  *****************************************************************************/
 package org.eclipse.papyrus.sirius.log.internal;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.eclipse.papyrus.sirius.log.AsyncLogAppender;
+import org.eclipse.papyrus.sirius.log.LogHelper;
+import org.eclipse.papyrus.sirius.log.capture.EventCapture;
+import org.eclipse.papyrus.sirius.log.capture.TraceFileRetention;
+import org.eclipse.papyrus.sirius.log.capture.binary.BinaryEventSink;
+import org.eclipse.papyrus.sirius.log.capture.xes.XesEventSink;
+import org.eclipse.papyrus.sirius.log.discovery.DirectlyFollowsGraph;
+import org.eclipse.papyrus.sirius.log.metrics.MetricsRegistry;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
@@ -28,6 +40,59 @@ public class Activator extends AbstractUIPlugin {
 	// The shared instance
 	private static Activator plugin;
 
+	/**
+	 * The system property enabling the XES traces, which are disabled by default: <code>true</code> to write them in the
+	 * state location of this bundle, or the path of their folder.
+	 */
+	public static final String XES_FOLDER_PROPERTY = "org.eclipse.papyrus.sirius.log.capture.xes"; //$NON-NLS-1$
+
+	/** The system property defining the maximal size of an XES file, in bytes. */
+	public static final String XES_MAX_FILE_SIZE_PROPERTY = "org.eclipse.papyrus.sirius.log.capture.xes.maxFileSize"; //$NON-NLS-1$
+
+	/** The system property defining the maximal age of an XES file, in milliseconds. */
+	public static final String XES_MAX_FILE_AGE_PROPERTY = "org.eclipse.papyrus.sirius.log.capture.xes.maxFileAge"; //$NON-NLS-1$
+
+	/** The system property defining the age after which an XES file is deleted, in milliseconds, 0 to never delete them. */
+	public static final String XES_RETENTION_PROPERTY = "org.eclipse.papyrus.sirius.log.capture.xes.retention"; //$NON-NLS-1$
+
+	/** The system property defining the maximal number of XES files kept in their folder, 0 for no limit. */
+	public static final String XES_MAX_FILES_PROPERTY = "org.eclipse.papyrus.sirius.log.capture.xes.maxFiles"; //$NON-NLS-1$
+
+	/**
+	 * The system property defining the folder of the compact binary traces, which are disabled by default.
+	 * The binary files can be converted to XES or CSV with the TraceExporter.
+	 */
+	public static final String BINARY_FOLDER_PROPERTY = "org.eclipse.papyrus.sirius.log.capture.binary"; //$NON-NLS-1$
+
+	/** The system property defining the maximal size of a binary file, in bytes. */
+	public static final String BINARY_MAX_FILE_SIZE_PROPERTY = "org.eclipse.papyrus.sirius.log.capture.binary.maxFileSize"; //$NON-NLS-1$
+
+	/**
+	 * The system property registering the shared directly-follows graph when the bundle starts (<code>true</code>),
+	 * instead of on its first use, so that it knows all the events of the session.
+	 */
+	public static final String DISCOVERY_PROPERTY = "org.eclipse.papyrus.sirius.log.capture.discovery"; //$NON-NLS-1$
+
+	/** The system property defining the JSON file in which the tool metrics are dumped when the bundle stops. */
+	public static final String METRICS_FILE_PROPERTY = "org.eclipse.papyrus.sirius.log.metrics.file"; //$NON-NLS-1$
+
+	/**
+	 * The system property enabling the asynchronous writing of the logs, with the policy applied when the queue is full:
+	 * <code>drop</code> or <code>block</code>. By default, the logs are written synchronously.
+	 */
+	public static final String ASYNC_LOG_PROPERTY = "org.eclipse.papyrus.sirius.log.async"; //$NON-NLS-1$
+
+	/** The system property defining the capacity of the queue of the asynchronous logs. */
+	public static final String ASYNC_LOG_CAPACITY_PROPERTY = "org.eclipse.papyrus.sirius.log.async.capacity"; //$NON-NLS-1$
+
+	/** The maximal time to wait for the pending logs when the bundle stops, in milliseconds. */
+	private static final long ASYNC_LOG_SHUTDOWN_TIMEOUT = 5000;
+
+	/** The name of the default folder of the traces, in the state location. */
+	private static final String TRACES_FOLDER = "traces"; //$NON-NLS-1$
+
+	public static LogHelper log;
+
 	/**
 	 * The constructor
 	 */
@@ -38,14 +103,90 @@ public class Activator extends AbstractUIPlugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		log = new LogHelper(this);
+		installAsyncAppender();
+		installDefaultSinks();
+	}
+
+	/**
+	 * Make the log helpers write asynchronously, according to the system properties.
+	 */
+	private void installAsyncAppender() {
+		final String policy = System.getProperty(ASYNC_LOG_PROPERTY);
+		if (policy == null || Boolean.FALSE.toString().equalsIgnoreCase(policy)) {
+			return;
+		}
+		final AsyncLogAppender.OverflowPolicy overflowPolicy = AsyncLogAppender.OverflowPolicy.BLOCK.name().equalsIgnoreCase(policy)
+				? AsyncLogAppender.OverflowPolicy.BLOCK
+				: AsyncLogAppender.OverflowPolicy.DROP;
+		final int capacity = Integer.getInteger(ASYNC_LOG_CAPACITY_PROPERTY, AsyncLogAppender.DEFAULT_CAPACITY).intValue();
+		final AsyncLogAppender previous = LogHelper.setAsyncAppender(new AsyncLogAppender(capacity, overflowPolicy));
+		if (previous != null) {
+			previous.shutdown(ASYNC_LOG_SHUTDOWN_TIMEOUT);
+		}
+	}
+
+	/**
+	 * Register the sinks writing the captured events, according to the system properties.
+	 */
+	private void installDefaultSinks() {
+		final EventCapture capture = EventCapture.getDefault();
+		if (!capture.isEnabled()) {
+			return;
+		}
+		final String xesFolder = System.getProperty(XES_FOLDER_PROPERTY);
+		if (xesFolder != null && !Boolean.FALSE.toString().equalsIgnoreCase(xesFolder)) {
+			final Path folder = Boolean.TRUE.toString().equalsIgnoreCase(xesFolder)
+					? getStateLocation().append(TRACES_FOLDER).toFile().toPath()
+					: Paths.get(xesFolder);
+			final TraceFileRetention retention = new TraceFileRetention(
+					Long.getLong(XES_RETENTION_PROPERTY, TraceFileRetention.DEFAULT_MAX_AGE).longValue(),
+					Integer.getInteger(XES_MAX_FILES_PROPERTY, TraceFileRetention.DEFAULT_MAX_FILES).intValue());
+			capture.addSink(new XesEventSink(folder,
+					Long.getLong(XES_MAX_FILE_SIZE_PROPERTY, XesEventSink.DEFAULT_MAX_FILE_SIZE).longValue(),
+					Long.getLong(XES_MAX_FILE_AGE_PROPERTY, XesEventSink.DEFAULT_MAX_FILE_AGE).longValue(),
+					retention));
+		}
+		final String binaryFolder = System.getProperty(BINARY_FOLDER_PROPERTY);
+		if (binaryFolder != null && !Boolean.FALSE.toString().equalsIgnoreCase(binaryFolder)) {
+			capture.addSink(new BinaryEventSink(Paths.get(binaryFolder),
+					Long.getLong(BINARY_MAX_FILE_SIZE_PROPERTY, BinaryEventSink.DEFAULT_MAX_FILE_SIZE).longValue()));
+		}
+		if (Boolean.getBoolean(DISCOVERY_PROPERTY)) {
+			DirectlyFollowsGraph.getDefault();
+		}
 	}
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		// deliver the pending captured events before leaving
+		EventCapture.shutdown();
+		dumpMetrics();
+		// write the pending logs, the next ones are written synchronously
+		final AsyncLogAppender appender = LogHelper.setAsyncAppender(null);
+		if (appender != null) {
+			appender.shutdown(ASYNC_LOG_SHUTDOWN_TIMEOUT);
+		}
+		log = null;
 		plugin = null;
 		super.stop(context);
 	}
 
+	/**
+	 * Write the tool metrics in the file defined by {@link #METRICS_FILE_PROPERTY}, if any.
+	 */
+	private void dumpMetrics() {
+		final String metricsFile = System.getProperty(METRICS_FILE_PROPERTY);
+		if (metricsFile == null || !MetricsRegistry.getDefault().isEnabled()) {
+			return;
+		}
+		try {
+			MetricsRegistry.getDefault().writeJson(Paths.get(metricsFile));
+		} catch (IOException e) {
+			log.error("The tool metrics can't be written in " + metricsFile, e); //$NON-NLS-1$
+		}
+	}
+
 	/**
 	 * Returns the shared instance
 	 *
@@ -68,6 +68,8 @@ public class MappingTypes {
 
 	public static final String CONSTRAINT_NODE_TYPE = "CD_Constraint"; //$NON-NLS-1$
 
+	public static final String CONTAINMENT_LINK_EDGE_TYPE = "CD_ContainmentLink"; //$NON-NLS-1$
+
 	public static final String DATATYPE_LABEL_NODE_TYPE = "CD_DataTypeLabelNode"; //$NON-NLS-1$
 
 	public static final String DATATYPE_NODE_TYPE = "CD_DataType"; //$NON-NLS-1$
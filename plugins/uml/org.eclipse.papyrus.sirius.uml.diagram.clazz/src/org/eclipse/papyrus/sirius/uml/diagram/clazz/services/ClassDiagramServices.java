@@ -14,10 +14,11 @@
  *****************************************************************************/
 package org.eclipse.papyrus.sirius.uml.diagram.clazz.services;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -31,6 +32,7 @@ import org.eclipse.papyrus.sirius.uml.diagram.clazz.Activator;
 import org.eclipse.papyrus.sirius.uml.diagram.clazz.internal.constants.MappingTypes;
 import org.eclipse.papyrus.sirius.uml.diagram.clazz.internal.ui.dialog.AssociationSelectionDialog;
 import org.eclipse.papyrus.sirius.uml.diagram.clazz.internal.utils.InstanceSpecificationLinkUtils;
+import org.eclipse.papyrus.sirius.uml.diagram.common.core.index.RelationshipIndex;
 import org.eclipse.papyrus.sirius.uml.diagram.common.core.services.AssociationClassServices;
 import org.eclipse.papyrus.sirius.uml.diagram.common.core.services.AssociationServices;
 import org.eclipse.papyrus.sirius.uml.diagram.common.core.services.ElementServices;
@@ -39,6 +41,8 @@ import org.eclipse.papyrus.sirius.uml.diagram.common.core.services.LabelServices
 import org.eclipse.papyrus.sirius.uml.diagram.common.core.services.NodeInverseRefsServices;
 import org.eclipse.papyrus.sirius.uml.diagram.common.core.services.OperationServices;
 import org.eclipse.papyrus.sirius.uml.diagram.common.core.services.StereotypeServices;
+import org.eclipse.papyrus.sirius.uml.diagram.common.services.DiagramServices;
+import org.eclipse.papyrus.sirius.uml.diagram.common.services.EventCaptureServices;
 import org.eclipse.sirius.diagram.DDiagram;
 import org.eclipse.sirius.diagram.DDiagramElement;
 import org.eclipse.sirius.diagram.DEdge;
@@ -46,6 +50,7 @@ import org.eclipse.sirius.diagram.DNodeContainer;
 import org.eclipse.sirius.diagram.DSemanticDiagram;
 import org.eclipse.sirius.diagram.EdgeArrows;
 import org.eclipse.sirius.diagram.EdgeTarget;
+import org.eclipse.sirius.diagram.description.EdgeMapping;
 import org.eclipse.sirius.viewpoint.DSemanticDecorator;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Display;
@@ -151,6 +156,7 @@ public class ClassDiagramServices {
 	 * @return the element
 	 */
 	public EObject dndElement(EObject semanticObjectToDrop, EObject targetContainerView) {
+		final long start = EventCaptureServices.INSTANCE.startTool();
 		if ((targetContainerView instanceof DSemanticDecorator) && (semanticObjectToDrop instanceof PackageableElement)) {
 			Element element = (PackageableElement) semanticObjectToDrop;
 			EObject target = ((DSemanticDecorator) targetContainerView).getTarget();
@@ -164,6 +170,7 @@ public class ClassDiagramServices {
 			}
 
 		}
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.CLASS_DIAGRAM, "dndElement", semanticObjectToDrop, start); //$NON-NLS-1$
 		return semanticObjectToDrop;
 	}
 
@@ -204,18 +211,7 @@ public class ClassDiagramServices {
 	 *         all {@link Abstraction} recursively
 	 */
 	private static final Collection<Abstraction> getAllAbstractions(final Package pack) {
-		final Collection<Abstraction> abstractions = new HashSet<Abstraction>();
-		final Iterator<NamedElement> iter = pack.getMembers().iterator();
-		while (iter.hasNext()) {
-			final NamedElement current = iter.next();
-			if (current instanceof Package) {
-				abstractions.addAll(getAllAbstractions((Package) current));
-			}
-			if (current instanceof Abstraction) {
-				abstractions.add((Abstraction) current);
-			}
-		}
-		return abstractions;
+		return getIndexedElements(pack, Abstraction.class, Package.class, Package.class, true);
 	}
 
 	/**
@@ -300,18 +296,7 @@ public class ClassDiagramServices {
 	 *         all {@link Association} recursively
 	 */
 	private static final Collection<Association> getAllAssociations(final Package pack) {
-		final Collection<Association> associations = new HashSet<Association>();
-		final Iterator<NamedElement> iter = pack.getMembers().iterator();
-		while (iter.hasNext()) {
-			final NamedElement current = iter.next();
-			if (current instanceof Package) {
-				associations.addAll(getAllAssociations((Package) current));
-			}
-			if (current instanceof Association) {
-				associations.add((Association) current);
-			}
-		}
-		return associations;
+		return getIndexedElements(pack, Association.class, Package.class, Package.class, true);
 	}
 
 	/**
@@ -464,18 +449,7 @@ public class ClassDiagramServices {
 	 *         all {@link AssociationClass} recursively
 	 */
 	private static final Collection<AssociationClass> getAllAssociationClasses(final Package pack) {
-		final Collection<AssociationClass> associationClasses = new HashSet<AssociationClass>();
-		final Iterator<NamedElement> iter = pack.getMembers().iterator();
-		while (iter.hasNext()) {
-			final NamedElement current = iter.next();
-			if (current instanceof Package) {
-				associationClasses.addAll(getAllAssociationClasses((Package) current));
-			}
-			if (current instanceof AssociationClass) {
-				associationClasses.add((AssociationClass) current);
-			}
-		}
-		return associationClasses;
+		return getIndexedElements(pack, AssociationClass.class, Package.class, Package.class, true);
 	}
 
 	/**
@@ -774,7 +748,8 @@ public class ClassDiagramServices {
 	 */
 	public boolean containmentLink_canReconnectSource(final Element oldSource, final DNodeContainer newSourceView, final Element newSource, final DNodeContainer otherEnd) {
 		final Element target = (Element) otherEnd.getTarget();
-		return containmentLink_isValidSourceAndTarget(null, null, otherEnd, newSource, target);
+		return containmentLink_isValidSourceAndTarget(null, null, otherEnd, newSource, target)
+				&& !containmentLink_isDisplayed(newSourceView, otherEnd);
 	}
 
 	/**
@@ -793,7 +768,24 @@ public class ClassDiagramServices {
 	 */
 	public boolean containmentLink_canReconnectTarget(final Element oldTarget, final DNodeContainer newTargetView, final Element newTarget, final DNodeContainer otherEnd) {
 		final Element source = (Element) otherEnd.getTarget();
-		return containmentLink_isValidSourceAndTarget(null, null, newTargetView, source, newTarget);
+		return containmentLink_isValidSourceAndTarget(null, null, newTargetView, source, newTarget)
+				&& !containmentLink_isDisplayed(otherEnd, newTargetView);
+	}
+
+	/**
+	 * Check if a ContainmentLink is already displayed between two views. The reconnection on such views would not change the containment.
+	 * 
+	 * @param sourceView
+	 *            the source view
+	 * @param targetView
+	 *            the target view
+	 * @return
+	 *         <code>true</code> if the diagram already has a ContainmentLink from the source view to the target view
+	 */
+	private boolean containmentLink_isDisplayed(final DNodeContainer sourceView, final DNodeContainer targetView) {
+		final DDiagram diagram = sourceView.getParentDiagram();
+		final EdgeMapping mapping = DiagramServices.getDiagramServices().getEdgeMapping(diagram, MappingTypes.CONTAINMENT_LINK_EDGE_TYPE);
+		return mapping != null && DiagramServices.getDiagramServices().findDEdgeElement(diagram, sourceView, targetView, mapping) != null;
 	}
 
 	/**
@@ -817,6 +809,7 @@ public class ClassDiagramServices {
 		final Element targetElement = (Element) ((DNodeContainer) edgeView.getTargetNode()).getTarget();
 		// 2. move the element in its new owner
 		containmentLink_creation(null, newSource, targetElement);
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.CLASS_DIAGRAM, "containmentLink_reconnectSource", targetElement); //$NON-NLS-1$
 	}
 
 	/**
@@ -845,6 +838,7 @@ public class ClassDiagramServices {
 
 		// 2. move the element in its new parent
 		containmentLink_creation(null, context, newTarget);
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.CLASS_DIAGRAM, "containmentLink_reconnectTarget", newTarget); //$NON-NLS-1$
 	}
 
 	/**
@@ -900,18 +894,7 @@ public class ClassDiagramServices {
 	 *         all owned {@link Dependency} recursively
 	 */
 	private static final Collection<Dependency> getAllDependencies(final Package pack) {
-		final Collection<Dependency> dependencies = new HashSet<Dependency>();
-		final Iterator<NamedElement> iter = pack.getMembers().iterator();
-		while (iter.hasNext()) {
-			final NamedElement current = iter.next();
-			if (current instanceof Package) {
-				dependencies.addAll(getAllDependencies((Package) current));
-			}
-			if (current instanceof Dependency) {
-				dependencies.add((Dependency) current);
-			}
-		}
-		return dependencies;
+		return getIndexedElements(pack, Dependency.class, Package.class, Package.class, true);
 	}
 
 	/**
@@ -1007,16 +990,7 @@ public class ClassDiagramServices {
 	 *         all {@link ElementImport} recursively
 	 */
 	private static final Collection<ElementImport> getAllElementImports(final Namespace namespace) {
-		final Collection<ElementImport> elementImports = new HashSet<ElementImport>();
-		elementImports.addAll(namespace.getElementImports());
-		final Iterator<NamedElement> iter = namespace.getOwnedMembers().iterator();
-		while (iter.hasNext()) {
-			final NamedElement current = iter.next();
-			if (current instanceof Namespace) {
-				elementImports.addAll(getAllElementImports((Namespace) current));
-			}
-		}
-		return elementImports;
+		return getIndexedElements(namespace, ElementImport.class, Namespace.class, Namespace.class, false);
 	}
 
 	/**
@@ -1106,16 +1080,10 @@ public class ClassDiagramServices {
 	 *         all {@link Generalization} recursively
 	 */
 	private static final Collection<Generalization> getAllGeneralizations(final Namespace namespace) {
-		final Collection<Generalization> generalizations = new HashSet<Generalization>();
-		final Iterator<NamedElement> iter = namespace.getOwnedMembers().iterator();
-		while (iter.hasNext()) {
-			final NamedElement current = iter.next();
-			if (current instanceof Classifier) {
-				generalizations.addAll(((Classifier) current).getGeneralizations());
-			}
-			if (current instanceof Namespace) {
-				generalizations.addAll(getAllGeneralizations((Namespace) current));
-			}
+		final Collection<Generalization> generalizations = getIndexedElements(namespace, Generalization.class, Classifier.class, Namespace.class, false);
+		if (namespace instanceof Classifier) {
+			// only the generalizations of the members are displayed
+			generalizations.removeAll(((Classifier) namespace).getGeneralizations());
 		}
 		return generalizations;
 	}
@@ -1204,18 +1172,7 @@ public class ClassDiagramServices {
 	 *         all {@link GeneralizationSet} recursively
 	 */
 	private static final Collection<GeneralizationSet> getAllGeneralizationSets(final Package pack) {
-		final Collection<GeneralizationSet> generalizationSets = new HashSet<GeneralizationSet>();
-		final Iterator<PackageableElement> iter = pack.getPackagedElements().iterator();
-		while (iter.hasNext()) {
-			final NamedElement current = iter.next();
-			if (current instanceof GeneralizationSet) {
-				generalizationSets.add(((GeneralizationSet) current));
-			}
-			if (current instanceof Package) {
-				generalizationSets.addAll(getAllGeneralizationSets((Package) current));
-			}
-		}
-		return generalizationSets;
+		return getIndexedElements(pack, GeneralizationSet.class, Package.class, Package.class, false);
 	}
 
 	/**
@@ -1318,18 +1275,7 @@ public class ClassDiagramServices {
 	 *         all {@link InformationFlow} recursively
 	 */
 	private static final Collection<InformationFlow> getAllInformationFlows(final Package namespace) {
-		final Collection<InformationFlow> informationFlows = new HashSet<InformationFlow>();
-		final Iterator<PackageableElement> iter = namespace.getPackagedElements().iterator();
-		while (iter.hasNext()) {
-			final NamedElement current = iter.next();
-			if (current instanceof InformationFlow) {
-				informationFlows.add((InformationFlow) current);
-			}
-			if (current instanceof Package) {
-				informationFlows.addAll(getAllInformationFlows((Package) current));
-			}
-		}
-		return informationFlows;
+		return getIndexedElements(namespace, InformationFlow.class, Package.class, Package.class, false);
 	}
 
 	/**
@@ -1424,14 +1370,9 @@ public class ClassDiagramServices {
 	 */
 	private final Collection<InstanceSpecification> getAllInstanceSpecificationLinks(final Package pack) {
 		final Collection<InstanceSpecification> instanceSpecifications = new HashSet<InstanceSpecification>();
-		final Iterator<PackageableElement> iter = pack.getPackagedElements().iterator();
-		while (iter.hasNext()) {
-			final NamedElement current = iter.next();
+		for (final InstanceSpecification current : getIndexedElements(pack, InstanceSpecification.class, Package.class, Package.class, false)) {
 			if (instanceSpecification_isLink(current)) {
-				instanceSpecifications.add((InstanceSpecification) current);
-			}
-			if (current instanceof Package) {
-				instanceSpecifications.addAll(getAllInstanceSpecificationLinks((Package) current));
+				instanceSpecifications.add(current);
 			}
 		}
 		return instanceSpecifications;
@@ -1512,6 +1453,7 @@ public class ClassDiagramServices {
 
 		// add the created instance specification into the nearest package of the source
 		source.getNearestPackage().getPackagedElements().add(instanceSpecification);
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.CLASS_DIAGRAM, "instanceSpecificationLink_createInstanceSpecificationLink", instanceSpecification); //$NON-NLS-1$
 
 		return instanceSpecification;
 	}
@@ -1602,18 +1544,7 @@ public class ClassDiagramServices {
 	 *         all {@link InterfaceRealization} recursively
 	 */
 	private final Collection<InterfaceRealization> getAllInterfaceRealizations(final Package pack) {
-		final Collection<InterfaceRealization> interfaceRealizations = new HashSet<InterfaceRealization>();
-		final Iterator<PackageableElement> iter = pack.getPackagedElements().iterator();
-		while (iter.hasNext()) {
-			final NamedElement current = iter.next();
-			if (current instanceof Package) {
-				interfaceRealizations.addAll(getAllInterfaceRealizations((Package) current));
-			}
-			if (current instanceof BehavioredClassifier) {
-				interfaceRealizations.addAll(((BehavioredClassifier) current).getInterfaceRealizations());
-			}
-		}
-		return interfaceRealizations;
+		return getIndexedElements(pack, InterfaceRealization.class, BehavioredClassifier.class, Package.class, false);
 	}
 
 	/**
@@ -1873,16 +1804,7 @@ public class ClassDiagramServices {
 	 *         all {@link PackageImport} recursively
 	 */
 	private final Collection<PackageImport> getAllPackageImports(final Package pack) {
-		final Collection<PackageImport> packageImports = new HashSet<PackageImport>();
-		packageImports.addAll(pack.getPackageImports());
-		final Iterator<PackageableElement> iter = pack.getPackagedElements().iterator();
-		while (iter.hasNext()) {
-			final NamedElement current = iter.next();
-			if (current instanceof Package) {
-				packageImports.addAll(getAllPackageImports((Package) current));
-			}
-		}
-		return packageImports;
+		return getIndexedElements(pack, PackageImport.class, Package.class, Package.class, false);
 	}
 
 	/**
@@ -1975,16 +1897,7 @@ public class ClassDiagramServices {
 	 *         all {@link PackageMerge} recursively
 	 */
 	private final Collection<PackageMerge> getAllPackageMerges(final Package pack) {
-		final Collection<PackageMerge> packageImports = new HashSet<PackageMerge>();
-		packageImports.addAll(pack.getPackageMerges());
-		final Iterator<PackageableElement> iter = pack.getPackagedElements().iterator();
-		while (iter.hasNext()) {
-			final NamedElement current = iter.next();
-			if (current instanceof Package) {
-				packageImports.addAll(getAllPackageMerges((Package) current));
-			}
-		}
-		return packageImports;
+		return getIndexedElements(pack, PackageMerge.class, Package.class, Package.class, false);
 	}
 
 	/**
@@ -2077,18 +1990,7 @@ public class ClassDiagramServices {
 	 *         all {@link Realization} recursively
 	 */
 	private final Collection<Realization> getAllRealizations(final Package pack) {
-		final Collection<Realization> realizations = new HashSet<Realization>();
-		final Iterator<NamedElement> iter = pack.getMembers().iterator();
-		while (iter.hasNext()) {
-			final NamedElement current = iter.next();
-			if (current instanceof Package) {
-				realizations.addAll(getAllRealizations((Package) current));
-			}
-			if (current instanceof Realization) {
-				realizations.add((Realization) current);
-			}
-		}
-		return realizations;
+		return getIndexedElements(pack, Realization.class, Package.class, Package.class, true);
 	}
 
 	/**
@@ -2184,18 +2086,7 @@ public class ClassDiagramServices {
 	 *         all {@link Substitution} recursively
 	 */
 	private final Collection<Substitution> getAllSubstitutions(final Package pack) {
-		final Collection<Substitution> substitutions = new HashSet<Substitution>();
-		final Iterator<NamedElement> iter = pack.getMembers().iterator();
-		while (iter.hasNext()) {
-			final NamedElement current = iter.next();
-			if (current instanceof Package) {
-				substitutions.addAll(getAllSubstitutions((Package) current));
-			}
-			if (current instanceof Class) {
-				substitutions.addAll(((Class) current).getSubstitutions());
-			}
-		}
-		return substitutions;
+		return getIndexedElements(pack, Substitution.class, Class.class, Package.class, true);
 	}
 
 	/**
@@ -2296,17 +2187,9 @@ public class ClassDiagramServices {
 	 *         all {@link TemplateBinding} recursively
 	 */
 	private final Collection<TemplateBinding> getAllTemplateBindings(final Package pack) {
-		final Collection<TemplateBinding> templateBindings = new HashSet<TemplateBinding>();
-		final Iterator<NamedElement> iter = pack.getMembers().iterator();
-		while (iter.hasNext()) {
-			final NamedElement current = iter.next();
-			if (current instanceof Package) {
-				templateBindings.addAll(getAllTemplateBindings((Package) current));
-			}
-			if (current instanceof TemplateableElement) {
-				templateBindings.addAll(((TemplateableElement) current).getTemplateBindings());
-			}
-		}
+		final Collection<TemplateBinding> templateBindings = getIndexedElements(pack, TemplateBinding.class, TemplateableElement.class, Package.class, true);
+		// only the template bindings of the members are displayed
+		templateBindings.removeAll(pack.getTemplateBindings());
 		return templateBindings;
 	}
 
@@ -2334,18 +2217,154 @@ public class ClassDiagramServices {
 	 *         all {@link Usage} recursively
 	 */
 	private final Collection<Usage> getAllUsages(final Package pack) {
-		final Collection<Usage> usages = new HashSet<Usage>();
-		final Iterator<NamedElement> iter = pack.getMembers().iterator();
-		while (iter.hasNext()) {
-			final NamedElement current = iter.next();
-			if (current instanceof Package) {
-				usages.addAll(getAllUsages((Package) current));
+		return getIndexedElements(pack, Usage.class, Package.class, Package.class, true);
+	}
+
+	/**
+	 * Get the relationships of a given type owned in a context, from the {@link RelationshipIndex} of the model: the
+	 * owner of each relationship is an instance of <code>ownerType</code> and is the context itself or is nested into
+	 * it through elements of type <code>pathType</code>. Only the packages nested into the context are traversed.
+	 *
+	 * @param context
+	 *            the context in which we are looking for relationships
+	 * @param type
+	 *            the type of the relationships
+	 * @param ownerType
+	 *            the type of the owner of the relationships
+	 * @param pathType
+	 *            the type of the elements between the owner of the relationships and the context
+	 * @param withImportedMembers
+	 *            <code>true</code> to add the relationships found through the members imported by the packages, like
+	 *            a traversal of {@link Package#getMembers()}; the importing packages are the traversed ones
+	 * @return
+	 *         the found relationships
+	 */
+	private static <T extends Element> Collection<T> getIndexedElements(final Namespace context, final java.lang.Class<T> type, final java.lang.Class<? extends Element> ownerType,
+			final java.lang.Class<? extends Namespace> pathType, final boolean withImportedMembers) {
+		final Collection<T> elements = new HashSet<T>();
+		collectIndexedElements(context, type, ownerType, pathType, withImportedMembers, elements, new HashSet<Namespace>());
+		return elements;
+	}
+
+	/**
+	 * Collect the relationships of a given type owned in a context, see
+	 * {@link #getIndexedElements(Namespace, java.lang.Class, java.lang.Class, java.lang.Class, boolean)}.
+	 *
+	 * @param visited
+	 *            the already traversed contexts, the imports being possibly cyclic
+	 */
+	private static <T extends Element> void collectIndexedElements(final Namespace context, final java.lang.Class<T> type, final java.lang.Class<? extends Element> ownerType,
+			final java.lang.Class<? extends Namespace> pathType, final boolean withImportedMembers, final Collection<T> elements, final Set<Namespace> visited) {
+		if (!visited.add(context)) {
+			return;
+		}
+		final Package contextPackage = context instanceof Package ? (Package) context : context.getNearestPackage();
+		if (contextPackage == null) {
+			return;
+		}
+		final RelationshipIndex index = RelationshipIndex.getIndex(context);
+
+		// the package of the context, then the packages nested into the context, found from the index
+		final List<Package> packages = new ArrayList<Package>();
+		final Set<Package> importingPackages = new LinkedHashSet<Package>();
+		packages.add(contextPackage);
+		for (int i = 0; i < packages.size(); i++) {
+			final Package pack = packages.get(i);
+			// the package of a context which is not a package contains it, only the elements nested into the context are kept
+			final boolean nestedPackage = i > 0 || pack == context;
+			for (final T current : index.getElements(pack, type)) {
+				final Element owner = current.getOwner();
+				if (ownerType.isInstance(owner) && isNestedInto(owner, context, pathType, pack, nestedPackage)) {
+					elements.add(current);
+				}
+			}
+			for (final Package nested : index.getNestedPackages(pack)) {
+				if (isNestedInto(nested, context, pathType, pack, nestedPackage)) {
+					packages.add(nested);
+				}
+			}
+			if (withImportedMembers && nestedPackage && isImporting(index, pack)) {
+				importingPackages.add(pack);
+			}
+		}
+		if (!withImportedMembers) {
+			return;
+		}
+
+		for (final Package importingPackage : importingPackages) {
+			for (final PackageableElement imported : importingPackage.getImportedMembers()) {
+				if (type.isInstance(imported)) {
+					elements.add(type.cast(imported));
+				}
+				if (ownerType.isInstance(imported)) {
+					for (final Element owned : imported.getOwnedElements()) {
+						if (type.isInstance(owned)) {
+							elements.add(type.cast(owned));
+						}
+					}
+				}
+				if (imported instanceof Package) {
+					collectIndexedElements((Package) imported, type, ownerType, pathType, withImportedMembers, elements, visited);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param index
+	 *            the index of the model
+	 * @param pack
+	 *            a package
+	 * @return
+	 *         <code>true</code> if the package owns a {@link PackageImport} or an {@link ElementImport}
+	 */
+	private static boolean isImporting(final RelationshipIndex index, final Package pack) {
+		final List<Element> imports = new ArrayList<Element>(index.getElements(pack, PackageImport.class));
+		imports.addAll(index.getElements(pack, ElementImport.class));
+		for (final Element current : imports) {
+			if (current.getOwner() == pack) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Check if an element of a package is nested into a context. The owners are only walked up to the package.
+	 *
+	 * @param element
+	 *            an element
+	 * @param context
+	 *            the context
+	 * @param pathType
+	 *            the type of the elements between the element and the context
+	 * @param pack
+	 *            the nearest package containing the element, or the element itself
+	 * @param nestedPackage
+	 *            <code>true</code> if the package is the context or is nested into it through elements of the given type
+	 * @return
+	 *         <code>true</code> if the element is the context or is nested into it through elements of the given type
+	 */
+	private static boolean isNestedInto(final Element element, final Namespace context, final java.lang.Class<? extends Namespace> pathType, final Package pack,
+			final boolean nestedPackage) {
+		if (element == context) {
+			return true;
+		}
+		if (element == pack) {
+			return nestedPackage;
+		}
+		Element current = element.getOwner();
+		while (current != context) {
+			if (current == pack) {
+				// the package is between the element and the context
+				return nestedPackage && pathType.isInstance(pack);
 			}
-			if (current instanceof Usage) {
-				usages.add((Usage) current);
+			if (!pathType.isInstance(current)) {
+				return false;
 			}
+			current = current.getOwner();
 		}
-		return usages;
+		return true;
 	}
 
 	/**
@@ -2664,7 +2683,9 @@ public class ClassDiagramServices {
 	 * @return New operation
 	 */
 	public Operation createOperation(org.eclipse.uml2.uml.Type type) {
-		return OperationServices.INSTANCE.createOperation(type);
+		final Operation operation = OperationServices.INSTANCE.createOperation(type);
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.CLASS_DIAGRAM, "createOperation", operation); //$NON-NLS-1$
+		return operation;
 	}
 
 	/**
@@ -0,0 +1,170 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.diagram.common.core.index;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * The number of contents of an element, by implementation class, as listed by {@link EObject#eContents()}.
+ *
+ * The counters are an adapter of the container, computed on the first request and kept up to date by the
+ * notifications of its containment features: counting the contents of a given type doesn't iterate them. The
+ * counters are computed again if their total doesn't match the size of the contents anymore, for instance if the
+ * contents have been modified without notification.
+ */
+public final class ContentCounters extends AdapterImpl {
+
+	/** The number of contents, by implementation class, <code>null</code> until computed. */
+	private Map<Class<?>, int[]> counts;
+
+	/** The total number of contents. */
+	private int total;
+
+	/**
+	 * Constructor.
+	 */
+	private ContentCounters() {
+		// use getCounters
+	}
+
+	/**
+	 * Get the counters of a container, installing them on the first call.
+	 *
+	 * @param container
+	 *            the container
+	 * @return
+	 *         the counters of the contents of the container
+	 */
+	public static ContentCounters getCounters(final EObject container) {
+		synchronized (ContentCounters.class) {
+			ContentCounters counters = (ContentCounters) EcoreUtil.getExistingAdapter(container, ContentCounters.class);
+			if (counters == null) {
+				counters = new ContentCounters();
+				container.eAdapters().add(counters);
+			}
+			return counters;
+		}
+	}
+
+	/**
+	 * @param implementationClass
+	 *            the implementation class of the counted contents
+	 * @return
+	 *         the number of contents whose implementation class is exactly the given one
+	 */
+	public synchronized int count(final Class<?> implementationClass) {
+		validate();
+		final int[] count = counts.get(implementationClass);
+		return count != null ? count[0] : 0;
+	}
+
+	/**
+	 * @param type
+	 *            the type of the counted contents
+	 * @return
+	 *         the number of contents which are instances of the given type
+	 */
+	public synchronized int countInstances(final Class<?> type) {
+		validate();
+		int result = 0;
+		for (final Map.Entry<Class<?>, int[]> entry : counts.entrySet()) {
+			if (type.isAssignableFrom(entry.getKey())) {
+				result += entry.getValue()[0];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @see org.eclipse.emf.common.notify.impl.AdapterImpl#isAdapterForType(java.lang.Object)
+	 *
+	 * @param type
+	 * @return
+	 */
+	@Override
+	public boolean isAdapterForType(final Object type) {
+		return type == ContentCounters.class;
+	}
+
+	/**
+	 * @see org.eclipse.emf.common.notify.impl.AdapterImpl#notifyChanged(org.eclipse.emf.common.notify.Notification)
+	 *
+	 * @param msg
+	 */
+	@Override
+	public synchronized void notifyChanged(final Notification msg) {
+		if (counts == null || msg.isTouch() || !(msg.getFeature() instanceof EReference) || !((EReference) msg.getFeature()).isContainment()) {
+			return;
+		}
+		switch (msg.getEventType()) {
+		case Notification.ADD:
+			update(msg.getNewValue(), 1);
+			break;
+		case Notification.ADD_MANY:
+			for (final Object added : (Collection<?>) msg.getNewValue()) {
+				update(added, 1);
+			}
+			break;
+		case Notification.REMOVE:
+			update(msg.getOldValue(), -1);
+			break;
+		case Notification.REMOVE_MANY:
+			for (final Object removed : (Collection<?>) msg.getOldValue()) {
+				update(removed, -1);
+			}
+			break;
+		case Notification.SET:
+		case Notification.UNSET:
+			update(msg.getOldValue(), -1);
+			update(msg.getNewValue(), 1);
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Compute the counters if they aren't computed yet or are out of date.
+	 */
+	private void validate() {
+		final EObject container = (EObject) getTarget();
+		if (counts != null && total == container.eContents().size()) {
+			return;
+		}
+		counts = new HashMap<>();
+		total = 0;
+		for (final EObject content : container.eContents()) {
+			update(content, 1);
+		}
+	}
+
+	/**
+	 * Update the counter of the class of an added or removed content.
+	 */
+	private void update(final Object content, final int delta) {
+		if (content instanceof EObject) {
+			counts.computeIfAbsent(content.getClass(), c -> new int[1])[0] += delta;
+			total += delta;
+		}
+	}
+}
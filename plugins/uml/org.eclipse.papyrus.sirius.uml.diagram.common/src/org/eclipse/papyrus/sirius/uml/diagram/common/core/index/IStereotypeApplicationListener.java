@@ -0,0 +1,33 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.diagram.common.core.index;
+
+import org.eclipse.uml2.uml.Element;
+
+/**
+ * Listener notified when the stereotype applications of an element are added to or removed from a
+ * {@link StereotypeApplicationIndex}.
+ */
+@FunctionalInterface
+public interface IStereotypeApplicationListener {
+
+	/**
+	 * Notify the change of the indexed stereotype applications of an element.
+	 *
+	 * @param base
+	 *            the base element of the added or removed stereotype applications
+	 */
+	public void stereotypeApplicationsChanged(final Element base);
+}
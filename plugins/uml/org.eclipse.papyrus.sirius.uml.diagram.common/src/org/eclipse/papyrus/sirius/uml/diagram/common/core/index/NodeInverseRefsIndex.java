@@ -0,0 +1,599 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.diagram.common.core.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.eclipse.emf.common.command.Command;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature.Setting;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.transaction.NotificationFilter;
+import org.eclipse.emf.transaction.ResourceSetChangeEvent;
+import org.eclipse.emf.transaction.ResourceSetListenerImpl;
+import org.eclipse.emf.transaction.Transaction;
+import org.eclipse.emf.transaction.TransactionalEditingDomain;
+import org.eclipse.papyrus.sirius.editor.sirius.ISiriusSessionDisposeListener;
+import org.eclipse.papyrus.sirius.editor.sirius.SiriusSessionDisposeListeners;
+import org.eclipse.sirius.business.api.session.Session;
+import org.eclipse.sirius.diagram.AbstractDNode;
+import org.eclipse.sirius.diagram.DDiagram;
+import org.eclipse.sirius.viewpoint.ViewpointPackage;
+import org.eclipse.uml2.common.util.DerivedUnionEObjectEList;
+import org.eclipse.uml2.uml.Property;
+
+/**
+ * The semantic elements displayed as nodes in a {@link DDiagram} and the inverse references of these elements, by
+ * {@link EClass}.
+ *
+ * The index is an adapter of the diagram and of its nodes only: the displayed elements are kept up to date on the
+ * addition and the removal of the nodes, and the inverse references of a displayed element are computed when it is
+ * added. The modifications of the semantic model are received from the editing domain of the session, which already
+ * records them: no adapter is added to the semantic model. Only the inverse references of the displayed elements
+ * affected by a modification are computed again: the elements referenced by a modified reference, and the elements
+ * referenced by a modified, added or removed referencing element. The modifications of a transaction are taken into
+ * account when it is about to commit, before the refresh of the diagrams triggered by the commit, and after the
+ * commit for the transactions without pre-commit notification, such as undo and redo.
+ *
+ * The index stops listening to the editing domain when the diagram is detached from its resource, when the index is
+ * removed from the diagram and when the session is disposed. It listens again on the next request.
+ */
+public final class NodeInverseRefsIndex extends EContentAdapter {
+
+	/** The displayed elements, with their number of nodes, in their display order. */
+	private final Map<EObject, int[]> targets = new LinkedHashMap<>();
+
+	/** The element displayed by each node. */
+	private final Map<AbstractDNode, EObject> nodeTargets = new IdentityHashMap<>();
+
+	/** The inverse references computed for each requested EClass. */
+	private final Map<EClass, InverseRefs> inverseRefsByEClass = new HashMap<>();
+
+	/** The session of the last request, used to compute the inverse references of the added elements. */
+	private Session session;
+
+	/** The semantic resources of the session when the inverse references have been computed. */
+	private List<Resource> semanticResources = new ArrayList<>();
+
+	/** The displayed elements whose inverse references must be computed again. */
+	private final Set<EObject> modifiedTargets = new HashSet<>();
+
+	/** The listener of the modifications of the semantic model. */
+	private final SemanticChangeListener listener = new SemanticChangeListener();
+
+	/** The listened editing domain, <code>null</code> if none. */
+	private TransactionalEditingDomain editingDomain;
+
+	/** The transactions whose notifications have been processed before their commit. */
+	private final Set<Transaction> precommittedTransactions = Collections.newSetFromMap(new WeakHashMap<>());
+
+	/** The listener of the disposal of the sessions, registered while the editing domain is listened. */
+	private final ISiriusSessionDisposeListener disposeListener = this::sessionDisposed;
+
+	/** The indexed diagram. */
+	private final DDiagram diagram;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param diagram
+	 *            the indexed diagram
+	 */
+	private NodeInverseRefsIndex(final DDiagram diagram) {
+		// use getIndex
+		this.diagram = diagram;
+	}
+
+	/**
+	 * Get the index of a diagram, installing it on the first call.
+	 *
+	 * @param diagram
+	 *            the diagram
+	 * @return
+	 *         the index of the diagram
+	 */
+	public static NodeInverseRefsIndex getIndex(final DDiagram diagram) {
+		synchronized (NodeInverseRefsIndex.class) {
+			for (final Object adapter : diagram.eAdapters()) {
+				if (adapter instanceof NodeInverseRefsIndex) {
+					return (NodeInverseRefsIndex) adapter;
+				}
+			}
+			final NodeInverseRefsIndex index = new NodeInverseRefsIndex(diagram);
+			// the displayed elements are collected by the traversal of the nodes
+			diagram.eAdapters().add(index);
+			return index;
+		}
+	}
+
+	/**
+	 * Get the instances of an EClass among the inverse references of the elements displayed as nodes. The inverse
+	 * references found through a derived union are expanded, and the association of a referencing property is
+	 * taken into account.
+	 *
+	 * @param diagramSession
+	 *            the session of the diagram, providing the semantic cross referencer
+	 * @param eClass
+	 *            the expected EClass
+	 * @return
+	 *         a copy of the found inverse references, in the order in which they have been found
+	 */
+	public synchronized Collection<EObject> getInverseRefs(final Session diagramSession, final EClass eClass) {
+		if (diagramSession != session || editingDomain == null || isSemanticResourcesModified(diagramSession)) {
+			// the modifications done while the editing domain wasn't listened are unknown
+			inverseRefsByEClass.clear();
+			modifiedTargets.clear();
+			session = diagramSession;
+			semanticResources = new ArrayList<>(diagramSession.getSemanticResources());
+			setEditingDomain(diagramSession.getTransactionalEditingDomain());
+		} else {
+			updateModifiedTargets();
+		}
+		InverseRefs inverseRefs = inverseRefsByEClass.get(eClass);
+		if (inverseRefs == null) {
+			inverseRefs = new InverseRefs(eClass);
+			for (final EObject target : targets.keySet()) {
+				inverseRefs.add(target);
+			}
+			inverseRefsByEClass.put(eClass, inverseRefs);
+		}
+		return new LinkedHashSet<>(inverseRefs.counts.keySet());
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#notifyChanged(org.eclipse.emf.common.notify.Notification)
+	 *
+	 * @param notification
+	 */
+	@Override
+	public void notifyChanged(final Notification notification) {
+		super.notifyChanged(notification);
+		if (notification.getFeature() == ViewpointPackage.Literals.DSEMANTIC_DECORATOR__TARGET && notification.getNotifier() instanceof AbstractDNode) {
+			final AbstractDNode node = (AbstractDNode) notification.getNotifier();
+			synchronized (this) {
+				if (nodeTargets.containsKey(node)) {
+					removeNode(node);
+					addNode(node);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#addAdapter(org.eclipse.emf.common.notify.Notifier)
+	 *
+	 * @param notifier
+	 */
+	@Override
+	protected void addAdapter(final Notifier notifier) {
+		// the nodes are contained by the diagram and by the other nodes, the other contents are ignored
+		if (notifier instanceof AbstractDNode) {
+			super.addAdapter(notifier);
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#setTarget(org.eclipse.emf.ecore.EObject)
+	 *
+	 * @param target
+	 */
+	@Override
+	protected void setTarget(final EObject target) {
+		super.setTarget(target);
+		if (target instanceof AbstractDNode) {
+			synchronized (this) {
+				addNode((AbstractDNode) target);
+			}
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#unsetTarget(org.eclipse.emf.ecore.EObject)
+	 *
+	 * @param target
+	 */
+	@Override
+	protected void unsetTarget(final EObject target) {
+		super.unsetTarget(target);
+		if (target instanceof AbstractDNode) {
+			synchronized (this) {
+				removeNode((AbstractDNode) target);
+			}
+		} else if (target instanceof DDiagram) {
+			// the index has been removed from the diagram
+			synchronized (this) {
+				stopListening();
+			}
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#resolve()
+	 *
+	 * @return
+	 */
+	@Override
+	protected boolean resolve() {
+		return false;
+	}
+
+	/**
+	 * Take a node into account.
+	 */
+	private void addNode(final AbstractDNode node) {
+		final EObject target = node.getTarget();
+		nodeTargets.put(node, target);
+		if (target != null && targets.computeIfAbsent(target, t -> new int[1])[0]++ == 0) {
+			for (final InverseRefs inverseRefs : inverseRefsByEClass.values()) {
+				inverseRefs.add(target);
+			}
+		}
+	}
+
+	/**
+	 * Stop taking a node into account.
+	 */
+	private void removeNode(final AbstractDNode node) {
+		final EObject target = nodeTargets.remove(node);
+		final int[] count = target != null ? targets.get(target) : null;
+		if (count != null && --count[0] == 0) {
+			targets.remove(target);
+			for (final InverseRefs inverseRefs : inverseRefsByEClass.values()) {
+				inverseRefs.remove(target);
+			}
+		}
+	}
+
+	/**
+	 * @return
+	 *         <code>true</code> if the semantic resources of the session have been added or removed since the
+	 *         computation of the inverse references
+	 */
+	private boolean isSemanticResourcesModified(final Session diagramSession) {
+		final Collection<Resource> currentResources = diagramSession.getSemanticResources();
+		return currentResources.size() != semanticResources.size() || !semanticResources.containsAll(currentResources);
+	}
+
+	/**
+	 * Listen to the modifications of the semantic model done in an editing domain, and to the disposal of the
+	 * session while listening.
+	 *
+	 * @param domain
+	 *            the editing domain to listen, <code>null</code> to stop listening
+	 */
+	private void setEditingDomain(final TransactionalEditingDomain domain) {
+		if (domain == editingDomain) {
+			return;
+		}
+		if (editingDomain != null) {
+			editingDomain.removeResourceSetListener(listener);
+		}
+		precommittedTransactions.clear();
+		editingDomain = domain;
+		if (domain != null) {
+			domain.addResourceSetListener(listener);
+			SiriusSessionDisposeListeners.addListener(disposeListener);
+		} else {
+			SiriusSessionDisposeListeners.removeListener(disposeListener);
+		}
+	}
+
+	/**
+	 * Stop listening to the editing domain and to the session, and forget the computed inverse references.
+	 */
+	private void stopListening() {
+		setEditingDomain(null);
+		session = null;
+		inverseRefsByEClass.clear();
+		modifiedTargets.clear();
+	}
+
+	/**
+	 * Release the session of the index when it is disposed.
+	 *
+	 * @param disposedSession
+	 *            the disposed session
+	 */
+	private synchronized void sessionDisposed(final Session disposedSession) {
+		if (disposedSession == session) {
+			stopListening();
+		}
+	}
+
+	/**
+	 * Find the displayed elements whose inverse references are affected by a modification of the semantic model.
+	 * Processing a notification twice has no other effect.
+	 *
+	 * @param notification
+	 *            the notification of the modification
+	 */
+	private void process(final Notification notification) {
+		if (inverseRefsByEClass.isEmpty() || notification.isTouch()) {
+			return;
+		}
+		final Object notifier = notification.getNotifier();
+		if (notifier instanceof Resource) {
+			final int featureID = notification.getFeatureID(Resource.class);
+			if (featureID == Resource.RESOURCE__IS_LOADED) {
+				// the elements of the resource have been loaded or unloaded
+				inverseRefsByEClass.clear();
+				modifiedTargets.clear();
+			} else if (featureID == Resource.RESOURCE__CONTENTS) {
+				processContents(notification);
+			}
+			return;
+		}
+		if (!(notifier instanceof EObject) || !(notification.getFeature() instanceof EReference)) {
+			return;
+		}
+		// the references of a referencing element, or the association of a referencing property, have changed
+		addModifiedTargets((EObject) notifier);
+		final Collection<EObject> values = new ArrayList<>();
+		addValues(notification.getOldValue(), values);
+		addValues(notification.getNewValue(), values);
+		for (final EObject value : values) {
+			if (targets.containsKey(value)) {
+				modifiedTargets.add(value);
+			}
+		}
+		if (((EReference) notification.getFeature()).isContainment()) {
+			processContents(notification);
+		}
+	}
+
+	/**
+	 * Find the displayed elements referenced by the removed and the added contents of a containment notification.
+	 */
+	private void processContents(final Notification notification) {
+		if (notification.getEventType() == Notification.MOVE) {
+			return;
+		}
+		final Collection<EObject> removed = new ArrayList<>();
+		addValues(notification.getOldValue(), removed);
+		for (final EObject root : removed) {
+			addModifiedTargets(root);
+			for (final Iterator<EObject> iterator = root.eAllContents(); iterator.hasNext();) {
+				addModifiedTargets(iterator.next());
+			}
+		}
+		final Collection<EObject> added = new ArrayList<>();
+		addValues(notification.getNewValue(), added);
+		for (final EObject root : added) {
+			addReferencedTargets(root);
+			for (final Iterator<EObject> iterator = root.eAllContents(); iterator.hasNext();) {
+				addReferencedTargets(iterator.next());
+			}
+		}
+	}
+
+	/**
+	 * Mark the displayed elements found from an inverse reference as modified.
+	 */
+	private void addModifiedTargets(final EObject inverseRef) {
+		for (final InverseRefs inverseRefs : inverseRefsByEClass.values()) {
+			final Set<EObject> referencedTargets = inverseRefs.targetsBySource.get(inverseRef);
+			if (referencedTargets != null) {
+				modifiedTargets.addAll(referencedTargets);
+			}
+		}
+	}
+
+	/**
+	 * Mark the displayed elements referenced by a new element as modified.
+	 */
+	private void addReferencedTargets(final EObject element) {
+		for (final EObject referenced : element.eCrossReferences()) {
+			if (targets.containsKey(referenced)) {
+				modifiedTargets.add(referenced);
+			}
+		}
+	}
+
+	/**
+	 * Compute again the inverse references of the modified displayed elements.
+	 */
+	private void updateModifiedTargets() {
+		if (modifiedTargets.isEmpty()) {
+			return;
+		}
+		for (final EObject target : modifiedTargets) {
+			if (targets.containsKey(target)) {
+				for (final InverseRefs inverseRefs : inverseRefsByEClass.values()) {
+					inverseRefs.remove(target);
+					inverseRefs.add(target);
+				}
+			}
+		}
+		modifiedTargets.clear();
+	}
+
+	/**
+	 * Add the elements of a notification value, a single value or a collection, to a collection.
+	 */
+	private static void addValues(final Object value, final Collection<EObject> result) {
+		if (value instanceof EObject) {
+			result.add((EObject) value);
+		} else if (value instanceof Collection<?>) {
+			for (final Object element : (Collection<?>) value) {
+				if (element instanceof EObject) {
+					result.add((EObject) element);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The inverse references of a given EClass of the displayed elements.
+	 */
+	private final class InverseRefs {
+
+		/** The expected EClass. */
+		private final EClass eClass;
+
+		/** The inverse references of each displayed element. */
+		private final Map<EObject, List<EObject>> byTarget = new HashMap<>();
+
+		/** The referencing elements and the inverse references of each displayed element. */
+		private final Map<EObject, Set<EObject>> sourcesByTarget = new HashMap<>();
+
+		/** The displayed elements found from each referencing element or inverse reference. */
+		private final Map<EObject, Set<EObject>> targetsBySource = new HashMap<>();
+
+		/** The inverse references, with the number of displayed elements they reference, in their finding order. */
+		private final Map<EObject, int[]> counts = new LinkedHashMap<>();
+
+		/**
+		 * Constructor.
+		 *
+		 * @param eClass
+		 *            the expected EClass
+		 */
+		private InverseRefs(final EClass eClass) {
+			this.eClass = eClass;
+		}
+
+		/**
+		 * Add the inverse references of a displayed element.
+		 */
+		@SuppressWarnings("unchecked")
+		private void add(final EObject target) {
+			final Collection<EObject> found = new LinkedHashSet<>();
+			final Set<EObject> sources = new HashSet<>();
+			for (final Setting xRef : session.getSemanticCrossReferencer().getInverseReferences(target)) {
+				final EObject eObject = xRef.getEObject();
+				sources.add(eObject);
+				if (xRef instanceof DerivedUnionEObjectEList) {
+					for (final EObject eObject2 : (List<EObject>) xRef) {
+						if (eClass.isInstance(eObject2)) {
+							found.add(eObject2);
+						}
+					}
+				}
+				if (eClass.isInstance(eObject)) {
+					found.add(eObject);
+				}
+				// in the case of an association, the interesting object is the association of the property
+				if (eObject instanceof Property && eClass.isInstance(((Property) eObject).getAssociation())) {
+					found.add(((Property) eObject).getAssociation());
+				}
+			}
+			final List<EObject> inverseRefs = new ArrayList<>(found);
+			byTarget.put(target, inverseRefs);
+			for (final EObject inverseRef : inverseRefs) {
+				counts.computeIfAbsent(inverseRef, r -> new int[1])[0]++;
+			}
+			sources.addAll(found);
+			sourcesByTarget.put(target, sources);
+			for (final EObject source : sources) {
+				targetsBySource.computeIfAbsent(source, s -> new HashSet<>()).add(target);
+			}
+		}
+
+		/**
+		 * Remove the inverse references of an element which isn't displayed anymore.
+		 */
+		private void remove(final EObject target) {
+			final List<EObject> inverseRefs = byTarget.remove(target);
+			if (inverseRefs != null) {
+				for (final EObject inverseRef : inverseRefs) {
+					final int[] count = counts.get(inverseRef);
+					if (count != null && --count[0] == 0) {
+						counts.remove(inverseRef);
+					}
+				}
+			}
+			final Set<EObject> sources = sourcesByTarget.remove(target);
+			if (sources != null) {
+				for (final EObject source : sources) {
+					final Set<EObject> sourceTargets = targetsBySource.get(source);
+					if (sourceTargets != null) {
+						sourceTargets.remove(target);
+						if (sourceTargets.isEmpty()) {
+							targetsBySource.remove(source);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * The listener of the modifications of the semantic model, notified before the commit of each transaction, and after
+	 * the commit for the transactions whose notifications have not been processed yet.
+	 */
+	private final class SemanticChangeListener extends ResourceSetListenerImpl {
+
+		/**
+		 * Constructor.
+		 */
+		private SemanticChangeListener() {
+			super(NotificationFilter.NOT_TOUCH);
+		}
+
+		/**
+		 * @see org.eclipse.emf.transaction.ResourceSetListenerImpl#transactionAboutToCommit(org.eclipse.emf.transaction.ResourceSetChangeEvent)
+		 *
+		 * @param event
+		 * @return
+		 */
+		@Override
+		public Command transactionAboutToCommit(final ResourceSetChangeEvent event) {
+			synchronized (NodeInverseRefsIndex.this) {
+				for (final Notification notification : event.getNotifications()) {
+					process(notification);
+				}
+				precommittedTransactions.add(event.getTransaction());
+			}
+			return null;
+		}
+
+		/**
+		 * @see org.eclipse.emf.transaction.ResourceSetListenerImpl#resourceSetChanged(org.eclipse.emf.transaction.ResourceSetChangeEvent)
+		 *
+		 * @param event
+		 */
+		@Override
+		public void resourceSetChanged(final ResourceSetChangeEvent event) {
+			synchronized (NodeInverseRefsIndex.this) {
+				if (!precommittedTransactions.remove(event.getTransaction())) {
+					for (final Notification notification : event.getNotifications()) {
+						process(notification);
+					}
+				}
+				if (diagram.eResource() == null) {
+					// the representation has been deleted or unloaded
+					stopListening();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.diagram.common.core.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.GeneralizationSet;
+import org.eclipse.uml2.uml.InstanceSpecification;
+import org.eclipse.uml2.uml.Package;
+import org.eclipse.uml2.uml.Relationship;
+
+/**
+ * An index of the {@link Relationship}s contained by a root element, usually the root {@link Package} of a model, by
+ * owning package and by {@link EClass}. The owning package of an element is its nearest containing {@link Package}.
+ * The {@link GeneralizationSet}s and the {@link InstanceSpecification}s, which can be displayed as links, are indexed
+ * too, and so are the nested packages, to traverse a package hierarchy without traversing its other contents.
+ *
+ * The index is an adapter of the root element, built when installed and kept up to date on the addition and the
+ * removal of the elements. It doesn't resolve the containment proxies: the controlled packages are indexed once
+ * loaded. The elements are returned whatever their direct owner: filtering them on their ownership is the
+ * responsibility of the caller.
+ */
+public final class RelationshipIndex extends EContentAdapter {
+
+	/** The indexed elements, by owning package and by EClass, in their indexing order. */
+	private final Map<Package, Map<EClass, Set<Element>>> elementsByPackage = new HashMap<>();
+
+	/** The nested packages, by owning package, in their indexing order. */
+	private final Map<Package, Set<Package>> nestedPackages = new HashMap<>();
+
+	/** The owning package of each indexed element and nested package, when it has been indexed. */
+	private final Map<Element, Package> owningPackages = new IdentityHashMap<>();
+
+	/**
+	 * Constructor.
+	 */
+	private RelationshipIndex() {
+		// use getIndex
+	}
+
+	/**
+	 * Get the index of the root container of an element, installing it on the first call.
+	 *
+	 * @param element
+	 *            an element of the indexed model
+	 * @return
+	 *         the index of the root container of the element
+	 */
+	public static RelationshipIndex getIndex(final EObject element) {
+		final EObject root = EcoreUtil.getRootContainer(element);
+		synchronized (RelationshipIndex.class) {
+			for (final Adapter adapter : root.eAdapters()) {
+				if (adapter instanceof RelationshipIndex) {
+					return (RelationshipIndex) adapter;
+				}
+			}
+			final RelationshipIndex index = new RelationshipIndex();
+			// the index is built by the traversal of the contents
+			root.eAdapters().add(index);
+			return index;
+		}
+	}
+
+	/**
+	 * @param pack
+	 *            the owning package of the requested elements
+	 * @param type
+	 *            the type of the requested elements, for instance {@link org.eclipse.uml2.uml.Association}
+	 * @return
+	 *         a copy of the indexed elements whose nearest containing package is the given package and which are
+	 *         instances of the given type, including the instances of its sub-types
+	 */
+	public synchronized <T extends Element> List<T> getElements(final Package pack, final Class<T> type) {
+		final Map<EClass, Set<Element>> elementsByEClass = elementsByPackage.get(pack);
+		if (elementsByEClass == null) {
+			return Collections.emptyList();
+		}
+		final List<T> result = new ArrayList<>();
+		for (final Map.Entry<EClass, Set<Element>> entry : elementsByEClass.entrySet()) {
+			final Class<?> instanceClass = entry.getKey().getInstanceClass();
+			if (instanceClass != null && type.isAssignableFrom(instanceClass)) {
+				for (final Element element : entry.getValue()) {
+					// the elements of an unloaded resource are proxies until they are removed
+					if (!element.eIsProxy()) {
+						result.add(type.cast(element));
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param pack
+	 *            a package
+	 * @return
+	 *         a copy of the packages whose nearest containing package is the given package, directly owned by it or
+	 *         nested into its other elements
+	 */
+	public synchronized List<Package> getNestedPackages(final Package pack) {
+		final Set<Package> packages = nestedPackages.get(pack);
+		if (packages == null) {
+			return Collections.emptyList();
+		}
+		final List<Package> result = new ArrayList<>(packages.size());
+		for (final Package nested : packages) {
+			if (!nested.eIsProxy()) {
+				result.add(nested);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#setTarget(org.eclipse.emf.ecore.EObject)
+	 *
+	 * @param target
+	 */
+	@Override
+	protected void setTarget(final EObject target) {
+		super.setTarget(target);
+		if (isIndexed(target) || target instanceof Package) {
+			final Package owningPackage = getOwningPackage(target);
+			if (owningPackage != null) {
+				synchronized (this) {
+					final Element element = (Element) target;
+					owningPackages.put(element, owningPackage);
+					if (target instanceof Package) {
+						nestedPackages.computeIfAbsent(owningPackage, p -> new LinkedHashSet<>()).add((Package) target);
+					} else {
+						elementsByPackage.computeIfAbsent(owningPackage, p -> new HashMap<>())
+								.computeIfAbsent(target.eClass(), c -> new LinkedHashSet<>()).add(element);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#unsetTarget(org.eclipse.emf.ecore.EObject)
+	 *
+	 * @param target
+	 */
+	@Override
+	protected void unsetTarget(final EObject target) {
+		super.unsetTarget(target);
+		if (isIndexed(target) || target instanceof Package) {
+			synchronized (this) {
+				// the element has already been detached, its owning package is the indexed one
+				final Package owningPackage = owningPackages.remove(target);
+				if (owningPackage == null) {
+					return;
+				}
+				if (target instanceof Package) {
+					final Set<Package> packages = nestedPackages.get(owningPackage);
+					if (packages != null) {
+						packages.remove(target);
+						if (packages.isEmpty()) {
+							nestedPackages.remove(owningPackage);
+						}
+					}
+				} else {
+					final Map<EClass, Set<Element>> elementsByEClass = elementsByPackage.get(owningPackage);
+					final Set<Element> elements = elementsByEClass != null ? elementsByEClass.get(target.eClass()) : null;
+					if (elements != null) {
+						elements.remove(target);
+						if (elements.isEmpty()) {
+							elementsByEClass.remove(target.eClass());
+							if (elementsByEClass.isEmpty()) {
+								elementsByPackage.remove(owningPackage);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#resolve()
+	 *
+	 * @return
+	 */
+	@Override
+	protected boolean resolve() {
+		// indexing must not load the controlled resources
+		return false;
+	}
+
+	/**
+	 * @return
+	 *         the nearest package containing the element, <code>null</code> if none
+	 */
+	private static Package getOwningPackage(final EObject element) {
+		EObject current = element.eContainer();
+		while (current != null && !(current instanceof Package)) {
+			current = current.eContainer();
+		}
+		return (Package) current;
+	}
+
+	/**
+	 * @return
+	 *         <code>true</code> if the element is indexed
+	 */
+	private static boolean isIndexed(final EObject element) {
+		return element instanceof Relationship || element instanceof GeneralizationSet || element instanceof InstanceSpecification;
+	}
+}
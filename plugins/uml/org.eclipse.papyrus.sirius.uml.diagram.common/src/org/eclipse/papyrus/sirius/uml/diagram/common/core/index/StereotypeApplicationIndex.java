@@ -0,0 +1,332 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.diagram.common.core.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.Extension;
+import org.eclipse.uml2.uml.Stereotype;
+import org.eclipse.uml2.uml.util.UMLUtil;
+
+/**
+ * The stereotype applications of a {@link Resource}, by base element.
+ *
+ * The stereotype applications are usually at the root of the resource of their base element. The index is an adapter
+ * of the resource and of its root objects which aren't UML elements: it is updated when a stereotype is applied or
+ * unapplied, and when the base element of an application is set. The elements of a controlled resource, whose
+ * applications can be stored in the resource of the root of their model, are not looked up in the index. The
+ * stereotype of an application is resolved on each request, so a profile applied again is taken into account.
+ *
+ * The {@link IStereotypeApplicationListener}s are notified of the base elements whose indexed applications change,
+ * outside of the lock of the index.
+ */
+public final class StereotypeApplicationIndex extends EContentAdapter {
+
+	/** The listeners of the changes of the indexed stereotype applications, of all the indexes. */
+	private static final List<IStereotypeApplicationListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+	/** The stereotype applications of each base element, in their application order. */
+	private final Map<Element, Set<EObject>> applicationsByBase = new HashMap<>();
+
+	/** The base element of each indexed stereotype application. */
+	private final Map<EObject, Element> baseByApplication = new HashMap<>();
+
+	/**
+	 * Constructor.
+	 */
+	private StereotypeApplicationIndex() {
+		// use getIndex
+	}
+
+	/**
+	 * Get the index of a resource, installing it on the first call.
+	 *
+	 * @param resource
+	 *            the resource
+	 * @return
+	 *         the index of the stereotype applications of the resource
+	 */
+	public static StereotypeApplicationIndex getIndex(final Resource resource) {
+		synchronized (StereotypeApplicationIndex.class) {
+			for (final Adapter adapter : resource.eAdapters()) {
+				if (adapter instanceof StereotypeApplicationIndex) {
+					return (StereotypeApplicationIndex) adapter;
+				}
+			}
+			final StereotypeApplicationIndex index = new StereotypeApplicationIndex();
+			// the existing applications are indexed by the traversal of the roots
+			resource.eAdapters().add(index);
+			return index;
+		}
+	}
+
+	/**
+	 * Register a listener of the changes of the stereotype applications of all the indexes.
+	 *
+	 * @param listener
+	 *            the listener to add, registered once
+	 */
+	public static void addListener(final IStereotypeApplicationListener listener) {
+		LISTENERS.remove(listener);
+		LISTENERS.add(listener);
+	}
+
+	/**
+	 * Unregister a listener of the changes of the stereotype applications.
+	 *
+	 * @param listener
+	 *            the listener to remove
+	 */
+	public static void removeListener(final IStereotypeApplicationListener listener) {
+		LISTENERS.remove(listener);
+	}
+
+	/**
+	 * Get the stereotype applications of an element, from the index of its resource. The applications of an element
+	 * outside of a resource, or in another resource than the root of its model, are asked to the element.
+	 *
+	 * @param element
+	 *            a UML element
+	 * @return
+	 *         the stereotype applications of the element, in their application order
+	 */
+	public static List<EObject> getStereotypeApplications(final Element element) {
+		final Resource resource = getIndexedResource(element);
+		if (resource == null) {
+			return element.getStereotypeApplications();
+		}
+		return getIndex(resource).getApplications(element);
+	}
+
+	/**
+	 * Get the stereotypes applied on an element, from the index of its resource. The stereotypes of an element outside
+	 * of a resource, or in another resource than the root of its model, are asked to the element.
+	 *
+	 * @param element
+	 *            a UML element
+	 * @return
+	 *         the stereotypes applied on the element, in their application order
+	 */
+	public static List<Stereotype> getAppliedStereotypes(final Element element) {
+		final Resource resource = getIndexedResource(element);
+		if (resource == null) {
+			return element.getAppliedStereotypes();
+		}
+		return getIndex(resource).getStereotypes(element);
+	}
+
+	/**
+	 * @param element
+	 *            a UML element
+	 * @return
+	 *         the resource whose index holds the stereotype applications of the element, <code>null</code> if the
+	 *         applications can be stored in another resource
+	 */
+	private static Resource getIndexedResource(final Element element) {
+		final Resource resource = element.eResource();
+		if (resource == null || EcoreUtil.getRootContainer(element).eResource() != resource) {
+			return null;
+		}
+		return resource;
+	}
+
+	/**
+	 * @param element
+	 *            a UML element
+	 * @return
+	 *         a copy of the indexed stereotype applications of the element
+	 */
+	public synchronized List<EObject> getApplications(final Element element) {
+		final Set<EObject> applications = applicationsByBase.get(element);
+		if (applications == null) {
+			return Collections.emptyList();
+		}
+		return new ArrayList<>(applications);
+	}
+
+	/**
+	 * @param element
+	 *            a UML element
+	 * @return
+	 *         a copy of the stereotypes of the indexed stereotype applications of the element, without the
+	 *         applications whose stereotype isn't found
+	 */
+	public synchronized List<Stereotype> getStereotypes(final Element element) {
+		final Set<EObject> applications = applicationsByBase.get(element);
+		if (applications == null) {
+			return Collections.emptyList();
+		}
+		final List<Stereotype> result = new ArrayList<>(applications.size());
+		for (final EObject application : applications) {
+			// not cached: the definition of the application changes when its profile is applied again
+			final Stereotype stereotype = UMLUtil.getStereotype(application);
+			if (stereotype != null) {
+				result.add(stereotype);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#notifyChanged(org.eclipse.emf.common.notify.Notification)
+	 *
+	 * @param notification
+	 */
+	@Override
+	public void notifyChanged(final Notification notification) {
+		super.notifyChanged(notification);
+		final Object notifier = notification.getNotifier();
+		final Object feature = notification.getFeature();
+		if (notifier instanceof EObject && feature instanceof EReference && ((EReference) feature).getName().startsWith(Extension.METACLASS_ROLE_PREFIX)) {
+			// the base element of an application is set after its addition to the resource
+			final Element oldBase;
+			final Element newBase;
+			synchronized (this) {
+				oldBase = removeApplication((EObject) notifier);
+				newBase = addApplication((EObject) notifier);
+			}
+			fireApplicationsChanged(oldBase);
+			if (newBase != oldBase) {
+				fireApplicationsChanged(newBase);
+			}
+		} else if (notifier instanceof Resource && notification.getFeatureID(Resource.class) == Resource.RESOURCE__IS_LOADED && !notification.getNewBooleanValue()) {
+			final List<Element> bases;
+			synchronized (this) {
+				bases = new ArrayList<>(applicationsByBase.keySet());
+				applicationsByBase.clear();
+				baseByApplication.clear();
+			}
+			for (final Element base : bases) {
+				fireApplicationsChanged(base);
+			}
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#addAdapter(org.eclipse.emf.common.notify.Notifier)
+	 *
+	 * @param notifier
+	 */
+	@Override
+	protected void addAdapter(final Notifier notifier) {
+		// the stereotype applications are the roots which aren't UML elements
+		if (notifier instanceof EObject && ((EObject) notifier).eContainer() == null && !(notifier instanceof Element)) {
+			super.addAdapter(notifier);
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#setTarget(org.eclipse.emf.ecore.EObject)
+	 *
+	 * @param target
+	 */
+	@Override
+	protected void setTarget(final EObject target) {
+		super.setTarget(target);
+		final Element base;
+		synchronized (this) {
+			base = addApplication(target);
+		}
+		fireApplicationsChanged(base);
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#unsetTarget(org.eclipse.emf.ecore.EObject)
+	 *
+	 * @param target
+	 */
+	@Override
+	protected void unsetTarget(final EObject target) {
+		super.unsetTarget(target);
+		final Element base;
+		synchronized (this) {
+			base = removeApplication(target);
+		}
+		fireApplicationsChanged(base);
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#resolve()
+	 *
+	 * @return
+	 */
+	@Override
+	protected boolean resolve() {
+		return false;
+	}
+
+	/**
+	 * Index a stereotype application, if its base element is known.
+	 *
+	 * @return
+	 *         the base element of the application, <code>null</code> if it isn't known
+	 */
+	private Element addApplication(final EObject application) {
+		final Element base = UMLUtil.getBaseElement(application);
+		if (base != null) {
+			baseByApplication.put(application, base);
+			applicationsByBase.computeIfAbsent(base, b -> new LinkedHashSet<>()).add(application);
+		}
+		return base;
+	}
+
+	/**
+	 * Remove a stereotype application from the index.
+	 *
+	 * @return
+	 *         the base element the application was indexed for, <code>null</code> if it wasn't indexed
+	 */
+	private Element removeApplication(final EObject application) {
+		final Element base = baseByApplication.remove(application);
+		if (base != null) {
+			final Set<EObject> applications = applicationsByBase.get(base);
+			applications.remove(application);
+			if (applications.isEmpty()) {
+				applicationsByBase.remove(base);
+			}
+		}
+		return base;
+	}
+
+	/**
+	 * Notify the listeners of the change of the applications of an element.
+	 *
+	 * @param base
+	 *            the base element of the changed applications, <code>null</code> if none
+	 */
+	private static void fireApplicationsChanged(final Element base) {
+		if (base != null) {
+			for (final IStereotypeApplicationListener listener : LISTENERS) {
+				listener.stereotypeApplicationsChanged(base);
+			}
+		}
+	}
+}
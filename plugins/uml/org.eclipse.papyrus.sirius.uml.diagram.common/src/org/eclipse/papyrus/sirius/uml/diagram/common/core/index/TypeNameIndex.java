@@ -0,0 +1,385 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.diagram.common.core.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.uml2.uml.Type;
+import org.eclipse.uml2.uml.UMLPackage;
+
+/**
+ * An index of the named {@link Type}s of a {@link ResourceSet}, by name, ignoring the case and the surrounding
+ * whitespaces.
+ *
+ * The index is an adapter of the resource set, built when installed and kept up to date on the addition, the
+ * removal and the renaming of the types, including the loading, the unloading and the removal of resources. It
+ * doesn't resolve the containment proxies.
+ *
+ * All the resources are adapted, but only the objects which are {@link Type}s or which can contain {@link Type}s: the
+ * objects having a containment reference whose type is compatible with {@link Type} or is {@link EObject}, or leading
+ * to such a reference through the declared types of other containment references (template signatures, deployments...).
+ * The other objects (comments, value specifications, stereotype applications, notation views...) are neither traversed
+ * nor notified. The unloaded controlled resources are adapted like the other resources, their types are indexed once
+ * loaded.
+ *
+ * Unlike a traversal of all the contents, the index doesn't find the types contained through a reference typed by
+ * {@link EObject} (an annotation) of an object which can't contain types otherwise, nor the types reachable only
+ * through a subclass of the declared type of a containment reference.
+ */
+public final class TypeNameIndex extends EContentAdapter {
+
+	/** Whether the instances of each class can contain types, computed on the first request. */
+	private static final Map<EClass, Boolean> CAN_CONTAIN_TYPES = new ConcurrentHashMap<>();
+
+	/** The types, by key, in their indexing order. */
+	private final Map<String, List<Type>> typesByKey = new HashMap<>();
+
+	/** The key of each indexed type, which can differ from its current name while it is renamed. */
+	private final Map<Type, String> keys = new IdentityHashMap<>();
+
+	/**
+	 * Constructor.
+	 */
+	private TypeNameIndex() {
+		// use getIndex
+	}
+
+	/**
+	 * Get the index of a resource set, installing it on the first call.
+	 *
+	 * @param resourceSet
+	 *            the resource set
+	 * @return
+	 *         the index of the resource set
+	 */
+	public static TypeNameIndex getIndex(final ResourceSet resourceSet) {
+		synchronized (TypeNameIndex.class) {
+			for (final Adapter adapter : resourceSet.eAdapters()) {
+				if (adapter instanceof TypeNameIndex) {
+					return (TypeNameIndex) adapter;
+				}
+			}
+			final TypeNameIndex index = new TypeNameIndex();
+			// the index is built by the traversal of the contents
+			resourceSet.eAdapters().add(index);
+			return index;
+		}
+	}
+
+	/**
+	 * Find the first type with the given name, in the order of the resources of the resource set and of their
+	 * contents.
+	 *
+	 * @param typeName
+	 *            the name to match, ignoring the case and the surrounding whitespaces
+	 * @return
+	 *         the found {@link Type} or <code>null</code>
+	 */
+	public Type findType(final String typeName) {
+		if (typeName == null) {
+			return null;
+		}
+		final String key = toKey(typeName);
+		final List<Type> candidates;
+		synchronized (this) {
+			final List<Type> types = typesByKey.get(key);
+			if (types == null) {
+				return null;
+			}
+			candidates = new ArrayList<>(types);
+		}
+		Type result = null;
+		for (final Type candidate : candidates) {
+			// the key is a lower case approximation of the case insensitive comparison
+			if (candidate.getName() != null && candidate.getName().trim().equalsIgnoreCase(typeName.trim())
+					&& (result == null || compareOrder(candidate, result) < 0)) {
+				result = candidate;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#notifyChanged(org.eclipse.emf.common.notify.Notification)
+	 *
+	 * @param notification
+	 */
+	@Override
+	public void notifyChanged(final Notification notification) {
+		super.notifyChanged(notification);
+		if (notification.getFeature() == UMLPackage.Literals.NAMED_ELEMENT__NAME && notification.getNotifier() instanceof Type) {
+			final Type type = (Type) notification.getNotifier();
+			synchronized (this) {
+				if (keys.containsKey(type)) {
+					remove(type);
+					add(type);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#setTarget(org.eclipse.emf.ecore.EObject)
+	 *
+	 * @param target
+	 */
+	@Override
+	protected void setTarget(final EObject target) {
+		super.setTarget(target);
+		if (target instanceof Type) {
+			synchronized (this) {
+				add((Type) target);
+			}
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#unsetTarget(org.eclipse.emf.ecore.EObject)
+	 *
+	 * @param target
+	 */
+	@Override
+	protected void unsetTarget(final EObject target) {
+		super.unsetTarget(target);
+		if (target instanceof Type) {
+			synchronized (this) {
+				remove((Type) target);
+			}
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#unsetTarget(org.eclipse.emf.ecore.resource.Resource)
+	 *
+	 * @param target
+	 */
+	@Override
+	protected void unsetTarget(final Resource target) {
+		super.unsetTarget(target);
+		// the types of the resource not removed yet, for instance if the resource has been unloaded without notification
+		synchronized (this) {
+			for (final Iterator<Map.Entry<Type, String>> iterator = keys.entrySet().iterator(); iterator.hasNext();) {
+				final Map.Entry<Type, String> entry = iterator.next();
+				final Type type = entry.getKey();
+				if (type.eResource() == target || type.eIsProxy()) {
+					iterator.remove();
+					removeFromKey(type, entry.getValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#addAdapter(org.eclipse.emf.common.notify.Notifier)
+	 *
+	 * @param notifier
+	 */
+	@Override
+	protected void addAdapter(final Notifier notifier) {
+		if (canContainTypes(notifier)) {
+			super.addAdapter(notifier);
+		}
+	}
+
+	/**
+	 * @param notifier
+	 *            a content of the resource set
+	 * @return
+	 *         <code>true</code> if the notifier is a {@link Type} or can contain {@link Type}s, and must be adapted
+	 */
+	private static boolean canContainTypes(final Notifier notifier) {
+		if (notifier instanceof Resource || notifier instanceof Type) {
+			return true;
+		}
+		if (notifier instanceof EObject) {
+			return CAN_CONTAIN_TYPES.computeIfAbsent(((EObject) notifier).eClass(), TypeNameIndex::computeCanContainTypes).booleanValue();
+		}
+		return false;
+	}
+
+	/**
+	 * @param eClass
+	 *            a class
+	 * @return
+	 *         <code>true</code> if a containment reference of the class is typed by {@link EObject} or can lead to a
+	 *         {@link Type}
+	 */
+	private static Boolean computeCanContainTypes(final EClass eClass) {
+		for (final EReference reference : eClass.getEAllContainments()) {
+			if (!reference.isDerived() && reference.getEReferenceType() == EcorePackage.Literals.EOBJECT) {
+				return Boolean.TRUE;
+			}
+		}
+		return Boolean.valueOf(canLeadToTypes(eClass, new HashSet<>()));
+	}
+
+	/**
+	 * @param eClass
+	 *            a class
+	 * @param visited
+	 *            the classes already visited
+	 * @return
+	 *         <code>true</code> if a containment reference of the class, or of the declared types of its containment
+	 *         references, is typed by a subtype or a supertype of {@link Type}
+	 */
+	private static boolean canLeadToTypes(final EClass eClass, final Set<EClass> visited) {
+		if (!visited.add(eClass)) {
+			return false;
+		}
+		for (final EReference reference : eClass.getEAllContainments()) {
+			// the derived containments are unions of the other ones
+			if (reference.isDerived()) {
+				continue;
+			}
+			final EClass type = reference.getEReferenceType();
+			if (UMLPackage.Literals.TYPE.isSuperTypeOf(type) || type.isSuperTypeOf(UMLPackage.Literals.TYPE)) {
+				return true;
+			}
+		}
+		for (final EReference reference : eClass.getEAllContainments()) {
+			// the references typed by EObject are only followed from the adapted object itself
+			if (!reference.isDerived() && reference.getEReferenceType() != EcorePackage.Literals.EOBJECT && canLeadToTypes(reference.getEReferenceType(), visited)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#resolve()
+	 *
+	 * @return
+	 */
+	@Override
+	protected boolean resolve() {
+		// indexing must not load the controlled resources
+		return false;
+	}
+
+	/**
+	 * Index a type.
+	 */
+	private void add(final Type type) {
+		if (type.getName() == null) {
+			return;
+		}
+		final String key = toKey(type.getName());
+		keys.put(type, key);
+		typesByKey.computeIfAbsent(key, k -> new ArrayList<>(1)).add(type);
+	}
+
+	/**
+	 * Remove a type from the index.
+	 */
+	private void remove(final Type type) {
+		final String key = keys.remove(type);
+		if (key != null) {
+			removeFromKey(type, key);
+		}
+	}
+
+	/**
+	 * Remove a type from the types of a key.
+	 */
+	private void removeFromKey(final Type type, final String key) {
+		final List<Type> types = typesByKey.get(key);
+		if (types != null) {
+			types.remove(type);
+			if (types.isEmpty()) {
+				typesByKey.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Compare the positions of two elements in the resource set: by resource, then in the order of the contents of
+	 * their resource.
+	 *
+	 * @return
+	 *         a negative value if the first element comes first, a positive value if it comes last
+	 */
+	private static int compareOrder(final EObject first, final EObject second) {
+		final Resource firstResource = first.eResource();
+		final Resource secondResource = second.eResource();
+		if (firstResource != secondResource) {
+			return Integer.compare(indexOf(firstResource), indexOf(secondResource));
+		}
+		final List<Integer> firstPath = getPath(first);
+		final List<Integer> secondPath = getPath(second);
+		for (int i = 0; i < firstPath.size() && i < secondPath.size(); i++) {
+			final int comparison = firstPath.get(i).compareTo(secondPath.get(i));
+			if (comparison != 0) {
+				return comparison;
+			}
+		}
+		// a container comes before its contents
+		return Integer.compare(firstPath.size(), secondPath.size());
+	}
+
+	/**
+	 * @return
+	 *         the index of a resource in its resource set, -1 if none
+	 */
+	private static int indexOf(final Resource resource) {
+		if (resource == null || resource.getResourceSet() == null) {
+			return -1;
+		}
+		return resource.getResourceSet().getResources().indexOf(resource);
+	}
+
+	/**
+	 * @return
+	 *         the indexes of the element and of its containers in their resource, from the root
+	 */
+	private static List<Integer> getPath(final EObject element) {
+		final LinkedList<Integer> path = new LinkedList<>();
+		final Resource resource = element.eResource();
+		EObject current = element;
+		while (current.eContainer() != null && current.eContainer().eResource() == resource) {
+			path.addFirst(Integer.valueOf(current.eContainer().eContents().indexOf(current)));
+			current = current.eContainer();
+		}
+		path.addFirst(Integer.valueOf(resource != null ? resource.getContents().indexOf(current) : 0));
+		return path;
+	}
+
+	/**
+	 * @return
+	 *         the key of a name
+	 */
+	private static String toKey(final String name) {
+		return name.trim().toLowerCase(Locale.ROOT);
+	}
+}
@@ -99,6 +99,20 @@ public abstract class AbstractDiagramServices {
         return LabelServices.INSTANCE.computeUmlLabel(element);
     }
 
+    /**
+     * Compute the label of the given element, with the options of the diagram
+     * displaying it.
+     *
+     * @param element
+     *            the {@link Element} for which to retrieve a label.
+     * @param diagram
+     *            the diagram displaying the element.
+     * @return the computed label.
+     */
+    public String computeUmlLabel(Element element, DDiagram diagram) {
+        return LabelServices.INSTANCE.computeUmlLabel(element, LabelContext.of(diagram));
+    }
+
     /**
      * @param semanticElement
      * @param containerView
@@ -63,7 +63,7 @@ public class DirectEditLabelSwitch extends DisplayLabelSwitch {
 		if (!property.getQualifiers().isEmpty()) {
 			String label = ""; //$NON-NLS-1$
 			boolean first = true;
-			final DisplayLabelSwitch displayLabelSwitch = new DisplayLabelSwitch();
+			final DisplayLabelSwitch displayLabelSwitch = new DisplayLabelSwitch(getContext());
 			for (final Property qualifier : property.getQualifiers()) {
 				if (first) {
 					label += displayLabelSwitch.doSwitch(qualifier);
@@ -17,6 +17,7 @@ package org.eclipse.papyrus.sirius.uml.diagram.common.core.services;
 import java.util.Iterator;
 import java.util.List;
 
+import org.eclipse.papyrus.sirius.uml.diagram.common.core.index.StereotypeApplicationIndex;
 import org.eclipse.papyrus.uml.internationalization.utils.utils.UMLLabelInternationalization;
 import org.eclipse.papyrus.uml.internationalization.utils.utils.UMLQualifiedNameUtils;
 //import org.eclipse.ui.navigator.ICommonLabelProvider;
@@ -114,20 +115,55 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 	 */
 	public static final String SPACE = " "; //$NON-NLS-1$
 
-	private static boolean showStereotypeFilter = true;
+	/**
+	 * The options of the computed labels.
+	 */
+	private final LabelContext context;
 
-	private static boolean showQualifiedNameFilter = true;
+	/**
+	 * Constructor, using the default {@link LabelContext}.
+	 */
+	public DisplayLabelSwitch() {
+		this(LabelContext.getDefault());
+	}
 
 	/**
-	 * Compute the {@link Stereotype} label part for the given {@link Element}.
+	 * Constructor.
+	 *
+	 * @param context the options of the computed labels.
+	 */
+	public DisplayLabelSwitch(LabelContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * @return the options of the computed labels.
+	 */
+	public LabelContext getContext() {
+		return context;
+	}
+
+	/**
+	 * Compute the {@link Stereotype} label part for the given {@link Element}, with the default {@link LabelContext}.
 	 *
 	 * @param element the context element.
 	 * @return the {@link Stereotype} label.
 	 */
 	public static String computeStereotypes(Element element) {
+		return computeStereotypes(element, LabelContext.getDefault());
+	}
 
-		if (showStereotypeFilter) {
-			final Iterator<Stereotype> it = element.getAppliedStereotypes().iterator();
+	/**
+	 * Compute the {@link Stereotype} label part for the given {@link Element}.
+	 *
+	 * @param element the context element.
+	 * @param context the options of the label.
+	 * @return the {@link Stereotype} label.
+	 */
+	public static String computeStereotypes(Element element, LabelContext context) {
+
+		if (context.isShowingStereotypes()) {
+			final Iterator<Stereotype> it = StereotypeApplicationIndex.getAppliedStereotypes(element).iterator();
 
 			if (!it.hasNext()) {
 				return ""; //$NON-NLS-1$
@@ -180,7 +216,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 	 */
 	@Override
 	public String caseComponentRealization(org.eclipse.uml2.uml.ComponentRealization object) {
-		return computeStereotypes(object);
+		return computeStereotypes(object, context);
 	}
 
 	/**
@@ -226,7 +262,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 	 */
 	@Override
 	public String caseDependency(Dependency object) {
-		return computeStereotypes(object);
+		return computeStereotypes(object, context);
 	}
 
 	/**
@@ -234,7 +270,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 	 */
 	@Override
 	public String caseDeployment(org.eclipse.uml2.uml.Deployment object) {
-		return computeStereotypes(object) + ILabelConstants.ST_LEFT + "deploy"+ ILabelConstants.ST_RIGHT; //$NON-NLS-1$
+		return computeStereotypes(object, context) + ILabelConstants.ST_LEFT + "deploy"+ ILabelConstants.ST_RIGHT; //$NON-NLS-1$
 	}
 
 	/**
@@ -250,7 +286,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 	 */
 	@Override
 	public String caseElementImport(ElementImport object) {
-		return computeStereotypes(object) + ILabelConstants.ST_LEFT + "import"+ ILabelConstants.ST_RIGHT;  //$NON-NLS-1$
+		return computeStereotypes(object, context) + ILabelConstants.ST_LEFT + "import"+ ILabelConstants.ST_RIGHT;  //$NON-NLS-1$
 	}
 
 	/**
@@ -289,7 +325,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 	 */
 	@Override
 	public String casePackageMerge(PackageMerge object) {
-		return computeStereotypes(object) + ILabelConstants.ST_LEFT + "merge" + ILabelConstants.ST_RIGHT; //$NON-NLS-1$
+		return computeStereotypes(object, context) + ILabelConstants.ST_LEFT + "merge" + ILabelConstants.ST_RIGHT; //$NON-NLS-1$
 	}
 	
 	/**
@@ -297,7 +333,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 	 */
 	@Override
 	public String caseElement(Element object) {
-		return computeStereotypes(object);
+		return computeStereotypes(object, context);
 	}
 	
 	
@@ -306,7 +342,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 	 */
 	@Override
 	public String caseSubstitution(Substitution object) {
-		return computeStereotypes(object) + ILabelConstants.ST_LEFT + "substitue>>" + ILabelConstants.ST_RIGHT; //$NON-NLS-1$
+		return computeStereotypes(object, context) + ILabelConstants.ST_LEFT + "substitue>>" + ILabelConstants.ST_RIGHT; //$NON-NLS-1$
 	}
 
 	/**
@@ -335,7 +371,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 	 */
 	@Override
 	public String caseInstanceValue(InstanceValue object) {
-		return LabelServices.INSTANCE.computeUmlLabel(object.getInstance());
+		return LabelServices.INSTANCE.computeUmlLabel(object.getInstance(), context);
 	}
 
 	/**
@@ -343,7 +379,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 	 */
 	@Override
 	public String caseInterfaceRealization(org.eclipse.uml2.uml.InterfaceRealization object) {
-		return computeStereotypes(object);
+		return computeStereotypes(object, context);
 	}
 
 	/**
@@ -351,8 +387,8 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 	 */
 	@Override
 	public String caseInterval(Interval object) {
-		final String minLabel = LabelServices.INSTANCE.computeUmlLabel(object.getMin());
-		final String maxLabel = LabelServices.INSTANCE.computeUmlLabel(object.getMax());
+		final String minLabel = LabelServices.INSTANCE.computeUmlLabel(object.getMin(), context);
+		final String maxLabel = LabelServices.INSTANCE.computeUmlLabel(object.getMax(), context);
 		if (minLabel != null && minLabel.length() > 0 && maxLabel != null && maxLabel.length() > 0) {
 			return OPENING_BRACE + minLabel + " " + maxLabel + CLOSING_BRACE; //$NON-NLS-1$
 		}
@@ -446,11 +482,11 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 	 */
 	@Override
 	public String caseNamedElement(NamedElement object) {
-		if (showQualifiedNameFilter) {
-			return computeStereotypes(object)
+		if (context.isShowingQualifiedName()) {
+			return computeStereotypes(object, context)
 					+ (object.getName() == null ? "" : UMLQualifiedNameUtils.getQualifiedName(object, ":")); //$NON-NLS-1$ //$NON-NLS-2$
 		} else {
-			return computeStereotypes(object) + (object.getName() == null ? "" //$NON-NLS-1$
+			return computeStereotypes(object, context) + (object.getName() == null ? "" //$NON-NLS-1$
 					: UMLLabelInternationalization.getInstance().getLabel(object, shouldTranslate()));
 		}
 	}
@@ -642,7 +678,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 	 */
 	@Override
 	public String caseStateMachine(StateMachine object) {
-		return computeStereotypes(object) + ILabelConstants.ST_LEFT + "StateMachine" + ILabelConstants.ST_RIGHT + caseBehavior(object); //$NON-NLS-1$
+		return computeStereotypes(object, context) + ILabelConstants.ST_LEFT + "StateMachine" + ILabelConstants.ST_RIGHT + caseBehavior(object); //$NON-NLS-1$
 	}
 
 	/**
@@ -667,7 +703,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 	public String caseTemplateableElement(TemplateableElement object) {
 		final String templateParameters = LabelServices.INSTANCE.getTemplatedParameters(object);
 		if (templateParameters != null) {
-			return computeStereotypes(object) + caseNamedElement((NamedElement) object) + templateParameters;
+			return computeStereotypes(object, context) + caseNamedElement((NamedElement) object) + templateParameters;
 		}
 		return caseNamedElement((NamedElement) object);
 	}
@@ -697,7 +733,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 				}
 			}
 		}
-		return computeStereotypes(object) + binding.toString();
+		return computeStereotypes(object, context) + binding.toString();
 	}
 
 	/**
@@ -723,7 +759,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 				} else {
 					triggersLabel = ""; //$NON-NLS-1$
 				}
-				triggersLabel += LabelServices.INSTANCE.computeUmlLabel(trigger);
+				triggersLabel += LabelServices.INSTANCE.computeUmlLabel(trigger, context);
 			}
 		}
 		// Guard
@@ -733,7 +769,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 			final ValueSpecification specification = constraint.getSpecification();
 
 			if (specification != null) {
-				final String specificationLabel = LabelServices.INSTANCE.computeUmlLabel(specification);
+				final String specificationLabel = LabelServices.INSTANCE.computeUmlLabel(specification, context);
 				if (specificationLabel != null && specificationLabel.length() > 0) {
 					guardLabel = OPENING_BRACE + specificationLabel + CLOSING_BRACE;
 				}
@@ -744,7 +780,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 		String effectLabel = null;
 		final Behavior effect = object.getEffect();
 		if (effect != null) {
-			final String behaviorLabel = LabelServices.INSTANCE.computeUmlLabel(effect);
+			final String behaviorLabel = LabelServices.INSTANCE.computeUmlLabel(effect, context);
 			if (behaviorLabel != null) {
 				effectLabel = "/" + behaviorLabel; //$NON-NLS-1$
 			}
@@ -761,7 +797,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 			transitionLabel.append(effectLabel);
 		}
 
-		return computeStereotypes(object) + transitionLabel.toString();
+		return computeStereotypes(object, context) + transitionLabel.toString();
 	}
 
 	/**
@@ -780,7 +816,7 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 	 */
 	@Override
 	public String caseUsage(org.eclipse.uml2.uml.Usage object) {
-		return computeStereotypes(object) + ILabelConstants.ST_LEFT + "use" + ILabelConstants.ST_RIGHT; //$NON-NLS-1$
+		return computeStereotypes(object, context) + ILabelConstants.ST_LEFT + "use" + ILabelConstants.ST_RIGHT; //$NON-NLS-1$
 	}
 	
 	/**
@@ -944,12 +980,4 @@ public class DisplayLabelSwitch extends UMLSwitch<String> implements ILabelConst
 				&& lifeline.getClientDependencies().get(0).getSuppliers().size() > 0;
 	}
 
-	public static void setStereotypeFilter(boolean filterValue) {
-		showStereotypeFilter = filterValue;
-	}
-
-	public static void setQualifiedNameFilter(boolean filterValue) {
-		showQualifiedNameFilter = filterValue;
-	}
-
 }
@@ -102,6 +102,11 @@ public class EditLabelSwitch extends UMLSwitch<Element> implements ILabelConstan
      */
     private String editedLabelContent;
 
+    /**
+     * The options of the edited label.
+     */
+    private LabelContext labelContext = LabelContext.getDefault();
+
     @Override
     public Element caseActivity(Activity object) {
         // Implemented for direct edit Transition
@@ -155,10 +160,10 @@ public class EditLabelSwitch extends UMLSwitch<Element> implements ILabelConstan
         caseExecutionSpecification(execution);
         // Edit opaque behavior
         final Behavior behavior = execution.getBehavior();
-        LabelServices.INSTANCE.editUmlLabel(behavior, editedLabelContent);
+        LabelServices.INSTANCE.editUmlLabel(behavior, editedLabelContent, labelContext);
         // Edit operation
         final Operation operation = (Operation) behavior.getSpecification();
-        LabelServices.INSTANCE.editUmlLabel(operation, editedLabelContent);
+        LabelServices.INSTANCE.editUmlLabel(operation, editedLabelContent, labelContext);
         return execution;
     }
 
@@ -234,7 +239,7 @@ public class EditLabelSwitch extends UMLSwitch<Element> implements ILabelConstan
         execution.getFinish().setName(editedLabelContent + FINISH_SUFFIX);
         // Edit message if exists
         if (execution.getStart() instanceof MessageOccurrenceSpecification) {
-            LabelServices.INSTANCE.editUmlLabel(((MessageOccurrenceSpecification) execution.getStart()).getMessage(), editedLabelContent);
+            LabelServices.INSTANCE.editUmlLabel(((MessageOccurrenceSpecification) execution.getStart()).getMessage(), editedLabelContent, labelContext);
         }
         return execution;
     }
@@ -284,9 +289,9 @@ public class EditLabelSwitch extends UMLSwitch<Element> implements ILabelConstan
         // Edit message name
         message.setName(editedLabelContent);
         // Edit message send
-        LabelServices.INSTANCE.editUmlLabel(message.getSendEvent(), editedLabelContent);
+        LabelServices.INSTANCE.editUmlLabel(message.getSendEvent(), editedLabelContent, labelContext);
         // Edit message receive
-        LabelServices.INSTANCE.editUmlLabel(message.getReceiveEvent(), editedLabelContent);
+        LabelServices.INSTANCE.editUmlLabel(message.getReceiveEvent(), editedLabelContent, labelContext);
         return message;
     }
 
@@ -313,7 +318,7 @@ public class EditLabelSwitch extends UMLSwitch<Element> implements ILabelConstan
         // FIXME We should detect the stereotype brackets instead of trying to
         // replace the generated label
         // that might have been modified...
-        final String stereotype = DisplayLabelSwitch.computeStereotypes(object);
+        final String stereotype = DisplayLabelSwitch.computeStereotypes(object, labelContext);
         if (stereotype != null && !"".equals(stereotype)) { //$NON-NLS-1$
             editedLabelContent = editedLabelContent.replace(stereotype, ""); //$NON-NLS-1$
         }
@@ -765,4 +770,14 @@ public class EditLabelSwitch extends UMLSwitch<Element> implements ILabelConstan
     public void setEditedLabelContent(String editedLabelContent) {
         this.editedLabelContent = editedLabelContent;
     }
+
+    /**
+     * Set the options of the edited label.
+     *
+     * @param labelContext
+     *            the options of the label, for instance the ones of the diagram displaying the element
+     */
+    public void setLabelContext(LabelContext labelContext) {
+        this.labelContext = labelContext;
+    }
 }
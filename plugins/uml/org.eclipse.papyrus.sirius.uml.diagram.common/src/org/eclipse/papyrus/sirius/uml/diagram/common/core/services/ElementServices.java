@@ -14,9 +14,7 @@
  *****************************************************************************/
 package org.eclipse.papyrus.sirius.uml.diagram.common.core.services;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -26,6 +24,7 @@ import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.papyrus.sirius.uml.diagram.common.core.index.TypeNameIndex;
 import org.eclipse.sirius.business.api.session.Session;
 import org.eclipse.sirius.business.api.session.SessionManager;
 import org.eclipse.uml2.uml.Class;
@@ -96,6 +95,9 @@ public class ElementServices {
      * Find a {@link Type} element that match the given name in the ResourceSet
      * of the given element.
      *
+     * The types are looked up in the {@link TypeNameIndex} of the ResourceSet,
+     * installed on the first call.
+     *
      * @param object
      *            the object for which to find a corresponding type.
      * @param typeName
@@ -103,8 +105,11 @@ public class ElementServices {
      * @return the found {@link Type} element or <code>null</code>
      */
     public Type findTypeByName(EObject object, String typeName) {
-        final Type result = findTypeByName(getAllRootsInResourceSet(object), typeName);
-        return result;
+        final Resource res = object.eResource();
+        if (res != null && res.getResourceSet() != null) {
+            return TypeNameIndex.getIndex(res.getResourceSet()).findType(typeName);
+        }
+        return null;
     }
 
     /**
@@ -132,27 +137,6 @@ public class ElementServices {
         return null;
     }
 
-    /**
-     * Retrieves all the root elements of the resource in the resource set of
-     * the given context object.
-     *
-     * @param context
-     *            the context object on which to execute this service.
-     * @return a {@link Collection} of all the root element of the current
-     *         resource set.
-     */
-    private Collection<EObject> getAllRootsInResourceSet(EObject context) {
-        final Resource res = context.eResource();
-        if (res != null && res.getResourceSet() != null) {
-            final Collection<EObject> roots = new ArrayList<EObject>();
-            for (final Resource childRes : res.getResourceSet().getResources()) {
-                roots.addAll(childRes.getContents());
-            }
-            return roots;
-        }
-        return Collections.emptySet();
-    }
-
     /**
      * Get the namespace associated to a named element.
      *
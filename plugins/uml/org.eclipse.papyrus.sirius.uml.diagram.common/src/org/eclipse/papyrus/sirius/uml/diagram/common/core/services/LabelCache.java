@@ -0,0 +1,616 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.diagram.common.core.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.papyrus.sirius.uml.diagram.common.core.index.IStereotypeApplicationListener;
+import org.eclipse.papyrus.sirius.uml.diagram.common.core.index.StereotypeApplicationIndex;
+import org.eclipse.uml2.uml.Behavior;
+import org.eclipse.uml2.uml.BehaviorExecutionSpecification;
+import org.eclipse.uml2.uml.Classifier;
+import org.eclipse.uml2.uml.Constraint;
+import org.eclipse.uml2.uml.Dependency;
+import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.InstanceSpecification;
+import org.eclipse.uml2.uml.InstanceValue;
+import org.eclipse.uml2.uml.Lifeline;
+import org.eclipse.uml2.uml.MultiplicityElement;
+import org.eclipse.uml2.uml.NamedElement;
+import org.eclipse.uml2.uml.Operation;
+import org.eclipse.uml2.uml.Parameter;
+import org.eclipse.uml2.uml.Property;
+import org.eclipse.uml2.uml.Slot;
+import org.eclipse.uml2.uml.TemplateBinding;
+import org.eclipse.uml2.uml.TemplateParameter;
+import org.eclipse.uml2.uml.TemplateParameterSubstitution;
+import org.eclipse.uml2.uml.TemplateSignature;
+import org.eclipse.uml2.uml.TemplateableElement;
+import org.eclipse.uml2.uml.Transition;
+import org.eclipse.uml2.uml.TypedElement;
+import org.eclipse.uml2.uml.UMLPackage;
+import org.eclipse.uml2.uml.ValueSpecification;
+
+/**
+ * A cache of the labels of the UML elements, by label style.
+ *
+ * The labels of an element are kept by an adapter of the element, with the objects they have been computed from: the
+ * element, the owned elements and the referenced elements its label reads (type, multiplicity, default value,
+ * template signature, elements whose label is embedded into the label of the element...) and its applied stereotypes. A
+ * change of one of these objects, except the change of the owned elements which are not read, discards the labels of
+ * the element. The application or unapplication of a stereotype on one of these elements, notified by the
+ * {@link StereotypeApplicationIndex}, is handled as a change of the element. The renaming of a container of the element or of a referenced
+ * element whose name is displayed, and the move of the element also discard its labels. The labels of the elements
+ * computed while computing the label of another element are dependencies of this other label.
+ *
+ * The labels of the elements removed from their container are discarded and unregistered from their dependencies, so
+ * that the deleted elements are not retained by the cache.
+ *
+ * The labels are computed outside of the lock of the cache, so that labels can be computed by several threads.
+ */
+public final class LabelCache {
+
+	/**
+	 * A singleton instance to be accessed by other java services.
+	 */
+	public static final LabelCache INSTANCE = new LabelCache();
+
+	/** The dependencies collected by the label computations in progress on the current thread, innermost first. */
+	private final ThreadLocal<Deque<Dependencies>> computations = ThreadLocal.withInitial(ArrayDeque::new);
+
+	/** The listener of the stereotype applications, which discards the labels depending on their base element. */
+	private final IStereotypeApplicationListener stereotypeApplicationListener = this::stereotypeApplicationsChanged;
+
+	/**
+	 * Hidden constructor.
+	 */
+	private LabelCache() {
+		StereotypeApplicationIndex.addListener(stereotypeApplicationListener);
+	}
+
+	/**
+	 * Get the label of an element in a given style, computing it if it isn't in the cache.
+	 *
+	 * @param element
+	 *            the element
+	 * @param style
+	 *            the style of the label, which identifies the way it is computed, including the options taken into
+	 *            account by the label provider
+	 * @param labelProvider
+	 *            the function computing the label of the element in this style
+	 * @return
+	 *         the label of the element, possibly <code>null</code> if the label provider returns <code>null</code>
+	 */
+	public String getLabel(final Element element, final String style, final Function<Element, String> labelProvider) {
+		final Deque<Dependencies> stack = computations.get();
+		final CachedLabels cachedLabels;
+		final long generation;
+		synchronized (this) {
+			cachedLabels = getCachedLabels(element);
+			if (!cachedLabels.hasSameContainers(element)) {
+				invalidate(cachedLabels);
+			}
+			if (cachedLabels.labels.containsKey(style)) {
+				if (!stack.isEmpty()) {
+					stack.peek().addAll(cachedLabels.dependencies);
+				}
+				return cachedLabels.labels.get(style);
+			}
+			generation = cachedLabels.generation;
+		}
+
+		final Dependencies dependencies = new Dependencies();
+		stack.push(dependencies);
+		final String label;
+		try {
+			label = labelProvider.apply(element);
+		} finally {
+			stack.pop();
+		}
+		dependencies.collect(element);
+
+		synchronized (this) {
+			// the labels computed from a state changed during the computation are not kept
+			if (cachedLabels.generation == generation) {
+				if (cachedLabels.containers == null) {
+					cachedLabels.containers = getContainers(element);
+				}
+				cachedLabels.labels.put(style, label);
+				for (final Notifier dependency : dependencies.objects) {
+					getLabelDependency(dependency).dependents.add(cachedLabels);
+				}
+				for (final Notifier dependency : dependencies.names) {
+					getLabelDependency(dependency).nameDependents.add(cachedLabels);
+				}
+				cachedLabels.dependencies.addAll(dependencies);
+			}
+		}
+		if (!stack.isEmpty()) {
+			stack.peek().addAll(dependencies);
+		}
+		return label;
+	}
+
+	/**
+	 * Discard the labels of an element whose stereotype applications have changed, and the labels depending on it.
+	 *
+	 * @param base
+	 *            the base element of the added or removed stereotype applications
+	 */
+	private synchronized void stereotypeApplicationsChanged(final Element base) {
+		final Collection<CachedLabels> invalidated = new ArrayList<>();
+		final CachedLabels cachedLabels = (CachedLabels) EcoreUtil.getExistingAdapter(base, CachedLabels.class);
+		if (cachedLabels != null) {
+			// also discards a label being computed
+			invalidated.add(cachedLabels);
+		}
+		final LabelDependency labelDependency = (LabelDependency) EcoreUtil.getExistingAdapter(base, LabelDependency.class);
+		if (labelDependency != null) {
+			invalidated.addAll(labelDependency.dependents);
+		}
+		for (final CachedLabels dependent : invalidated) {
+			invalidate(dependent);
+		}
+	}
+
+	/**
+	 * Discard the labels of an element and unregister them from their dependencies.
+	 */
+	private void invalidate(final CachedLabels cachedLabels) {
+		cachedLabels.labels.clear();
+		cachedLabels.containers = null;
+		cachedLabels.generation++;
+		final Set<Notifier> dependencies = new HashSet<>(cachedLabels.dependencies.objects);
+		dependencies.addAll(cachedLabels.dependencies.names);
+		for (final Notifier dependency : dependencies) {
+			final LabelDependency labelDependency = (LabelDependency) EcoreUtil.getExistingAdapter(dependency, LabelDependency.class);
+			if (labelDependency != null) {
+				labelDependency.dependents.remove(cachedLabels);
+				labelDependency.nameDependents.remove(cachedLabels);
+				if (labelDependency.dependents.isEmpty() && labelDependency.nameDependents.isEmpty()) {
+					dependency.eAdapters().remove(labelDependency);
+				}
+			}
+		}
+		cachedLabels.dependencies.objects.clear();
+		cachedLabels.dependencies.names.clear();
+	}
+
+	/**
+	 * Discard the labels of the elements of a removed subtree and the labels depending on them, and uninstall the
+	 * adapters of the cache from this subtree.
+	 *
+	 * @param removed
+	 *            the root of the removed subtree
+	 */
+	private void release(final EObject removed) {
+		release((Notifier) removed);
+		for (final Iterator<EObject> iterator = removed.eAllContents(); iterator.hasNext();) {
+			release((Notifier) iterator.next());
+		}
+	}
+
+	/**
+	 * Discard the labels of a removed object and the labels depending on it, and uninstall the adapters of the cache
+	 * from this object.
+	 */
+	private void release(final Notifier removed) {
+		final CachedLabels cachedLabels = (CachedLabels) EcoreUtil.getExistingAdapter(removed, CachedLabels.class);
+		if (cachedLabels != null) {
+			invalidate(cachedLabels);
+			removed.eAdapters().remove(cachedLabels);
+		}
+		final LabelDependency labelDependency = (LabelDependency) EcoreUtil.getExistingAdapter(removed, LabelDependency.class);
+		if (labelDependency != null) {
+			final Collection<CachedLabels> invalidated = new ArrayList<>(labelDependency.dependents);
+			invalidated.addAll(labelDependency.nameDependents);
+			for (final CachedLabels dependent : invalidated) {
+				invalidate(dependent);
+			}
+			removed.eAdapters().remove(labelDependency);
+		}
+	}
+
+	/**
+	 * @return
+	 *         the cached labels of an element, installed if needed
+	 */
+	private static CachedLabels getCachedLabels(final Element element) {
+		CachedLabels cachedLabels = (CachedLabels) EcoreUtil.getExistingAdapter(element, CachedLabels.class);
+		if (cachedLabels == null) {
+			cachedLabels = new CachedLabels();
+			element.eAdapters().add(cachedLabels);
+		}
+		return cachedLabels;
+	}
+
+	/**
+	 * @return
+	 *         the listener of the changes of a dependency, installed if needed
+	 */
+	private static LabelDependency getLabelDependency(final Notifier dependency) {
+		LabelDependency labelDependency = (LabelDependency) EcoreUtil.getExistingAdapter(dependency, LabelDependency.class);
+		if (labelDependency == null) {
+			labelDependency = new LabelDependency();
+			dependency.eAdapters().add(labelDependency);
+		}
+		return labelDependency;
+	}
+
+	/**
+	 * @return
+	 *         the containers of an element, from its direct container
+	 */
+	private static List<EObject> getContainers(final EObject element) {
+		final List<EObject> containers = new ArrayList<>();
+		for (EObject container = element.eContainer(); container != null; container = container.eContainer()) {
+			containers.add(container);
+		}
+		return containers;
+	}
+
+	/**
+	 * The labels of an element, by style.
+	 */
+	private static final class CachedLabels extends AdapterImpl {
+
+		/** The labels, by style. */
+		private final Map<String, String> labels = new HashMap<>(4);
+
+		/** The objects the labels have been computed from. */
+		private final Dependencies dependencies = new Dependencies();
+
+		/** The containers of the element when the labels have been computed, <code>null</code> if no label is cached. */
+		private List<EObject> containers;
+
+		/** The number of invalidations of the labels. */
+		private long generation;
+
+		/**
+		 * @return
+		 *         <code>true</code> if the element has the containers it had when its labels have been computed
+		 */
+		private boolean hasSameContainers(final EObject element) {
+			if (containers == null) {
+				return true;
+			}
+			final Iterator<EObject> iterator = containers.iterator();
+			for (EObject container = element.eContainer(); container != null; container = container.eContainer()) {
+				if (!iterator.hasNext() || iterator.next() != container) {
+					return false;
+				}
+			}
+			return !iterator.hasNext();
+		}
+
+		/**
+		 * @see org.eclipse.emf.common.notify.impl.AdapterImpl#isAdapterForType(java.lang.Object)
+		 *
+		 * @param type
+		 * @return
+		 */
+		@Override
+		public boolean isAdapterForType(final Object type) {
+			return type == CachedLabels.class;
+		}
+	}
+
+	/**
+	 * The listener of the changes of an object the cached labels have been computed from.
+	 */
+	private static final class LabelDependency extends AdapterImpl {
+
+		/** The labels depending on any change of the object. */
+		private final Set<CachedLabels> dependents = new HashSet<>();
+
+		/** The labels depending on the name of the object, which is a container of their element. */
+		private final Set<CachedLabels> nameDependents = new HashSet<>();
+
+		/**
+		 * @see org.eclipse.emf.common.notify.impl.AdapterImpl#notifyChanged(org.eclipse.emf.common.notify.Notification)
+		 *
+		 * @param msg
+		 */
+		@Override
+		public void notifyChanged(final Notification msg) {
+			if (msg.isTouch() || msg.getEventType() == Notification.REMOVING_ADAPTER) {
+				return;
+			}
+			synchronized (INSTANCE) {
+				// the removed elements are released first: this adapter can be one of their dependencies
+				releaseRemovedContents(msg);
+				final Collection<CachedLabels> invalidated = new ArrayList<>();
+				if (isRead(msg)) {
+					invalidated.addAll(dependents);
+				}
+				if (msg.getFeature() == UMLPackage.Literals.NAMED_ELEMENT__NAME) {
+					invalidated.addAll(nameDependents);
+				}
+				for (final CachedLabels cachedLabels : invalidated) {
+					INSTANCE.invalidate(cachedLabels);
+				}
+			}
+		}
+
+		/**
+		 * @return
+		 *         <code>true</code> if the changed feature can be read by the labels depending on any change of the
+		 *         notifier: the owned elements are only read through the features listed in {@link Dependencies#READ_CONTAINMENTS}
+		 */
+		private static boolean isRead(final Notification msg) {
+			final Object feature = msg.getFeature();
+			if (feature instanceof EReference && ((EReference) feature).isContainment()) {
+				// the string value of a value specification reads all its contents
+				return msg.getNotifier() instanceof ValueSpecification || Dependencies.READ_CONTAINMENTS.contains(feature);
+			}
+			return true;
+		}
+
+		/**
+		 * Release the elements removed from their container.
+		 */
+		private static void releaseRemovedContents(final Notification msg) {
+			if (!(msg.getFeature() instanceof EReference && ((EReference) msg.getFeature()).isContainment())) {
+				return;
+			}
+			switch (msg.getEventType()) {
+			case Notification.REMOVE:
+			case Notification.SET:
+			case Notification.UNSET:
+				if (msg.getOldValue() instanceof EObject) {
+					INSTANCE.release((EObject) msg.getOldValue());
+				}
+				break;
+			case Notification.REMOVE_MANY:
+				if (msg.getOldValue() instanceof Collection<?>) {
+					for (final Object removed : (Collection<?>) msg.getOldValue()) {
+						if (removed instanceof EObject) {
+							INSTANCE.release((EObject) removed);
+						}
+					}
+				}
+				break;
+			default:
+				break;
+			}
+		}
+
+		/**
+		 * @see org.eclipse.emf.common.notify.impl.AdapterImpl#isAdapterForType(java.lang.Object)
+		 *
+		 * @param type
+		 * @return
+		 */
+		@Override
+		public boolean isAdapterForType(final Object type) {
+			return type == LabelDependency.class;
+		}
+	}
+
+	/**
+	 * The objects a label is computed from.
+	 */
+	private static final class Dependencies {
+
+		/** The containment features read by the labels, the other owned elements are not read. */
+		private static final Set<EStructuralFeature> READ_CONTAINMENTS = new HashSet<>(Arrays.asList(
+				UMLPackage.Literals.TEMPLATEABLE_ELEMENT__OWNED_TEMPLATE_SIGNATURE,
+				UMLPackage.Literals.TEMPLATE_SIGNATURE__OWNED_PARAMETER,
+				UMLPackage.Literals.TEMPLATE_PARAMETER__OWNED_DEFAULT,
+				UMLPackage.Literals.TEMPLATE_PARAMETER__OWNED_PARAMETERED_ELEMENT,
+				UMLPackage.Literals.TEMPLATE_BINDING__PARAMETER_SUBSTITUTION,
+				UMLPackage.Literals.TEMPLATE_PARAMETER_SUBSTITUTION__OWNED_ACTUAL,
+				UMLPackage.Literals.MULTIPLICITY_ELEMENT__LOWER_VALUE,
+				UMLPackage.Literals.MULTIPLICITY_ELEMENT__UPPER_VALUE,
+				UMLPackage.Literals.PROPERTY__DEFAULT_VALUE,
+				UMLPackage.Literals.PROPERTY__QUALIFIER,
+				UMLPackage.Literals.PARAMETER__DEFAULT_VALUE,
+				UMLPackage.Literals.BEHAVIORAL_FEATURE__OWNED_PARAMETER,
+				UMLPackage.Literals.OPERATION__OWNED_PARAMETER,
+				UMLPackage.Literals.CONSTRAINT__SPECIFICATION,
+				UMLPackage.Literals.SLOT__VALUE,
+				UMLPackage.Literals.TRANSITION__TRIGGER,
+				UMLPackage.Literals.TRANSITION__EFFECT));
+
+		/** The objects whose changes discard the label. */
+		private final Set<Notifier> objects = new HashSet<>();
+
+		/** The objects whose renaming discards the label: the containers of the element and the displayed references. */
+		private final Set<Notifier> names = new HashSet<>();
+
+		/**
+		 * Add the dependencies of another label.
+		 */
+		private void addAll(final Dependencies dependencies) {
+			objects.addAll(dependencies.objects);
+			names.addAll(dependencies.names);
+		}
+
+		/**
+		 * Collect the objects the label of an element is computed from.
+		 */
+		private void collect(final Element element) {
+			collectLabel(element, new HashSet<>());
+		}
+
+		/**
+		 * Collect the objects read by the label of an element: the element, the owned and referenced elements read by
+		 * the label switches, and the labels embedded into its label.
+		 *
+		 * @param element
+		 *            the labeled element, can be <code>null</code>
+		 * @param visited
+		 *            the elements whose label has already been collected
+		 */
+		private void collectLabel(final Element element, final Set<Element> visited) {
+			if (element == null || !visited.add(element)) {
+				return;
+			}
+			addObject(element);
+			objects.addAll(StereotypeApplicationIndex.getAppliedStereotypes(element));
+			if (element instanceof TemplateableElement) {
+				collectTemplateSignature(((TemplateableElement) element).getOwnedTemplateSignature());
+			}
+			if (element instanceof TypedElement) {
+				addName(((TypedElement) element).getType());
+			}
+			if (element instanceof MultiplicityElement) {
+				addValue(((MultiplicityElement) element).getLowerValue());
+				addValue(((MultiplicityElement) element).getUpperValue());
+			}
+			if (element instanceof ValueSpecification) {
+				element.eAllContents().forEachRemaining(objects::add);
+			}
+			if (element instanceof Constraint) {
+				addValue(((Constraint) element).getSpecification());
+			} else if (element instanceof Property) {
+				final Property property = (Property) element;
+				addValue(property.getDefaultValue());
+				for (final Property qualifier : property.getQualifiers()) {
+					collectLabel(qualifier, visited);
+				}
+				for (final Property redefined : property.getRedefinedProperties()) {
+					addQualifiedName(redefined);
+				}
+				for (final Property subsetted : property.getSubsettedProperties()) {
+					addQualifiedName(subsetted);
+				}
+			} else if (element instanceof Parameter) {
+				addValue(((Parameter) element).getDefaultValue());
+			} else if (element instanceof Operation) {
+				final Operation operation = (Operation) element;
+				for (final Parameter parameter : operation.getOwnedParameters()) {
+					collectLabel(parameter, visited);
+				}
+				for (final Operation redefined : operation.getRedefinedOperations()) {
+					addName(redefined);
+				}
+			} else if (element instanceof InstanceSpecification) {
+				for (final Classifier classifier : ((InstanceSpecification) element).getClassifiers()) {
+					collectLabel(classifier, visited);
+				}
+			} else if (element instanceof Lifeline) {
+				final Lifeline lifeline = (Lifeline) element;
+				collectLabel(lifeline.getRepresents(), visited);
+				// the client dependencies are derived, their changes are not notified by the lifeline
+				for (final Dependency dependency : lifeline.getClientDependencies()) {
+					objects.add(dependency);
+					for (final NamedElement supplier : dependency.getSuppliers()) {
+						collectLabel(supplier, visited);
+					}
+				}
+			} else if (element instanceof BehaviorExecutionSpecification) {
+				final Behavior behavior = ((BehaviorExecutionSpecification) element).getBehavior();
+				if (behavior != null) {
+					objects.add(behavior);
+					collectLabel(behavior.getSpecification(), visited);
+				}
+			} else if (element instanceof Slot) {
+				final Slot slot = (Slot) element;
+				addName(slot.getDefiningFeature());
+				for (final ValueSpecification value : slot.getValues()) {
+					addValue(value);
+					if (value instanceof InstanceValue) {
+						addName(((InstanceValue) value).getInstance());
+					}
+				}
+			} else if (element instanceof TemplateBinding) {
+				for (final TemplateParameterSubstitution substitution : ((TemplateBinding) element).getParameterSubstitutions()) {
+					objects.add(substitution);
+					final TemplateParameter formal = substitution.getFormal();
+					if (formal != null) {
+						objects.add(formal);
+						addName(formal.getDefault());
+					}
+					addName(substitution.getActual());
+				}
+			} else if (element instanceof Transition) {
+				// the labels of the triggers, of the guard specification and of the effect are cached labels
+				final Constraint guard = ((Transition) element).getGuard();
+				if (guard != null) {
+					objects.add(guard);
+				}
+			}
+		}
+
+		/**
+		 * Collect the template signature of an element and the names of its parameters.
+		 */
+		private void collectTemplateSignature(final TemplateSignature signature) {
+			if (signature != null) {
+				objects.add(signature);
+				for (final TemplateParameter parameter : signature.getOwnedParameters()) {
+					objects.add(parameter);
+					addName(parameter.getOwnedDefault());
+				}
+			}
+		}
+
+		/**
+		 * Add an owned value specification and its contents.
+		 */
+		private void addValue(final ValueSpecification value) {
+			if (value != null) {
+				objects.add(value);
+				value.eAllContents().forEachRemaining(objects::add);
+			}
+		}
+
+		/**
+		 * Add an object whose name is displayed.
+		 */
+		private void addName(final EObject object) {
+			if (object != null) {
+				names.add(object);
+			}
+		}
+
+		/**
+		 * Add an object whose name is displayed, qualified by the name of its container.
+		 */
+		private void addQualifiedName(final EObject object) {
+			if (object != null) {
+				names.add(object);
+				addName(object.eContainer());
+			}
+		}
+
+		/**
+		 * Add an object and its containers.
+		 */
+		private void addObject(final EObject object) {
+			objects.add(object);
+			names.addAll(getContainers(object));
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.diagram.common.core.services;
+
+import org.eclipse.papyrus.sirius.uml.diagram.common.services.DiagramLayerState;
+import org.eclipse.papyrus.sirius.uml.diagram.common.utils.ODesignConstant;
+import org.eclipse.sirius.diagram.DDiagram;
+
+/**
+ * The options of the labels computed by a {@link DisplayLabelSwitch}.
+ *
+ * A context is immutable: the labels of several diagrams can be computed concurrently, each one with its own context.
+ */
+public final class LabelContext {
+
+	/** The context showing the applied stereotypes and the qualified names. */
+	private static final LabelContext ALL = new LabelContext(true, true);
+
+	/** The context showing the applied stereotypes only. */
+	private static final LabelContext STEREOTYPES = new LabelContext(true, false);
+
+	/** The context showing the qualified names only. */
+	private static final LabelContext QUALIFIED_NAMES = new LabelContext(false, true);
+
+	/** The context showing neither the applied stereotypes nor the qualified names. */
+	private static final LabelContext NONE = new LabelContext(false, false);
+
+	/** <code>true</code> to show the applied stereotypes. */
+	private final boolean showStereotypes;
+
+	/** <code>true</code> to show the qualified names instead of the names. */
+	private final boolean showQualifiedName;
+
+	/** The identifier of the options, used in the style of the cached labels. */
+	private final String key;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param showStereotypes
+	 *            <code>true</code> to show the applied stereotypes
+	 * @param showQualifiedName
+	 *            <code>true</code> to show the qualified names instead of the names
+	 */
+	private LabelContext(final boolean showStereotypes, final boolean showQualifiedName) {
+		this.showStereotypes = showStereotypes;
+		this.showQualifiedName = showQualifiedName;
+		this.key = (showStereotypes ? "S" : "") + (showQualifiedName ? "Q" : ""); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+
+	/**
+	 * @param showStereotypes
+	 *            <code>true</code> to show the applied stereotypes
+	 * @param showQualifiedName
+	 *            <code>true</code> to show the qualified names instead of the names
+	 * @return
+	 *         the context with the given options
+	 */
+	public static LabelContext of(final boolean showStereotypes, final boolean showQualifiedName) {
+		if (showStereotypes) {
+			return showQualifiedName ? ALL : STEREOTYPES;
+		}
+		return showQualifiedName ? QUALIFIED_NAMES : NONE;
+	}
+
+	/**
+	 * @param diagram
+	 *            a diagram
+	 * @return
+	 *         the context matching the applied stereotype and qualified name layers activated in the diagram, the
+	 *         option of a layer not defined by the diagram being the one of the {@link #getDefault() default context}
+	 */
+	public static LabelContext of(final DDiagram diagram) {
+		final DiagramLayerState state = DiagramLayerState.getState(diagram);
+		return of(isShowing(state, ODesignConstant.APPLIED_STEREOTYPE_LAYER_ID), isShowing(state, ODesignConstant.QUALIFIED_NAMED_LAYER_ID));
+	}
+
+	/**
+	 * @param state
+	 *            the layer state of a diagram
+	 * @param layerName
+	 *            the name of the layer showing an option
+	 * @return
+	 *         <code>true</code> if the layer is activated, or isn't defined by the diagram
+	 */
+	private static boolean isShowing(final DiagramLayerState state, final String layerName) {
+		return !state.isLayerDefined(layerName) || state.isLayerActivated(layerName);
+	}
+
+	/**
+	 * @return
+	 *         the context used when none is given, showing the applied stereotypes and the qualified names
+	 */
+	public static LabelContext getDefault() {
+		return ALL;
+	}
+
+	/**
+	 * @return
+	 *         <code>true</code> to show the applied stereotypes
+	 */
+	public boolean isShowingStereotypes() {
+		return showStereotypes;
+	}
+
+	/**
+	 * @return
+	 *         <code>true</code> to show the qualified names instead of the names
+	 */
+	public boolean isShowingQualifiedName() {
+		return showQualifiedName;
+	}
+
+	/**
+	 * @return
+	 *         the identifier of the options
+	 */
+	String getKey() {
+		return key;
+	}
+}
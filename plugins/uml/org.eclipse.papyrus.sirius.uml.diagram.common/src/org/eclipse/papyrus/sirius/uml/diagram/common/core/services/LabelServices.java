@@ -19,6 +19,7 @@ import java.util.List;
 import javax.swing.event.ChangeEvent;
 
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.papyrus.sirius.uml.diagram.common.core.index.ContentCounters;
 import org.eclipse.uml2.uml.AcceptEventAction;
 import org.eclipse.uml2.uml.ActivityFinalNode;
 import org.eclipse.uml2.uml.ActivityParameterNode;
@@ -52,10 +53,7 @@ import org.eclipse.uml2.uml.TemplateableElement;
 import org.eclipse.uml2.uml.TimeEvent;
 import org.eclipse.uml2.uml.Trigger;
 import org.eclipse.uml2.uml.UMLPackage;
-
-import com.google.common.base.Predicate;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
+import org.eclipse.uml2.uml.edit.UMLEditPlugin;
 
 /**
  * Manage the diagram elements' labels.
@@ -151,6 +149,7 @@ public class LabelServices {
 	 *            New element
 	 * @return Name for the new element, he name will looks like
 	 *         'ElementType'+total of existing elements of the same type.
+	 *         The elements of the same type are counted by the {@link ContentCounters} of the container.
 	 */
 	public String computeDefaultName(final EObject element) {
 		if (element instanceof NamedElement) {
@@ -159,14 +158,10 @@ public class LabelServices {
 			}
 		}
 
-		Predicate<EObject> predicate = null;
+		// the siblings of the same implementation class, or the instances of this type if set
+		Class<?> countedType = null;
 		String name = element.getClass().getSimpleName();
 		name = name.substring(0, name.indexOf("Impl")); //$NON-NLS-1$
-		predicate = new Predicate<EObject>() {
-			public boolean apply(EObject input) {
-				return input.getClass().getName().equals(element.getClass().getName());
-			}
-		};
 		if (element instanceof AssociationClass) {
 			name = "AssociationClass"; //$NON-NLS-1$
 		} else if (element instanceof InitialNode) {
@@ -209,11 +204,7 @@ public class LabelServices {
 			final String end2 = ((Association) element).getOwnedEnds().get(1).getName();
 			return end1 + "To" + Character.toUpperCase(end2.charAt(0)) + end2.substring(1); //$NON-NLS-1$
 		} else if (element instanceof InstanceSpecification) {
-			predicate = new Predicate<EObject>() {
-				public boolean apply(EObject input) {
-					return input instanceof InstanceSpecification;
-				}
-			};
+			countedType = InstanceSpecification.class;
 			name = "anObject"; //$NON-NLS-1$
 			final List<Classifier> classifiers = ((InstanceSpecification) element).getClassifiers();
 			if (!classifiers.isEmpty()) {
@@ -245,9 +236,10 @@ public class LabelServices {
 			}
 		}
 
-		final List<EObject> existingElements = Lists.newArrayList(Iterables.filter(element.eContainer().eContents(), predicate));
+		final ContentCounters counters = ContentCounters.getCounters(element.eContainer());
+		final int existingElements = countedType != null ? counters.countInstances(countedType) : counters.count(element.getClass());
 
-		return name + existingElements.size();
+		return name + existingElements;
 	}
 
 	/**
@@ -258,9 +250,22 @@ public class LabelServices {
 	 * @return the computed label.
 	 */
 	public String computeUmlLabel(Element element) {
-		final DisplayLabelSwitch displayLabel = new DisplayLabelSwitch();
+		return computeUmlLabel(element, LabelContext.getDefault());
+	}
+
+	/**
+	 * Compute the label of the given element with the given options.
+	 *
+	 * @param element
+	 *            the {@link Element} for which to retrieve a label.
+	 * @param context
+	 *            the options of the label, for instance the ones of the diagram displaying the element.
+	 * @return the computed label.
+	 */
+	public String computeUmlLabel(Element element, LabelContext context) {
 		if (element != null) {
-			return displayLabel.doSwitch(element);
+			final String style = "display:" + context.getKey() + ':' + UMLEditPlugin.INSTANCE.shouldTranslate(); //$NON-NLS-1$
+			return LabelCache.INSTANCE.getLabel(element, style, e -> new DisplayLabelSwitch(context).doSwitch(e));
 		}
 		return ""; //$NON-NLS-1$
 	}
@@ -306,8 +311,25 @@ public class LabelServices {
 	 * @return the context {@link Element}
 	 */
 	public Element editUmlLabel(Element context, String editedLabelContent) {
+		return editUmlLabel(context, editedLabelContent, LabelContext.getDefault());
+	}
+
+	/**
+	 * Parse the edited label string and update the underlying context
+	 * {@link Element}.
+	 *
+	 * @param context
+	 *            the context object on which to execute this service.
+	 * @param editedLabelContent
+	 *            the content entered by the user.
+	 * @param labelContext
+	 *            the options of the edited label, for instance the ones of the diagram displaying the element.
+	 * @return the context {@link Element}
+	 */
+	public Element editUmlLabel(Element context, String editedLabelContent, LabelContext labelContext) {
 		final EditLabelSwitch editLabel = new EditLabelSwitch();
 		editLabel.setEditedLabelContent(editedLabelContent);
+		editLabel.setLabelContext(labelContext);
 		return editLabel.doSwitch(context);
 	}
 
@@ -19,8 +19,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature.Setting;
+import org.eclipse.papyrus.sirius.uml.diagram.common.core.index.NodeInverseRefsIndex;
 import org.eclipse.sirius.business.api.session.Session;
 import org.eclipse.sirius.business.api.session.SessionManager;
 import org.eclipse.sirius.diagram.AbstractDNode;
@@ -29,6 +32,7 @@ import org.eclipse.sirius.diagram.DDiagramElement;
 import org.eclipse.sirius.viewpoint.DSemanticDecorator;
 import org.eclipse.uml2.common.util.DerivedUnionEObjectEList;
 import org.eclipse.uml2.uml.Property;
+import org.eclipse.uml2.uml.UMLPackage;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
@@ -63,7 +67,7 @@ public class NodeInverseRefsServices {
 	 * @return the list of cross reference of the given
 	 */
 	public Collection<EObject> getAssociationInverseRefs(DDiagram diagram) {
-		return getNodeInverseRefs(diagram, "Association"); //$NON-NLS-1$
+		return getNodeInverseRefs(diagram, UMLPackage.Literals.ASSOCIATION);
 	}
 
 	/**
@@ -78,6 +82,10 @@ public class NodeInverseRefsServices {
 	 */
 	@SuppressWarnings("unchecked")
 	public Collection<EObject> getNodeInverseRefs(DDiagram diagram, String typeName) {
+		final EClassifier eClassifier = UMLPackage.eINSTANCE.getEClassifier(typeName);
+		if (eClassifier instanceof EClass) {
+			return getNodeInverseRefs(diagram, (EClass)eClassifier);
+		}
 		final Set<EObject> result = Sets.newLinkedHashSet();
 		if (diagram instanceof DSemanticDecorator) {
 			final Session sess = SessionManager.INSTANCE
@@ -127,6 +135,29 @@ public class NodeInverseRefsServices {
 		return result;
 	}
 
+	/**
+	 * Retrieve the cross references of the given EClass of all the UML elements displayed as node in a Diagram.
+	 * Note that a Property cross reference will lead to retrieve the cross references of this property.
+	 * The displayed elements and their cross references are indexed by the diagram, and updated when the nodes
+	 * are added or removed.
+	 *
+	 * @param diagram
+	 *            a diagram.
+	 * @param eClass
+	 *            the expected EClass.
+	 * @return the list of cross reference of the given EClass
+	 */
+	public Collection<EObject> getNodeInverseRefs(DDiagram diagram, EClass eClass) {
+		if (diagram instanceof DSemanticDecorator) {
+			final Session sess = SessionManager.INSTANCE
+					.getSession(((DSemanticDecorator)diagram).getTarget());
+			if (sess != null) {
+				return NodeInverseRefsIndex.getIndex(diagram).getInverseRefs(sess, eClass);
+			}
+		}
+		return Sets.newLinkedHashSet();
+	}
+
 	/**
 	 * Retrieve the cross references of the template binding of all the UML elements displayed as node in a
 	 * Diagram. Note that a Property cross reference will lead to retrieve the cross references of this
@@ -137,7 +168,7 @@ public class NodeInverseRefsServices {
 	 * @return the list of cross reference of the given
 	 */
 	public Collection<EObject> getTemplateBindingInverseRefs(DDiagram diagram) {
-		return getNodeInverseRefs(diagram, "TemplateBinding"); //$NON-NLS-1$
+		return getNodeInverseRefs(diagram, UMLPackage.Literals.TEMPLATE_BINDING);
 	}
 
 }
@@ -17,6 +17,7 @@ package org.eclipse.papyrus.sirius.uml.diagram.common.core.services;
 import java.util.Collection;
 
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.papyrus.sirius.uml.diagram.common.core.index.StereotypeApplicationIndex;
 import org.eclipse.sirius.diagram.DDiagram;
 import org.eclipse.sirius.diagram.DDiagramElementContainer;
 import org.eclipse.uml2.uml.Element;
@@ -33,7 +34,8 @@ public class StereotypeServices {
 	public static final StereotypeServices INSTANCE = new StereotypeServices();
 
 	/**
-	 * Get all the stereotype applications according to the selected diagram.
+	 * Get all the stereotype applications according to the selected diagram. The applications are read from the
+	 * index of the resource of each displayed element.
 	 *
 	 * @param diagram
 	 *            Current diagram
@@ -44,7 +46,7 @@ public class StereotypeServices {
 		for (final DDiagramElementContainer container : diagram.getContainers()) {
 			final EObject target = container.getTarget();
 			if (target instanceof Element) {
-				results.addAll(((Element)target).getStereotypeApplications());
+				results.addAll(StereotypeApplicationIndex.getStereotypeApplications((Element)target));
 			}
 		}
 		return results;
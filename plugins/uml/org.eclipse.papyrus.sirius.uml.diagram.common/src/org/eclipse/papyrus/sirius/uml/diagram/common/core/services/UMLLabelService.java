@@ -15,7 +15,7 @@ package org.eclipse.papyrus.sirius.uml.diagram.common.core.services;
 
 import java.util.Iterator;
 
-import org.eclipse.papyrus.sirius.uml.diagram.common.utils.ODesignConstant;
+import org.eclipse.papyrus.sirius.uml.diagram.common.core.index.StereotypeApplicationIndex;
 import org.eclipse.papyrus.uml.internationalization.utils.utils.UMLLabelInternationalization;
 import org.eclipse.sirius.diagram.DDiagram;
 import org.eclipse.uml2.uml.Element;
@@ -44,27 +44,16 @@ public class UMLLabelService {
 	private final UMLInternationalizedComplexLabelSwitch nameProvider = new UMLInternationalizedComplexLabelSwitch();
 
 	/**
-	 * 
-	 * @param diagram
-	 *            the current diagram
-	 * @return
-	 *         <code>true</code> if we need to use the Qualified Name of elements in the diagram
+	 * This switch provides the label to use for each element, using the qualified name.
+	 * The name providers are never reconfigured, so that the labels of several diagrams can be built concurrently.
 	 */
-	private boolean isShowingQualifiedName(final DDiagram diagram) {
-		long count = diagram.getActivatedLayers().stream().filter(layer -> ODesignConstant.QUALIFIED_NAMED_LAYER_ID.equals(layer.getName())).count();
-		return count == 1;
-	}
+	private final UMLInternationalizedComplexLabelSwitch qualifiedNameProvider = new UMLInternationalizedComplexLabelSwitch();
 
 	/**
-	 * 
-	 * @param diagram
-	 *            the current diagram
-	 * @return
-	 *         <code>true</code> if we need to use the Qualified Name of elements in the diagram
+	 * Constructor.
 	 */
-	private boolean isShowingAppliedStereotype(final DDiagram diagram) {
-		long count = diagram.getActivatedLayers().stream().filter(layer -> ODesignConstant.APPLIED_STEREOTYPE_LAYER_ID.equals(layer.getName())).count();
-		return count == 1;
+	public UMLLabelService() {
+		this.qualifiedNameProvider.useQualifiedName(true);
 	}
 
 	/**
@@ -78,7 +67,7 @@ public class UMLLabelService {
 	 *         a single line label
 	 */
 	public String buildSingleLineLabel(final Element element, final DDiagram diagram) {
-		return buildLabel(element, diagram, false, false); // we don't show qualified name in single line label
+		return buildLabel(element, LabelContext.of(diagram), false, false); // we don't show qualified name in single line label
 	}
 
 	/**
@@ -92,7 +81,8 @@ public class UMLLabelService {
 	 *         a multi line label
 	 */
 	public String buildMultilineLabel(final Element element, final DDiagram diagram) {
-		return buildLabel(element, diagram, true, isShowingQualifiedName(diagram));
+		final LabelContext context = LabelContext.of(diagram);
+		return buildLabel(element, context, true, context.isShowingQualifiedName());
 	}
 
 
@@ -105,7 +95,7 @@ public class UMLLabelService {
 	 */
 	private final String buildStereotypeLabel(final Element element) {
 		final StringBuilder builder = new StringBuilder();
-		final Iterator<Stereotype> iter = element.getAppliedStereotypes().iterator();
+		final Iterator<Stereotype> iter = StereotypeApplicationIndex.getAppliedStereotypes(element).iterator();
 		if (iter.hasNext()) {
 			builder.append(ILabelConstants.ST_LEFT);
 		}
@@ -127,8 +117,8 @@ public class UMLLabelService {
 	 * 
 	 * @param element
 	 *            the UML element for which we want a label
-	 * @param diagram
-	 *            the current diagram
+	 * @param context
+	 *            the label options of the current diagram
 	 * @param multiline
 	 *            boolean indicating if we want a multiline label or not
 	 * @param useQualifiedName
@@ -136,13 +126,31 @@ public class UMLLabelService {
 	 * @return
 	 *         the label to display in the diagram
 	 */
-	private final String buildLabel(final Element element, final DDiagram diagram, final boolean multiline, final boolean useQualifiedName) {
-		this.nameProvider.useQualifiedName(useQualifiedName);
+	private final String buildLabel(final Element element, final LabelContext context, final boolean multiline, final boolean useQualifiedName) {
+		final boolean showAppliedStereotype = context.isShowingStereotypes();
+		final String style = "uml:" + multiline + ':' + useQualifiedName + ':' + showAppliedStereotype; //$NON-NLS-1$
+		return LabelCache.INSTANCE.getLabel(element, style, e -> computeLabel(e, multiline, useQualifiedName, showAppliedStereotype));
+	}
+
+	/**
+	 * 
+	 * @param element
+	 *            the UML element for which we want a label
+	 * @param multiline
+	 *            boolean indicating if we want a multiline label or not
+	 * @param useQualifiedName
+	 *            boolean indicating if we must use the qualified name to build the label
+	 * @param showAppliedStereotype
+	 *            boolean indicating if we must show the applied stereotypes in the label
+	 * @return
+	 *         the label to display in the diagram, computed without cache
+	 */
+	private final String computeLabel(final Element element, final boolean multiline, final boolean useQualifiedName, final boolean showAppliedStereotype) {
 		final String keyword = this.keywordProvider.doSwitch(element);
 
-		final String stereotypeLabel = isShowingAppliedStereotype(diagram) ? buildStereotypeLabel(element) : null;
+		final String stereotypeLabel = showAppliedStereotype ? buildStereotypeLabel(element) : null;
 
-		final String name = this.nameProvider.doSwitch(element);
+		final String name = (useQualifiedName ? this.qualifiedNameProvider : this.nameProvider).doSwitch(element);
 		final StringBuilder builder = new StringBuilder();
 		if (keyword != null && !keyword.isEmpty()) {
 			builder.append(keyword);
@@ -0,0 +1,283 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.diagram.common.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.sirius.diagram.DDiagram;
+import org.eclipse.sirius.diagram.DEdge;
+import org.eclipse.sirius.diagram.DiagramPackage;
+import org.eclipse.sirius.diagram.EdgeTarget;
+import org.eclipse.sirius.diagram.description.DiagramElementMapping;
+import org.eclipse.sirius.diagram.description.EdgeMapping;
+import org.eclipse.sirius.viewpoint.ViewpointPackage;
+
+/**
+ * The edges of a {@link DDiagram}, by semantic target and by source node.
+ *
+ * The index is an adapter of the diagram and of its edges only: it is updated when an edge is created or removed, and
+ * when the source node, the target node, the semantic target or the mapping of an edge change.
+ */
+public final class DiagramEdgeIndex extends EContentAdapter {
+
+	/** The edges of the diagram by semantic target, in their creation order. */
+	private final Map<EObject, List<DEdge>> edgesBySemanticTarget = new HashMap<>();
+
+	/** The edges of the diagram by source node. */
+	private final Map<EdgeTarget, Set<DEdge>> edgesBySourceNode = new IdentityHashMap<>();
+
+	/** The semantic target under which each edge is indexed. */
+	private final Map<DEdge, EObject> indexedSemanticTargets = new IdentityHashMap<>();
+
+	/** The source node under which each edge is indexed. */
+	private final Map<DEdge, EdgeTarget> indexedSourceNodes = new IdentityHashMap<>();
+
+	/**
+	 * Constructor.
+	 */
+	private DiagramEdgeIndex() {
+		// use getIndex
+	}
+
+	/**
+	 * Get the edge index of a diagram, installing it on the first call.
+	 *
+	 * @param diagram
+	 *            the diagram
+	 * @return
+	 *         the edge index of the diagram
+	 */
+	public static DiagramEdgeIndex getIndex(final DDiagram diagram) {
+		synchronized (DiagramEdgeIndex.class) {
+			for (final Adapter adapter : diagram.eAdapters()) {
+				if (adapter instanceof DiagramEdgeIndex) {
+					return (DiagramEdgeIndex) adapter;
+				}
+			}
+			final DiagramEdgeIndex index = new DiagramEdgeIndex();
+			// the existing edges are indexed by the traversal of the diagram
+			diagram.eAdapters().add(index);
+			return index;
+		}
+	}
+
+	/**
+	 * @param sourceNode
+	 *            the source node of the edge
+	 * @param targetNode
+	 *            the target node of the edge
+	 * @param semanticObject
+	 *            the semantic target of the edge
+	 * @param mapping
+	 *            the mapping of the edge, an imported mapping being identified with the mapping it imports
+	 * @return
+	 *         the first created edge of the diagram matching these criteria, or <code>null</code>
+	 */
+	public synchronized DEdge findEdge(final EdgeTarget sourceNode, final EdgeTarget targetNode, final EObject semanticObject, final EdgeMapping mapping) {
+		final List<DEdge> edges = semanticObject != null ? edgesBySemanticTarget.get(semanticObject) : null;
+		if (edges != null) {
+			for (final DEdge edge : edges) {
+				if (edge.getSourceNode() == sourceNode && edge.getTargetNode() == targetNode && isMappedBy(edge, mapping)) {
+					return edge;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param sourceNode
+	 *            the source node of the edge
+	 * @param targetNode
+	 *            the target node of the edge
+	 * @param mapping
+	 *            the mapping of the edge, an imported mapping being identified with the mapping it imports
+	 * @return
+	 *         the first created edge of the diagram from the source node to the target node with this mapping, whatever
+	 *         its semantic target, or <code>null</code>
+	 */
+	public synchronized DEdge findEdge(final EdgeTarget sourceNode, final EdgeTarget targetNode, final EdgeMapping mapping) {
+		final Set<DEdge> edges = edgesBySourceNode.get(sourceNode);
+		if (edges != null) {
+			for (final DEdge edge : edges) {
+				if (edge.getTargetNode() == targetNode && isMappedBy(edge, mapping)) {
+					return edge;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param sourceNode
+	 *            a node of the diagram
+	 * @return
+	 *         a copy of the edges of the diagram starting from this node
+	 */
+	public synchronized Set<DEdge> getOutgoingEdges(final EdgeTarget sourceNode) {
+		final Set<DEdge> edges = edgesBySourceNode.get(sourceNode);
+		return edges != null ? new HashSet<>(edges) : new HashSet<>();
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#notifyChanged(org.eclipse.emf.common.notify.Notification)
+	 *
+	 * @param notification
+	 */
+	@Override
+	public void notifyChanged(final Notification notification) {
+		super.notifyChanged(notification);
+		final Object feature = notification.getFeature();
+		if (notification.getNotifier() instanceof DEdge
+				&& (feature == DiagramPackage.Literals.DEDGE__SOURCE_NODE || feature == DiagramPackage.Literals.DEDGE__TARGET_NODE
+						|| feature == DiagramPackage.Literals.DEDGE__ACTUAL_MAPPING || feature == ViewpointPackage.Literals.DSEMANTIC_DECORATOR__TARGET)) {
+			final DEdge edge = (DEdge) notification.getNotifier();
+			synchronized (this) {
+				if (indexedSemanticTargets.containsKey(edge)) {
+					removeEdge(edge);
+					addEdge(edge);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#addAdapter(org.eclipse.emf.common.notify.Notifier)
+	 *
+	 * @param notifier
+	 */
+	@Override
+	protected void addAdapter(final Notifier notifier) {
+		// the edges are owned by the diagram, the other diagram elements are ignored
+		if (notifier instanceof DEdge) {
+			super.addAdapter(notifier);
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#setTarget(org.eclipse.emf.ecore.EObject)
+	 *
+	 * @param target
+	 */
+	@Override
+	protected void setTarget(final EObject target) {
+		if (target instanceof DEdge) {
+			// the contents of an edge aren't needed
+			basicSetTarget(target);
+			synchronized (this) {
+				addEdge((DEdge) target);
+			}
+		} else {
+			super.setTarget(target);
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#unsetTarget(org.eclipse.emf.ecore.EObject)
+	 *
+	 * @param target
+	 */
+	@Override
+	protected void unsetTarget(final EObject target) {
+		if (target instanceof DEdge) {
+			basicUnsetTarget(target);
+			synchronized (this) {
+				removeEdge((DEdge) target);
+			}
+		} else {
+			super.unsetTarget(target);
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#resolve()
+	 *
+	 * @return
+	 */
+	@Override
+	protected boolean resolve() {
+		return false;
+	}
+
+	/**
+	 * Index an edge.
+	 */
+	private void addEdge(final DEdge edge) {
+		final EObject semanticTarget = edge.getTarget();
+		final EdgeTarget sourceNode = edge.getSourceNode();
+		indexedSemanticTargets.put(edge, semanticTarget);
+		indexedSourceNodes.put(edge, sourceNode);
+		if (semanticTarget != null) {
+			edgesBySemanticTarget.computeIfAbsent(semanticTarget, t -> new ArrayList<>(1)).add(edge);
+		}
+		if (sourceNode != null) {
+			edgesBySourceNode.computeIfAbsent(sourceNode, n -> new LinkedHashSet<>()).add(edge);
+		}
+	}
+
+	/**
+	 * Remove an edge from the index.
+	 */
+	private void removeEdge(final DEdge edge) {
+		final EObject semanticTarget = indexedSemanticTargets.remove(edge);
+		final EdgeTarget sourceNode = indexedSourceNodes.remove(edge);
+		if (semanticTarget != null) {
+			removeFrom(edgesBySemanticTarget, semanticTarget, edge);
+		}
+		if (sourceNode != null) {
+			final Set<DEdge> edges = edgesBySourceNode.get(sourceNode);
+			if (edges != null && edges.remove(edge) && edges.isEmpty()) {
+				edgesBySourceNode.remove(sourceNode);
+			}
+		}
+	}
+
+	/**
+	 * Remove an edge from the list of a key.
+	 */
+	private static void removeFrom(final Map<EObject, List<DEdge>> map, final EObject key, final DEdge edge) {
+		final List<DEdge> edges = map.get(key);
+		if (edges != null) {
+			edges.remove(edge);
+			if (edges.isEmpty()) {
+				map.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * @return
+	 *         <code>true</code> if the edge is created by the mapping, directly or through a mapping import
+	 */
+	private static boolean isMappedBy(final DEdge edge, final EdgeMapping mapping) {
+		if (edge.getActualMapping() == mapping) {
+			return true;
+		}
+		final DiagramElementMapping edgeMapping = DiagramServices.getDiagramServices().getEdgeMapping(edge);
+		return edgeMapping != null && edgeMapping == mapping;
+	}
+}
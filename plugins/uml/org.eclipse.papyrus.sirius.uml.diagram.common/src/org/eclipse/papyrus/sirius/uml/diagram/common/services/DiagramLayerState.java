@@ -0,0 +1,170 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.diagram.common.services;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.sirius.diagram.DDiagram;
+import org.eclipse.sirius.diagram.DiagramPackage;
+import org.eclipse.sirius.diagram.description.DiagramDescription;
+import org.eclipse.sirius.diagram.description.Layer;
+import org.eclipse.sirius.diagram.description.filter.FilterDescription;
+
+/**
+ * A snapshot of the activated layers and filters of a {@link DDiagram}, shared by the services reading them for
+ * each diagram element.
+ *
+ * The snapshot is an adapter of the diagram, computed on the first request and computed again on the first request
+ * following an activation or a deactivation of a layer or a filter.
+ */
+public final class DiagramLayerState extends AdapterImpl {
+
+	/** The names of the activated layers, <code>null</code> until computed. */
+	private volatile Set<String> layerNames;
+
+	/** The names of the layers defined by the description of the diagram, <code>null</code> until computed. */
+	private volatile Set<String> definedLayerNames;
+
+	/** The names of the activated filters, in lower case, <code>null</code> until computed. */
+	private volatile Set<String> filterNames;
+
+	/**
+	 * Constructor.
+	 */
+	private DiagramLayerState() {
+		// use getState
+	}
+
+	/**
+	 * Get the layer state of a diagram, installing it on the first call.
+	 *
+	 * @param diagram
+	 *            the diagram
+	 * @return
+	 *         the layer state of the diagram
+	 */
+	public static DiagramLayerState getState(final DDiagram diagram) {
+		synchronized (DiagramLayerState.class) {
+			DiagramLayerState state = (DiagramLayerState) EcoreUtil.getExistingAdapter(diagram, DiagramLayerState.class);
+			if (state == null) {
+				state = new DiagramLayerState();
+				diagram.eAdapters().add(state);
+			}
+			return state;
+		}
+	}
+
+	/**
+	 * @param layerName
+	 *            the name of a layer
+	 * @return
+	 *         <code>true</code> if a layer with this name is activated in the diagram
+	 */
+	public boolean isLayerActivated(final String layerName) {
+		Set<String> names = layerNames;
+		if (names == null) {
+			names = new HashSet<>();
+			for (final Layer layer : getDiagram().getActivatedLayers()) {
+				names.add(layer.getName());
+			}
+			layerNames = names;
+		}
+		return names.contains(layerName);
+	}
+
+	/**
+	 * @param layerName
+	 *            the name of a layer
+	 * @return
+	 *         <code>true</code> if a layer with this name is defined by the description of the diagram
+	 */
+	public boolean isLayerDefined(final String layerName) {
+		Set<String> names = definedLayerNames;
+		if (names == null) {
+			names = new HashSet<>();
+			final DiagramDescription description = getDiagram().getDescription();
+			if (description != null) {
+				if (description.getDefaultLayer() != null) {
+					names.add(description.getDefaultLayer().getName());
+				}
+				for (final Layer layer : description.getAdditionalLayers()) {
+					names.add(layer.getName());
+				}
+			}
+			definedLayerNames = names;
+		}
+		return names.contains(layerName);
+	}
+
+	/**
+	 * @param filterName
+	 *            the name of a filter, compared ignoring the case
+	 * @return
+	 *         <code>true</code> if a filter with this name is activated in the diagram
+	 */
+	public boolean isFilterActivated(final String filterName) {
+		Set<String> names = filterNames;
+		if (names == null) {
+			names = new HashSet<>();
+			for (final FilterDescription filter : getDiagram().getActivatedFilters()) {
+				if (filter.getName() != null) {
+					names.add(filter.getName().toLowerCase(Locale.ROOT));
+				}
+			}
+			filterNames = names;
+		}
+		return filterName != null && names.contains(filterName.toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * @see org.eclipse.emf.common.notify.impl.AdapterImpl#notifyChanged(org.eclipse.emf.common.notify.Notification)
+	 *
+	 * @param msg
+	 */
+	@Override
+	public void notifyChanged(final Notification msg) {
+		if (msg.getFeature() == DiagramPackage.Literals.DDIAGRAM__ACTIVATED_LAYERS) {
+			layerNames = null;
+		} else if (msg.getFeature() == DiagramPackage.Literals.DDIAGRAM__ACTIVATED_FILTERS) {
+			filterNames = null;
+		} else if (msg.getFeature() == DiagramPackage.Literals.DDIAGRAM__DESCRIPTION) {
+			definedLayerNames = null;
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.common.notify.impl.AdapterImpl#isAdapterForType(java.lang.Object)
+	 *
+	 * @param type
+	 * @return
+	 */
+	@Override
+	public boolean isAdapterForType(final Object type) {
+		return type == DiagramLayerState.class;
+	}
+
+	/**
+	 * @return
+	 *         the diagram
+	 */
+	private DDiagram getDiagram() {
+		return (DDiagram) getTarget();
+	}
+}
@@ -16,12 +16,10 @@ package org.eclipse.papyrus.sirius.uml.diagram.common.services;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.sirius.business.api.session.Session;
 import org.eclipse.sirius.business.api.session.SessionManager;
@@ -52,9 +50,7 @@ import org.eclipse.sirius.diagram.description.EdgeMappingImport;
 import org.eclipse.sirius.diagram.description.IEdgeMapping;
 import org.eclipse.sirius.diagram.description.MappingBasedDecoration;
 import org.eclipse.sirius.diagram.description.NodeMapping;
-import org.eclipse.sirius.diagram.description.filter.FilterDescription;
 import org.eclipse.sirius.diagram.model.business.internal.helper.MappingHelper;
-import org.eclipse.sirius.diagram.model.business.internal.operations.DDiagramSpecOperations;
 import org.eclipse.sirius.ecore.extender.business.api.accessor.ModelAccessor;
 import org.eclipse.sirius.tools.api.SiriusPlugin;
 import org.eclipse.sirius.viewpoint.description.RepresentationDescription;
@@ -81,13 +77,24 @@ public class DiagramServices {
 	 */
 	public DEdge findDEdgeElement(DDiagram pDiagram, EdgeTarget sourceNode, EdgeTarget targetNode,
 			EObject semanticObject, EdgeMapping mapping) {
-		for (DEdge anEdge : DDiagramSpecOperations.getEdgesFromMapping(pDiagram, mapping)) {
-			if ((anEdge.getTarget() != null) && anEdge.getTarget().equals(semanticObject)
-					&& anEdge.getSourceNode().equals(sourceNode) && anEdge.getTargetNode().equals(targetNode)) {
-				return anEdge;
-			}
-		}
-		return null;
+		return DiagramEdgeIndex.getIndex(pDiagram).findEdge(sourceNode, targetNode, semanticObject, mapping);
+	}
+
+	/**
+	 * @param pDiagram
+	 *            the diagram
+	 * @param sourceNode
+	 *            the source node of the edge
+	 * @param targetNode
+	 *            the target node of the edge
+	 * @param mapping
+	 *            the mapping of the edge
+	 * @return
+	 *         the edge of the diagram from the source node to the target node with this mapping, whatever its semantic
+	 *         target, or <code>null</code>
+	 */
+	public DEdge findDEdgeElement(DDiagram pDiagram, EdgeTarget sourceNode, EdgeTarget targetNode, EdgeMapping mapping) {
+		return DiagramEdgeIndex.getIndex(pDiagram).findEdge(sourceNode, targetNode, mapping);
 	}
 
 	public DEdge createEdge(EdgeMapping mapping, EdgeTarget sourceView, EdgeTarget targetView, EObject semanticObject) {
@@ -103,6 +110,11 @@ public class DiagramServices {
 		}
 
 		final DDiagram diagram = DiagramHelper.getService().getDiagramContainer(sourceView);
+		// the edge may already be displayed, for instance after a refresh triggered by the semantic change
+		final DEdge existingEdge = findDEdgeElement(diagram, sourceView, targetView, semanticObject, mapping);
+		if (existingEdge != null) {
+			return existingEdge;
+		}
 		RefreshIdsHolder rId = RefreshIdsHolder.getOrCreateHolder(diagram);
 		DEdgeCandidate edgeCandidate = new DEdgeCandidate(mapping, semanticObject, sourceView, targetView, rId);
 
@@ -159,10 +171,7 @@ public class DiagramServices {
 
 	public Set<DEdge> getOutgoingEdges(EdgeTarget node) {
 		DDiagram diagram = DiagramHelper.getService().getDiagramContainer(node);
-		Set<DEdge> returnedSet = new HashSet<DEdge>();
-		returnedSet.addAll(node.getOutgoingEdges());
-		returnedSet.retainAll(diagram.getEdges());
-		return returnedSet;
+		return DiagramEdgeIndex.getIndex(diagram).getOutgoingEdges(node);
 	}
 
 	public EdgeMapping getEdgeMapping(final DiagramDescription description, String mappingName) {
@@ -436,13 +445,7 @@ public class DiagramServices {
 	}
 	
 	public boolean isFilterActivate(String filterName, DDiagram ddiag){
-        EList<FilterDescription> activatedFilters = ddiag.getActivatedFilters();
-        for (FilterDescription filterDescription : activatedFilters) {
-        	if (filterName.equalsIgnoreCase(filterDescription.getName())){
-        		return true;
-        	}
-         }
-        return false;
+		return DiagramLayerState.getState(ddiag).isFilterActivated(filterName);
 	}
 	
 }
@@ -0,0 +1,138 @@
+/******************************************************************************
+ * Copyright (c) 2022 CEA LIST, Artal Technologies
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    CEA LIST - Initial API and implementation
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.diagram.common.services;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.papyrus.infra.core.resource.ModelSet;
+import org.eclipse.papyrus.sirius.log.capture.CapturedEvent;
+import org.eclipse.papyrus.sirius.log.capture.EventCapture;
+import org.eclipse.papyrus.sirius.log.metrics.MetricsRegistry;
+import org.eclipse.sirius.viewpoint.DSemanticDecorator;
+
+/**
+ * Services used by the diagram services to record the tool invocations into the editor event capture and the tool metrics.
+ */
+public class EventCaptureServices {
+
+	/**
+	 * A singleton instance to be accessed by other java services.
+	 */
+	public static final EventCaptureServices INSTANCE = new EventCaptureServices();
+
+	/** The kind of the Class Diagram. */
+	public static final String CLASS_DIAGRAM = "ClassDiagram"; //$NON-NLS-1$
+
+	/** The kind of the Sequence Diagram. */
+	public static final String SEQUENCE_DIAGRAM = "SequenceDiagram"; //$NON-NLS-1$
+
+	/** The kind of the State Machine Diagram. */
+	public static final String STATE_MACHINE_DIAGRAM = "StateMachineDiagram"; //$NON-NLS-1$
+
+	/**
+	 * Start timing the invocation of a tool, to be given to {@link #toolInvoked(String, String, EObject, long)}.
+	 *
+	 * @return
+	 *         the start time, in nanoseconds
+	 */
+	public long startTool() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Record the timed invocation of a tool.
+	 *
+	 * @param diagramKind
+	 *            the kind of the diagram owning the tool
+	 * @param toolId
+	 *            the identifier of the invoked tool
+	 * @param element
+	 *            the semantic element (or its view) on which the tool has been invoked, can be <code>null</code>
+	 * @param startNanos
+	 *            the start time of the invocation, given by {@link #startTool()}
+	 */
+	public void toolInvoked(final String diagramKind, final String toolId, final EObject element, final long startNanos) {
+		MetricsRegistry.getDefault().record(diagramKind, toolId, System.nanoTime() - startNanos);
+		recordEvent(diagramKind, toolId, element);
+	}
+
+	/**
+	 * Record the invocation of a tool.
+	 *
+	 * @param diagramKind
+	 *            the kind of the diagram owning the tool
+	 * @param toolId
+	 *            the identifier of the invoked tool
+	 * @param element
+	 *            the semantic element (or its view) on which the tool has been invoked, can be <code>null</code>
+	 */
+	public void toolInvoked(final String diagramKind, final String toolId, final EObject element) {
+		MetricsRegistry.getDefault().increment(diagramKind, toolId);
+		recordEvent(diagramKind, toolId, element);
+	}
+
+	/**
+	 * Record the invocation of a tool into the event capture.
+	 */
+	private void recordEvent(final String diagramKind, final String toolId, final EObject element) {
+		final EventCapture capture = EventCapture.getDefault();
+		if (!capture.isEnabled()) {
+			return;
+		}
+		// the service method calling this class, for the sampled events only
+		final String caller = capture.sampleCaller(EventCaptureServices.class.getName());
+		final EObject semanticElement = getSemanticElement(element);
+		if (semanticElement == null) {
+			capture.record(null, diagramKind, toolId, null, null, CapturedEvent.LIFECYCLE_COMPLETE, null, caller);
+		} else {
+			capture.record(getTraceId(semanticElement), diagramKind, toolId, semanticElement.eClass().getName(), EcoreUtil.getURI(semanticElement).toString(),
+					CapturedEvent.LIFECYCLE_COMPLETE, null, caller);
+		}
+	}
+
+	/**
+	 *
+	 * @param element
+	 *            a semantic element or a view
+	 * @return
+	 *         the semantic element
+	 */
+	private EObject getSemanticElement(final EObject element) {
+		if (element instanceof DSemanticDecorator) {
+			return ((DSemanticDecorator) element).getTarget();
+		}
+		return element;
+	}
+
+	/**
+	 *
+	 * @param semanticElement
+	 *            a semantic element
+	 * @return
+	 *         the identifier of the trace owning the events of the element: the URI of the edited Papyrus model
+	 */
+	private String getTraceId(final EObject semanticElement) {
+		final Resource resource = semanticElement.eResource();
+		if (resource == null || resource.getURI() == null) {
+			return null;
+		}
+		final ResourceSet resourceSet = resource.getResourceSet();
+		if (resourceSet instanceof ModelSet && ((ModelSet) resourceSet).getURIWithoutExtension() != null) {
+			return ((ModelSet) resourceSet).getURIWithoutExtension().toString();
+		}
+		return resource.getURI().trimFileExtension().toString();
+	}
+}
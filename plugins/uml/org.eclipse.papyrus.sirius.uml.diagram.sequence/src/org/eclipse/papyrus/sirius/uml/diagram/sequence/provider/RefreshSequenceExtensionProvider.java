@@ -18,6 +18,7 @@ import java.util.Collection;
 import org.eclipse.gef.GraphicalEditPart;
 import org.eclipse.gmf.runtime.diagram.ui.parts.IDiagramWorkbenchPart;
 import org.eclipse.gmf.runtime.notation.View;
+import org.eclipse.papyrus.sirius.uml.diagram.common.services.DiagramLayerState;
 import org.eclipse.papyrus.sirius.uml.diagram.sequence.utils.ReorderSequenceRegistry;
 import org.eclipse.sirius.diagram.DDiagram;
 import org.eclipse.sirius.diagram.DDiagramElement;
@@ -28,6 +29,7 @@ import org.eclipse.sirius.diagram.ui.business.api.view.SiriusGMFHelper;
 import org.eclipse.sirius.diagram.ui.internal.refresh.GMFHelper;
 import org.eclipse.sirius.diagram.ui.tools.api.editor.DDiagramEditor;
 import org.eclipse.sirius.diagram.ui.tools.internal.handler.ChangeFilterActivation;
+import org.eclipse.sirius.viewpoint.DSemanticDecorator;
 import org.eclipse.sirius.viewpoint.description.DAnnotation;
 import org.eclipse.sirius.viewpoint.description.DescriptionFactory;
 
@@ -78,7 +80,7 @@ public class RefreshSequenceExtensionProvider implements IRefreshExtensionProvid
 
 			@Override
 			public void postRefresh(DDiagram dDiagram) {
-				ReorderSequenceRegistry.getInstance().clear();
+				ReorderSequenceRegistry.getInstance(dDiagram instanceof DSemanticDecorator ? ((DSemanticDecorator) dDiagram).getTarget() : dDiagram).clear();
 			}
 
 			@Override
@@ -103,6 +105,11 @@ public class RefreshSequenceExtensionProvider implements IRefreshExtensionProvid
 	public void activateFilterOnFirstOpening(DDiagram obj) {
 		if (obj instanceof DDiagram) {
 			DDiagram diagram = (DDiagram) obj;
+			if (DiagramLayerState.getState(diagram).isFilterActivated(observationPointFilterName)) {
+				// already activated, no need to look for the editor
+				getAnnotation(observationPointFilterAnnotationName, diagram, true);
+				return;
+			}
 			// Get the filter to activate
 			if (!diagram.getDiagramElements().isEmpty()) {
 				DDiagramElement elem = diagram.getDiagramElements().get(0);
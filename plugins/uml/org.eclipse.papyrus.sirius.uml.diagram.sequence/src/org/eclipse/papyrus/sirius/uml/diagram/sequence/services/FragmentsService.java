@@ -15,12 +15,18 @@
 package org.eclipse.papyrus.sirius.uml.diagram.sequence.services;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EAnnotation;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.papyrus.sirius.uml.diagram.sequence.utils.FragmentOrderIndex;
 import org.eclipse.uml2.uml.BehaviorExecutionSpecification;
 import org.eclipse.uml2.uml.CombinedFragment;
 import org.eclipse.uml2.uml.DestructionOccurrenceSpecification;
@@ -148,6 +154,13 @@ public class FragmentsService {
 	 * @return the fragments ordering ends
 	 */
 	public List<EObject> getFragmentsOrderingEnds(EObject object) {
+		if (object instanceof InteractionFragment) {
+			final FragmentOrderIndex index = getFragmentOrderIndex((InteractionFragment) object);
+			final List<EObject> indexed = index != null ? index.getFragmentsOrderingEnds((InteractionFragment) object) : null;
+			if (indexed != null) {
+				return indexed;
+			}
+		}
 		List<EObject> results = new ArrayList<>();
 		if (object instanceof Interaction) {
 	
@@ -286,9 +299,15 @@ public class FragmentsService {
 	 *
 	 * @param root
 	 *            the root
-	 * @return the fragments and annotation
+	 * @return the fragments and annotation, whose <code>indexOf</code> is answered by the {@link FragmentOrderIndex} of
+	 *         the interaction while neither the list nor the interaction are modified
 	 */
 	public List<EObject> getFragmentsAndAnnotation(InteractionFragment root) {
+		final FragmentOrderIndex index = getFragmentOrderIndex(root);
+		final List<EObject> indexed = index != null ? index.getFragmentsAndAnnotation(root) : null;
+		if (indexed != null) {
+			return indexed;
+		}
 		List<EObject> results = new ArrayList<>();
 		if (root instanceof Interaction) {
 			EList<InteractionFragment> fragments = ((Interaction) root).getFragments();
@@ -363,7 +382,23 @@ public class FragmentsService {
 	}
 
 	/**
-	 * Get the index of a predecessor fragment.
+	 * Gets the fragment order index of the interaction containing a fragment.
+	 *
+	 * @param fragment
+	 *            the fragment
+	 * @return the fragment order index, or <code>null</code> if the fragment isn't in an interaction
+	 */
+	private FragmentOrderIndex getFragmentOrderIndex(InteractionFragment fragment) {
+		EObject current = fragment;
+		while (current != null && !(current instanceof Interaction)) {
+			current = current.eContainer();
+		}
+		return current != null ? FragmentOrderIndex.getIndex((Interaction) current) : null;
+	}
+
+	/**
+	 * Get the index of a predecessor fragment. The position in a list of {@link #getFragmentsAndAnnotation(InteractionFragment)}
+	 * is computed by the {@link FragmentOrderIndex} while the list isn't modified.
 	 *
 	 * @param fragment
 	 *            Fragment to search
@@ -479,21 +514,107 @@ public class FragmentsService {
 	 */
 	public void updateFragmentList(EObject startingEndPredecessorAfter, List<EObject> fragments) {
 		InteractionFragment enclosingFragment = FragmentsService.getInstance().getEnclosingFragment(startingEndPredecessorAfter);
-		List<InteractionFragment> fragmentToUpdate = new ArrayList<>();
+		EList<InteractionFragment> fragmentToUpdate = null;
 		if (enclosingFragment instanceof Interaction) {
 			fragmentToUpdate = ((Interaction) enclosingFragment).getFragments();
 		}
 		if (enclosingFragment instanceof InteractionOperand) {
 			fragmentToUpdate = ((InteractionOperand) enclosingFragment).getFragments();
 		}
-		fragmentToUpdate.clear();
+		if (fragmentToUpdate == null) {
+			return;
+		}
+		Set<InteractionFragment> newOrder = new LinkedHashSet<>();
 		for (EObject interactionFragment : fragments) {
 			if (interactionFragment instanceof InteractionFragment) {
 				if (enclosingFragment.eContainer() != interactionFragment) {
-					fragmentToUpdate.add((InteractionFragment) interactionFragment);
+					newOrder.add((InteractionFragment) interactionFragment);
 				}
 			}
 		}
+		applyOrder(fragmentToUpdate, new ArrayList<>(newOrder));
+	}
+
+	/**
+	 * Reorder a fragment list with the minimal changes: the fragments missing from the new order are removed, the
+	 * longest sequence of fragments already in the new order stays in place and the other fragments are moved or added
+	 * after their predecessor.
+	 *
+	 * @param fragmentList
+	 *            the fragments of an interaction or of an operand
+	 * @param newOrder
+	 *            the new fragments, without duplicates
+	 */
+	private void applyOrder(EList<InteractionFragment> fragmentList, List<InteractionFragment> newOrder) {
+		Set<InteractionFragment> kept = new HashSet<>(newOrder);
+		for (int i = fragmentList.size() - 1; i >= 0; i--) {
+			if (!kept.contains(fragmentList.get(i))) {
+				fragmentList.remove(i);
+			}
+		}
+		Map<InteractionFragment, Integer> oldPositions = new HashMap<>();
+		for (int i = 0; i < fragmentList.size(); i++) {
+			oldPositions.put(fragmentList.get(i), i);
+		}
+		// the fragments of the longest increasing sequence of old positions don't move
+		List<InteractionFragment> common = new ArrayList<>();
+		for (InteractionFragment fragment : newOrder) {
+			if (oldPositions.containsKey(fragment)) {
+				common.add(fragment);
+			}
+		}
+		Set<InteractionFragment> stable = getLongestIncreasingSequence(common, oldPositions);
+		for (int i = 0; i < newOrder.size(); i++) {
+			InteractionFragment fragment = newOrder.get(i);
+			if (stable.contains(fragment)) {
+				continue;
+			}
+			int position = i == 0 ? 0 : fragmentList.indexOf(newOrder.get(i - 1)) + 1;
+			int currentPosition = oldPositions.containsKey(fragment) ? fragmentList.indexOf(fragment) : -1;
+			if (currentPosition < 0) {
+				fragmentList.add(position, fragment);
+			} else {
+				fragmentList.move(currentPosition < position ? position - 1 : position, fragment);
+			}
+		}
+	}
+
+	/**
+	 * Get the longest sequence of fragments whose old positions are increasing.
+	 *
+	 * @param fragments
+	 *            the fragments, in their new order
+	 * @param oldPositions
+	 *            the old position of each fragment
+	 * @return the fragments of the longest increasing sequence
+	 */
+	private Set<InteractionFragment> getLongestIncreasingSequence(List<InteractionFragment> fragments, Map<InteractionFragment, Integer> oldPositions) {
+		int[] tails = new int[fragments.size()];
+		int[] previous = new int[fragments.size()];
+		int length = 0;
+		for (int i = 0; i < fragments.size(); i++) {
+			int position = oldPositions.get(fragments.get(i));
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (oldPositions.get(fragments.get(tails[middle])) < position) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			previous[i] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = i;
+			if (low == length) {
+				length++;
+			}
+		}
+		Set<InteractionFragment> result = new HashSet<>();
+		for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+			result.add(fragments.get(i));
+		}
+		return result;
 	}
 
 	/**
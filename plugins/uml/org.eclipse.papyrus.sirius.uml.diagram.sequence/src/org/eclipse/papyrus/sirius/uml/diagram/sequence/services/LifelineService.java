@@ -16,11 +16,14 @@
 package org.eclipse.papyrus.sirius.uml.diagram.sequence.services;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.papyrus.sirius.uml.diagram.sequence.utils.LifelineOccurrenceIndex;
 import org.eclipse.uml2.uml.CombinedFragment;
 import org.eclipse.uml2.uml.ConnectableElement;
 import org.eclipse.uml2.uml.Dependency;
@@ -31,7 +34,6 @@ import org.eclipse.uml2.uml.InteractionFragment;
 import org.eclipse.uml2.uml.InteractionOperand;
 import org.eclipse.uml2.uml.Lifeline;
 import org.eclipse.uml2.uml.Message;
-import org.eclipse.uml2.uml.MessageOccurrenceSpecification;
 import org.eclipse.uml2.uml.NamedElement;
 import org.eclipse.uml2.uml.OccurrenceSpecification;
 import org.eclipse.uml2.uml.Type;
@@ -254,36 +256,32 @@ public class LifelineService {
 	}
 
 	/**
-	 * Find the first level of {@link ExecutionSpecification} in the given {@link InteractionFragment} list.
+	 * Find the first level of {@link ExecutionSpecification} in the occurrences of the given {@link Lifeline}. Each
+	 * interaction and operand has its own first level: an execution is a first level execution if no other execution
+	 * of the lifeline is started and not yet finished before it in the same fragments list.
 	 *
 	 * @param lifeline
 	 *            the {@link Lifeline} which is covered by the searched {@link ExecutionSpecification}
-	 * @param candidateFragments
-	 *            a sub-list of {@link InteractionFragment} to inspect for the first
-	 *            {@link ExecutionSpecification} level.
+	 * @param occurrences
+	 *            the {@link InteractionFragment} covering the lifeline, in their order
 	 * @return {@link List} of the {@link ExecutionSpecification}
 	 */
 	private List<ExecutionSpecification> getFirstLevelExecutions(Lifeline lifeline,
-			final List<InteractionFragment> candidateFragments) {
+			final List<InteractionFragment> occurrences) {
 		final List<ExecutionSpecification> executions = new ArrayList<ExecutionSpecification>();
-		ExecutionSpecification subExec = null;
-		for (final InteractionFragment fragment : candidateFragments) {
-			if (fragment instanceof ExecutionSpecification && fragment.getCovereds().contains(lifeline)) {
+		final Map<EObject, ExecutionSpecification> subExecs = new HashMap<>();
+		for (final InteractionFragment fragment : occurrences) {
+			final EObject container = fragment.eContainer();
+			final ExecutionSpecification subExec = subExecs.get(container);
+			if (fragment instanceof ExecutionSpecification) {
 				// Element on the same lifeline
 				if (subExec == null) {
-					subExec = (ExecutionSpecification) fragment;
+					subExecs.put(container, (ExecutionSpecification) fragment);
 				}
 			} else if (fragment instanceof OccurrenceSpecification && subExec != null
 					&& fragment.equals(subExec.getFinish())) {
 				executions.add(subExec);
-				subExec = null;
-			}
-			if (fragment instanceof CombinedFragment) {
-				EList<InteractionOperand> operands = ((CombinedFragment) fragment).getOperands();
-				for (InteractionOperand operand : operands) {
-					executions.addAll(getFirstLevelExecutions(lifeline, operand.getFragments()));
-				}
-
+				subExecs.remove(container);
 			}
 		}
 	
@@ -298,7 +296,7 @@ public class LifelineService {
 	 * @return the {@link ExecutionSpecification} semantic candidates.
 	 */
 	private List<ExecutionSpecification> executionSemanticCandidates(Lifeline lifeline) {
-		return getFirstLevelExecutions(lifeline, lifeline.getInteraction().getFragments());
+		return getFirstLevelExecutions(lifeline, LifelineOccurrenceIndex.getIndex(lifeline.getInteraction()).getOccurrences(lifeline));
 	}
 
 	/**
@@ -309,18 +307,10 @@ public class LifelineService {
 	 * @return Messages associated to lifeline
 	 */
 	private List<Message> getAllMessages(Lifeline lifeline) {
-		final List<Message> messages = new ArrayList<Message>();
 		if (lifeline != null && lifeline.getInteraction() != null) {
-			for (final Message message : lifeline.getInteraction().getMessages()) {
-				for (final Lifeline coveredLifeline : ((MessageOccurrenceSpecification) message.getSendEvent())
-						.getCovereds()) {
-					if (lifeline.equals(coveredLifeline)) {
-						messages.add(message);
-					}
-				}
-			}
+			return LifelineOccurrenceIndex.getIndex(lifeline.getInteraction()).getSentMessages(lifeline);
 		}
-		return messages;
+		return new ArrayList<Message>();
 	}
 
 
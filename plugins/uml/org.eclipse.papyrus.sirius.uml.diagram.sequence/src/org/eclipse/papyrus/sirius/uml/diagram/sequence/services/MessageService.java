@@ -26,6 +26,7 @@ import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EcoreFactory;
 import org.eclipse.papyrus.sirius.uml.diagram.common.core.services.LabelServices;
 import org.eclipse.papyrus.sirius.uml.diagram.common.core.services.OperationServices;
+import org.eclipse.papyrus.sirius.uml.diagram.sequence.utils.LifelineOccurrenceIndex;
 import org.eclipse.sirius.diagram.model.business.internal.spec.DNodeSpec;
 import org.eclipse.sirius.diagram.sequence.ordering.EventEnd;
 import org.eclipse.uml2.uml.Behavior;
@@ -1553,16 +1554,12 @@ public class MessageService {
 		final Stack<NamedElement> context = new Stack<NamedElement>();
 		context.add(lifeline);
 
-		final List<EObject> allFragments = FragmentsService.getInstance().getEnclosingFragments(occurrenceSpecification);
-
-		final List<InteractionFragment> fragments = new ArrayList<InteractionFragment>();
-		for (final EObject fragment : allFragments) {
-			if (fragment instanceof InteractionFragment) {
-				if (((InteractionFragment) fragment).getCovered(lifeline.getName()) != null) {
-					fragments.add((InteractionFragment) fragment);
-				}
-			}
+		final InteractionFragment enclosingFragment = FragmentsService.getInstance().getEnclosingFragment(occurrenceSpecification);
+		final Interaction interaction = lifeline.getInteraction();
+		if (enclosingFragment == null || interaction == null) {
+			return lifeline;
 		}
+		final List<InteractionFragment> fragments = LifelineOccurrenceIndex.getIndex(interaction).getOccurrences(lifeline, enclosingFragment);
 
 		for (int i = 0; i < fragments.size(); i++) {
 			final InteractionFragment e = fragments.get(i);
@@ -533,8 +533,8 @@ public class ReorderService {
 			fragments.remove(oldExecStart);
 			fragments.remove(execution);
 			// manage start execution moving
-			if (ReorderSequenceRegistry.getInstance().containsKey(startingEndPredecessorAfter)) {
-				startingEndPredecessorAfter = ReorderSequenceRegistry.getInstance().get(startingEndPredecessorAfter);
+			if (ReorderSequenceRegistry.getInstance(parentInteraction).containsKey(startingEndPredecessorAfter)) {
+				startingEndPredecessorAfter = ReorderSequenceRegistry.getInstance(parentInteraction).get(startingEndPredecessorAfter);
 			}
 			addFragments(startingEndPredecessorAfter, fragments, execStartToMove);
 
@@ -551,8 +551,8 @@ public class ReorderService {
 			execFinishToMove = execution.getFinish();
 			fragments.remove(oldExecFinish);
 			// manage finish execution moving
-			if (ReorderSequenceRegistry.getInstance().containsKey(finishingEndPredecessorAfter)) {
-				finishingEndPredecessorAfter = ReorderSequenceRegistry.getInstance().get(finishingEndPredecessorAfter);
+			if (ReorderSequenceRegistry.getInstance(parentInteraction).containsKey(finishingEndPredecessorAfter)) {
+				finishingEndPredecessorAfter = ReorderSequenceRegistry.getInstance(parentInteraction).get(finishingEndPredecessorAfter);
 			}
 			addFragments(finishingEndPredecessorAfter, fragments, execFinishToMove);
 
@@ -582,7 +582,7 @@ public class ReorderService {
 			boolean isStartOcc = assExec.getStart().equals(occ);
 			ExecutionOccurrenceSpecification newExecOcc = ExecutionService.getInstance()
 					.createExecutionOccurrenceSpecification(assExec, isStartOcc);
-			ReorderSequenceRegistry.getInstance().put(occ, newExecOcc);
+			ReorderSequenceRegistry.getInstance(parentInteraction).put(occ, newExecOcc);
 			String newExecOccName = getNewExecOccName(parentInteraction, newExecOcc, isStartOcc);
 			newExecOcc.setName(newExecOccName);
 			// 1.3 replace the opposite message occ by the ExecutionOcc
@@ -676,7 +676,7 @@ public class ReorderService {
 		List<EObject> fragments = null;
 		boolean messageStartPredecessorChanged;
 
-		if (sendEvent != null && message.getMessageSort().equals(MessageSort.REPLY_LITERAL) && ReorderSequenceRegistry.getInstance().containsKey(sendEvent)) {
+		if (sendEvent != null && message.getMessageSort().equals(MessageSort.REPLY_LITERAL) && ReorderSequenceRegistry.getInstance(interaction).containsKey(sendEvent)) {
 			// case reply in synchronous message
 			// sendEvent is unconnected to execution and is not contained in Interaction
 			fragments = fragmentService.computeFragments(receiveEvent, startingEndPredecessorAfter,
@@ -690,9 +690,9 @@ public class ReorderService {
 					startingEndPredecessorAfter);
 		}
 
-		if (sendEvent != null && ReorderSequenceRegistry.getInstance().containsKey(sendEvent)) {
+		if (sendEvent != null && ReorderSequenceRegistry.getInstance(interaction).containsKey(sendEvent)) {
 			connectMessageWithExecutionSpecAndMove(message, true, fragments);
-		} else if (receiveEvent != null && ReorderSequenceRegistry.getInstance().containsKey(receiveEvent)) {
+		} else if (receiveEvent != null && ReorderSequenceRegistry.getInstance(interaction).containsKey(receiveEvent)) {
 			connectMessageWithExecutionSpecAndMove(message, false, fragments);
 		} else if (messageStartPredecessorChanged) {
 			boolean startOfExecution = isStartOfExecution(startingEndPredecessorAfter, fragments);
@@ -756,7 +756,7 @@ public class ReorderService {
 		}
 
 		ExecutionOccurrenceSpecification execOcc1 = (ExecutionOccurrenceSpecification) ReorderSequenceRegistry
-				.getInstance().get(messEndToConnect);
+				.getInstance(messageToMove).get(messEndToConnect);
 		fragments.remove(messEndToConnect);
 		replaceExecByMessage(messEndToConnect, fragments, execOcc1);
 		fragments.remove(otherMessageEnd);
@@ -24,6 +24,7 @@ import org.eclipse.emf.ecore.EObject;
 import org.eclipse.gmf.runtime.notation.View;
 import org.eclipse.papyrus.sirius.uml.diagram.common.core.services.AbstractDiagramServices;
 import org.eclipse.papyrus.sirius.uml.diagram.common.core.services.LabelServices;
+import org.eclipse.papyrus.sirius.uml.diagram.common.services.EventCaptureServices;
 import org.eclipse.sirius.diagram.DNode;
 import org.eclipse.sirius.diagram.description.style.Side;
 import org.eclipse.sirius.diagram.sequence.SequenceDDiagram;
@@ -86,6 +87,9 @@ public class SequenceDiagramServices extends AbstractDiagramServices {
 	/** The is break. */
 	private static boolean isBreak = false;
 
+	/** The activity recorded by {@link #log(EObject)} when no tool identifier is given. */
+	private static final String LOG_ACTIVITY = "log"; //$NON-NLS-1$
+
 
 	/////////////////////// METHODE CALL FROM ODESIGN///////////////////////////
 
@@ -229,7 +233,9 @@ public class SequenceDiagramServices extends AbstractDiagramServices {
 	 * @return the general ordering
 	 */
 	public GeneralOrdering createGeneralOrdering(EObject context, EObject sourceVariable, EObject targetVariable) {
-		return GeneralOrderingService.getInstance().createGeneralOrdering(context, sourceVariable, targetVariable);
+		final GeneralOrdering generalOrdering = GeneralOrderingService.getInstance().createGeneralOrdering(context, sourceVariable, targetVariable);
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.SEQUENCE_DIAGRAM, "createGeneralOrdering", generalOrdering); //$NON-NLS-1$
+		return generalOrdering;
 	}
 
 
@@ -246,7 +252,9 @@ public class SequenceDiagramServices extends AbstractDiagramServices {
 	 * @return the duration observation
 	 */
 	public DurationObservation createDurationObservation(EObject context, EObject sourceVariable, EObject targetVariable) {
-		return timeObservationConstraintService.createDurationObservation(context, sourceVariable, targetVariable);
+		final DurationObservation durationObservation = timeObservationConstraintService.createDurationObservation(context, sourceVariable, targetVariable);
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.SEQUENCE_DIAGRAM, "createDurationObservation", durationObservation); //$NON-NLS-1$
+		return durationObservation;
 	}
 
 
@@ -263,8 +271,9 @@ public class SequenceDiagramServices extends AbstractDiagramServices {
 	 * @return the duration constraint
 	 */
 	public DurationConstraint createDurationConstraint(EObject context, EObject sourceVariable, EObject targetVariable) {
-
-		return timeObservationConstraintService.createDurationConstraint(context, sourceVariable, targetVariable);
+		final DurationConstraint durationConstraint = timeObservationConstraintService.createDurationConstraint(context, sourceVariable, targetVariable);
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.SEQUENCE_DIAGRAM, "createDurationConstraint", durationConstraint); //$NON-NLS-1$
+		return durationConstraint;
 	}
 
 
@@ -431,6 +440,7 @@ public class SequenceDiagramServices extends AbstractDiagramServices {
 	 *            Lifeline to delete
 	 */
 	public void delete(Lifeline lifeline) {
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.SEQUENCE_DIAGRAM, "deleteLifeline", lifeline); //$NON-NLS-1$
 		lifelineService.delete(lifeline);
 	}
 
@@ -539,6 +549,7 @@ public class SequenceDiagramServices extends AbstractDiagramServices {
 	public void createReplyMessage(EObject context, NamedElement sourceFragment,
 			NamedElement targetFragment, EventEnd startingEndPredecessor, EventEnd finishingEndPredecessor) {
 		messageService.createReplyMessage(context, sourceFragment, targetFragment, startingEndPredecessor, finishingEndPredecessor);
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.SEQUENCE_DIAGRAM, "createReplyMessage", context); //$NON-NLS-1$
 	}
 
 
@@ -578,7 +589,10 @@ public class SequenceDiagramServices extends AbstractDiagramServices {
 	 * @return the message
 	 */
 	public Message createMessage(EObject context, EObject sourceV, Lifeline targetV, EventEnd startingEndPredecessor, EventEnd finishingEndPredecessor) {
-		return messageService.createMessage(context, sourceV, targetV, startingEndPredecessor, finishingEndPredecessor);
+		final long start = EventCaptureServices.INSTANCE.startTool();
+		final Message message = messageService.createMessage(context, sourceV, targetV, startingEndPredecessor, finishingEndPredecessor);
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.SEQUENCE_DIAGRAM, "createMessage", message, start); //$NON-NLS-1$
+		return message;
 	}
 
 	/**
@@ -591,7 +605,10 @@ public class SequenceDiagramServices extends AbstractDiagramServices {
 	 * @return the message
 	 */
 	public Message createMessage(Lifeline target, EObject source) {
-		return messageService.createMessage(source, target);
+		final long start = EventCaptureServices.INSTANCE.startTool();
+		final Message message = messageService.createMessage(source, target);
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.SEQUENCE_DIAGRAM, "createMessage", message, start); //$NON-NLS-1$
+		return message;
 	}
 
 
@@ -774,6 +791,7 @@ public class SequenceDiagramServices extends AbstractDiagramServices {
 	 *            Message to delete
 	 */
 	public void delete(Message message) {
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.SEQUENCE_DIAGRAM, "deleteMessage", message); //$NON-NLS-1$
 		messageService.delete(message);
 	}
 
@@ -916,6 +934,7 @@ public class SequenceDiagramServices extends AbstractDiagramServices {
 	public void reorderLifeline(Lifeline movedLifeline, Lifeline predecessorBefore,
 			Lifeline predecessorAfter) {
 		reorderService.reorderLifeline(movedLifeline, predecessorBefore, predecessorAfter);
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.SEQUENCE_DIAGRAM, "reorderLifeline", movedLifeline); //$NON-NLS-1$
 	}
 
 
@@ -931,7 +950,9 @@ public class SequenceDiagramServices extends AbstractDiagramServices {
 	 */
 	public void reorderFragment(Element fragment, EventEnd startingEndPredecessorAfter,
 			EventEnd finishingEndPredecessorAfter) {
+		final long start = EventCaptureServices.INSTANCE.startTool();
 		reorderService.reorderFragment(fragment, startingEndPredecessorAfter, finishingEndPredecessorAfter);
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.SEQUENCE_DIAGRAM, "reorderFragment", fragment, start); //$NON-NLS-1$
 	}
 
 
@@ -968,6 +989,7 @@ public class SequenceDiagramServices extends AbstractDiagramServices {
 	 *            the combined fragment
 	 */
 	public void deleteCombinedFragment(CombinedFragment combinedFragment) {
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.SEQUENCE_DIAGRAM, "deleteCombinedFragment", combinedFragment); //$NON-NLS-1$
 		combinedFragmentOperandService.deleteCombinedFragment(combinedFragment);
 	}
 
@@ -1021,6 +1043,7 @@ public class SequenceDiagramServices extends AbstractDiagramServices {
 	 *            Execution to delete
 	 */
 	public void deleteExecution(ExecutionSpecification execution) {
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.SEQUENCE_DIAGRAM, "deleteExecution", execution); //$NON-NLS-1$
 		executionService.deleteExecution(execution);
 	}
 
@@ -1038,6 +1061,7 @@ public class SequenceDiagramServices extends AbstractDiagramServices {
 	 */
 	public void applyExecution(EObject context, ExecutionSpecification exe, ExecutionOccurrenceSpecification start, ExecutionOccurrenceSpecification finish) {
 		executionService.applyExecution(context, exe, start, finish);
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.SEQUENCE_DIAGRAM, "applyExecution", exe); //$NON-NLS-1$
 	}
 
 
@@ -1075,13 +1099,27 @@ public class SequenceDiagramServices extends AbstractDiagramServices {
 
 
 	/**
-	 * Log.
+	 * Log the invocation of a tool on the given element into the editor event capture.
 	 *
 	 * @param container
-	 *            the container
+	 *            the element (or its view) on which the tool has been invoked
 	 * @return true, if successful
 	 */
 	public boolean log(EObject container) {
+		return log(container, LOG_ACTIVITY);
+	}
+
+	/**
+	 * Log the invocation of a tool on the given element into the editor event capture.
+	 *
+	 * @param container
+	 *            the element (or its view) on which the tool has been invoked
+	 * @param toolId
+	 *            the identifier of the invoked tool
+	 * @return true, if successful
+	 */
+	public boolean log(EObject container, String toolId) {
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.SEQUENCE_DIAGRAM, toolId, container);
 		return true;
 	}
 
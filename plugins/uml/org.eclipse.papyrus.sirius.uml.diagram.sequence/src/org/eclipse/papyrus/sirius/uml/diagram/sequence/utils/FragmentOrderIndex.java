@@ -0,0 +1,979 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.diagram.sequence.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EAnnotation;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.uml2.uml.CombinedFragment;
+import org.eclipse.uml2.uml.Interaction;
+import org.eclipse.uml2.uml.InteractionFragment;
+import org.eclipse.uml2.uml.InteractionOperand;
+import org.eclipse.uml2.uml.MessageOccurrenceSpecification;
+import org.eclipse.uml2.uml.UMLPackage;
+
+/**
+ * The flattened order of the fragments of an {@link Interaction} and of their ordering annotations, as computed by
+ * the FragmentsService.
+ *
+ * Each fragment is a block holding the fragment, its start, end, lost and found message annotations and, for a
+ * {@link CombinedFragment}, the fragments of its operands. The blocks of the fragments of the interaction and of each
+ * {@link InteractionOperand} are kept in a balanced tree ordered as the fragments and weighted by the block sizes,
+ * with a link from each operand to the block of its combined fragment. The position of an element in the flattened
+ * order is so computed in O(log n) for each nesting level.
+ *
+ * The index is an adapter of the interaction, of its fragments and of their annotations: it splices the tree of a
+ * container when its fragments are added, removed or moved, and updates the size of a block when the annotations or
+ * the name of its fragment change.
+ */
+public final class FragmentOrderIndex extends EContentAdapter {
+
+	/** The suffix of the annotation preceding a combined fragment or an operand. */
+	private static final String START_SUFFIX = "_start"; //$NON-NLS-1$
+
+	/** The suffix of the annotation following a combined fragment or an operand. */
+	private static final String END_SUFFIX = "_end"; //$NON-NLS-1$
+
+	/** The suffix of the annotation of a lost message end. */
+	private static final String LOST_MESSAGE_SUFFIX = "LOSTMESSAGE"; //$NON-NLS-1$
+
+	/** The suffix of the annotation of a found message end. */
+	private static final String FOUND_MESSAGE_SUFFIX = "FOUNDMESSAGE"; //$NON-NLS-1$
+
+	/** The container of the fragments of the interaction, <code>null</code> until the installation. */
+	private Container interactionContainer;
+
+	/** The containers of the fragments of the operands. */
+	private final Map<InteractionOperand, Container> operandContainers = new HashMap<>();
+
+	/** The block holding each fragment and each annotation of a fragment. */
+	private final Map<EObject, Block> blocks = new HashMap<>();
+
+	/** The number of changes of the order, used to know if a snapshot is still up to date. */
+	private long generation;
+
+	/**
+	 * Constructor.
+	 */
+	private FragmentOrderIndex() {
+		// use getIndex
+	}
+
+	/**
+	 * Get the index of an interaction, installing it on the first call.
+	 *
+	 * @param interaction
+	 *            the interaction
+	 * @return
+	 *         the fragment order index of the interaction
+	 */
+	public static FragmentOrderIndex getIndex(final Interaction interaction) {
+		synchronized (FragmentOrderIndex.class) {
+			for (final Adapter adapter : interaction.eAdapters()) {
+				if (adapter instanceof FragmentOrderIndex) {
+					return (FragmentOrderIndex) adapter;
+				}
+			}
+			final FragmentOrderIndex index = new FragmentOrderIndex();
+			interaction.eAdapters().add(index);
+			synchronized (index) {
+				index.interactionContainer = index.createContainer(interaction, null);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Get the fragments and the annotations of an interaction or of an operand, in the order of
+	 * <code>FragmentsService.getFragmentsAndAnnotation</code>: for each fragment, its start annotations, the
+	 * fragment, its lost and found message annotations, its end annotations, then the fragments of its operands.
+	 *
+	 * @param root
+	 *            the interaction or one of its operands
+	 * @return
+	 *         a new list, answering <code>indexOf</code> from the index while neither the list nor the interaction are
+	 *         modified, or <code>null</code> if the root isn't indexed
+	 */
+	public synchronized List<EObject> getFragmentsAndAnnotation(final InteractionFragment root) {
+		final Container container = getContainer(root);
+		if (container == null) {
+			return null;
+		}
+		final Snapshot result = new Snapshot(this, container, generation, container.getTotal());
+		collectFragmentsAndAnnotation(container, result);
+		result.freeze();
+		return result;
+	}
+
+	/**
+	 * Get the ordering ends of an interaction, of a combined fragment or of an operand, in the order of
+	 * <code>FragmentsService.getFragmentsOrderingEnds</code>.
+	 *
+	 * @param root
+	 *            the interaction, one of its combined fragments or one of its operands
+	 * @return
+	 *         a new list, or <code>null</code> if the root isn't indexed
+	 */
+	public synchronized List<EObject> getFragmentsOrderingEnds(final InteractionFragment root) {
+		final List<EObject> result;
+		if (root instanceof CombinedFragment) {
+			final Block block = blocks.get(root);
+			if (block == null || block.fragment != root) {
+				return null;
+			}
+			result = new ArrayList<>(block.size);
+			collectOperandsOrderingEnds(block, result);
+		} else {
+			final Container container = getContainer(root);
+			if (container == null) {
+				return null;
+			}
+			result = new ArrayList<>(container.getTotal());
+			if (container.block == null) {
+				collectInteractionOrderingEnds(container, result);
+			} else {
+				collectOperandOrderingEnds(container, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param element
+	 *            a fragment or an ordering annotation
+	 * @param root
+	 *            the interaction or one of its operands
+	 * @return
+	 *         the position of the element in the fragments and annotations of the root, or <code>-1</code> if the
+	 *         element isn't one of them
+	 */
+	public synchronized int indexOf(final Object element, final InteractionFragment root) {
+		final Container container = getContainer(root);
+		return container != null ? getPosition(element, container) : -1;
+	}
+
+	/**
+	 * @return
+	 *         the number of changes of the order of the fragments and annotations since the installation of the index
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#notifyChanged(org.eclipse.emf.common.notify.Notification)
+	 *
+	 * @param notification
+	 */
+	@Override
+	public void notifyChanged(final Notification notification) {
+		super.notifyChanged(notification);
+		if (notification.isTouch() || notification.getEventType() == Notification.REMOVING_ADAPTER) {
+			return;
+		}
+		final Object notifier = notification.getNotifier();
+		final Object feature = notification.getFeature();
+		synchronized (this) {
+			if (interactionContainer == null) {
+				return;
+			}
+			if (feature == UMLPackage.Literals.INTERACTION__FRAGMENT || feature == UMLPackage.Literals.INTERACTION_OPERAND__FRAGMENT) {
+				final Container container = getContainer((InteractionFragment) notifier);
+				if (container != null) {
+					spliceFragments(container, notification);
+					generation++;
+				}
+			} else if (feature == UMLPackage.Literals.COMBINED_FRAGMENT__OPERAND) {
+				final Block block = blocks.get(notifier);
+				if (block != null && block.fragment == notifier) {
+					updateOperands(block);
+					generation++;
+				}
+			} else if (feature == UMLPackage.Literals.NAMED_ELEMENT__NAME || feature == EcorePackage.Literals.EMODEL_ELEMENT__EANNOTATIONS) {
+				updateAnnotations(notifier);
+			} else if (feature == EcorePackage.Literals.EANNOTATION__SOURCE) {
+				updateAnnotations(((EAnnotation) notifier).eContainer());
+			}
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#addAdapter(org.eclipse.emf.common.notify.Notifier)
+	 *
+	 * @param notifier
+	 */
+	@Override
+	protected void addAdapter(final Notifier notifier) {
+		// only the fragments, the operands and the annotations of the fragments are observed
+		final EObject eObject = (EObject) notifier;
+		final EStructuralFeature feature = eObject.eContainingFeature();
+		if (feature == UMLPackage.Literals.INTERACTION__FRAGMENT || feature == UMLPackage.Literals.INTERACTION_OPERAND__FRAGMENT
+				|| feature == UMLPackage.Literals.COMBINED_FRAGMENT__OPERAND
+				|| (feature == EcorePackage.Literals.EMODEL_ELEMENT__EANNOTATIONS && eObject.eContainer() instanceof InteractionFragment)) {
+			super.addAdapter(notifier);
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#resolve()
+	 *
+	 * @return
+	 */
+	@Override
+	protected boolean resolve() {
+		return false;
+	}
+
+	/**
+	 * @return
+	 *         the container of the fragments of the interaction or of the operand, or <code>null</code> if it isn't
+	 *         indexed
+	 */
+	private Container getContainer(final InteractionFragment root) {
+		if (interactionContainer != null && root == interactionContainer.owner) {
+			return interactionContainer;
+		}
+		return root instanceof InteractionOperand ? operandContainers.get(root) : null;
+	}
+
+	/**
+	 * Splice the tree of a container following a modification of its fragments.
+	 */
+	private void spliceFragments(final Container container, final Notification notification) {
+		final int position = notification.getPosition();
+		switch (notification.getEventType()) {
+		case Notification.ADD:
+			insertFragment(container, position, notification.getNewValue());
+			break;
+		case Notification.ADD_MANY:
+			int index = position;
+			for (final Object added : (List<?>) notification.getNewValue()) {
+				insertFragment(container, index++, added);
+			}
+			break;
+		case Notification.REMOVE:
+			removeFragment(container, notification.getOldValue());
+			break;
+		case Notification.REMOVE_MANY:
+			for (final Object removed : (List<?>) notification.getOldValue()) {
+				removeFragment(container, removed);
+			}
+			break;
+		case Notification.MOVE:
+			removeFragment(container, notification.getNewValue());
+			insertFragment(container, position, notification.getNewValue());
+			break;
+		case Notification.SET:
+			removeFragment(container, notification.getOldValue());
+			insertFragment(container, position, notification.getNewValue());
+			break;
+		default:
+			break;
+		}
+		if (count(container.root) != container.getFragments().size()) {
+			// a notification without position, rebuild the container from its fragments
+			rebuildContainer(container);
+		}
+	}
+
+	/**
+	 * Insert the block of a fragment in a container.
+	 */
+	private void insertFragment(final Container container, final int position, final Object fragment) {
+		if (!(fragment instanceof InteractionFragment) || position < 0 || position > count(container.root)) {
+			return;
+		}
+		final Block block = createBlock((InteractionFragment) fragment, container);
+		final Node[] parts = split(container.root, position);
+		container.root = merge(merge(parts[0], block.node), parts[1]);
+		container.root.parent = null;
+		resizeContainer(container, block.size);
+	}
+
+	/**
+	 * Remove the block of a fragment from a container.
+	 */
+	private void removeFragment(final Container container, final Object fragment) {
+		final Block block = blocks.get(fragment);
+		if (block == null || block.fragment != fragment || block.container != container) {
+			return;
+		}
+		final Node[] before = split(container.root, rank(block.node));
+		final Node[] after = split(before[1], 1);
+		container.root = merge(before[0], after[1]);
+		if (container.root != null) {
+			container.root.parent = null;
+		}
+		unregister(block);
+		resizeContainer(container, -block.size);
+	}
+
+	/**
+	 * Build again the tree of a container from its fragments.
+	 */
+	private void rebuildContainer(final Container container) {
+		final int oldTotal = container.getTotal();
+		for (final Block block : getBlocks(container)) {
+			unregister(block);
+		}
+		container.root = null;
+		for (final InteractionFragment fragment : container.getFragments()) {
+			container.root = merge(container.root, createBlock(fragment, container).node);
+		}
+		if (container.root != null) {
+			container.root.parent = null;
+		}
+		resizeContainer(container, container.getTotal() - oldTotal);
+	}
+
+	/**
+	 * Build again the operands of the block of a combined fragment.
+	 */
+	private void updateOperands(final Block block) {
+		for (final Container operand : block.operands) {
+			unregister(operand);
+		}
+		block.operands.clear();
+		int size = block.getLocalSize();
+		for (final InteractionOperand operand : ((CombinedFragment) block.fragment).getOperands()) {
+			final Container container = createContainer(operand, block);
+			block.operands.add(container);
+			size += container.getTotal();
+		}
+		resize(block, size);
+	}
+
+	/**
+	 * Compute again the ordering annotations of a fragment after a change of its name or of its annotations.
+	 */
+	private void updateAnnotations(final Object owner) {
+		if (owner instanceof InteractionOperand && operandContainers.containsKey(owner)) {
+			operandContainers.get(owner).computeAnnotations();
+			generation++;
+			return;
+		}
+		final Block block = blocks.get(owner);
+		if (block != null && block.fragment == owner) {
+			final int oldLocalSize = block.getLocalSize();
+			unregisterAnnotations(block);
+			block.computeAnnotations();
+			registerAnnotations(block);
+			resize(block, block.size + block.getLocalSize() - oldLocalSize);
+			generation++;
+		}
+	}
+
+	/**
+	 * Create the container of the fragments of an interaction or of an operand, with the blocks of its fragments.
+	 */
+	private Container createContainer(final InteractionFragment owner, final Block block) {
+		final Container container = new Container(owner, block);
+		if (owner instanceof InteractionOperand) {
+			operandContainers.put((InteractionOperand) owner, container);
+			container.computeAnnotations();
+		}
+		for (final InteractionFragment fragment : container.getFragments()) {
+			container.root = merge(container.root, createBlock(fragment, container).node);
+		}
+		if (container.root != null) {
+			container.root.parent = null;
+		}
+		return container;
+	}
+
+	/**
+	 * Create the block of a fragment, with the containers of its operands.
+	 */
+	private Block createBlock(final InteractionFragment fragment, final Container container) {
+		final Block block = new Block(fragment, container);
+		block.computeAnnotations();
+		blocks.put(fragment, block);
+		registerAnnotations(block);
+		int size = block.getLocalSize();
+		if (fragment instanceof CombinedFragment) {
+			for (final InteractionOperand operand : ((CombinedFragment) fragment).getOperands()) {
+				final Container operandContainer = createContainer(operand, block);
+				block.operands.add(operandContainer);
+				size += operandContainer.getTotal();
+			}
+		}
+		block.size = size;
+		block.node = new Node(block);
+		return block;
+	}
+
+	/**
+	 * Register the annotations of a block.
+	 */
+	private void registerAnnotations(final Block block) {
+		for (final EAnnotation annotation : block.starts) {
+			blocks.put(annotation, block);
+		}
+		for (final EAnnotation annotation : block.extras) {
+			blocks.put(annotation, block);
+		}
+		for (final EAnnotation annotation : block.ends) {
+			blocks.put(annotation, block);
+		}
+	}
+
+	/**
+	 * Unregister the annotations of a block.
+	 */
+	private void unregisterAnnotations(final Block block) {
+		for (final EAnnotation annotation : block.starts) {
+			blocks.remove(annotation, block);
+		}
+		for (final EAnnotation annotation : block.extras) {
+			blocks.remove(annotation, block);
+		}
+		for (final EAnnotation annotation : block.ends) {
+			blocks.remove(annotation, block);
+		}
+	}
+
+	/**
+	 * Unregister a block and the containers of its operands.
+	 */
+	private void unregister(final Block block) {
+		blocks.remove(block.fragment, block);
+		unregisterAnnotations(block);
+		for (final Container operand : block.operands) {
+			unregister(operand);
+		}
+	}
+
+	/**
+	 * Unregister a container and its blocks.
+	 */
+	private void unregister(final Container container) {
+		operandContainers.remove(container.owner, container);
+		for (final Block block : getBlocks(container)) {
+			unregister(block);
+		}
+	}
+
+	/**
+	 * Change the total size of a container, updating the size of the blocks enclosing it.
+	 */
+	private static void resizeContainer(final Container container, final int delta) {
+		if (delta != 0 && container.block != null) {
+			resize(container.block, container.block.size + delta);
+		}
+	}
+
+	/**
+	 * Change the size of a block, updating its tree and the blocks enclosing it.
+	 */
+	private static void resize(final Block block, final int size) {
+		final int delta = size - block.size;
+		block.size = size;
+		for (Node node = block.node; node != null; node = node.parent) {
+			update(node);
+		}
+		resizeContainer(block.container, delta);
+	}
+
+	/**
+	 * @return
+	 *         the position of the element in the flattened order of the container, or <code>-1</code>
+	 */
+	private int getPosition(final Object element, final Container container) {
+		final Block block = blocks.get(element);
+		if (block == null) {
+			return -1;
+		}
+		int position = block.getOffset(element);
+		Block current = block;
+		while (true) {
+			position += prefixSum(current.node);
+			if (current.container == container) {
+				return position;
+			}
+			final Block enclosing = current.container.block;
+			if (enclosing == null) {
+				// the element is outside of the requested operand
+				return -1;
+			}
+			position += enclosing.getLocalSize();
+			for (final Container operand : enclosing.operands) {
+				if (operand == current.container) {
+					break;
+				}
+				position += operand.getTotal();
+			}
+			current = enclosing;
+		}
+	}
+
+	/**
+	 * Add the fragments and annotations of a container in the flattened order.
+	 */
+	private static void collectFragmentsAndAnnotation(final Container container, final List<EObject> result) {
+		for (final Block block : getBlocks(container)) {
+			result.addAll(block.starts);
+			result.add(block.fragment);
+			result.addAll(block.extras);
+			result.addAll(block.ends);
+			for (final Container operand : block.operands) {
+				collectFragmentsAndAnnotation(operand, result);
+			}
+		}
+	}
+
+	/**
+	 * Add the ordering ends of the interaction.
+	 */
+	private static void collectInteractionOrderingEnds(final Container container, final List<EObject> result) {
+		for (final Block block : getBlocks(container)) {
+			result.addAll(block.starts);
+			result.add(block.fragment);
+			result.addAll(block.extras);
+			collectOperandsOrderingEnds(block, result);
+			result.addAll(block.ends);
+		}
+	}
+
+	/**
+	 * Add the ordering ends of the operands of a combined fragment.
+	 */
+	private static void collectOperandsOrderingEnds(final Block block, final List<EObject> result) {
+		for (final Container operand : block.operands) {
+			collectOperandOrderingEnds(operand, result);
+		}
+	}
+
+	/**
+	 * Add the ordering ends of an operand: the annotations of the nested combined fragments aren't ordering ends.
+	 */
+	private static void collectOperandOrderingEnds(final Container container, final List<EObject> result) {
+		result.addAll(container.starts);
+		for (final Block block : getBlocks(container)) {
+			result.add(block.fragment);
+			result.addAll(block.extras);
+			collectOperandsOrderingEnds(block, result);
+		}
+		result.addAll(container.ends);
+	}
+
+	/**
+	 * @return
+	 *         the blocks of a container, in the order of its fragments
+	 */
+	private static List<Block> getBlocks(final Container container) {
+		final List<Block> result = new ArrayList<>(count(container.root));
+		collectBlocks(container.root, result);
+		return result;
+	}
+
+	/**
+	 * Add the blocks of a tree in order.
+	 */
+	private static void collectBlocks(final Node node, final List<Block> result) {
+		if (node != null) {
+			collectBlocks(node.left, result);
+			result.add(node.block);
+			collectBlocks(node.right, result);
+		}
+	}
+
+	/**
+	 * @return
+	 *         the annotations of an element with the given source
+	 */
+	private static List<EAnnotation> getAnnotations(final InteractionFragment element, final String source) {
+		List<EAnnotation> result = Collections.emptyList();
+		for (final EAnnotation annotation : element.getEAnnotations()) {
+			if (source.equals(annotation.getSource())) {
+				if (result.isEmpty()) {
+					result = new ArrayList<>(1);
+				}
+				result.add(annotation);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return
+	 *         the number of nodes of a tree
+	 */
+	private static int count(final Node node) {
+		return node == null ? 0 : node.count;
+	}
+
+	/**
+	 * @return
+	 *         the total size of the blocks of a tree
+	 */
+	private static int sum(final Node node) {
+		return node == null ? 0 : node.sum;
+	}
+
+	/**
+	 * Compute again the count and the size of a node from its children.
+	 */
+	private static Node update(final Node node) {
+		node.count = 1 + count(node.left) + count(node.right);
+		node.sum = node.block.size + sum(node.left) + sum(node.right);
+		if (node.left != null) {
+			node.left.parent = node;
+		}
+		if (node.right != null) {
+			node.right.parent = node;
+		}
+		return node;
+	}
+
+	/**
+	 * Split a tree in its <code>count</code> first nodes and the others.
+	 */
+	private static Node[] split(final Node node, final int count) {
+		if (node == null) {
+			return new Node[2];
+		}
+		final Node[] result;
+		if (count(node.left) >= count) {
+			result = split(node.left, count);
+			node.left = result[1];
+			result[1] = update(node);
+		} else {
+			result = split(node.right, count - count(node.left) - 1);
+			node.right = result[0];
+			result[0] = update(node);
+		}
+		node.parent = null;
+		return result;
+	}
+
+	/**
+	 * Merge two trees, the nodes of the first one preceding the nodes of the second one.
+	 */
+	private static Node merge(final Node first, final Node second) {
+		if (first == null) {
+			return second;
+		}
+		if (second == null) {
+			return first;
+		}
+		if (first.priority > second.priority) {
+			first.right = merge(first.right, second);
+			return update(first);
+		}
+		second.left = merge(first, second.left);
+		return update(second);
+	}
+
+	/**
+	 * @return
+	 *         the number of nodes preceding a node in its tree
+	 */
+	private static int rank(final Node node) {
+		int result = count(node.left);
+		for (Node current = node; current.parent != null; current = current.parent) {
+			if (current == current.parent.right) {
+				result += count(current.parent.left) + 1;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return
+	 *         the total size of the blocks preceding a node in its tree
+	 */
+	private static int prefixSum(final Node node) {
+		int result = sum(node.left);
+		for (Node current = node; current.parent != null; current = current.parent) {
+			if (current == current.parent.right) {
+				result += sum(current.parent.left) + current.parent.block.size;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The fragments of an interaction or of an operand.
+	 */
+	private static final class Container {
+
+		/** The interaction or the operand. */
+		private final InteractionFragment owner;
+
+		/** The block of the combined fragment of the operand, <code>null</code> for the interaction. */
+		private final Block block;
+
+		/** The tree of the blocks of the fragments. */
+		private Node root;
+
+		/** The start annotations of the operand. */
+		private List<EAnnotation> starts = Collections.emptyList();
+
+		/** The end annotations of the operand. */
+		private List<EAnnotation> ends = Collections.emptyList();
+
+		/**
+		 * Constructor.
+		 *
+		 * @param owner
+		 *            the interaction or the operand
+		 * @param block
+		 *            the block of the combined fragment of the operand
+		 */
+		private Container(final InteractionFragment owner, final Block block) {
+			this.owner = owner;
+			this.block = block;
+		}
+
+		/**
+		 * @return
+		 *         the fragments of the interaction or of the operand
+		 */
+		private List<InteractionFragment> getFragments() {
+			return owner instanceof Interaction ? ((Interaction) owner).getFragments() : ((InteractionOperand) owner).getFragments();
+		}
+
+		/**
+		 * @return
+		 *         the number of fragments and annotations of the container
+		 */
+		private int getTotal() {
+			return sum(root);
+		}
+
+		/**
+		 * Compute the start and end annotations of the operand.
+		 */
+		private void computeAnnotations() {
+			starts = getAnnotations(owner, owner.getName() + START_SUFFIX);
+			ends = getAnnotations(owner, owner.getName() + END_SUFFIX);
+		}
+	}
+
+	/**
+	 * A fragment, its annotations and the fragments of its operands.
+	 */
+	private static final class Block {
+
+		/** The fragment. */
+		private final InteractionFragment fragment;
+
+		/** The container of the fragment. */
+		private final Container container;
+
+		/** The containers of the operands of the combined fragment. */
+		private final List<Container> operands = new ArrayList<>(0);
+
+		/** The start annotations of the combined fragment. */
+		private List<EAnnotation> starts = Collections.emptyList();
+
+		/** The lost and found message annotations of the message end. */
+		private List<EAnnotation> extras = Collections.emptyList();
+
+		/** The end annotations of the combined fragment. */
+		private List<EAnnotation> ends = Collections.emptyList();
+
+		/** The number of fragments and annotations of the block. */
+		private int size;
+
+		/** The node of the block in the tree of its container. */
+		private Node node;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param fragment
+		 *            the fragment
+		 * @param container
+		 *            the container of the fragment
+		 */
+		private Block(final InteractionFragment fragment, final Container container) {
+			this.fragment = fragment;
+			this.container = container;
+		}
+
+		/**
+		 * Compute the ordering annotations of the fragment.
+		 */
+		private void computeAnnotations() {
+			final String name = fragment.getName();
+			if (fragment instanceof CombinedFragment) {
+				starts = getAnnotations(fragment, name + START_SUFFIX);
+				ends = getAnnotations(fragment, name + END_SUFFIX);
+			} else if (fragment instanceof MessageOccurrenceSpecification) {
+				extras = new ArrayList<>(0);
+				for (final EAnnotation annotation : fragment.getEAnnotations()) {
+					if ((name + LOST_MESSAGE_SUFFIX).equals(annotation.getSource()) || (name + FOUND_MESSAGE_SUFFIX).equals(annotation.getSource())) {
+						extras.add(annotation);
+					}
+				}
+			}
+		}
+
+		/**
+		 * @return
+		 *         the number of elements of the block, without the fragments of the operands
+		 */
+		private int getLocalSize() {
+			return starts.size() + 1 + extras.size() + ends.size();
+		}
+
+		/**
+		 * @return
+		 *         the position of the fragment or of one of its annotations in the block
+		 */
+		private int getOffset(final Object element) {
+			int index = starts.indexOf(element);
+			if (index >= 0) {
+				return index;
+			}
+			if (element == fragment) {
+				return starts.size();
+			}
+			index = extras.indexOf(element);
+			if (index >= 0) {
+				return starts.size() + 1 + index;
+			}
+			return starts.size() + 1 + extras.size() + ends.indexOf(element);
+		}
+	}
+
+	/**
+	 * A node of the tree of the blocks of a container, with the number of nodes and the total size of its subtree.
+	 */
+	private static final class Node {
+
+		/** The block. */
+		private final Block block;
+
+		/** The random priority of the node, keeping the tree balanced. */
+		private final int priority = ThreadLocalRandom.current().nextInt();
+
+		/** The children and the parent of the node. */
+		private Node left, right, parent;
+
+		/** The number of nodes of the subtree. */
+		private int count = 1;
+
+		/** The total size of the blocks of the subtree. */
+		private int sum;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param block
+		 *            the block
+		 */
+		private Node(final Block block) {
+			this.block = block;
+			this.sum = block.size;
+		}
+	}
+
+	/**
+	 * The fragments and annotations of a container, answering <code>indexOf</code> from the index while neither the
+	 * list nor the interaction are modified.
+	 */
+	private static final class Snapshot extends ArrayList<EObject> {
+
+		/** The serial version UID. */
+		private static final long serialVersionUID = 1L;
+
+		/** The index. */
+		private final transient FragmentOrderIndex index;
+
+		/** The container of the fragments and annotations. */
+		private final transient Container container;
+
+		/** The generation of the index when the list has been computed. */
+		private final long generation;
+
+		/** The modification count of the filled list, <code>-1</code> while filling it. */
+		private int frozenModCount = -1;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param index
+		 *            the index
+		 * @param container
+		 *            the container of the fragments and annotations
+		 * @param generation
+		 *            the generation of the index
+		 * @param size
+		 *            the number of fragments and annotations
+		 */
+		private Snapshot(final FragmentOrderIndex index, final Container container, final long generation, final int size) {
+			super(size);
+			this.index = index;
+			this.container = container;
+			this.generation = generation;
+		}
+
+		/**
+		 * Mark the end of the filling of the list.
+		 */
+		private void freeze() {
+			frozenModCount = modCount;
+		}
+
+		/**
+		 * @see java.util.ArrayList#set(int, java.lang.Object)
+		 *
+		 * @param position
+		 * @param element
+		 * @return
+		 */
+		@Override
+		public EObject set(final int position, final EObject element) {
+			// a replacement doesn't change the modification count
+			modCount++;
+			return super.set(position, element);
+		}
+
+		/**
+		 * @see java.util.ArrayList#indexOf(java.lang.Object)
+		 *
+		 * @param element
+		 * @return
+		 */
+		@Override
+		public int indexOf(final Object element) {
+			if (frozenModCount == modCount) {
+				synchronized (index) {
+					if (index.generation == generation) {
+						final int position = index.getPosition(element, container);
+						if (position >= 0 && position < size() && get(position) == element) {
+							return position;
+						}
+					}
+				}
+			}
+			return super.indexOf(element);
+		}
+	}
+}
@@ -0,0 +1,271 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.diagram.sequence.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.uml2.uml.ExecutionSpecification;
+import org.eclipse.uml2.uml.Interaction;
+import org.eclipse.uml2.uml.InteractionFragment;
+import org.eclipse.uml2.uml.Lifeline;
+import org.eclipse.uml2.uml.Message;
+import org.eclipse.uml2.uml.MessageOccurrenceSpecification;
+import org.eclipse.uml2.uml.UMLPackage;
+
+/**
+ * The fragments covering each {@link Lifeline} of an {@link Interaction}, in the order of the
+ * {@link FragmentOrderIndex} of the interaction.
+ *
+ * The index is an adapter of the interaction and of its lifelines: the occurrences of a lifeline are computed once
+ * from its covering fragments, and computed again when a fragment covers or uncovers the lifeline, or when the order of
+ * the fragments of the interaction changes.
+ */
+public final class LifelineOccurrenceIndex extends EContentAdapter {
+
+	/** The ordered occurrences of each lifeline. */
+	private final Map<Lifeline, Occurrences> occurrencesByLifeline = new HashMap<>();
+
+	/** The order of the fragments of the interaction. */
+	private final FragmentOrderIndex orderIndex;
+
+	/** The interaction. */
+	private final Interaction interaction;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param interaction
+	 *            the interaction
+	 */
+	private LifelineOccurrenceIndex(final Interaction interaction) {
+		this.interaction = interaction;
+		this.orderIndex = FragmentOrderIndex.getIndex(interaction);
+	}
+
+	/**
+	 * Get the index of an interaction, installing it on the first call.
+	 *
+	 * @param interaction
+	 *            the interaction
+	 * @return
+	 *         the lifeline occurrence index of the interaction
+	 */
+	public static LifelineOccurrenceIndex getIndex(final Interaction interaction) {
+		synchronized (LifelineOccurrenceIndex.class) {
+			for (final Adapter adapter : interaction.eAdapters()) {
+				if (adapter instanceof LifelineOccurrenceIndex) {
+					return (LifelineOccurrenceIndex) adapter;
+				}
+			}
+			final LifelineOccurrenceIndex index = new LifelineOccurrenceIndex(interaction);
+			interaction.eAdapters().add(index);
+			return index;
+		}
+	}
+
+	/**
+	 * @param lifeline
+	 *            a lifeline of the interaction
+	 * @return
+	 *         a copy of the fragments of the interaction and of its operands covering the lifeline, in their order
+	 */
+	public synchronized List<InteractionFragment> getOccurrences(final Lifeline lifeline) {
+		return new ArrayList<>(getOrderedOccurrences(lifeline));
+	}
+
+	/**
+	 * @param lifeline
+	 *            a lifeline of the interaction
+	 * @param root
+	 *            the interaction or one of its operands
+	 * @return
+	 *         the fragments of the root and of its nested operands covering the lifeline, in their order
+	 */
+	public synchronized List<InteractionFragment> getOccurrences(final Lifeline lifeline, final InteractionFragment root) {
+		final List<InteractionFragment> occurrences = getOrderedOccurrences(lifeline);
+		if (root == interaction) {
+			return new ArrayList<>(occurrences);
+		}
+		final List<InteractionFragment> result = new ArrayList<>();
+		for (final InteractionFragment occurrence : occurrences) {
+			if (orderIndex.indexOf(occurrence, root) >= 0) {
+				result.add(occurrence);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param lifeline
+	 *            a lifeline of the interaction
+	 * @return
+	 *         the executions covering the lifeline, in their order
+	 */
+	public synchronized List<ExecutionSpecification> getExecutions(final Lifeline lifeline) {
+		final List<ExecutionSpecification> result = new ArrayList<>();
+		for (final InteractionFragment occurrence : getOrderedOccurrences(lifeline)) {
+			if (occurrence instanceof ExecutionSpecification) {
+				result.add((ExecutionSpecification) occurrence);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param lifeline
+	 *            a lifeline of the interaction
+	 * @return
+	 *         the messages whose send event covers the lifeline, in the order of their send event
+	 */
+	public synchronized List<Message> getSentMessages(final Lifeline lifeline) {
+		final List<Message> result = new ArrayList<>();
+		for (final InteractionFragment occurrence : getOrderedOccurrences(lifeline)) {
+			if (occurrence instanceof MessageOccurrenceSpecification) {
+				final Message message = ((MessageOccurrenceSpecification) occurrence).getMessage();
+				if (message != null && message.getSendEvent() == occurrence) {
+					result.add(message);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#notifyChanged(org.eclipse.emf.common.notify.Notification)
+	 *
+	 * @param notification
+	 */
+	@Override
+	public void notifyChanged(final Notification notification) {
+		super.notifyChanged(notification);
+		if (notification.getFeature() == UMLPackage.Literals.LIFELINE__COVERED_BY && !notification.isTouch()) {
+			synchronized (this) {
+				occurrencesByLifeline.remove(notification.getNotifier());
+			}
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#addAdapter(org.eclipse.emf.common.notify.Notifier)
+	 *
+	 * @param notifier
+	 */
+	@Override
+	protected void addAdapter(final Notifier notifier) {
+		// only the lifelines of the interaction are observed, the fragments notify their covered lifelines
+		if (notifier instanceof Lifeline) {
+			super.addAdapter(notifier);
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#setTarget(org.eclipse.emf.ecore.EObject)
+	 *
+	 * @param target
+	 */
+	@Override
+	protected void setTarget(final EObject target) {
+		if (target instanceof Lifeline) {
+			// the contents of a lifeline aren't needed
+			basicSetTarget(target);
+		} else {
+			super.setTarget(target);
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#unsetTarget(org.eclipse.emf.ecore.EObject)
+	 *
+	 * @param target
+	 */
+	@Override
+	protected void unsetTarget(final EObject target) {
+		if (target instanceof Lifeline) {
+			basicUnsetTarget(target);
+			synchronized (this) {
+				occurrencesByLifeline.remove(target);
+			}
+		} else {
+			super.unsetTarget(target);
+		}
+	}
+
+	/**
+	 * @see org.eclipse.emf.ecore.util.EContentAdapter#resolve()
+	 *
+	 * @return
+	 */
+	@Override
+	protected boolean resolve() {
+		return false;
+	}
+
+	/**
+	 * @return
+	 *         the ordered occurrences of a lifeline, computed again if the fragments have been reordered
+	 */
+	private List<InteractionFragment> getOrderedOccurrences(final Lifeline lifeline) {
+		final long generation = orderIndex.getGeneration();
+		Occurrences occurrences = occurrencesByLifeline.get(lifeline);
+		if (occurrences == null || occurrences.generation != generation) {
+			final Map<InteractionFragment, Integer> positions = new HashMap<>();
+			for (final InteractionFragment fragment : lifeline.getCoveredBys()) {
+				final int position = orderIndex.indexOf(fragment, interaction);
+				if (position >= 0) {
+					positions.put(fragment, position);
+				}
+			}
+			final List<InteractionFragment> ordered = new ArrayList<>(positions.keySet());
+			ordered.sort(Comparator.comparing(positions::get));
+			occurrences = new Occurrences(generation, ordered);
+			occurrencesByLifeline.put(lifeline, occurrences);
+		}
+		return occurrences.fragments;
+	}
+
+	/**
+	 * The ordered occurrences of a lifeline, for a generation of the fragment order.
+	 */
+	private static final class Occurrences {
+
+		/** The generation of the fragment order. */
+		private final long generation;
+
+		/** The ordered fragments covering the lifeline. */
+		private final List<InteractionFragment> fragments;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param generation
+		 *            the generation of the fragment order
+		 * @param fragments
+		 *            the ordered fragments covering the lifeline
+		 */
+		private Occurrences(final long generation, final List<InteractionFragment> fragments) {
+			this.generation = generation;
+			this.fragments = fragments;
+		}
+	}
+}
@@ -14,23 +14,39 @@
  *****************************************************************************/
 package org.eclipse.papyrus.sirius.uml.diagram.sequence.utils;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.papyrus.sirius.editor.sirius.SiriusSessionDisposeListeners;
+import org.eclipse.sirius.business.api.session.Session;
+import org.eclipse.sirius.business.api.session.SessionManager;
 
 /**
  * The Class ReorderSequenceRegistry.
  *
+ * There is one registry by Sirius {@link Session}, released when the session service of the model is disposed. The
+ * registered occurrences are weak keys, so the removed occurrences don't stay in memory until the next refresh.
+ *
  * @author Yann Binot (Artal Technologies) <yann.binot@artal.fr>
  */
-/**
- * The Class ReorderSequenceRegistry.
- */
 public class ReorderSequenceRegistry {
 
-	/** The instance. */
-	static private ReorderSequenceRegistry instance;
+	/** The registries, by Sirius session. */
+	static private final Map<Session, ReorderSequenceRegistry> instances = new WeakHashMap<>();
+
+	/** The registry of the elements outside of a Sirius session. */
+	static private final ReorderSequenceRegistry defaultInstance = new ReorderSequenceRegistry();
+
+	static {
+		SiriusSessionDisposeListeners.addListener(ReorderSequenceRegistry::dispose);
+	}
+
+	/** The registry. */
+	private final Map<EObject, EObject> registry = new WeakHashMap<>();
+
+	/** The number of keys of each registered value. */
+	private final Map<EObject, Integer> valueCounts = new WeakHashMap<>();
 
 	/**
 	 * Instantiates a new reorder sequence registry.
@@ -40,29 +56,40 @@ public class ReorderSequenceRegistry {
 	}
 
 	/**
-	 * Gets the single instance of ReorderSequenceRegistry.
+	 * Gets the instance of ReorderSequenceRegistry of the Sirius session of an element.
 	 *
-	 * @return single instance of ReorderSequenceRegistry
+	 * @param context
+	 *            a semantic element or a representation element
+	 * @return the instance of ReorderSequenceRegistry of the session of the element
 	 */
-	static public ReorderSequenceRegistry getInstance() {
-		if (instance == null) {
-			instance = new ReorderSequenceRegistry();
+	static public ReorderSequenceRegistry getInstance(EObject context) {
+		Session session = context != null ? SessionManager.INSTANCE.getSession(context) : null;
+		if (session == null) {
+			return defaultInstance;
+		}
+		synchronized (instances) {
+			return instances.computeIfAbsent(session, s -> new ReorderSequenceRegistry());
 		}
-		return instance;
 	}
 
-
-	/** The registry. */
-	static Map<EObject, EObject> registry = new HashMap<>();
-
-
-
+	/**
+	 * Release the registry of a Sirius session.
+	 *
+	 * @param session
+	 *            the Sirius session
+	 */
+	static public void dispose(Session session) {
+		synchronized (instances) {
+			instances.remove(session);
+		}
+	}
 
 	/**
 	 * Clear.
 	 */
-	public void clear() {
+	public synchronized void clear() {
 		registry.clear();
+		valueCounts.clear();
 	}
 
 	/**
@@ -73,8 +100,11 @@ public class ReorderSequenceRegistry {
 	 * @param value
 	 *            the value
 	 */
-	public void put(EObject key, EObject value) {
-		registry.put(key, value);
+	public synchronized void put(EObject key, EObject value) {
+		removeValue(registry.put(key, value));
+		if (value != null) {
+			valueCounts.merge(value, 1, Integer::sum);
+		}
 	}
 
 	/**
@@ -83,11 +113,10 @@ public class ReorderSequenceRegistry {
 	 * @param key
 	 *            the key
 	 */
-	public void remove(EObject key) {
-		registry.remove(key);
+	public synchronized void remove(EObject key) {
+		removeValue(registry.remove(key));
 	}
 
-
 	/**
 	 * Contains.
 	 *
@@ -95,7 +124,7 @@ public class ReorderSequenceRegistry {
 	 *            the value
 	 * @return true, if successful
 	 */
-	public boolean containsKey(EObject value) {
+	public synchronized boolean containsKey(EObject value) {
 		return registry.containsKey(value);
 	}
 
@@ -106,8 +135,8 @@ public class ReorderSequenceRegistry {
 	 *            the value
 	 * @return true, if successful
 	 */
-	public boolean containsValue(EObject value) {
-		return registry.containsValue(value);
+	public synchronized boolean containsValue(EObject value) {
+		return valueCounts.containsKey(value);
 	}
 
 	/**
@@ -117,9 +146,20 @@ public class ReorderSequenceRegistry {
 	 *            the key
 	 * @return the e object
 	 */
-	public EObject get(EObject key) {
+	public synchronized EObject get(EObject key) {
 		return registry.get(key);
 	}
 
+	/**
+	 * Forget a key of a value.
+	 *
+	 * @param value
+	 *            the value of the removed key
+	 */
+	private void removeValue(EObject value) {
+		if (value != null) {
+			valueCounts.computeIfPresent(value, (v, count) -> count > 1 ? count - 1 : null);
+		}
+	}
 
 }
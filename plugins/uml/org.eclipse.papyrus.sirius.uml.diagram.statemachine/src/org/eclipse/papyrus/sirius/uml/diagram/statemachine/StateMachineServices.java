@@ -39,6 +39,7 @@ import org.eclipse.gmf.runtime.notation.View;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.papyrus.editor.PapyrusMultiDiagramEditor;
 import org.eclipse.papyrus.infra.gmfdiag.common.model.NotationUtils;
+import org.eclipse.papyrus.sirius.uml.diagram.common.services.EventCaptureServices;
 import org.eclipse.papyrus.sirius.uml.diagram.statemachine.constants.SMD_MappingTypes;
 import org.eclipse.papyrus.sirius.uml.diagram.statemachine.custom.StateMachineRegionPolicy;
 import org.eclipse.papyrus.sirius.uml.diagram.statemachine.custom.StateMachineRegionPolicy.Zone;
@@ -700,6 +701,7 @@ public class StateMachineServices {
 	 *            the container view
 	 */
 	public void applyLayoutData(EObject object, EObject containerView) {
+		final long start = EventCaptureServices.INSTANCE.startTool();
 		if (containerView instanceof DNodeContainer) {
 			DDiagram parentDiagram = ((DNodeContainer) containerView).getParentDiagram();
 			EList<DDiagramElement> diagramElements = parentDiagram.getDiagramElements();
@@ -719,6 +721,7 @@ public class StateMachineServices {
 			}
 		}
 		ElementToRefresh.toReposition.clear();
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.STATE_MACHINE_DIAGRAM, "applyLayoutData", object, start); //$NON-NLS-1$
 	}
 
 
@@ -1418,6 +1421,7 @@ public class StateMachineServices {
 
 			}
 		}
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.STATE_MACHINE_DIAGRAM, "dndBorderPseudoState", context); //$NON-NLS-1$
 
 	}
 
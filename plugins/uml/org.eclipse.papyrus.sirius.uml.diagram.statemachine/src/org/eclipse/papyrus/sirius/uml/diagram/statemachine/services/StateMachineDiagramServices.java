@@ -18,6 +18,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.papyrus.sirius.uml.diagram.common.services.EventCaptureServices;
 import org.eclipse.sirius.viewpoint.DSemanticDecorator;
 import org.eclipse.uml2.uml.Comment;
 import org.eclipse.uml2.uml.Constraint;
@@ -241,6 +242,7 @@ public class StateMachineDiagramServices {
 		if (owner != region) {
 			region.getTransitions().add(transition);
 		}
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.STATE_MACHINE_DIAGRAM, "transition_reconnectSource", transition); //$NON-NLS-1$
 	}
 
 	/**
@@ -255,6 +257,7 @@ public class StateMachineDiagramServices {
 	 */
 	public void transition_reconnectTarget(final Transition transition, final Vertex oldTarget, final Vertex newTarget) {
 		transition.setTarget(newTarget);
+		EventCaptureServices.INSTANCE.toolInvoked(EventCaptureServices.STATE_MACHINE_DIAGRAM, "transition_reconnectTarget", transition); //$NON-NLS-1$
 	}
 
 	/**
@@ -0,0 +1,150 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.eclipse.papyrus.sirius.log.CallerSampler;
+import org.eclipse.papyrus.sirius.log.capture.EventCapture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the {@link CallerSampler} and of {@link EventCapture#sampleCaller(String...)}: the returned caller must be
+ * the real call site of the instrumented code, never a frame of the capture itself.
+ */
+public class CallerSamplerTest {
+
+	/** The value of {@link EventCapture#CALLER_SAMPLING_PROPERTY} before the test. */
+	private String previousSampling;
+
+	/** The value of {@link EventCapture#ENABLED_PROPERTY} before the test. */
+	private String previousEnabled;
+
+	/**
+	 * Restart the shared capture with a caller sampling of every event.
+	 */
+	@Before
+	public void setUp() {
+		previousSampling = System.setProperty(EventCapture.CALLER_SAMPLING_PROPERTY, "1"); //$NON-NLS-1$
+		previousEnabled = System.setProperty(EventCapture.ENABLED_PROPERTY, Boolean.TRUE.toString());
+		EventCapture.shutdown();
+	}
+
+	/**
+	 * Restore the shared capture as configured before the test.
+	 */
+	@After
+	public void tearDown() {
+		EventCapture.shutdown();
+		restoreProperty(EventCapture.CALLER_SAMPLING_PROPERTY, previousSampling);
+		restoreProperty(EventCapture.ENABLED_PROPERTY, previousEnabled);
+	}
+
+	/**
+	 * The caller found by the shared capture is the method calling the instrumented service.
+	 */
+	@Test
+	public void testEventCaptureReturnsCallSite() {
+		assertEquals(CallerSamplerTest.class.getName() + ".testEventCaptureReturnsCallSite", InstrumentedService.invoke()); //$NON-NLS-1$
+	}
+
+	/**
+	 * The caller found by a sampler skipping a delegating class is the method calling the instrumented service.
+	 */
+	@Test
+	public void testSamplerSkipsDelegatingClass() {
+		final CallerSampler sampler = new CallerSampler(1, Delegate.class.getName());
+		assertEquals(CallerSamplerTest.class.getName() + ".testSamplerSkipsDelegatingClass", InstrumentedService.invoke(sampler)); //$NON-NLS-1$
+	}
+
+	/**
+	 * The caller found without sampler is the method calling the instrumented code.
+	 */
+	@Test
+	public void testGetCallerReturnsCallSite() {
+		assertEquals(CallerSamplerTest.class.getName() + ".testGetCallerReturnsCallSite", InstrumentedService.getCaller()); //$NON-NLS-1$
+	}
+
+	/**
+	 * A disabled sampler never walks the stack.
+	 */
+	@Test
+	public void testDisabledSampler() {
+		assertNull(InstrumentedService.invoke(new CallerSampler(0)));
+	}
+
+	/**
+	 * Restore a system property.
+	 *
+	 * @param key
+	 *            the key of the property
+	 * @param value
+	 *            the previous value, <code>null</code> if the property was not defined
+	 */
+	private static void restoreProperty(final String key, final String value) {
+		if (value == null) {
+			System.clearProperty(key);
+		} else {
+			System.setProperty(key, value);
+		}
+	}
+
+	/**
+	 * An instrumented service, in the way of the diagram services.
+	 */
+	private static final class InstrumentedService {
+
+		/**
+		 * @return
+		 *         the caller sampled by the shared capture
+		 */
+		static String invoke() {
+			return EventCapture.getDefault().sampleCaller(InstrumentedService.class.getName());
+		}
+
+		/**
+		 * @return
+		 *         the caller sampled through a delegate of the given sampler
+		 */
+		static String invoke(final CallerSampler sampler) {
+			return Delegate.sample(sampler, InstrumentedService.class.getName());
+		}
+
+		/**
+		 * @return
+		 *         the caller found without sampling
+		 */
+		static String getCaller() {
+			return CallerSampler.getCaller(InstrumentedService.class.getName());
+		}
+	}
+
+	/**
+	 * A class delegating to the sampler, in the way of {@link EventCapture}.
+	 */
+	private static final class Delegate {
+
+		/**
+		 * @return
+		 *         the caller sampled by the given sampler
+		 */
+		static String sample(final CallerSampler sampler, final String... instrumentedClassNames) {
+			return sampler.sample(instrumentedClassNames);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.papyrus.sirius.log.capture.CapturedEvent;
+import org.eclipse.papyrus.sirius.log.capture.EventCapture;
+import org.eclipse.papyrus.sirius.log.capture.IEventSink;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the delivery of the recorded events by the capture thread, which parks while the buffer is empty.
+ */
+public class EventCaptureTest {
+
+	/** The number of producer threads. */
+	private static final int PRODUCERS = 4;
+
+	/** The number of events recorded by each producer. */
+	private static final int EVENTS_PER_PRODUCER = 200;
+
+	/** The maximal time to wait for the delivery of the events, in seconds. */
+	private static final long TIMEOUT_SECONDS = 10;
+
+	/** The value of {@link EventCapture#ENABLED_PROPERTY} before the test. */
+	private String previousEnabled;
+
+	/**
+	 * Restart the shared capture.
+	 */
+	@Before
+	public void setUp() {
+		previousEnabled = System.setProperty(EventCapture.ENABLED_PROPERTY, Boolean.TRUE.toString());
+		EventCapture.shutdown();
+	}
+
+	/**
+	 * Restore the shared capture as configured before the test.
+	 */
+	@After
+	public void tearDown() {
+		EventCapture.shutdown();
+		if (previousEnabled == null) {
+			System.clearProperty(EventCapture.ENABLED_PROPERTY);
+		} else {
+			System.setProperty(EventCapture.ENABLED_PROPERTY, previousEnabled);
+		}
+	}
+
+	/**
+	 * An event recorded while the capture thread is idle wakes it up.
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testIdleCaptureIsWokenUp() throws InterruptedException {
+		final EventCapture capture = EventCapture.getDefault();
+		for (int i = 0; i < 3; i++) {
+			final CountDownLatch delivered = new CountDownLatch(1);
+			final IEventSink sink = event -> delivered.countDown();
+			capture.addSink(sink);
+			// let the capture thread find the buffer empty and park
+			Thread.sleep(50);
+			assertTrue(capture.record("trace", null, "activity", null, null)); //$NON-NLS-1$ //$NON-NLS-2$
+			assertTrue("the event has not been delivered", delivered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)); //$NON-NLS-1$
+			capture.removeSink(sink);
+		}
+	}
+
+	/**
+	 * The events recorded concurrently by several threads, with pauses letting the capture thread park, are all delivered.
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testConcurrentEventsAreDelivered() throws InterruptedException {
+		final EventCapture capture = EventCapture.getDefault();
+		final CountDownLatch delivered = new CountDownLatch(PRODUCERS * EVENTS_PER_PRODUCER);
+		capture.addSink((CapturedEvent event) -> delivered.countDown());
+
+		final List<Thread> producers = new ArrayList<>();
+		for (int p = 0; p < PRODUCERS; p++) {
+			final Thread producer = new Thread(() -> {
+				for (int i = 0; i < EVENTS_PER_PRODUCER; i++) {
+					while (!capture.record("trace", null, "activity", null, null)) { //$NON-NLS-1$ //$NON-NLS-2$
+						// the buffer is full, retry
+						Thread.yield();
+					}
+					if (i % 50 == 0) {
+						try {
+							Thread.sleep(1);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							return;
+						}
+					}
+				}
+			});
+			producers.add(producer);
+			producer.start();
+		}
+		for (final Thread producer : producers) {
+			producer.join();
+		}
+		assertTrue("some events have not been delivered", delivered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)); //$NON-NLS-1$
+		assertEquals(0, delivered.getCount());
+	}
+}
@@ -0,0 +1,227 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.eclipse.papyrus.sirius.log.capture.binary.BinaryTraceFormat;
+import org.eclipse.papyrus.sirius.log.capture.binary.BinaryTraceReader;
+import org.eclipse.papyrus.sirius.log.capture.binary.TraceExporter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the {@link BinaryTraceReader} and of the {@link TraceExporter}, on binary files written by the tests.
+ */
+public class TraceExporterTest {
+
+	/** The dictionary of the written file: the traces, the activity and the lifecycle. */
+	private static final List<String> DICTIONARY = Arrays.asList("traceA", "traceB", "createClass", "complete"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+	/** The folder of the test files. */
+	private Path folder;
+
+	/**
+	 * Create the folder of the test files.
+	 *
+	 * @throws IOException
+	 */
+	@Before
+	public void setUp() throws IOException {
+		folder = Files.createTempDirectory("binaryTraces"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Delete the folder of the test files.
+	 *
+	 * @throws IOException
+	 */
+	@After
+	public void tearDown() throws IOException {
+		try (Stream<Path> paths = Files.walk(folder)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	/**
+	 * The events of the interleaved traces are grouped by trace, in the order of their first event.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testExportToXesGroupsTraces() throws IOException {
+		final Path input = write("events.pev", events(0, 1, 0, 1, 1), new byte[0]); //$NON-NLS-1$
+		final Path output = folder.resolve("log.xes"); //$NON-NLS-1$
+		TraceExporter.exportToXes(Collections.singletonList(input), output);
+
+		final String xes = Files.readString(output, StandardCharsets.UTF_8);
+		final int traceA = xes.indexOf("traceA"); //$NON-NLS-1$
+		final int traceB = xes.indexOf("traceB"); //$NON-NLS-1$
+		assertTrue(traceA >= 0 && traceB > traceA);
+		assertEquals(2, count(xes.substring(traceA, traceB), "<event>")); //$NON-NLS-1$
+		assertEquals(3, count(xes.substring(traceB), "<event>")); //$NON-NLS-1$
+	}
+
+	/**
+	 * A truncated last record is ignored, the previous events are read.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testTruncatedLastRecordIsIgnored() throws IOException {
+		final byte[] events = events(0, 1, 0);
+		final Path input = write("truncated.pev", Arrays.copyOf(events, events.length - 2), new byte[0]); //$NON-NLS-1$
+		assertEquals(2, read(input).size());
+	}
+
+	/**
+	 * The zeros after the last record, left when the file can't be truncated, are ignored.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testZeroTailIsIgnored() throws IOException {
+		final Path input = write("padded.pev", events(0, 1, 0), new byte[64]); //$NON-NLS-1$
+		assertEquals(3, read(input).size());
+	}
+
+	/**
+	 * An event referencing an unknown string is reported as a corruption.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testUnknownReferenceIsCorruption() throws IOException {
+		final ByteBuffer event = ByteBuffer.allocate(BinaryTraceFormat.MAX_EVENT_SIZE);
+		event.put(BinaryTraceFormat.TAG_EVENT);
+		BinaryTraceFormat.putVarLong(event, 42);
+		event.flip();
+		final byte[] corrupted = Arrays.copyOf(event.array(), event.limit());
+		final Path input = write("corrupted.pev", events(0), concat(corrupted, events(1))); //$NON-NLS-1$
+		assertCorrupted(input);
+	}
+
+	/**
+	 * Data after the end of the records is reported as a corruption.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testDataAfterEndIsCorruption() throws IOException {
+		final Path input = write("trailing.pev", events(0), concat(new byte[] { BinaryTraceFormat.TAG_END }, events(1))); //$NON-NLS-1$
+		assertCorrupted(input);
+	}
+
+	/**
+	 * Check that a file is reported as corrupted.
+	 */
+	private static void assertCorrupted(final Path input) {
+		try {
+			read(input);
+			fail("The corrupted file has been read"); //$NON-NLS-1$
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains(input.toString()));
+		}
+	}
+
+	/**
+	 * @return
+	 *         the trace identifiers of the events of a file
+	 */
+	private static List<String> read(final Path input) throws IOException {
+		final List<String> traceIds = new ArrayList<>();
+		BinaryTraceReader.read(input, (traceId, timestamp, activity, lifecycle, diagramKind, elementType, elementURI, details, caller) -> traceIds.add(traceId));
+		return traceIds;
+	}
+
+	/**
+	 * Write a binary file: the header, the dictionary, the given events and the given tail.
+	 */
+	private Path write(final String name, final byte[] events, final byte[] tail) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(1024);
+		buffer.put(BinaryTraceFormat.MAGIC);
+		buffer.put(BinaryTraceFormat.VERSION);
+		for (int id = 0; id < DICTIONARY.size(); id++) {
+			final byte[] bytes = DICTIONARY.get(id).getBytes(StandardCharsets.UTF_8);
+			buffer.put(BinaryTraceFormat.TAG_STRING);
+			BinaryTraceFormat.putVarLong(buffer, id);
+			BinaryTraceFormat.putVarLong(buffer, bytes.length);
+			buffer.put(bytes);
+		}
+		buffer.put(events);
+		buffer.put(tail);
+		final Path path = folder.resolve(name);
+		Files.write(path, Arrays.copyOf(buffer.array(), buffer.position()));
+		return path;
+	}
+
+	/**
+	 * @param traces
+	 *            the dictionary id of the trace of each event
+	 * @return
+	 *         the encoded events
+	 */
+	private static byte[] events(final int... traces) {
+		final ByteBuffer buffer = ByteBuffer.allocate(traces.length * BinaryTraceFormat.MAX_EVENT_SIZE);
+		for (final int trace : traces) {
+			buffer.put(BinaryTraceFormat.TAG_EVENT);
+			BinaryTraceFormat.putVarLong(buffer, trace);
+			BinaryTraceFormat.putZigZagLong(buffer, 1000);
+			BinaryTraceFormat.putVarLong(buffer, 2);
+			BinaryTraceFormat.putVarLong(buffer, 3);
+			for (int i = 0; i < 5; i++) {
+				BinaryTraceFormat.putVarLong(buffer, 0);
+			}
+		}
+		return Arrays.copyOf(buffer.array(), buffer.position());
+	}
+
+	/**
+	 * @return
+	 *         the concatenation of two arrays
+	 */
+	private static byte[] concat(final byte[] first, final byte[] second) {
+		final byte[] result = Arrays.copyOf(first, first.length + second.length);
+		System.arraycopy(second, 0, result, first.length, second.length);
+		return result;
+	}
+
+	/**
+	 * @return
+	 *         the number of occurrences of a string in a text
+	 */
+	private static int count(final String text, final String searched) {
+		int count = 0;
+		for (int index = text.indexOf(searched); index >= 0; index = text.indexOf(searched, index + 1)) {
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,148 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.eclipse.papyrus.sirius.log.capture.TraceFileRetention;
+import org.eclipse.papyrus.sirius.log.capture.xes.XesEventSink;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the {@link TraceFileRetention}.
+ */
+public class TraceFileRetentionTest {
+
+	/** One hour, in milliseconds. */
+	private static final long HOUR = 60L * 60 * 1000;
+
+	/** The current time of the tests. */
+	private static final long NOW = System.currentTimeMillis();
+
+	/** The folder of the trace files. */
+	private Path folder;
+
+	/**
+	 * Create the folder of the trace files.
+	 *
+	 * @throws IOException
+	 */
+	@Before
+	public void setUp() throws IOException {
+		folder = Files.createTempDirectory("traces"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Delete the folder of the trace files.
+	 *
+	 * @throws IOException
+	 */
+	@After
+	public void tearDown() throws IOException {
+		try (Stream<Path> paths = Files.walk(folder)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	/**
+	 * The files older than the maximal age are deleted, the other files are kept.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testOldFilesAreDeleted() throws IOException {
+		final Path old = createFile("trace_20220101-100000-000.xes", 3 * HOUR); //$NON-NLS-1$
+		final Path recent = createFile("trace_20220101-110000-000.xes", HOUR); //$NON-NLS-1$
+
+		assertEquals(1, new TraceFileRetention(2 * HOUR, 0).apply(folder, XesEventSink.FILE_NAME_PATTERN, Collections.emptySet(), NOW));
+		assertFalse(Files.exists(old));
+		assertTrue(Files.exists(recent));
+	}
+
+	/**
+	 * The files of the folder not written by the sink are kept, even with the extension of the trace files.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testOtherFilesAreKept() throws IOException {
+		final Path trace = createFile("trace_20220101-100000-000-1.xes", 3 * HOUR); //$NON-NLS-1$
+		final Path userTrace = createFile("old.xes", 3 * HOUR); //$NON-NLS-1$
+		final Path renamedTrace = createFile("trace_20220101-100000-000.xes.bak", 3 * HOUR); //$NON-NLS-1$
+		final Path other = createFile("other.txt", 3 * HOUR); //$NON-NLS-1$
+
+		assertEquals(1, new TraceFileRetention(2 * HOUR, 1).apply(folder, XesEventSink.FILE_NAME_PATTERN, Collections.emptySet(), NOW));
+		assertFalse(Files.exists(trace));
+		assertTrue(Files.exists(userTrace));
+		assertTrue(Files.exists(renamedTrace));
+		assertTrue(Files.exists(other));
+	}
+
+	/**
+	 * Only the most recent files are kept, the open files are counted but never deleted.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testOnlyMostRecentFilesAreKept() throws IOException {
+		final Path open = createFile("open_20220101-080000-000.xes", 4 * HOUR); //$NON-NLS-1$
+		final Path oldest = createFile("oldest_20220101-090000-000.xes", 3 * HOUR); //$NON-NLS-1$
+		final Path older = createFile("older_20220101-100000-000.xes", 2 * HOUR); //$NON-NLS-1$
+		final Path newest = createFile("newest_20220101-110000-000.xes", HOUR); //$NON-NLS-1$
+
+		assertEquals(2, new TraceFileRetention(0, 2).apply(folder, XesEventSink.FILE_NAME_PATTERN, Collections.singleton(open), NOW));
+		assertTrue(Files.exists(open));
+		assertTrue(Files.exists(newest));
+		assertFalse(Files.exists(older));
+		assertFalse(Files.exists(oldest));
+	}
+
+	/**
+	 * A missing folder is ignored.
+	 */
+	@Test
+	public void testMissingFolder() {
+		assertEquals(0, TraceFileRetention.getDefault().apply(folder.resolve("missing"), XesEventSink.FILE_NAME_PATTERN, Collections.emptySet(), NOW)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Create a trace file.
+	 *
+	 * @param name
+	 *            the name of the file
+	 * @param age
+	 *            the age of the file, in milliseconds
+	 * @return
+	 *         the path of the file
+	 * @throws IOException
+	 */
+	private Path createFile(final String name, final long age) throws IOException {
+		final Path path = Files.createFile(folder.resolve(name));
+		Files.setLastModifiedTime(path, FileTime.fromMillis(NOW - age));
+		return path;
+	}
+}
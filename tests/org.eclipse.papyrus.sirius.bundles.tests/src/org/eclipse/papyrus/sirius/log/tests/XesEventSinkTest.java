@@ -0,0 +1,153 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.log.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.eclipse.papyrus.sirius.log.capture.CapturedEvent;
+import org.eclipse.papyrus.sirius.log.capture.EventCapture;
+import org.eclipse.papyrus.sirius.log.capture.IEventSink;
+import org.eclipse.papyrus.sirius.log.capture.xes.XesEventSink;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+/**
+ * Tests of the XES files written by the {@link XesEventSink}.
+ */
+public class XesEventSinkTest {
+
+	/** The number of recorded events, enough to fill the write buffer several times. */
+	private static final int EVENTS = 500;
+
+	/** The maximal time to wait for the delivery of the events, in seconds. */
+	private static final long TIMEOUT_SECONDS = 10;
+
+	/** The value of {@link EventCapture#ENABLED_PROPERTY} before the test. */
+	private String previousEnabled;
+
+	/** The folder of the trace files. */
+	private Path folder;
+
+	/**
+	 * Restart the shared capture and create the folder of the trace files.
+	 *
+	 * @throws IOException
+	 */
+	@Before
+	public void setUp() throws IOException {
+		previousEnabled = System.setProperty(EventCapture.ENABLED_PROPERTY, Boolean.TRUE.toString());
+		EventCapture.shutdown();
+		folder = Files.createTempDirectory("traces"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Restore the shared capture as configured before the test and delete the folder of the trace files.
+	 *
+	 * @throws IOException
+	 */
+	@After
+	public void tearDown() throws IOException {
+		EventCapture.shutdown();
+		if (previousEnabled == null) {
+			System.clearProperty(EventCapture.ENABLED_PROPERTY);
+		} else {
+			System.setProperty(EventCapture.ENABLED_PROPERTY, previousEnabled);
+		}
+		try (Stream<Path> paths = Files.walk(folder)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	/**
+	 * The file written before the end of a batch, as left by a crash of the application, is a well-formed XES document
+	 * holding complete events. All the events are written when the sink is closed.
+	 *
+	 * @throws InterruptedException
+	 * @throws IOException
+	 * @throws SAXException
+	 * @throws ParserConfigurationException
+	 */
+	@Test
+	public void testUncommittedFileIsWellFormed() throws InterruptedException, IOException, SAXException, ParserConfigurationException {
+		final XesEventSink xesSink = new XesEventSink(folder, XesEventSink.DEFAULT_MAX_FILE_SIZE, XesEventSink.DEFAULT_MAX_FILE_AGE, null);
+		final CountDownLatch delivered = new CountDownLatch(EVENTS);
+		// the end of the batches is not forwarded, so the XES sink never commits
+		final IEventSink sink = event -> {
+			xesSink.accept(event);
+			delivered.countDown();
+		};
+		final EventCapture capture = EventCapture.getDefault();
+		capture.addSink(sink);
+		for (int i = 0; i < EVENTS; i++) {
+			while (!capture.record("trace", "diagram", "activity" + i, "type", "uri", CapturedEvent.LIFECYCLE_COMPLETE, "details of the event " + i)) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+				// the buffer is full, retry
+				Thread.yield();
+			}
+		}
+		assertTrue("some events have not been delivered", delivered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)); //$NON-NLS-1$
+		capture.removeSink(sink);
+
+		final Path file = getTraceFile();
+		assertTrue("the full write buffers have not been written", countEvents(file) > 0); //$NON-NLS-1$
+
+		xesSink.close();
+		assertEquals(EVENTS, countEvents(file));
+	}
+
+	/**
+	 * @return
+	 *         the single trace file of the folder
+	 * @throws IOException
+	 */
+	private Path getTraceFile() throws IOException {
+		try (Stream<Path> paths = Files.list(folder)) {
+			final List<Path> files = paths.collect(Collectors.toList());
+			assertEquals(1, files.size());
+			return files.get(0);
+		}
+	}
+
+	/**
+	 * Parse a trace file.
+	 *
+	 * @param file
+	 *            the trace file
+	 * @return
+	 *         the number of events of the file
+	 * @throws IOException
+	 * @throws SAXException
+	 *             if the file is not well-formed
+	 * @throws ParserConfigurationException
+	 */
+	private static int countEvents(final Path file) throws IOException, SAXException, ParserConfigurationException {
+		return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file.toFile()).getElementsByTagName("event").getLength(); //$NON-NLS-1$
+	}
+}
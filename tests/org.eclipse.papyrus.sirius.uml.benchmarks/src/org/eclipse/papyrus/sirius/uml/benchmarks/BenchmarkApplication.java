@@ -0,0 +1,69 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.benchmarks;
+
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of this bundle in the running Eclipse platform, as the services need the registered EMF
+ * packages and the Sirius session factory.
+ *
+ * The application arguments are the JMH command line options, for example:
+ *
+ * <pre>
+ * eclipse -application org.eclipse.papyrus.sirius.uml.benchmarks.application -consoleLog -nosplash ElementServices -p size=10000 -rf json
+ * </pre>
+ *
+ * The benchmarks always run in the platform JVM: the forks requested by the options are ignored, so the JVM options
+ * (heap size, JIT flags) are the ones of the platform.
+ */
+public class BenchmarkApplication implements IApplication {
+
+	/**
+	 * @see org.eclipse.equinox.app.IApplication#start(org.eclipse.equinox.app.IApplicationContext)
+	 *
+	 * @param context
+	 * @return
+	 * @throws Exception
+	 */
+	@Override
+	public Object start(final IApplicationContext context) throws Exception {
+		final String[] arguments = (String[]) context.getArguments().get(IApplicationContext.APPLICATION_ARGS);
+		final CommandLineOptions commandLineOptions = new CommandLineOptions(arguments != null ? arguments : new String[0]);
+		if (commandLineOptions.shouldHelp()) {
+			commandLineOptions.showHelp();
+			return IApplication.EXIT_OK;
+		}
+		final Runner runner = new Runner(new OptionsBuilder().parent(commandLineOptions).forks(0).build());
+		if (commandLineOptions.shouldList()) {
+			runner.list();
+		} else {
+			runner.run();
+		}
+		return IApplication.EXIT_OK;
+	}
+
+	/**
+	 * @see org.eclipse.equinox.app.IApplication#stop()
+	 */
+	@Override
+	public void stop() {
+		// the benchmarks can't be interrupted
+	}
+}
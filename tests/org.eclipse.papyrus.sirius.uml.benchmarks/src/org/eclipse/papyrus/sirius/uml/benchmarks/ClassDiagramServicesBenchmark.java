@@ -0,0 +1,41 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.benchmarks;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.papyrus.sirius.uml.diagram.clazz.services.ClassDiagramServices;
+import org.eclipse.uml2.uml.Association;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+/**
+ * Benchmarks of the semantic candidates of the class diagram.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClassDiagramServicesBenchmark {
+
+	/**
+	 * The associations displayed in a diagram of the model, found in all the nested packages.
+	 */
+	@Benchmark
+	public Collection<Association> associationSemanticCandidates(final ClassModelState state) {
+		return ClassDiagramServices.INSTANCE.association_getSemanticCandidates(state.model);
+	}
+}
@@ -0,0 +1,71 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.benchmarks;
+
+import org.eclipse.uml2.uml.Class;
+import org.eclipse.uml2.uml.Model;
+import org.eclipse.uml2.uml.Package;
+import org.eclipse.uml2.uml.Property;
+import org.eclipse.uml2.uml.UMLFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The class model shared by the benchmarks of a trial, see {@link SyntheticModels#createClassModel(int)}.
+ */
+@State(Scope.Benchmark)
+public class ClassModelState {
+
+	/** The number of classes of the model. */
+	@Param({ "1000", "10000", "100000" })
+	public int size;
+
+	/** The model. */
+	public Model model;
+
+	/** The last created class, found last by a search in the containment order. */
+	public Class lastClass;
+
+	/** An attribute of the last class. */
+	public Property attribute;
+
+	/** An unnamed class, added to the last package. */
+	public Class unnamedClass;
+
+	/**
+	 * Build the model.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		model = SyntheticModels.createClassModel(size);
+		final Package lastPackage = getLastPackage(model);
+		lastClass = (Class) lastPackage.getOwnedType("Class" + (size - 1)); //$NON-NLS-1$
+		attribute = lastClass.getOwnedAttributes().get(0);
+		unnamedClass = UMLFactory.eINSTANCE.createClass();
+		lastPackage.getPackagedElements().add(unnamedClass);
+	}
+
+	/**
+	 * @return
+	 *         the package owning the last created class
+	 */
+	private static Package getLastPackage(final Package root) {
+		final int count = root.getNestedPackages().size();
+		return count == 0 ? root : getLastPackage(root.getNestedPackages().get(count - 1));
+	}
+}
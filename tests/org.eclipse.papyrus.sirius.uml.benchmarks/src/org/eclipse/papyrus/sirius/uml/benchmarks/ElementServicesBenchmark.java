@@ -0,0 +1,48 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.papyrus.sirius.uml.diagram.common.core.services.ElementServices;
+import org.eclipse.uml2.uml.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+/**
+ * Benchmarks of the search of the types by name, used by the direct edition of the typed elements.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ElementServicesBenchmark {
+
+	/**
+	 * The search of the last created class.
+	 */
+	@Benchmark
+	public Type findLastTypeByName(final ClassModelState state) {
+		return ElementServices.INSTANCE.findTypeByName(state.attribute, state.lastClass.getName());
+	}
+
+	/**
+	 * The search of a type which doesn't exist, visiting all the elements of the resource set.
+	 */
+	@Benchmark
+	public Type findMissingTypeByName(final ClassModelState state) {
+		return ElementServices.INSTANCE.findTypeByName(state.attribute, "MissingType"); //$NON-NLS-1$
+	}
+}
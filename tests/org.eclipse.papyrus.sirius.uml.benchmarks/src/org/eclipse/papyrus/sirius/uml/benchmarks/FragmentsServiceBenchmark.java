@@ -0,0 +1,63 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.papyrus.sirius.uml.diagram.sequence.services.FragmentsService;
+import org.eclipse.uml2.uml.Interaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of the ordering of the fragments of the sequence diagram.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FragmentsServiceBenchmark {
+
+	/** The number of messages of the interaction, each message having two fragments. */
+	@Param({ "500", "5000", "50000" })
+	public int size;
+
+	/** The interaction. */
+	private Interaction interaction;
+
+	/**
+	 * Build the interaction.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		interaction = SyntheticModels.createInteraction(size);
+	}
+
+	/**
+	 * The ordered ends of the whole interaction.
+	 */
+	@Benchmark
+	public List<EObject> fragmentsOrderingEnds() {
+		return FragmentsService.getInstance().getFragmentsOrderingEnds(interaction);
+	}
+}
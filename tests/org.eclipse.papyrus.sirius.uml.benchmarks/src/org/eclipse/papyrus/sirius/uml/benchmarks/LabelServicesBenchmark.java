@@ -0,0 +1,56 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.papyrus.sirius.uml.diagram.common.core.services.DisplayLabelSwitch;
+import org.eclipse.papyrus.sirius.uml.diagram.common.core.services.LabelServices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+/**
+ * Benchmarks of the computation of the labels and of the default names.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LabelServicesBenchmark {
+
+	/**
+	 * The default name of a new class, counting the classes of its package.
+	 */
+	@Benchmark
+	public String computeDefaultName(final ClassModelState state) {
+		return LabelServices.INSTANCE.computeDefaultName(state.unnamedClass);
+	}
+
+	/**
+	 * The label of a class, through {@link LabelServices#computeUmlLabel(org.eclipse.uml2.uml.Element)}.
+	 */
+	@Benchmark
+	public String computeClassLabel(final ClassModelState state) {
+		return LabelServices.INSTANCE.computeUmlLabel(state.lastClass);
+	}
+
+	/**
+	 * The label of a typed attribute, computed by a new {@link DisplayLabelSwitch} as done by the services.
+	 */
+	@Benchmark
+	public String computeAttributeLabel(final ClassModelState state) {
+		return new DisplayLabelSwitch().doSwitch(state.attribute);
+	}
+}
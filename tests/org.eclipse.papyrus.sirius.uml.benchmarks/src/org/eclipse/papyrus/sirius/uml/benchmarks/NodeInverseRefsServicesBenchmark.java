@@ -0,0 +1,136 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.papyrus.sirius.uml.diagram.common.core.services.NodeInverseRefsServices;
+import org.eclipse.sirius.business.api.session.Session;
+import org.eclipse.sirius.business.api.session.factory.SessionFactory;
+import org.eclipse.sirius.diagram.DNode;
+import org.eclipse.sirius.diagram.DSemanticDiagram;
+import org.eclipse.sirius.diagram.DiagramFactory;
+import org.eclipse.sirius.tools.api.command.semantic.AddSemanticResourceCommand;
+import org.eclipse.uml2.uml.Class;
+import org.eclipse.uml2.uml.Model;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks of the inverse references of the elements displayed in a diagram, used as semantic candidates of the
+ * edges of the class diagram.
+ *
+ * The class model is saved in a temporary folder and added to a new Sirius session, whose semantic cross referencer
+ * is used by the service. The diagram displays all the classes of the model and isn't attached to the session.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class NodeInverseRefsServicesBenchmark {
+
+	/** The number of classes of the model. */
+	@Param({ "1000", "10000", "100000" })
+	public int size;
+
+	/** The temporary folder of the session. */
+	private File folder;
+
+	/** The session. */
+	private Session session;
+
+	/** The diagram. */
+	private DSemanticDiagram diagram;
+
+	/**
+	 * Create the session and the diagram.
+	 *
+	 * @throws IOException
+	 *             if the model can't be saved
+	 * @throws CoreException
+	 *             if the session can't be created
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, CoreException {
+		folder = Files.createTempDirectory("papyrus-sirius-benchmark").toFile(); //$NON-NLS-1$
+		final Model created = SyntheticModels.createClassModel(size);
+		final URI modelURI = URI.createFileURI(new File(folder, "model.uml").getAbsolutePath()); //$NON-NLS-1$
+		final Resource modelResource = created.eResource();
+		modelResource.setURI(modelURI);
+		modelResource.save(null);
+		modelResource.unload();
+
+		final NullProgressMonitor monitor = new NullProgressMonitor();
+		session = SessionFactory.INSTANCE.createSession(URI.createFileURI(new File(folder, "representations.aird").getAbsolutePath()), monitor); //$NON-NLS-1$
+		session.open(monitor);
+		session.getTransactionalEditingDomain().getCommandStack().execute(new AddSemanticResourceCommand(session, modelURI, monitor));
+
+		final Model model = (Model) session.getTransactionalEditingDomain().getResourceSet().getResource(modelURI, false).getContents().get(0);
+		diagram = DiagramFactory.eINSTANCE.createDSemanticDiagram();
+		diagram.setTarget(model);
+		for (final Iterator<EObject> iterator = EcoreUtil.getAllProperContents(model, true); iterator.hasNext();) {
+			final EObject element = iterator.next();
+			if (element instanceof Class) {
+				final DNode node = DiagramFactory.eINSTANCE.createDNode();
+				node.setTarget(element);
+				diagram.getOwnedDiagramElements().add(node);
+			}
+		}
+	}
+
+	/**
+	 * Close the session and delete the temporary folder.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (session != null) {
+			session.close(new NullProgressMonitor());
+			session = null;
+		}
+		if (folder != null) {
+			for (final File file : folder.listFiles()) {
+				file.delete();
+			}
+			folder.delete();
+			folder = null;
+		}
+	}
+
+	/**
+	 * The associations referencing the displayed classes.
+	 */
+	@Benchmark
+	public Collection<EObject> associationInverseRefs() {
+		return NodeInverseRefsServices.INSTANCE.getNodeInverseRefs(diagram, "Association"); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,163 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.uml2.uml.AggregationKind;
+import org.eclipse.uml2.uml.Class;
+import org.eclipse.uml2.uml.CombinedFragment;
+import org.eclipse.uml2.uml.Interaction;
+import org.eclipse.uml2.uml.InteractionOperand;
+import org.eclipse.uml2.uml.InteractionOperatorKind;
+import org.eclipse.uml2.uml.Lifeline;
+import org.eclipse.uml2.uml.Message;
+import org.eclipse.uml2.uml.MessageOccurrenceSpecification;
+import org.eclipse.uml2.uml.Model;
+import org.eclipse.uml2.uml.Package;
+import org.eclipse.uml2.uml.UMLFactory;
+import org.eclipse.uml2.uml.UMLPackage;
+
+/**
+ * Builds synthetic UML models of a given size, with a shape close to the one of the models edited in the diagrams.
+ */
+public final class SyntheticModels {
+
+	/** The number of classes in a package. */
+	public static final int PACKAGE_SIZE = 100;
+
+	/** The depth of the package nesting: a package is nested in the previous one, except every <code>PACKAGE_DEPTH</code> packages. */
+	public static final int PACKAGE_DEPTH = 10;
+
+	/** The number of messages between two combined fragments of an interaction. */
+	public static final int MESSAGES_PER_COMBINED_FRAGMENT = 20;
+
+	/** The number of messages in the operand of a combined fragment. */
+	public static final int MESSAGES_PER_OPERAND = 10;
+
+	/**
+	 * Constructor.
+	 */
+	private SyntheticModels() {
+		// to prevent instantiation
+	}
+
+	/**
+	 * Create a class model, in a new resource of a new resource set.
+	 *
+	 * The classes are named <code>Class0</code> to <code>Class(size-1)</code> and split in packages of
+	 * {@value #PACKAGE_SIZE} classes. Each class owns an attribute typed by the previous class, and each class of odd
+	 * index is associated to the previous one.
+	 *
+	 * @param size
+	 *            the number of classes
+	 * @return
+	 *         the model
+	 */
+	public static Model createClassModel(final int size) {
+		final Model model = createModel("ClassModel"); //$NON-NLS-1$
+		final List<Package> packages = new ArrayList<>();
+		Package currentPackage = null;
+		Class previous = null;
+		for (int i = 0; i < size; i++) {
+			if (i % PACKAGE_SIZE == 0) {
+				final int packageIndex = packages.size();
+				final Package owner = packageIndex % PACKAGE_DEPTH == 0 ? model : packages.get(packageIndex - 1);
+				currentPackage = owner.createNestedPackage("package" + packageIndex); //$NON-NLS-1$
+				packages.add(currentPackage);
+			}
+			final Class current = currentPackage.createOwnedClass("Class" + i, false); //$NON-NLS-1$
+			if (previous != null) {
+				current.createOwnedAttribute("attribute" + i, previous); //$NON-NLS-1$
+				if (i % 2 == 1) {
+					current.createAssociation(true, AggregationKind.NONE_LITERAL, "target" + i, 0, 1, previous, //$NON-NLS-1$
+							false, AggregationKind.NONE_LITERAL, "source" + i, 0, -1); //$NON-NLS-1$
+				}
+			}
+			previous = current;
+		}
+		return model;
+	}
+
+	/**
+	 * Create an interaction between two lifelines, in a new model.
+	 *
+	 * Every {@value #MESSAGES_PER_COMBINED_FRAGMENT} messages, {@value #MESSAGES_PER_OPERAND} messages are nested in
+	 * the operand of a combined fragment. The combined fragments and their operands are delimited by the
+	 * <code>_start</code> and <code>_end</code> annotations used by the sequence diagram.
+	 *
+	 * @param size
+	 *            the number of messages
+	 * @return
+	 *         the interaction
+	 */
+	public static Interaction createInteraction(final int size) {
+		final Model model = createModel("InteractionModel"); //$NON-NLS-1$
+		final Interaction interaction = (Interaction) model.createPackagedElement("Interaction", UMLPackage.Literals.INTERACTION); //$NON-NLS-1$
+		final Lifeline sender = interaction.createLifeline("sender"); //$NON-NLS-1$
+		final Lifeline receiver = interaction.createLifeline("receiver"); //$NON-NLS-1$
+		InteractionOperand operand = null;
+		for (int i = 0; i < size; i++) {
+			final int position = i % MESSAGES_PER_COMBINED_FRAGMENT;
+			if (position == 0) {
+				final String name = "combinedFragment" + (i / MESSAGES_PER_COMBINED_FRAGMENT); //$NON-NLS-1$
+				final CombinedFragment combinedFragment = (CombinedFragment) interaction.createFragment(name, UMLPackage.Literals.COMBINED_FRAGMENT);
+				combinedFragment.setInteractionOperator(InteractionOperatorKind.OPT_LITERAL);
+				combinedFragment.getCovereds().add(sender);
+				combinedFragment.getCovereds().add(receiver);
+				combinedFragment.createEAnnotation(name + "_start"); //$NON-NLS-1$
+				combinedFragment.createEAnnotation(name + "_end"); //$NON-NLS-1$
+				operand = combinedFragment.createOperand(name + "_operand"); //$NON-NLS-1$
+				operand.createEAnnotation(operand.getName() + "_start"); //$NON-NLS-1$
+				operand.createEAnnotation(operand.getName() + "_end"); //$NON-NLS-1$
+			}
+			final boolean nested = position < MESSAGES_PER_OPERAND;
+			final MessageOccurrenceSpecification send = (MessageOccurrenceSpecification) (nested
+					? operand.createFragment("send" + i, UMLPackage.Literals.MESSAGE_OCCURRENCE_SPECIFICATION) //$NON-NLS-1$
+					: interaction.createFragment("send" + i, UMLPackage.Literals.MESSAGE_OCCURRENCE_SPECIFICATION)); //$NON-NLS-1$
+			final MessageOccurrenceSpecification receive = (MessageOccurrenceSpecification) (nested
+					? operand.createFragment("receive" + i, UMLPackage.Literals.MESSAGE_OCCURRENCE_SPECIFICATION) //$NON-NLS-1$
+					: interaction.createFragment("receive" + i, UMLPackage.Literals.MESSAGE_OCCURRENCE_SPECIFICATION)); //$NON-NLS-1$
+			send.getCovereds().add(sender);
+			receive.getCovereds().add(receiver);
+			final Message message = interaction.createMessage("message" + i); //$NON-NLS-1$
+			message.setSendEvent(send);
+			message.setReceiveEvent(receive);
+			send.setMessage(message);
+			receive.setMessage(message);
+		}
+		return interaction;
+	}
+
+	/**
+	 * Create a model, in a new resource of a new resource set.
+	 *
+	 * @param name
+	 *            the name of the model
+	 * @return
+	 *         the model
+	 */
+	private static Model createModel(final String name) {
+		final Resource resource = new ResourceSetImpl().createResource(URI.createURI(name + ".uml")); //$NON-NLS-1$
+		final Model model = UMLFactory.eINSTANCE.createModel();
+		model.setName(name);
+		resource.getContents().add(model);
+		return model;
+	}
+}
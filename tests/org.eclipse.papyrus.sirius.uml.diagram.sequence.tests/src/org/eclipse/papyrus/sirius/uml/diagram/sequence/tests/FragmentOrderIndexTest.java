@@ -0,0 +1,394 @@
+/*****************************************************************************
+ * Copyright (c) 2022 CEA LIST and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  CEA LIST - Initial API and implementation
+ *
+ *****************************************************************************/
+package org.eclipse.papyrus.sirius.uml.diagram.sequence.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EAnnotation;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.papyrus.sirius.uml.diagram.sequence.utils.FragmentOrderIndex;
+import org.eclipse.uml2.uml.CombinedFragment;
+import org.eclipse.uml2.uml.Interaction;
+import org.eclipse.uml2.uml.InteractionFragment;
+import org.eclipse.uml2.uml.InteractionOperand;
+import org.eclipse.uml2.uml.MessageOccurrenceSpecification;
+import org.eclipse.uml2.uml.UMLFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the {@link FragmentOrderIndex}: after each modification of the interaction, the order and the positions
+ * answered by the index must be the ones of the linear walk of the FragmentsService.
+ */
+public class FragmentOrderIndexTest {
+
+	/** The suffix of the annotation preceding a combined fragment or an operand. */
+	private static final String START = "_start"; //$NON-NLS-1$
+
+	/** The suffix of the annotation following a combined fragment or an operand. */
+	private static final String END = "_end"; //$NON-NLS-1$
+
+	/** The suffix of the annotation of a lost message end. */
+	private static final String LOST_MESSAGE = "LOSTMESSAGE"; //$NON-NLS-1$
+
+	/** The suffix of the annotation of a found message end. */
+	private static final String FOUND_MESSAGE = "FOUNDMESSAGE"; //$NON-NLS-1$
+
+	/** The number of fragments of the interaction before the modifications. */
+	private static final int INITIAL_FRAGMENTS = 40;
+
+	/** The number of modifications of each test. */
+	private static final int STEPS = 150;
+
+	/** The maximal nesting level of the combined fragments. */
+	private static final int MAX_DEPTH = 3;
+
+	/** The random generator, with a fixed seed to replay the same modifications. */
+	private final Random random = new Random(42);
+
+	/** The number of created elements, used to name them. */
+	private int created;
+
+	/** The tested interaction. */
+	private Interaction interaction;
+
+	/** The index of the tested interaction. */
+	private FragmentOrderIndex index;
+
+	/**
+	 * Create an interaction with nested combined fragments, annotations and message ends, and install its index.
+	 */
+	@Before
+	public void setUp() {
+		interaction = UMLFactory.eINSTANCE.createInteraction();
+		interaction.setName("interaction"); //$NON-NLS-1$
+		for (int i = 0; i < INITIAL_FRAGMENTS; i++) {
+			interaction.getFragments().add(createFragment(0));
+		}
+		index = FragmentOrderIndex.getIndex(interaction);
+	}
+
+	/**
+	 * The index installed on an existing interaction follows the linear walk.
+	 */
+	@Test
+	public void testInstallation() {
+		assertIndexMatchesWalk();
+		assertEquals(index, FragmentOrderIndex.getIndex(interaction));
+	}
+
+	/**
+	 * The fragments inserted in the interaction and in the operands are indexed.
+	 */
+	@Test
+	public void testInsert() {
+		for (int step = 0; step < STEPS; step++) {
+			final List<InteractionFragment> fragments = getFragments(getRandomContainer());
+			fragments.add(random.nextInt(fragments.size() + 1), createFragment(1));
+			assertIndexMatchesWalk();
+		}
+	}
+
+	/**
+	 * The fragments moved in their container are reordered.
+	 */
+	@Test
+	public void testMove() {
+		for (int step = 0; step < STEPS; step++) {
+			final EList<InteractionFragment> fragments = getFragments(getRandomContainer());
+			if (!fragments.isEmpty()) {
+				fragments.move(random.nextInt(fragments.size()), random.nextInt(fragments.size()));
+				assertIndexMatchesWalk();
+			}
+		}
+	}
+
+	/**
+	 * The fragments moved to another container, with their nested fragments, are reordered.
+	 */
+	@Test
+	public void testMoveToAnotherContainer() {
+		for (int step = 0; step < STEPS; step++) {
+			final InteractionFragment source = getRandomContainer();
+			final InteractionFragment target = getRandomContainer();
+			final List<InteractionFragment> sourceFragments = getFragments(source);
+			if (!sourceFragments.isEmpty()) {
+				final InteractionFragment fragment = sourceFragments.get(random.nextInt(sourceFragments.size()));
+				if (!EcoreUtil.isAncestor(fragment, target)) {
+					final List<InteractionFragment> targetFragments = getFragments(target);
+					targetFragments.add(random.nextInt(targetFragments.size() + 1), fragment);
+					assertIndexMatchesWalk();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The removed fragments, with their nested fragments and their annotations, are no longer indexed.
+	 */
+	@Test
+	public void testRemove() {
+		while (!interaction.getFragments().isEmpty()) {
+			final List<InteractionFragment> fragments = getFragments(getRandomContainer());
+			if (!fragments.isEmpty()) {
+				final InteractionFragment removed = fragments.remove(random.nextInt(fragments.size()));
+				assertIndexMatchesWalk();
+				assertEquals(-1, index.indexOf(removed, interaction));
+				for (final EAnnotation annotation : removed.getEAnnotations()) {
+					assertEquals(-1, index.indexOf(annotation, interaction));
+				}
+			}
+		}
+		assertEquals(0, index.getFragmentsAndAnnotation(interaction).size());
+	}
+
+	/**
+	 * The ordering annotations added or removed, and the renamed fragments whose annotations no longer match, change
+	 * the order.
+	 */
+	@Test
+	public void testAnnotationsAndNames() {
+		for (int step = 0; step < STEPS; step++) {
+			final InteractionFragment container = getRandomContainer();
+			final List<InteractionFragment> fragments = getFragments(container);
+			final InteractionFragment element = fragments.isEmpty() || random.nextInt(4) == 0 ? container : fragments.get(random.nextInt(fragments.size()));
+			switch (random.nextInt(3)) {
+			case 0:
+				addOrderingAnnotation(element);
+				break;
+			case 1:
+				if (!element.getEAnnotations().isEmpty()) {
+					element.getEAnnotations().remove(random.nextInt(element.getEAnnotations().size()));
+				}
+				break;
+			default:
+				element.setName(nextName());
+				break;
+			}
+			assertIndexMatchesWalk();
+		}
+	}
+
+	/**
+	 * Check the order, the positions and the ordering ends answered by the index for the interaction, for each operand
+	 * and for each combined fragment.
+	 */
+	private void assertIndexMatchesWalk() {
+		for (final InteractionFragment container : getContainers()) {
+			final List<EObject> expected = new ArrayList<>();
+			walkFragmentsAndAnnotations(getFragments(container), expected);
+			assertEquals(expected, index.getFragmentsAndAnnotation(container));
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(i, index.indexOf(expected.get(i), container));
+			}
+			assertEquals(walkFragmentsOrderingEnds(container), index.getFragmentsOrderingEnds(container));
+			for (final InteractionFragment fragment : getFragments(container)) {
+				if (fragment instanceof CombinedFragment) {
+					assertEquals(walkFragmentsOrderingEnds(fragment), index.getFragmentsOrderingEnds(fragment));
+				}
+			}
+		}
+	}
+
+	/**
+	 * The linear walk of <code>FragmentsService.getFragmentsAndAnnotation</code>.
+	 *
+	 * @param fragments
+	 *            the fragments of the interaction or of an operand
+	 * @param results
+	 *            the fragments and annotations
+	 */
+	private static void walkFragmentsAndAnnotations(final List<InteractionFragment> fragments, final List<EObject> results) {
+		for (final InteractionFragment fragment : fragments) {
+			if (fragment instanceof CombinedFragment) {
+				addAnnotations(fragment, START, results);
+				addFragment(fragment, results);
+				addAnnotations(fragment, END, results);
+				for (final InteractionOperand operand : ((CombinedFragment) fragment).getOperands()) {
+					walkFragmentsAndAnnotations(operand.getFragments(), results);
+				}
+			} else {
+				addFragment(fragment, results);
+			}
+		}
+	}
+
+	/**
+	 * The linear walk of <code>FragmentsService.getFragmentsOrderingEnds</code>.
+	 *
+	 * @param root
+	 *            the interaction, a combined fragment or an operand
+	 * @return
+	 *         the ordering ends
+	 */
+	private static List<EObject> walkFragmentsOrderingEnds(final InteractionFragment root) {
+		final List<EObject> results = new ArrayList<>();
+		if (root instanceof Interaction) {
+			for (final InteractionFragment fragment : ((Interaction) root).getFragments()) {
+				if (fragment instanceof CombinedFragment) {
+					addAnnotations(fragment, START, results);
+				}
+				addFragment(fragment, results);
+				if (fragment instanceof CombinedFragment) {
+					results.addAll(walkFragmentsOrderingEnds(fragment));
+					addAnnotations(fragment, END, results);
+				}
+			}
+		} else if (root instanceof InteractionOperand) {
+			addAnnotations(root, START, results);
+			for (final InteractionFragment fragment : ((InteractionOperand) root).getFragments()) {
+				addFragment(fragment, results);
+				if (fragment instanceof CombinedFragment) {
+					results.addAll(walkFragmentsOrderingEnds(fragment));
+				}
+			}
+			addAnnotations(root, END, results);
+		} else if (root instanceof CombinedFragment) {
+			for (final InteractionOperand operand : ((CombinedFragment) root).getOperands()) {
+				results.addAll(walkFragmentsOrderingEnds(operand));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Add a fragment and, for a message end, its lost and found message annotations.
+	 */
+	private static void addFragment(final InteractionFragment fragment, final List<EObject> results) {
+		results.add(fragment);
+		if (fragment instanceof MessageOccurrenceSpecification) {
+			for (final EAnnotation annotation : fragment.getEAnnotations()) {
+				if (annotation.getSource().equals(fragment.getName() + LOST_MESSAGE) || annotation.getSource().equals(fragment.getName() + FOUND_MESSAGE)) {
+					results.add(annotation);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Add the annotations of an element whose source is the name of the element followed by a suffix.
+	 */
+	private static void addAnnotations(final InteractionFragment element, final String suffix, final List<EObject> results) {
+		for (final EAnnotation annotation : element.getEAnnotations()) {
+			if (annotation.getSource().equals(element.getName() + suffix)) {
+				results.add(annotation);
+			}
+		}
+	}
+
+	/**
+	 * Create a random fragment: a combined fragment with operands holding other fragments, a message end or another
+	 * fragment.
+	 *
+	 * @param depth
+	 *            the nesting level of the fragment
+	 * @return
+	 *         the new fragment
+	 */
+	private InteractionFragment createFragment(final int depth) {
+		final int kind = random.nextInt(10);
+		final InteractionFragment fragment;
+		if (kind < 2 && depth < MAX_DEPTH) {
+			final CombinedFragment combinedFragment = UMLFactory.eINSTANCE.createCombinedFragment();
+			combinedFragment.setName(nextName());
+			final int operands = 1 + random.nextInt(3);
+			for (int i = 0; i < operands; i++) {
+				final InteractionOperand operand = combinedFragment.createOperand(nextName());
+				addOrderingAnnotation(operand);
+				final int fragments = random.nextInt(4);
+				for (int j = 0; j < fragments; j++) {
+					operand.getFragments().add(createFragment(depth + 1));
+				}
+			}
+			fragment = combinedFragment;
+		} else if (kind < 6) {
+			fragment = UMLFactory.eINSTANCE.createMessageOccurrenceSpecification();
+			fragment.setName(nextName());
+		} else {
+			fragment = UMLFactory.eINSTANCE.createStateInvariant();
+			fragment.setName(nextName());
+		}
+		addOrderingAnnotation(fragment);
+		return fragment;
+	}
+
+	/**
+	 * Add a random annotation to an element: an ordering annotation of the element, or an annotation ignored by the
+	 * order.
+	 */
+	private void addOrderingAnnotation(final InteractionFragment element) {
+		final String suffix;
+		if (element instanceof CombinedFragment || element instanceof InteractionOperand) {
+			suffix = random.nextBoolean() ? START : END;
+		} else if (element instanceof MessageOccurrenceSpecification) {
+			suffix = random.nextBoolean() ? LOST_MESSAGE : FOUND_MESSAGE;
+		} else {
+			suffix = START;
+		}
+		if (random.nextInt(3) == 0) {
+			element.createEAnnotation("ignored"); //$NON-NLS-1$
+		} else {
+			element.createEAnnotation(element.getName() + suffix);
+		}
+	}
+
+	/**
+	 * @return
+	 *         the interaction or one of its operands
+	 */
+	private InteractionFragment getRandomContainer() {
+		final List<InteractionFragment> containers = getContainers();
+		return containers.get(random.nextInt(containers.size()));
+	}
+
+	/**
+	 * @return
+	 *         the interaction and all its operands
+	 */
+	private List<InteractionFragment> getContainers() {
+		final List<InteractionFragment> containers = new ArrayList<>();
+		containers.add(interaction);
+		for (int i = 0; i < containers.size(); i++) {
+			for (final InteractionFragment fragment : getFragments(containers.get(i))) {
+				if (fragment instanceof CombinedFragment) {
+					containers.addAll(((CombinedFragment) fragment).getOperands());
+				}
+			}
+		}
+		return containers;
+	}
+
+	/**
+	 * @return
+	 *         the fragments of the interaction or of an operand
+	 */
+	private static EList<InteractionFragment> getFragments(final InteractionFragment container) {
+		return container instanceof Interaction ? ((Interaction) container).getFragments() : ((InteractionOperand) container).getFragments();
+	}
+
+	/**
+	 * @return
+	 *         a new element name
+	 */
+	private String nextName() {
+		return "element" + created++; //$NON-NLS-1$
+	}
+}